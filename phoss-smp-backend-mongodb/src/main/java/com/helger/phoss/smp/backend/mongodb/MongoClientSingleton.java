@@ -23,6 +23,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.annotation.Since;
 import com.helger.commons.annotation.UsedViaReflection;
 import com.helger.commons.io.stream.StreamHelper;
 import com.helger.commons.string.StringHelper;
@@ -36,6 +37,10 @@ public class MongoClientSingleton extends AbstractGlobalWebSingleton
 {
   public static final String CONFIG_MONGODB_CONNECTION_STRING = "mongodb.connectionstring";
   public static final String CONFIG_MONGODB_DB_NAME = "mongodb.dbname";
+  @Since ("5.7.0")
+  public static final String CONFIG_MONGODB_CACHE_SG_ENABLED = "mongodb.cache.sg.enabled";
+  @Since ("5.7.0")
+  public static final boolean DEFAULT_MONGODB_CACHE_SG_ENABLED = true;
 
   private static final Logger LOGGER = LoggerFactory.getLogger (MongoClientSingleton.class);
 
@@ -16,11 +16,17 @@
  */
 package com.helger.phoss.smp.backend.mongodb.mgr;
 
+import java.util.List;
+import java.util.Map;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.OverridingMethodsMustInvokeSuper;
 
 import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.Nonempty;
@@ -31,6 +37,7 @@ import com.helger.peppolid.IParticipantIdentifier;
 import com.helger.peppolid.IProcessIdentifier;
 import com.helger.phoss.smp.backend.mongodb.MongoClientSingleton;
 import com.helger.phoss.smp.domain.SMPMetaManager;
+import com.mongodb.MongoException;
 import com.mongodb.client.MongoCollection;
 
 /**
@@ -40,6 +47,8 @@ import com.mongodb.client.MongoCollection;
  */
 public abstract class AbstractManagerMongoDB implements AutoCloseable
 {
+  private static final Logger LOGGER = LoggerFactory.getLogger (AbstractManagerMongoDB.class);
+
   private static final String BSON_SCHEME = "scheme";
   private static final String BSON_VALUE = "value";
 
@@ -74,6 +83,108 @@ public abstract class AbstractManagerMongoDB implements AutoCloseable
     return m_aCollection;
   }
 
+  /**
+   * Ensure that an index with the provided keys exists. This should be called
+   * in the constructor for every query shape used by the manager. If an
+   * identical index already exists, nothing happens.
+   *
+   * @param aKeys
+   *        The index keys, e.g. created via
+   *        {@link com.mongodb.client.model.Indexes}. May not be
+   *        <code>null</code>.
+   */
+  protected final void ensureIndex (@Nonnull final Bson aKeys)
+  {
+    ValueEnforcer.notNull (aKeys, "Keys");
+    m_aCollection.createIndex (aKeys);
+  }
+
+  private static boolean _containsCollectionScan (@Nullable final Object aValue)
+  {
+    if (aValue instanceof Map <?, ?>)
+    {
+      for (final Map.Entry <?, ?> aEntry : ((Map <?, ?>) aValue).entrySet ())
+      {
+        if ("stage".equals (aEntry.getKey ()) && "COLLSCAN".equals (aEntry.getValue ()))
+          return true;
+        if (_containsCollectionScan (aEntry.getValue ()))
+          return true;
+      }
+    }
+    else
+      if (aValue instanceof List <?>)
+      {
+        for (final Object aElement : (List <?>) aValue)
+          if (_containsCollectionScan (aElement))
+            return true;
+      }
+    return false;
+  }
+
+  /**
+   * Check if the query planner would use an index for the provided filter and
+   * emit a warning if a collection scan would be performed instead. This
+   * should be called in the constructor after all indexes were ensured, so
+   * that a missing index is detected at startup and not only under load.
+   *
+   * @param sQueryName
+   *        The name of the query for logging purposes. May not be
+   *        <code>null</code>.
+   * @param aFilter
+   *        The filter as used by the manager, with arbitrary values. May not
+   *        be <code>null</code>.
+   * @return <code>true</code> if the query would use an index,
+   *         <code>false</code> if not or if the query plan could not be
+   *         determined.
+   */
+  protected final boolean checkQueryUsesIndex (@Nonnull @Nonempty final String sQueryName, @Nonnull final Bson aFilter)
+  {
+    ValueEnforcer.notEmpty (sQueryName, "QueryName");
+    ValueEnforcer.notNull (aFilter, "Filter");
+
+    final Document aPlan;
+    try
+    {
+      aPlan = m_aCollection.find (aFilter).explain ();
+    }
+    catch (final MongoException ex)
+    {
+      // E.g. missing permissions
+      LOGGER.warn ("Failed to explain query '" +
+                   sQueryName +
+                   "' on collection '" +
+                   m_sCollectionName +
+                   "': " +
+                   ex.getMessage ());
+      return false;
+    }
+
+    final Object aQueryPlanner = aPlan.get ("queryPlanner");
+    final Object aWinningPlan = aQueryPlanner instanceof Document ? ((Document) aQueryPlanner).get ("winningPlan")
+                                                                   : null;
+    if (aWinningPlan == null)
+    {
+      LOGGER.warn ("Failed to determine the query plan of query '" +
+                   sQueryName +
+                   "' on collection '" +
+                   m_sCollectionName +
+                   "'");
+      return false;
+    }
+    if (_containsCollectionScan (aWinningPlan))
+    {
+      LOGGER.warn ("Query '" +
+                   sQueryName +
+                   "' on collection '" +
+                   m_sCollectionName +
+                   "' is executed as a collection scan. Please check the indexes.");
+      return false;
+    }
+    if (LOGGER.isDebugEnabled ())
+      LOGGER.debug ("Query '" + sQueryName + "' on collection '" + m_sCollectionName + "' uses an index");
+    return true;
+  }
+
   @Nonnull
   @ReturnsMutableCopy
   public static Document toBson (@Nonnull final IIdentifier aValue)
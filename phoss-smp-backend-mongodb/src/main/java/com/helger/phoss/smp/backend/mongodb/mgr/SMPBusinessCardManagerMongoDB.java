@@ -90,7 +90,11 @@ public final class SMPBusinessCardManagerMongoDB extends AbstractManagerMongoDB
   {
     super ("smp-businesscard");
     m_aIdentifierFactory = aIdentifierFactory;
-    getCollection ().createIndex (Indexes.ascending (BSON_ID));
+
+    // All queries are by ID
+    ensureIndex (Indexes.ascending (BSON_ID));
+
+    checkQueryUsesIndex ("by-id", new Document (BSON_ID, "x"));
   }
 
   @Nonnull
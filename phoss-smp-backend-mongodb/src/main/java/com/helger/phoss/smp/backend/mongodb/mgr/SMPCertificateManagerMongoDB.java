@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2019-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.phoss.smp.backend.mongodb.mgr;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bson.Document;
+
+import com.helger.commons.string.StringHelper;
+import com.helger.phoss.smp.security.SMPCertificateCache;
+import com.helger.phoss.smp.security.SMPCertificateHashCache;
+import com.mongodb.client.model.ReplaceOptions;
+
+/**
+ * Manages the collection that contains each distinct endpoint certificate only
+ * once, keyed by the SHA-256 hash of the certificate string. The endpoints only
+ * reference the hash. As the content is addressed by the content, documents
+ * are never modified and can be cached forever. Documents that are no longer
+ * referenced are not deleted, because the same certificate is usually used
+ * again.
+ *
+ * @author Philip Helger
+ * @since 5.7.0
+ */
+public final class SMPCertificateManagerMongoDB extends AbstractManagerMongoDB
+{
+  private static final String BSON_ID = "_id";
+  private static final String BSON_CERTIFICATE = "certificate";
+
+  // Hash to certificate string, only for documents known to exist
+  // Bounded, as certificates may be arbitrarily long
+  private final SMPCertificateHashCache m_aCache = new SMPCertificateHashCache ();
+
+  public SMPCertificateManagerMongoDB ()
+  {
+    super ("smp-certificate");
+  }
+
+  /**
+   * Make sure the provided certificate is contained in the collection.
+   * Certificates that are already cached don't need a DB access.
+   *
+   * @param sCertificate
+   *        The certificate string. May be <code>null</code>.
+   * @return The hash to be stored in the endpoint or <code>null</code> if the
+   *         certificate is <code>null</code>.
+   */
+  @Nullable
+  public String ensureCertificate (@Nullable final String sCertificate)
+  {
+    if (sCertificate == null)
+      return null;
+
+    final String sHash = SMPCertificateCache.getParsedCertificate (sCertificate).getCertificateHash ();
+    if (!m_aCache.containsKey (sHash))
+    {
+      // Upsert, so that concurrent writers don't fail
+      if (!getCollection ().replaceOne (new Document (BSON_ID, sHash),
+                                        new Document (BSON_ID, sHash).append (BSON_CERTIFICATE, sCertificate),
+                                        new ReplaceOptions ().upsert (true))
+                           .wasAcknowledged ())
+        throw new IllegalStateException ("Failed to store certificate in MongoDB Collection");
+      m_aCache.put (sHash, SMPCertificateCache.getInterned (sCertificate));
+    }
+    return sHash;
+  }
+
+  /**
+   * Resolve a certificate hash as stored in the endpoints.
+   *
+   * @param sHash
+   *        The hash to resolve. May be <code>null</code>.
+   * @return <code>null</code> if the hash is <code>null</code> or unknown.
+   */
+  @Nullable
+  public String getCertificateOfHash (@Nullable final String sHash)
+  {
+    if (StringHelper.hasNoText (sHash))
+      return null;
+
+    String ret = m_aCache.get (sHash);
+    if (ret == null)
+    {
+      final Document aDoc = getCollection ().find (new Document (BSON_ID, sHash)).first ();
+      if (aDoc == null)
+        return null;
+
+      ret = SMPCertificateCache.getInterned (aDoc.getString (BSON_CERTIFICATE));
+      if (ret != null)
+        m_aCache.put (sHash, ret);
+    }
+    return ret;
+  }
+
+  /**
+   * @return The number of cached certificates. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getCachedCertificateCount ()
+  {
+    return m_aCache.size ();
+  }
+}
@@ -22,6 +22,8 @@ import javax.annotation.Nullable;
 import com.helger.commons.state.ETriState;
 import com.helger.commons.string.ToStringGenerator;
 import com.helger.peppolid.factory.IIdentifierFactory;
+import com.helger.phoss.smp.SMPServerConfiguration;
+import com.helger.phoss.smp.backend.mongodb.MongoClientSingleton;
 import com.helger.phoss.smp.backend.mongodb.PhotonSecurityManagerFactoryMongoDB;
 import com.helger.phoss.smp.domain.ISMPManagerProvider;
 import com.helger.phoss.smp.domain.businesscard.ISMPBusinessCardManager;
@@ -76,7 +78,11 @@ public final class SMPManagerProviderMongoDB implements ISMPManagerProvider
   @Nonnull
   public ISMPServiceGroupManager createServiceGroupMgr ()
   {
-    return new SMPServiceGroupManagerMongoDB ();
+    final SMPServiceGroupManagerMongoDB ret = new SMPServiceGroupManagerMongoDB ();
+    ret.setCacheEnabled (SMPServerConfiguration.getConfigFile ()
+                                               .getAsBoolean (MongoClientSingleton.CONFIG_MONGODB_CACHE_SG_ENABLED,
+                                                              MongoClientSingleton.DEFAULT_MONGODB_CACHE_SG_ENABLED));
+    return ret;
   }
 
   @Nonnull
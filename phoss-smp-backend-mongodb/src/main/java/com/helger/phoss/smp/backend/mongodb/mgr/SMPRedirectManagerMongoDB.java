@@ -39,6 +39,7 @@ import com.helger.commons.state.EChange;
 import com.helger.commons.string.StringHelper;
 import com.helger.peppolid.IDocumentTypeIdentifier;
 import com.helger.peppolid.factory.IIdentifierFactory;
+import com.helger.peppolid.simple.doctype.SimpleDocumentTypeIdentifier;
 import com.helger.phoss.smp.domain.redirect.ISMPRedirect;
 import com.helger.phoss.smp.domain.redirect.ISMPRedirectCallback;
 import com.helger.phoss.smp.domain.redirect.ISMPRedirectManager;
@@ -78,7 +79,18 @@ public final class SMPRedirectManagerMongoDB extends AbstractManagerMongoDB impl
     super ("smp-redirect");
     m_aIdentifierFactory = aIdentifierFactory;
     m_aServiceGroupMgr = aServiceGroupMgr;
-    getCollection ().createIndex (Indexes.ascending (BSON_ID));
+
+    // One index per query shape. The compound index also serves the queries
+    // by service group only
+    ensureIndex (Indexes.ascending (BSON_ID));
+    ensureIndex (Indexes.ascending (BSON_SERVICE_GROUP_ID, BSON_DOCTYPE_ID));
+
+    checkQueryUsesIndex ("by-id", new Document (BSON_ID, "x"));
+    checkQueryUsesIndex ("by-servicegroup", new Document (BSON_SERVICE_GROUP_ID, "x"));
+    checkQueryUsesIndex ("by-servicegroup-and-doctype",
+                         Filters.and (new Document (BSON_SERVICE_GROUP_ID, "x"),
+                                      new Document (BSON_DOCTYPE_ID,
+                                                    toBson (new SimpleDocumentTypeIdentifier ("x", "x")))));
   }
 
   @Nonnull
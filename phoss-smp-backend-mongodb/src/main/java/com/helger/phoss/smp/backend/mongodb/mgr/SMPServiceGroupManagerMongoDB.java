@@ -16,6 +16,8 @@
  */
 package com.helger.phoss.smp.backend.mongodb.mgr;
 
+import java.util.concurrent.TimeUnit;
+
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -54,6 +56,9 @@ import com.mongodb.client.model.Indexes;
 import com.mongodb.client.model.Updates;
 import com.mongodb.client.result.DeleteResult;
 
+import net.jodah.expiringmap.ExpirationPolicy;
+import net.jodah.expiringmap.ExpiringMap;
+
 /**
  * Implementation of {@link ISMPServiceGroupManager} for the XML backend.
  *
@@ -69,10 +74,34 @@ public final class SMPServiceGroupManagerMongoDB extends AbstractManagerMongoDB
 
   private final CallbackList <ISMPServiceGroupCallback> m_aCBs = new CallbackList <> ();
 
+  private ExpiringMap <String, SMPServiceGroup> m_aCache;
+
   public SMPServiceGroupManagerMongoDB ()
   {
     super ("smp-servicegroup");
-    getCollection ().createIndex (Indexes.ascending (BSON_ID));
+
+    // One index per query shape
+    ensureIndex (Indexes.ascending (BSON_ID));
+    ensureIndex (Indexes.ascending (BSON_OWNER_ID));
+
+    checkQueryUsesIndex ("by-id", new Document (BSON_ID, "x"));
+    checkQueryUsesIndex ("by-owner", new Document (BSON_OWNER_ID, "x"));
+  }
+
+  public boolean isCacheEnabled ()
+  {
+    return m_aCache != null;
+  }
+
+  public void setCacheEnabled (final boolean bEnabled)
+  {
+    if (bEnabled)
+      m_aCache = ExpiringMap.builder ()
+                            .expiration (60, TimeUnit.SECONDS)
+                            .expirationPolicy (ExpirationPolicy.CREATED)
+                            .build ();
+    else
+      m_aCache = null;
   }
 
   @Nonnull
@@ -161,6 +190,9 @@ public final class SMPServiceGroupManagerMongoDB extends AbstractManagerMongoDB
       throw ex;
     }
 
+    if (m_aCache != null)
+      m_aCache.put (aSMPServiceGroup.getID (), aSMPServiceGroup);
+
     AuditHelper.onAuditCreateSuccess (SMPServiceGroup.OT,
                                       aSMPServiceGroup.getID (),
                                       sOwnerID,
@@ -192,6 +224,9 @@ public final class SMPServiceGroupManagerMongoDB extends AbstractManagerMongoDB
                     ")");
 
     final String sServiceGroupID = SMPServiceGroup.createSMPServiceGroupID (aParticipantID);
+    // Remove from cache before and after the modification
+    if (m_aCache != null)
+      m_aCache.remove (sServiceGroupID);
     final Document aOldDoc = getCollection ().findOneAndUpdate (new Document (BSON_ID, sServiceGroupID),
                                                                 Updates.combine (Updates.set (BSON_OWNER_ID,
                                                                                               sNewOwnerID),
@@ -202,6 +237,8 @@ public final class SMPServiceGroupManagerMongoDB extends AbstractManagerMongoDB
       AuditHelper.onAuditModifyFailure (SMPServiceGroup.OT, "set-all", sServiceGroupID, "no-such-id");
       return EChange.UNCHANGED;
     }
+    if (m_aCache != null)
+      m_aCache.remove (sServiceGroupID);
 
     AuditHelper.onAuditModifySuccess (SMPServiceGroup.OT, "set-all", sServiceGroupID, sNewOwnerID, sExtension);
     if (LOGGER.isDebugEnabled ())
@@ -248,6 +285,8 @@ public final class SMPServiceGroupManagerMongoDB extends AbstractManagerMongoDB
     aServiceInfoMgr.deleteAllSMPServiceInformationOfServiceGroup (aServiceGroup);
 
     final String sServiceGroupID = SMPServiceGroup.createSMPServiceGroupID (aParticipantID);
+    if (m_aCache != null)
+      m_aCache.remove (sServiceGroupID);
     final DeleteResult aDR = getCollection ().deleteOne (new Document (BSON_ID, sServiceGroupID));
     if (!aDR.wasAcknowledged () || aDR.getDeletedCount () == 0)
     {
@@ -320,7 +359,17 @@ public final class SMPServiceGroupManagerMongoDB extends AbstractManagerMongoDB
       return null;
 
     final String sID = SMPServiceGroup.createSMPServiceGroupID (aParticipantID);
-    return getCollection ().find (new Document (BSON_ID, sID)).map (SMPServiceGroupManagerMongoDB::toDomain).first ();
+
+    // Use cache
+    SMPServiceGroup ret = m_aCache == null ? null : m_aCache.get (sID);
+    if (ret != null)
+      return ret;
+
+    // Not in cache
+    ret = getCollection ().find (new Document (BSON_ID, sID)).map (SMPServiceGroupManagerMongoDB::toDomain).first ();
+    if (ret != null && m_aCache != null)
+      m_aCache.put (sID, ret);
+    return ret;
   }
 
   public boolean containsSMPServiceGroupWithID (@Nullable final IParticipantIdentifier aParticipantID)
@@ -329,6 +378,11 @@ public final class SMPServiceGroupManagerMongoDB extends AbstractManagerMongoDB
       return false;
 
     final String sID = SMPServiceGroup.createSMPServiceGroupID (aParticipantID);
+
+    // Cache check first
+    if (m_aCache != null && m_aCache.containsKey (sID))
+      return true;
+
     return getCollection ().find (new Document (BSON_ID, sID)).first () != null;
   }
 
@@ -25,6 +25,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,9 +34,12 @@ import com.helger.commons.annotation.ReturnsMutableCopy;
 import com.helger.commons.annotation.ReturnsMutableObject;
 import com.helger.commons.callback.CallbackList;
 import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.CommonsLinkedHashMap;
 import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
 import com.helger.commons.datetime.XMLOffsetDateTime;
-import com.helger.commons.equals.EqualsHelper;
 import com.helger.commons.state.EChange;
 import com.helger.commons.state.ESuccess;
 import com.helger.commons.string.StringHelper;
@@ -44,6 +48,7 @@ import com.helger.peppol.smp.ISMPTransportProfile;
 import com.helger.peppolid.IDocumentTypeIdentifier;
 import com.helger.peppolid.IProcessIdentifier;
 import com.helger.peppolid.factory.IIdentifierFactory;
+import com.helger.peppolid.simple.doctype.SimpleDocumentTypeIdentifier;
 import com.helger.phoss.smp.domain.servicegroup.ISMPServiceGroup;
 import com.helger.phoss.smp.domain.servicegroup.ISMPServiceGroupManager;
 import com.helger.phoss.smp.domain.serviceinfo.ISMPEndpoint;
@@ -54,8 +59,18 @@ import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformationManager;
 import com.helger.phoss.smp.domain.serviceinfo.SMPEndpoint;
 import com.helger.phoss.smp.domain.serviceinfo.SMPProcess;
 import com.helger.phoss.smp.domain.serviceinfo.SMPServiceInformation;
+import com.helger.phoss.smp.domain.serviceinfo.SMPServiceInformationDiff;
 import com.helger.photon.audit.AuditHelper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
 import com.mongodb.client.result.DeleteResult;
 
 /**
@@ -82,12 +97,14 @@ public final class SMPServiceInformationManagerMongoDB extends AbstractManagerMo
   private static final String BSON_SERVICEACTIVATION = "serviceactivation";
   private static final String BSON_SERVICEEXPIRATION = "serviceexpiration";
   private static final String BSON_CERTIFICATE = "certificate";
+  private static final String BSON_CERTIFICATE_HASH = "certificatehash";
   private static final String BSON_SERVICE_DESCRIPTION = "servicedesc";
   private static final String BSON_TECHCONTACTURL = "techcontacturl";
   private static final String BSON_TECHINFOURL = "techinfourl";
 
   private final IIdentifierFactory m_aIdentifierFactory;
   private final ISMPServiceGroupManager m_aServiceGroupMgr;
+  private final SMPCertificateManagerMongoDB m_aCertificateMgr = new SMPCertificateManagerMongoDB ();
   private final CallbackList <ISMPServiceInformationCallback> m_aCBs = new CallbackList <> ();
 
   public SMPServiceInformationManagerMongoDB (@Nonnull final IIdentifierFactory aIdentifierFactory,
@@ -96,6 +113,21 @@ public final class SMPServiceInformationManagerMongoDB extends AbstractManagerMo
     super ("smp-serviceinfo");
     m_aIdentifierFactory = aIdentifierFactory;
     m_aServiceGroupMgr = aServiceGroupMgr;
+
+    // One index per query shape. The compound index also serves the queries
+    // by service group only
+    ensureIndex (Indexes.ascending (BSON_ID));
+    ensureIndex (Indexes.ascending (BSON_SERVICE_GROUP_ID, BSON_DOCTYPE_ID));
+    ensureIndex (Indexes.ascending (BSON_PROCESSES + "." + BSON_ENDPOINTS + "." + BSON_TRANSPORT_PROFILE));
+
+    checkQueryUsesIndex ("by-id", new Document (BSON_ID, "x"));
+    checkQueryUsesIndex ("by-servicegroup", new Document (BSON_SERVICE_GROUP_ID, "x"));
+    checkQueryUsesIndex ("by-servicegroup-and-doctype",
+                         Filters.and (new Document (BSON_SERVICE_GROUP_ID, "x"),
+                                      new Document (BSON_DOCTYPE_ID,
+                                                    toBson (new SimpleDocumentTypeIdentifier ("x", "x")))));
+    checkQueryUsesIndex ("by-transportprofile",
+                         new Document (BSON_PROCESSES + "." + BSON_ENDPOINTS + "." + BSON_TRANSPORT_PROFILE, "x"));
   }
 
   @Nonnull
@@ -209,10 +241,59 @@ public final class SMPServiceInformationManagerMongoDB extends AbstractManagerMo
     return ret;
   }
 
+  @Nonnull
+  private static Iterable <Document> _getAllEndpointDocs (@Nonnull final Document aDoc)
+  {
+    final ICommonsList <Document> ret = new CommonsArrayList <> ();
+    final List <Document> aProcessDocs = aDoc.getList (BSON_PROCESSES, Document.class);
+    if (aProcessDocs != null)
+      for (final Document aDocP : aProcessDocs)
+      {
+        final List <Document> aEndpointDocs = aDocP.getList (BSON_ENDPOINTS, Document.class);
+        if (aEndpointDocs != null)
+          ret.addAll (aEndpointDocs);
+      }
+    return ret;
+  }
+
+  /**
+   * Convert the service information to a document and replace all endpoint
+   * certificates with a reference to the certificate collection, so that each
+   * distinct certificate is only stored once.
+   *
+   * @param aValue
+   *        The service information to convert. May not be <code>null</code>.
+   * @return The document to be stored. Never <code>null</code>.
+   */
+  @Nonnull
+  private Document _toStoredBson (@Nonnull final ISMPServiceInformation aValue)
+  {
+    final Document ret = toBson (aValue);
+    for (final Document aDocEP : _getAllEndpointDocs (ret))
+    {
+      final String sCertificate = (String) aDocEP.remove (BSON_CERTIFICATE);
+      if (sCertificate != null)
+        aDocEP.append (BSON_CERTIFICATE_HASH, m_aCertificateMgr.ensureCertificate (sCertificate));
+    }
+    return ret;
+  }
+
   @Nonnull
   @ReturnsMutableCopy
   public SMPServiceInformation toServiceInformation (@Nonnull final Document aDoc, final boolean bNeedProcesses)
   {
+    if (bNeedProcesses)
+    {
+      // Resolve certificate references. Documents written by older versions
+      // contain the certificate itself
+      for (final Document aDocEP : _getAllEndpointDocs (aDoc))
+      {
+        final String sHash = aDocEP.getString (BSON_CERTIFICATE_HASH);
+        if (sHash != null)
+          aDocEP.put (BSON_CERTIFICATE, m_aCertificateMgr.getCertificateOfHash (sHash));
+      }
+    }
+
     final ISMPServiceGroup aServiceGroup = m_aServiceGroupMgr.getSMPServiceGroupOfID (m_aIdentifierFactory.parseParticipantIdentifier (aDoc.getString (BSON_SERVICE_GROUP_ID)));
     final IDocumentTypeIdentifier aDocTypeID = toDocumentTypeID (aDoc.get (BSON_DOCTYPE_ID, Document.class));
     final ICommonsList <SMPProcess> aProcesses = new CommonsArrayList <> ();
@@ -250,89 +331,182 @@ public final class SMPServiceInformationManagerMongoDB extends AbstractManagerMo
     return null;
   }
 
+  /**
+   * Create the update of all top-level fields that differ between the stored
+   * and the new version of a service information.
+   *
+   * @param aOld
+   *        The stored version. May not be <code>null</code>.
+   * @param aNew
+   *        The new version. May not be <code>null</code>.
+   * @return <code>null</code> if both versions have the same content.
+   */
+  @Nullable
+  private Bson _createUpdate (@Nonnull final ISMPServiceInformation aOld, @Nonnull final ISMPServiceInformation aNew)
+  {
+    final SMPServiceInformationDiff aDiff = SMPServiceInformationDiff.create (aOld, aNew);
+    if (aDiff.isEmpty ())
+      return null;
+
+    final ICommonsList <Bson> aUpdates = new CommonsArrayList <> ();
+    if (aDiff.isExtensionChanged ())
+    {
+      if (aNew.getExtensions ().extensions ().isNotEmpty ())
+        aUpdates.add (Updates.set (BSON_EXTENSIONS, aNew.getExtensions ().getExtensionsAsJsonString ()));
+      else
+        aUpdates.add (Updates.unset (BSON_EXTENSIONS));
+    }
+    if (aDiff.isProcessesChanged ())
+    {
+      final Object aProcesses = _toStoredBson (aNew).get (BSON_PROCESSES);
+      if (aProcesses != null)
+        aUpdates.add (Updates.set (BSON_PROCESSES, aProcesses));
+      else
+        aUpdates.add (Updates.unset (BSON_PROCESSES));
+    }
+    return Updates.combine (aUpdates);
+  }
+
+  private void _onMerged (@Nonnull final ISMPServiceInformation aSMPServiceInformation, final boolean bUpdated)
+  {
+    if (bUpdated)
+    {
+      AuditHelper.onAuditModifySuccess (SMPServiceInformation.OT,
+                                        "set-all",
+                                        aSMPServiceInformation.getID (),
+                                        aSMPServiceInformation.getServiceGroupID (),
+                                        aSMPServiceInformation.getDocumentTypeIdentifier ().getURIEncoded (),
+                                        aSMPServiceInformation.getAllProcesses (),
+                                        aSMPServiceInformation.getExtensions ().getExtensionsAsJsonString ());
+      m_aCBs.forEach (x -> x.onSMPServiceInformationUpdated (aSMPServiceInformation));
+    }
+    else
+    {
+      AuditHelper.onAuditCreateSuccess (SMPServiceInformation.OT,
+                                        aSMPServiceInformation.getID (),
+                                        aSMPServiceInformation.getServiceGroupID (),
+                                        aSMPServiceInformation.getDocumentTypeIdentifier ().getURIEncoded (),
+                                        aSMPServiceInformation.getAllProcesses (),
+                                        aSMPServiceInformation.getExtensions ().getExtensionsAsJsonString ());
+      m_aCBs.forEach (x -> x.onSMPServiceInformationCreated (aSMPServiceInformation));
+    }
+  }
+
   @Nonnull
-  public ESuccess mergeSMPServiceInformation (@Nonnull final ISMPServiceInformation aSMPServiceInformationObj)
+  public ESuccess mergeSMPServiceInformation (@Nonnull final ISMPServiceInformation aSMPServiceInformation)
   {
-    final SMPServiceInformation aSMPServiceInformation = (SMPServiceInformation) aSMPServiceInformationObj;
     ValueEnforcer.notNull (aSMPServiceInformation, "ServiceInformation");
 
     if (LOGGER.isDebugEnabled ())
-      LOGGER.debug ("mergeSMPServiceInformation (" + aSMPServiceInformationObj + ")");
+      LOGGER.debug ("mergeSMPServiceInformation (" + aSMPServiceInformation + ")");
 
-    // Check for an update
-    boolean bChangedExisting = false;
+    // The old version is always read from the DB, so this also works if the
+    // provided object was modified in place
     final ISMPServiceInformation aOldInformation = getSMPServiceInformationOfServiceGroupAndDocumentType (aSMPServiceInformation.getServiceGroup (),
                                                                                                           aSMPServiceInformation.getDocumentTypeIdentifier ());
     if (aOldInformation != null)
     {
-      // If a service information is present, it must be the provided object!
-      // This is not true for the REST API
-      if (EqualsHelper.identityEqual (aOldInformation, aSMPServiceInformation))
-        bChangedExisting = true;
-    }
-
-    if (bChangedExisting)
-    {
-      // Edit existing
-      getCollection ().replaceOne (new Document (BSON_ID, aOldInformation.getID ()), toBson (aSMPServiceInformation));
+      // Only write the changed fields
+      final Bson aUpdate = _createUpdate (aOldInformation, aSMPServiceInformation);
+      if (aUpdate == null)
+      {
+        if (LOGGER.isDebugEnabled ())
+          LOGGER.debug ("mergeSMPServiceInformation - success - unchanged");
+        return ESuccess.SUCCESS;
+      }
 
-      AuditHelper.onAuditModifySuccess (SMPServiceInformation.OT,
-                                        "set-all",
-                                        aOldInformation.getID (),
-                                        aOldInformation.getServiceGroupID (),
-                                        aOldInformation.getDocumentTypeIdentifier ().getURIEncoded (),
-                                        aOldInformation.getAllProcesses (),
-                                        aOldInformation.getExtensions ().getExtensionsAsJsonString ());
+      if (!getCollection ().updateOne (new Document (BSON_ID, aOldInformation.getID ()), aUpdate).wasAcknowledged ())
+        throw new IllegalStateException ("Failed to update MongoDB Collection");
 
       if (LOGGER.isDebugEnabled ())
         LOGGER.debug ("mergeSMPServiceInformation - success - updated");
-
-      m_aCBs.forEach (x -> x.onSMPServiceInformationUpdated (aSMPServiceInformation));
     }
     else
     {
-      // (Optionally delete the old one and) create the new one
-      boolean bRemovedOld = false;
+      if (!getCollection ().insertOne (_toStoredBson (aSMPServiceInformation)).wasAcknowledged ())
+        throw new IllegalStateException ("Failed to insert into MongoDB Collection");
+
+      if (LOGGER.isDebugEnabled ())
+        LOGGER.debug ("mergeSMPServiceInformation - success - created");
+    }
+
+    _onMerged (aSMPServiceInformation, aOldInformation != null);
+    return ESuccess.SUCCESS;
+  }
+
+  @Nonnull
+  @Override
+  public ESuccess mergeAllSMPServiceInformation (@Nonnull final Iterable <? extends ISMPServiceInformation> aServiceInformations)
+  {
+    ValueEnforcer.notNull (aServiceInformations, "ServiceInformations");
+
+    if (LOGGER.isDebugEnabled ())
+      LOGGER.debug ("mergeAllSMPServiceInformation (" + aServiceInformations + ")");
+
+    final ICommonsList <WriteModel <Document>> aWrites = new CommonsArrayList <> ();
+    // The audit and callback action per write, with the same index
+    final ICommonsList <Runnable> aOnMerged = new CommonsArrayList <> ();
+    // Handle the same service group and document type more than once
+    final ICommonsMap <String, ISMPServiceInformation> aPending = new CommonsHashMap <> ();
+    for (final ISMPServiceInformation aSMPServiceInformation : aServiceInformations)
+    {
+      ValueEnforcer.notNull (aSMPServiceInformation, "ServiceInformation");
+
+      final String sKey = aSMPServiceInformation.getServiceGroupID () +
+                          ' ' +
+                          aSMPServiceInformation.getDocumentTypeIdentifier ().getURIEncoded ();
+      ISMPServiceInformation aOldInformation = aPending.get (sKey);
+      if (aOldInformation == null)
+        aOldInformation = getSMPServiceInformationOfServiceGroupAndDocumentType (aSMPServiceInformation.getServiceGroup (),
+                                                                                 aSMPServiceInformation.getDocumentTypeIdentifier ());
+
       if (aOldInformation != null)
       {
-        // Delete only if present
-        final DeleteResult aDR = getCollection ().deleteOne (new Document (BSON_ID, aOldInformation.getID ()));
-        bRemovedOld = aDR.wasAcknowledged () && aDR.getDeletedCount () > 0;
+        // Only write the changed fields
+        final Bson aUpdate = _createUpdate (aOldInformation, aSMPServiceInformation);
+        if (aUpdate != null)
+        {
+          aWrites.add (new UpdateOneModel <> (new Document (BSON_ID, aOldInformation.getID ()), aUpdate));
+          aOnMerged.add ( () -> _onMerged (aSMPServiceInformation, true));
+        }
+      }
+      else
+      {
+        aWrites.add (new InsertOneModel <> (_toStoredBson (aSMPServiceInformation)));
+        aOnMerged.add ( () -> _onMerged (aSMPServiceInformation, false));
       }
+      aPending.put (sKey, aSMPServiceInformation);
+    }
 
-      if (!getCollection ().insertOne (toBson (aSMPServiceInformation)).wasAcknowledged ())
-        throw new IllegalStateException ("Failed to insert into MongoDB Collection");
-
-      if (bRemovedOld)
+    if (aWrites.isNotEmpty ())
+    {
+      // One round trip for all elements
+      final BulkWriteResult aResult;
+      try
       {
-        AuditHelper.onAuditDeleteSuccess (SMPServiceInformation.OT,
-                                          aOldInformation.getID (),
-                                          aOldInformation.getServiceGroupID (),
-                                          aOldInformation.getDocumentTypeIdentifier ().getURIEncoded ());
+        aResult = getCollection ().bulkWrite (aWrites, new BulkWriteOptions ().ordered (true));
       }
-      else
-        if (aOldInformation != null)
-        {
-          AuditHelper.onAuditDeleteFailure (SMPServiceInformation.OT,
-                                            aOldInformation.getID (),
-                                            aOldInformation.getServiceGroupID (),
-                                            aOldInformation.getDocumentTypeIdentifier ().getURIEncoded ());
-        }
+      catch (final MongoBulkWriteException ex)
+      {
+        // Ordered writes stop at the first error, but the previous writes are
+        // kept. Audit them and notify the callbacks, so that the caches are
+        // not outdated.
+        final int nApplied = ex.getWriteErrors ().isEmpty () ? aWrites.size ()
+                                                             : ex.getWriteErrors ().get (0).getIndex ();
+        LOGGER.error ("Bulk write failed after " + nApplied + " of " + aWrites.size () + " elements were written");
+        for (int i = 0; i < nApplied; ++i)
+          aOnMerged.get (i).run ();
+        throw ex;
+      }
+      if (!aResult.wasAcknowledged ())
+        throw new IllegalStateException ("Failed to bulk write into MongoDB Collection");
+    }
 
-      AuditHelper.onAuditCreateSuccess (SMPServiceInformation.OT,
-                                        aSMPServiceInformation.getID (),
-                                        aSMPServiceInformation.getServiceGroupID (),
-                                        aSMPServiceInformation.getDocumentTypeIdentifier ().getURIEncoded (),
-                                        aSMPServiceInformation.getAllProcesses (),
-                                        aSMPServiceInformation.getExtensions ().getExtensionsAsJsonString ());
-      if (LOGGER.isDebugEnabled ())
-        LOGGER.debug ("mergeSMPServiceInformation - success - created");
+    aOnMerged.forEach (Runnable::run);
+
+    if (LOGGER.isDebugEnabled ())
+      LOGGER.debug ("mergeAllSMPServiceInformation - success - " + aOnMerged.size () + " elements written");
 
-      if (bChangedExisting)
-        m_aCBs.forEach (x -> x.onSMPServiceInformationUpdated (aSMPServiceInformation));
-      else
-        m_aCBs.forEach (x -> x.onSMPServiceInformationCreated (aSMPServiceInformation));
-    }
     return ESuccess.SUCCESS;
   }
 
@@ -417,7 +591,7 @@ public final class SMPServiceInformationManagerMongoDB extends AbstractManagerMo
 
     // Save new one
     getCollection ().replaceOne (new Document (BSON_ID, aSMPServiceInformation.getID ()),
-                                 toBson (aRealServiceInformation));
+                                 _toStoredBson (aRealServiceInformation));
 
     AuditHelper.onAuditDeleteSuccess (SMPServiceInformation.OT,
                                       aSMPServiceInformation.getID (),
@@ -467,6 +641,34 @@ public final class SMPServiceInformationManagerMongoDB extends AbstractManagerMo
     return ret;
   }
 
+  @Nonnull
+  @ReturnsMutableCopy
+  @Override
+  public ICommonsOrderedMap <IDocumentTypeIdentifier, Integer> getAllSMPDocumentTypesAndEndpointCountOfServiceGroup (@Nullable final ISMPServiceGroup aServiceGroup)
+  {
+    final ICommonsOrderedMap <IDocumentTypeIdentifier, Integer> ret = new CommonsLinkedHashMap <> ();
+    if (aServiceGroup != null)
+    {
+      // Only read what is needed for counting
+      getCollection ().find (new Document (BSON_SERVICE_GROUP_ID, aServiceGroup.getID ()))
+                      .projection (Projections.include (BSON_DOCTYPE_ID,
+                                                        BSON_PROCESSES + "." + BSON_ENDPOINTS + "." + BSON_TRANSPORT_PROFILE))
+                      .forEach ((Consumer <Document>) x -> {
+                        int nEndpoints = 0;
+                        final List <Document> aProcessDocs = x.getList (BSON_PROCESSES, Document.class);
+                        if (aProcessDocs != null)
+                          for (final Document aDocP : aProcessDocs)
+                          {
+                            final List <Document> aEndpointDocs = aDocP.getList (BSON_ENDPOINTS, Document.class);
+                            if (aEndpointDocs != null)
+                              nEndpoints += aEndpointDocs.size ();
+                          }
+                        ret.put (toDocumentTypeID (x.get (BSON_DOCTYPE_ID, Document.class)), Integer.valueOf (nEndpoints));
+                      });
+    }
+    return ret;
+  }
+
   @Nullable
   public ISMPServiceInformation getSMPServiceInformationOfServiceGroupAndDocumentType (@Nullable final ISMPServiceGroup aServiceGroup,
                                                                                        @Nullable final IDocumentTypeIdentifier aDocumentTypeIdentifier)
@@ -16,7 +16,7 @@
  */
 package com.helger.phoss.smp.backend.mongodb.mgr;
 
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -26,12 +26,14 @@ import org.bson.Document;
 import com.helger.commons.annotation.ReturnsMutableCopy;
 import com.helger.commons.annotation.ReturnsMutableObject;
 import com.helger.commons.callback.CallbackList;
+import com.helger.commons.concurrent.SimpleLock;
 import com.helger.commons.state.EChange;
 import com.helger.phoss.smp.SMPServerConfiguration;
 import com.helger.phoss.smp.settings.ISMPSettings;
 import com.helger.phoss.smp.settings.ISMPSettingsCallback;
 import com.helger.phoss.smp.settings.ISMPSettingsManager;
 import com.helger.phoss.smp.settings.SMPSettings;
+import com.mongodb.client.model.ReplaceOptions;
 
 /**
  * Implementation of {@link ISMPSettingsManager} for MongoDB
@@ -52,9 +54,12 @@ public class SMPSettingsManagerMongoDB extends AbstractManagerMongoDB implements
   private static final String BSON_SML_ENABLED = "sml-enabled";
   private static final String BSON_SML_INFO_ID = "smlinfo-id";
 
-  private final SMPSettings m_aSettings = new SMPSettings ();
   private final CallbackList <ISMPSettingsCallback> m_aCallbacks = new CallbackList <> ();
-  private final AtomicBoolean m_aInsertDocument = new AtomicBoolean ();
+  private final SimpleLock m_aLock = new SimpleLock ();
+  private final long m_nRefreshNanos;
+  // Never modified after it was published - always replaced as a whole
+  private volatile SMPSettings m_aSettings;
+  private volatile long m_nReadNanos;
 
   @Nonnull
   @ReturnsMutableCopy
@@ -94,10 +99,53 @@ public class SMPSettingsManagerMongoDB extends AbstractManagerMongoDB implements
   public SMPSettingsManagerMongoDB ()
   {
     super ("smp-settings");
+    m_nRefreshNanos = TimeUnit.SECONDS.toNanos (Math.max (0, SMPServerConfiguration.getSettingsRefreshSeconds ()));
+    m_aSettings = _readSettings ();
+    m_nReadNanos = System.nanoTime ();
+  }
+
+  @Nonnull
+  private SMPSettings _readSettings ()
+  {
+    final SMPSettings ret = new SMPSettings ();
     final Document aDoc = getCollection ().find (new Document (BSON_ID, ID_SETTINGS)).first ();
     if (aDoc != null)
-      toDomain (aDoc, m_aSettings);
-    m_aInsertDocument.set (aDoc == null);
+      toDomain (aDoc, ret);
+    return ret;
+  }
+
+  /**
+   * Re-read the settings if the refresh interval elapsed, so that changes of
+   * other SMP instances become visible. The callbacks are invoked if the
+   * settings changed.
+   */
+  private void _refreshIfOutdated ()
+  {
+    SMPSettings aChanged = null;
+    m_aLock.lock ();
+    try
+    {
+      // Another thread may have refreshed in the meantime
+      if (System.nanoTime () - m_nReadNanos > m_nRefreshNanos)
+      {
+        final SMPSettings aOld = m_aSettings;
+        final SMPSettings aNew = _readSettings ();
+        m_aSettings = aNew;
+        m_nReadNanos = System.nanoTime ();
+        if (!toBson (aOld).equals (toBson (aNew)))
+          aChanged = aNew;
+      }
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+
+    if (aChanged != null)
+    {
+      final ISMPSettings aSettings = aChanged;
+      m_aCallbacks.forEach (x -> x.onSMPSettingsChanged (aSettings));
+    }
   }
 
   @Nonnull
@@ -110,6 +158,8 @@ public class SMPSettingsManagerMongoDB extends AbstractManagerMongoDB implements
   @Nonnull
   public ISMPSettings getSettings ()
   {
+    if (m_nRefreshNanos > 0 && System.nanoTime () - m_nReadNanos > m_nRefreshNanos)
+      _refreshIfOutdated ();
     return m_aSettings;
   }
 
@@ -123,33 +173,44 @@ public class SMPSettingsManagerMongoDB extends AbstractManagerMongoDB implements
                                  final boolean bSMLRequired,
                                  @Nullable final String sSMLInfoID)
   {
-    EChange eChange = EChange.UNCHANGED;
-    eChange = eChange.or (m_aSettings.setRESTWritableAPIDisabled (bRESTWritableAPIDisabled));
-    eChange = eChange.or (m_aSettings.setDirectoryIntegrationEnabled (bDirectoryIntegrationEnabled));
-    eChange = eChange.or (m_aSettings.setDirectoryIntegrationRequired (bDirectoryIntegrationRequired));
-    eChange = eChange.or (m_aSettings.setDirectoryIntegrationAutoUpdate (bDirectoryIntegrationAutoUpdate));
-    eChange = eChange.or (m_aSettings.setDirectoryHostName (sDirectoryHostName));
-    eChange = eChange.or (m_aSettings.setSMLEnabled (bSMLEnabled));
-    eChange = eChange.or (m_aSettings.setSMLRequired (bSMLRequired));
-    eChange = eChange.or (m_aSettings.setSMLInfoID (sSMLInfoID));
-    if (eChange.isChanged ())
+    final SMPSettings aNewSettings;
+    m_aLock.lock ();
+    try
     {
-      final Document aDoc = toBson (m_aSettings);
-      if (m_aInsertDocument.getAndSet (false))
-      {
-        if (!getCollection ().insertOne (aDoc).wasAcknowledged ())
-          throw new IllegalStateException ("Failed to insert into MongoDB Collection");
-      }
-      else
-      {
-        if (!getCollection ().replaceOne (new Document (BSON_ID, ID_SETTINGS), aDoc).wasAcknowledged ())
-          throw new IllegalStateException ("Failed to replace in MongoDB Collection");
-      }
+      // Modify a copy, so that readers never see partial changes
+      aNewSettings = new SMPSettings ();
+      toDomain (toBson (m_aSettings), aNewSettings);
+
+      EChange eChange = EChange.UNCHANGED;
+      eChange = eChange.or (aNewSettings.setRESTWritableAPIDisabled (bRESTWritableAPIDisabled));
+      eChange = eChange.or (aNewSettings.setDirectoryIntegrationEnabled (bDirectoryIntegrationEnabled));
+      eChange = eChange.or (aNewSettings.setDirectoryIntegrationRequired (bDirectoryIntegrationRequired));
+      eChange = eChange.or (aNewSettings.setDirectoryIntegrationAutoUpdate (bDirectoryIntegrationAutoUpdate));
+      eChange = eChange.or (aNewSettings.setDirectoryHostName (sDirectoryHostName));
+      eChange = eChange.or (aNewSettings.setSMLEnabled (bSMLEnabled));
+      eChange = eChange.or (aNewSettings.setSMLRequired (bSMLRequired));
+      eChange = eChange.or (aNewSettings.setSMLInfoID (sSMLInfoID));
+      if (eChange.isUnchanged ())
+        return EChange.UNCHANGED;
+
+      // Upsert, in case another instance created the document in the meantime
+      if (!getCollection ().replaceOne (new Document (BSON_ID, ID_SETTINGS),
+                                        toBson (aNewSettings),
+                                        new ReplaceOptions ().upsert (true))
+                           .wasAcknowledged ())
+        throw new IllegalStateException ("Failed to replace in MongoDB Collection");
 
-      // Invoke callbacks
-      m_aCallbacks.forEach (x -> x.onSMPSettingsChanged (m_aSettings));
+      m_aSettings = aNewSettings;
+      m_nReadNanos = System.nanoTime ();
     }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+
+    // Invoke callbacks
+    m_aCallbacks.forEach (x -> x.onSMPSettingsChanged (aNewSettings));
 
-    return eChange;
+    return EChange.CHANGED;
   }
 }
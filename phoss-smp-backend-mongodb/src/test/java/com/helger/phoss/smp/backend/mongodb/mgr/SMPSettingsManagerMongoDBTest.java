@@ -50,9 +50,11 @@ public final class SMPSettingsManagerMongoDBTest
 
     try (final SMPSettingsManagerMongoDB aMgr = new SMPSettingsManagerMongoDB ())
     {
-      final ISMPSettings aSettings = aMgr.getSettings ();
+      ISMPSettings aSettings = aMgr.getSettings ();
       assertNotNull (aSettings);
       aMgr.updateSettings (true, true, true, true, "v1", true, true, aSMLInfo.getID ());
+      // Settings are immutable snapshots
+      aSettings = aMgr.getSettings ();
       assertTrue (aSettings.isRESTWritableAPIDisabled ());
       assertTrue (aSettings.isDirectoryIntegrationRequired ());
       assertTrue (aSettings.isDirectoryIntegrationEnabled ());
@@ -62,7 +64,10 @@ public final class SMPSettingsManagerMongoDBTest
       assertTrue (aSettings.isSMLEnabled ());
       assertEquals (aSMLInfo, aSettings.getSMLInfo ());
 
+      final ISMPSettings aOldSettings = aSettings;
       aMgr.updateSettings (false, false, false, false, "v2", false, false, aSMLInfo.getID ());
+      assertEquals ("v1", aOldSettings.getDirectoryHostName ());
+      aSettings = aMgr.getSettings ();
       assertFalse (aSettings.isRESTWritableAPIDisabled ());
       assertFalse (aSettings.isDirectoryIntegrationRequired ());
       assertFalse (aSettings.isDirectoryIntegrationEnabled ());
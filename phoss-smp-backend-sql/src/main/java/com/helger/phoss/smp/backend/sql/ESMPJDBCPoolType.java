@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2019-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.phoss.smp.backend.sql;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.id.IHasID;
+import com.helger.commons.lang.EnumHelper;
+import com.helger.commons.name.IHasDisplayName;
+
+/**
+ * JDBC connection pool implementations that can be used by
+ * {@link SMPDataSourceProvider}.
+ *
+ * @author Philip Helger
+ * @since 5.7.0
+ */
+public enum ESMPJDBCPoolType implements IHasID <String>, IHasDisplayName
+{
+  DBCP ("dbcp", "Apache Commons DBCP"),
+  HIKARI ("hikari", "HikariCP");
+
+  private final String m_sID;
+  private final String m_sDisplayName;
+
+  ESMPJDBCPoolType (@Nonnull @Nonempty final String sID, @Nonnull @Nonempty final String sDisplayName)
+  {
+    m_sID = sID;
+    m_sDisplayName = sDisplayName;
+  }
+
+  @Nonnull
+  @Nonempty
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  @Nonnull
+  @Nonempty
+  public String getDisplayName ()
+  {
+    return m_sDisplayName;
+  }
+
+  @Nullable
+  public static ESMPJDBCPoolType getFromIDOrNull (@Nullable final String sID)
+  {
+    return EnumHelper.getFromIDCaseInsensitiveOrNull (ESMPJDBCPoolType.class, sID);
+  }
+}
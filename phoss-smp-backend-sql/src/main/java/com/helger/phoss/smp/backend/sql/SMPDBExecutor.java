@@ -18,21 +18,43 @@ package com.helger.phoss.smp.backend.sql;
 
 import java.util.function.Function;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.callback.exception.IExceptionCallback;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.functional.IThrowingRunnable;
 import com.helger.commons.regex.RegExHelper;
+import com.helger.commons.state.ESuccess;
+import com.helger.commons.statistics.IMutableStatisticsHandlerCounter;
+import com.helger.commons.statistics.StatisticsManager;
 import com.helger.commons.string.StringHelper;
+import com.helger.db.jdbc.IHasConnection;
 import com.helger.db.jdbc.executor.DBExecutor;
 import com.helger.phoss.smp.SMPServerConfiguration;
 import com.helger.settings.exchange.configfile.ConfigFile;
 
 /**
- * The SMP specific DB Executor
+ * The SMP specific DB Executor.<br>
+ * Since 5.7.0 it acts as a unit of work: while a transaction is running, the
+ * executor is bound to the current thread and all nested operations obtained
+ * via {@link #getCurrentOrNew()} use the same connection and transaction. A
+ * nested transaction does not commit on its own - if it fails, the outermost
+ * transaction is rolled back.
+ * <br>
+ * Since 5.7.0 read-only operations can be routed to an optional read replica
+ * via {@link #getCurrentOrNewForRead()}.
  *
  * @author Philip Helger
  * @since 5.3.1
  */
+@NotThreadSafe
 public final class SMPDBExecutor extends DBExecutor
 {
   public static final Function <String, String> TABLE_NAME_CUSTOMIZER;
@@ -47,10 +69,49 @@ public final class SMPDBExecutor extends DBExecutor
   }
 
   private static final Logger LOGGER = LoggerFactory.getLogger (SMPDBExecutor.class);
+  private static final IMutableStatisticsHandlerCounter STATS_COUNTER_EXECUTOR_NEW = StatisticsManager.getCounterHandler (SMPDBExecutor.class.getName () +
+                                                                                                                          "$executor-new");
+  private static final IMutableStatisticsHandlerCounter STATS_COUNTER_EXECUTOR_REUSED = StatisticsManager.getCounterHandler (SMPDBExecutor.class.getName () +
+                                                                                                                             "$executor-reused");
+  private static final IMutableStatisticsHandlerCounter STATS_COUNTER_EXECUTOR_READ = StatisticsManager.getCounterHandler (SMPDBExecutor.class.getName () +
+                                                                                                                           "$executor-read");
+  private static final IMutableStatisticsHandlerCounter STATS_COUNTER_TX = StatisticsManager.getCounterHandler (SMPDBExecutor.class.getName () +
+                                                                                                                "$transaction");
+  private static final IMutableStatisticsHandlerCounter STATS_COUNTER_TX_NESTED = StatisticsManager.getCounterHandler (SMPDBExecutor.class.getName () +
+                                                                                                                       "$transaction-nested");
+
+  // The executor with the running transaction of the current thread
+  private static final ThreadLocal <SMPDBExecutor> CURRENT = new ThreadLocal <> ();
+
+  // true if connected to the read replica
+  private final boolean m_bReadOnly;
+  // Only accessed by the thread that runs the transaction
+  private int m_nTransactionLevel = 0;
+  private boolean m_bRollbackOnly = false;
+  private final ICommonsList <Runnable> m_aAfterCommit = new CommonsArrayList <> ();
 
   public SMPDBExecutor ()
   {
-    super (SMPDataSourceSingleton.getInstance ().getDataSourceProvider ());
+    this (SMPDataSourceSingleton.getInstance ().getDataSourceProvider ().getConnectionProvider (), false);
+  }
+
+  /**
+   * Constructor for a custom connection provider on the primary database.
+   * Only needed for testing.
+   *
+   * @param aConnectionProvider
+   *        The connection provider to use. May not be <code>null</code>.
+   */
+  SMPDBExecutor (@Nonnull final IHasConnection aConnectionProvider)
+  {
+    this (aConnectionProvider, false);
+  }
+
+  private SMPDBExecutor (@Nonnull final IHasConnection aConnectionProvider, final boolean bReadOnly)
+  {
+    super (aConnectionProvider);
+    m_bReadOnly = bReadOnly;
+    STATS_COUNTER_EXECUTOR_NEW.increment ();
 
     final ConfigFile aCF = SMPServerConfiguration.getConfigFile ();
 
@@ -78,4 +139,232 @@ public final class SMPDBExecutor extends DBExecutor
       setExecutionDurationWarnMS (0);
     }
   }
+
+  /**
+   * Get the executor to be used for a database operation. If a transaction is
+   * running in the current thread, the executor of that transaction is
+   * returned, so that the operation becomes part of the same unit of work.
+   * Otherwise a new executor is created. This is the supplier to be used for
+   * all JDBC managers.
+   *
+   * @return The executor to use. Never <code>null</code>.
+   */
+  @Nonnull
+  public static SMPDBExecutor getCurrentOrNew ()
+  {
+    final SMPDBExecutor ret = CURRENT.get ();
+    if (ret != null)
+    {
+      STATS_COUNTER_EXECUTOR_REUSED.increment ();
+      return ret;
+    }
+    return new SMPDBExecutor ();
+  }
+
+  /**
+   * Get the executor to be used for a pure read operation. If a transaction is
+   * running in the current thread, the executor of that transaction is
+   * returned, so that data written in the same unit of work is visible.
+   * Otherwise, if a read replica is configured, a new executor using the read
+   * replica is created. Otherwise a new executor for the primary database is
+   * created. Note: as replication is usually asynchronous, the read replica may
+   * not yet contain the latest changes.
+   *
+   * @return The executor to use. Never <code>null</code>.
+   * @since 5.7.0
+   */
+  @Nonnull
+  public static SMPDBExecutor getCurrentOrNewForRead ()
+  {
+    final SMPDBExecutor ret = CURRENT.get ();
+    if (ret != null)
+    {
+      STATS_COUNTER_EXECUTOR_REUSED.increment ();
+      return ret;
+    }
+
+    final IHasConnection aReadConnectionProvider = SMPDataSourceSingleton.getInstance ().getReadConnectionProvider ();
+    if (aReadConnectionProvider == null)
+      return new SMPDBExecutor ();
+
+    STATS_COUNTER_EXECUTOR_READ.increment ();
+    return new SMPDBExecutor (aReadConnectionProvider, true);
+  }
+
+  /**
+   * @return <code>true</code> if a transaction is running in the current
+   *         thread, <code>false</code> if not.
+   */
+  public static boolean isInTransaction ()
+  {
+    return CURRENT.get () != null;
+  }
+
+  /**
+   * Run an action after the outermost transaction of the current thread was
+   * successfully committed. This is e.g. needed to update caches. If no
+   * transaction is running, the action is run immediately. If the transaction
+   * is rolled back, the action is never run. Actions are run in the order they
+   * were registered. The JDBC managers use this to invoke their callbacks.
+   *
+   * @param aAction
+   *        The action to run. May not be <code>null</code>.
+   */
+  public static void runAfterCommit (@Nonnull final Runnable aAction)
+  {
+    ValueEnforcer.notNull (aAction, "Action");
+
+    final SMPDBExecutor aCurrent = CURRENT.get ();
+    if (aCurrent != null)
+      aCurrent.m_aAfterCommit.add (aAction);
+    else
+      aAction.run ();
+  }
+
+  /**
+   * Run the provided code as one unit of work. All operations of all JDBC
+   * managers invoked from the runnable use the same connection and the same
+   * transaction. The callbacks of the managers are invoked only after the unit
+   * of work was committed, and not at all if it was rolled back. If a unit of
+   * work is already running in the current thread, it is joined.
+   *
+   * @param aRunnable
+   *        The code to run. May not be <code>null</code>.
+   * @param aExtraExCB
+   *        An optional exception callback. May be <code>null</code>.
+   * @return {@link ESuccess#SUCCESS} if the unit of work was committed.
+   */
+  @Nonnull
+  public static ESuccess performInUnitOfWork (@Nonnull final IThrowingRunnable <Exception> aRunnable,
+                                              @Nullable final IExceptionCallback <? super Exception> aExtraExCB)
+  {
+    return getCurrentOrNew ().performInTransaction (aRunnable, aExtraExCB);
+  }
+
+  @Override
+  @Nonnull
+  public ESuccess performInTransaction (@Nonnull final IThrowingRunnable <Exception> aRunnable)
+  {
+    return performInTransaction (aRunnable, null);
+  }
+
+  @Override
+  @Nonnull
+  public ESuccess performInTransaction (@Nonnull final IThrowingRunnable <Exception> aRunnable,
+                                        @Nullable final IExceptionCallback <? super Exception> aExtraExCB)
+  {
+    ValueEnforcer.notNull (aRunnable, "Runnable");
+
+    if (m_bReadOnly)
+    {
+      // Transactions always run on the primary database
+      return getCurrentOrNew ().performInTransaction (aRunnable, aExtraExCB);
+    }
+
+    if (m_nTransactionLevel > 0)
+    {
+      // Join the running transaction and connection
+      STATS_COUNTER_TX_NESTED.increment ();
+      try
+      {
+        aRunnable.run ();
+        return ESuccess.SUCCESS;
+      }
+      catch (final Exception ex)
+      {
+        // The outermost transaction must not be committed
+        m_bRollbackOnly = true;
+        if (aExtraExCB != null)
+          aExtraExCB.onException (ex);
+        else
+          LOGGER.error ("Nested transaction failed", ex);
+        return ESuccess.FAILURE;
+      }
+    }
+
+    STATS_COUNTER_TX.increment ();
+    final SMPDBExecutor aPrevious = CURRENT.get ();
+    CURRENT.set (this);
+    m_nTransactionLevel++;
+    m_bRollbackOnly = false;
+    m_aAfterCommit.clear ();
+    final ESuccess ret;
+    try
+    {
+      ret = super.performInTransaction ( () -> {
+        aRunnable.run ();
+        if (m_bRollbackOnly)
+          throw new IllegalStateException ("A nested transaction failed - rolling back");
+      }, aExtraExCB);
+    }
+    finally
+    {
+      m_nTransactionLevel--;
+      if (aPrevious != null)
+        CURRENT.set (aPrevious);
+      else
+        CURRENT.remove ();
+    }
+
+    // Copy, so that the actions may start a new unit of work
+    final ICommonsList <Runnable> aAfterCommit = m_aAfterCommit.getClone ();
+    m_aAfterCommit.clear ();
+    if (ret.isSuccess ())
+      for (final Runnable aAction : aAfterCommit)
+        try
+        {
+          aAction.run ();
+        }
+        catch (final RuntimeException ex)
+        {
+          // The transaction is committed anyway
+          LOGGER.error ("Failed to run action after commit", ex);
+        }
+    return ret;
+  }
+
+  /**
+   * @return The number of executors created, each of them using its own
+   *         connection. Always &ge; 0.
+   */
+  public static long getCreatedExecutorCount ()
+  {
+    return STATS_COUNTER_EXECUTOR_NEW.getCount ();
+  }
+
+  /**
+   * @return The number of times the executor of a running transaction was
+   *         reused instead of creating a new one. Always &ge; 0.
+   */
+  public static long getReusedExecutorCount ()
+  {
+    return STATS_COUNTER_EXECUTOR_REUSED.getCount ();
+  }
+
+  /**
+   * @return The number of executors created for the read replica. Always
+   *         &ge; 0.
+   * @since 5.7.0
+   */
+  public static long getReadExecutorCount ()
+  {
+    return STATS_COUNTER_EXECUTOR_READ.getCount ();
+  }
+
+  /**
+   * @return The number of outermost transactions. Always &ge; 0.
+   */
+  public static long getTransactionCount ()
+  {
+    return STATS_COUNTER_TX.getCount ();
+  }
+
+  /**
+   * @return The number of nested transactions that joined a running
+   *         transaction instead of using a separate connection. Always &ge; 0.
+   */
+  public static long getNestedTransactionCount ()
+  {
+    return STATS_COUNTER_TX_NESTED.getCount ();
+  }
 }
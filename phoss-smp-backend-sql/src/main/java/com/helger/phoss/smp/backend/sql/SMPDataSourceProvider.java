@@ -18,70 +18,362 @@ package com.helger.phoss.smp.backend.sql;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.sql.Connection;
 import java.sql.SQLException;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.sql.DataSource;
 
 import org.apache.commons.dbcp2.BasicDataSource;
+import org.apache.commons.pool2.impl.GenericObjectPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsLinkedHashMap;
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
+import com.helger.commons.statistics.IMutableStatisticsHandlerKeyedCounter;
+import com.helger.commons.statistics.StatisticsManager;
+import com.helger.commons.string.StringHelper;
+import com.helger.commons.timing.StopWatch;
+import com.helger.db.jdbc.ConnectionFromDataSource;
+import com.helger.db.jdbc.IHasConnection;
 import com.helger.db.jdbc.IHasDataSource;
+import com.helger.db.jdbc.executor.DBNoConnectionException;
 import com.helger.phoss.smp.SMPServerConfiguration;
 import com.helger.settings.exchange.configfile.ConfigFile;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 
 /**
  * The main data source provider, only instantiated from
- * {@link SMPDataSourceSingleton}.
+ * {@link SMPDataSourceSingleton}.<br>
+ * Since 5.7.0 the connection pool implementation can be chosen via the
+ * configuration and live pool statistics are available. Additionally an
+ * optional read replica uses a separate instance of this class.
  *
  * @author Philip Helger
  */
 public final class SMPDataSourceProvider implements IHasDataSource, Closeable
 {
+  /**
+   * A DBCP data source that also exposes the number of threads waiting for a
+   * connection.
+   */
+  private static final class SMPBasicDataSource extends BasicDataSource
+  {
+    int getNumWaiters ()
+    {
+      final GenericObjectPool <?> aPool = getConnectionPool ();
+      return aPool == null ? 0 : aPool.getNumWaiters ();
+    }
+  }
+
   private static final Logger LOGGER = LoggerFactory.getLogger (SMPDataSourceProvider.class);
-  private final BasicDataSource m_aDataSource;
+  private static final IMutableStatisticsHandlerKeyedCounter STATS_ACQUIRE_TIME = StatisticsManager.getKeyedCounterHandler (SMPDataSourceProvider.class.getName () +
+                                                                                                                             "$acquire-time");
+  // Upper bounds of the acquire time histogram buckets in milliseconds
+  private static final long [] ACQUIRE_TIME_BUCKETS_MS = { 1, 5, 10, 50, 100, 500, 1000 };
 
-  SMPDataSourceProvider ()
+  private final ESMPJDBCPoolType m_ePoolType;
+  private final SMPBasicDataSource m_aDBCPDataSource;
+  private final HikariDataSource m_aHikariDataSource;
+  private final DataSource m_aDataSource;
+  private final IHasConnection m_aConnectionProvider;
+
+  /**
+   * Constructor
+   *
+   * @param sName
+   *        The name of the data source. Used for logging only. May neither be
+   *        <code>null</code> nor empty.
+   * @param sURL
+   *        The JDBC URL to connect to. May not be <code>null</code>.
+   * @param sUserName
+   *        The JDBC user name. May be <code>null</code>.
+   * @param sPassword
+   *        The JDBC password. May be <code>null</code>.
+   * @param bReadOnly
+   *        <code>true</code> if all connections should be read-only,
+   *        <code>false</code> if not.
+   */
+  SMPDataSourceProvider (@Nonnull @Nonempty final String sName,
+                         @Nonnull final String sURL,
+                         @Nullable final String sUserName,
+                         @Nullable final String sPassword,
+                         final boolean bReadOnly)
   {
     final ConfigFile aCF = SMPServerConfiguration.getConfigFile ();
 
+    final String sPoolType = aCF.getAsString (SMPJDBCConfiguration.CONFIG_JDBC_POOL_TYPE);
+    if (StringHelper.hasText (sPoolType))
+    {
+      m_ePoolType = ESMPJDBCPoolType.getFromIDOrNull (sPoolType);
+      if (m_ePoolType == null)
+        throw new IllegalStateException ("The JDBC pool type '" + sPoolType + "' is not supported");
+    }
+    else
+      m_ePoolType = SMPJDBCConfiguration.DEFAULT_JDBC_POOL_TYPE;
+
     // build data source
     // This is usually only called once on startup and than the same
     // DataSource is reused during the entire lifetime
-    m_aDataSource = new BasicDataSource ();
-    m_aDataSource.setDriverClassName (aCF.getAsString (SMPJDBCConfiguration.CONFIG_JDBC_DRIVER));
-    final String sUserName = aCF.getAsString (SMPJDBCConfiguration.CONFIG_JDBC_USER);
+    switch (m_ePoolType)
+    {
+      case DBCP:
+        m_aDBCPDataSource = _createDBCPDataSource (aCF, sURL, sUserName, sPassword, bReadOnly);
+        m_aHikariDataSource = null;
+        m_aDataSource = m_aDBCPDataSource;
+        break;
+      case HIKARI:
+        m_aDBCPDataSource = null;
+        m_aHikariDataSource = _createHikariDataSource (aCF, sName, sURL, sUserName, sPassword, bReadOnly);
+        m_aDataSource = m_aHikariDataSource;
+        break;
+      default:
+        throw new IllegalStateException ("Unsupported JDBC pool type " + m_ePoolType);
+    }
+
+    m_aConnectionProvider = _createTimingConnectionProvider (new ConnectionFromDataSource (m_aDataSource));
+
+    if (LOGGER.isInfoEnabled ())
+      LOGGER.info ("Created new " +
+                   m_ePoolType.getDisplayName () +
+                   " DataSource '" +
+                   sName +
+                   "' " +
+                   m_aDataSource);
+  }
+
+  @Nonnull
+  private static SMPBasicDataSource _createDBCPDataSource (@Nonnull final ConfigFile aCF,
+                                                           @Nonnull final String sURL,
+                                                           @Nullable final String sUserName,
+                                                           @Nullable final String sPassword,
+                                                           final boolean bReadOnly)
+  {
+    final SMPBasicDataSource ret = new SMPBasicDataSource ();
+    ret.setDriverClassName (aCF.getAsString (SMPJDBCConfiguration.CONFIG_JDBC_DRIVER));
     if (sUserName != null)
-      m_aDataSource.setUsername (sUserName);
-    final String sPassword = aCF.getAsString (SMPJDBCConfiguration.CONFIG_JDBC_PASSWORD);
+      ret.setUsername (sUserName);
     if (sPassword != null)
-      m_aDataSource.setPassword (sPassword);
-    m_aDataSource.setUrl (aCF.getAsString (SMPJDBCConfiguration.CONFIG_JDBC_URL));
+      ret.setPassword (sPassword);
+    ret.setUrl (sURL);
 
     // settings
-    m_aDataSource.setDefaultAutoCommit (Boolean.FALSE);
-    m_aDataSource.setPoolPreparedStatements (true);
+    ret.setDefaultAutoCommit (Boolean.FALSE);
+    if (bReadOnly)
+      ret.setDefaultReadOnly (Boolean.TRUE);
+    ret.setPoolPreparedStatements (true);
 
-    if (LOGGER.isInfoEnabled ())
-      LOGGER.info ("Created new DataSource " + m_aDataSource);
+    // Pool settings - only if configured
+    final int nMinSize = aCF.getAsInt (SMPJDBCConfiguration.CONFIG_JDBC_POOL_MIN_SIZE, -1);
+    if (nMinSize >= 0)
+      ret.setMinIdle (nMinSize);
+    final int nMaxSize = aCF.getAsInt (SMPJDBCConfiguration.CONFIG_JDBC_POOL_MAX_SIZE, -1);
+    if (nMaxSize > 0)
+      ret.setMaxTotal (nMaxSize);
+    final long nConnectionTimeoutMS = aCF.getAsLong (SMPJDBCConfiguration.CONFIG_JDBC_POOL_CONNECTION_TIMEOUT_MS, -1);
+    if (nConnectionTimeoutMS > 0)
+      ret.setMaxWaitMillis (nConnectionTimeoutMS);
+    final long nIdleTimeoutMS = aCF.getAsLong (SMPJDBCConfiguration.CONFIG_JDBC_POOL_IDLE_TIMEOUT_MS, -1);
+    if (nIdleTimeoutMS > 0)
+    {
+      ret.setMinEvictableIdleTimeMillis (nIdleTimeoutMS);
+      // Without the evictor, idle connections are never closed
+      ret.setTimeBetweenEvictionRunsMillis (nIdleTimeoutMS);
+    }
+    final String sValidationQuery = aCF.getAsString (SMPJDBCConfiguration.CONFIG_JDBC_POOL_VALIDATION_QUERY);
+    if (StringHelper.hasText (sValidationQuery))
+      ret.setValidationQuery (sValidationQuery);
+    return ret;
+  }
+
+  @Nonnull
+  private static HikariDataSource _createHikariDataSource (@Nonnull final ConfigFile aCF,
+                                                          @Nonnull @Nonempty final String sName,
+                                                          @Nonnull final String sURL,
+                                                          @Nullable final String sUserName,
+                                                          @Nullable final String sPassword,
+                                                          final boolean bReadOnly)
+  {
+    // Use the default constructor, so that the pool is started lazily like
+    // with DBCP
+    final HikariDataSource ret = new HikariDataSource ();
+    ret.setPoolName ("phoss-smp-" + sName);
+    ret.setDriverClassName (aCF.getAsString (SMPJDBCConfiguration.CONFIG_JDBC_DRIVER));
+    if (sUserName != null)
+      ret.setUsername (sUserName);
+    if (sPassword != null)
+      ret.setPassword (sPassword);
+    ret.setJdbcUrl (sURL);
+
+    // settings
+    ret.setAutoCommit (false);
+    ret.setReadOnly (bReadOnly);
+
+    // Pool settings - only if configured
+    final int nMinSize = aCF.getAsInt (SMPJDBCConfiguration.CONFIG_JDBC_POOL_MIN_SIZE, -1);
+    if (nMinSize >= 0)
+      ret.setMinimumIdle (nMinSize);
+    final int nMaxSize = aCF.getAsInt (SMPJDBCConfiguration.CONFIG_JDBC_POOL_MAX_SIZE, -1);
+    if (nMaxSize > 0)
+      ret.setMaximumPoolSize (nMaxSize);
+    final long nConnectionTimeoutMS = aCF.getAsLong (SMPJDBCConfiguration.CONFIG_JDBC_POOL_CONNECTION_TIMEOUT_MS, -1);
+    if (nConnectionTimeoutMS > 0)
+      ret.setConnectionTimeout (nConnectionTimeoutMS);
+    final long nIdleTimeoutMS = aCF.getAsLong (SMPJDBCConfiguration.CONFIG_JDBC_POOL_IDLE_TIMEOUT_MS, -1);
+    if (nIdleTimeoutMS > 0)
+      ret.setIdleTimeout (nIdleTimeoutMS);
+    final String sValidationQuery = aCF.getAsString (SMPJDBCConfiguration.CONFIG_JDBC_POOL_VALIDATION_QUERY);
+    if (StringHelper.hasText (sValidationQuery))
+      ret.setConnectionTestQuery (sValidationQuery);
+    return ret;
+  }
+
+  @Nonnull
+  private static IHasConnection _createTimingConnectionProvider (@Nonnull final IHasConnection aDelegate)
+  {
+    return new IHasConnection ()
+    {
+      public Connection getConnection () throws DBNoConnectionException
+      {
+        final StopWatch aSW = StopWatch.createdStarted ();
+        try
+        {
+          return aDelegate.getConnection ();
+        }
+        finally
+        {
+          STATS_ACQUIRE_TIME.increment (_getAcquireTimeBucket (aSW.stopAndGetMillis ()));
+        }
+      }
+
+      public boolean shouldCloseConnection ()
+      {
+        return aDelegate.shouldCloseConnection ();
+      }
+    };
   }
 
+  /**
+   * @return The connection pool implementation in use. Never
+   *         <code>null</code>.
+   * @since 5.7.0
+   */
   @Nonnull
-  public BasicDataSource getDataSource ()
+  public ESMPJDBCPoolType getPoolType ()
+  {
+    return m_ePoolType;
+  }
+
+  @Nonnull
+  public DataSource getDataSource ()
   {
     return m_aDataSource;
   }
 
+  @Nullable
+  private HikariPoolMXBean _getHikariPool ()
+  {
+    // null until the first connection was requested
+    return m_aHikariDataSource == null ? null : m_aHikariDataSource.getHikariPoolMXBean ();
+  }
+
+  /**
+   * @return The number of connections currently in use.
+   * @since 5.7.0
+   */
+  public int getNumActive ()
+  {
+    if (m_aDBCPDataSource != null)
+      return m_aDBCPDataSource.getNumActive ();
+    final HikariPoolMXBean aPool = _getHikariPool ();
+    return aPool == null ? 0 : aPool.getActiveConnections ();
+  }
+
+  /**
+   * @return The number of open connections that are currently not in use.
+   * @since 5.7.0
+   */
+  public int getNumIdle ()
+  {
+    if (m_aDBCPDataSource != null)
+      return m_aDBCPDataSource.getNumIdle ();
+    final HikariPoolMXBean aPool = _getHikariPool ();
+    return aPool == null ? 0 : aPool.getIdleConnections ();
+  }
+
+  /**
+   * @return The number of threads currently waiting for a connection.
+   * @since 5.7.0
+   */
+  public int getNumWaiting ()
+  {
+    if (m_aDBCPDataSource != null)
+      return m_aDBCPDataSource.getNumWaiters ();
+    final HikariPoolMXBean aPool = _getHikariPool ();
+    return aPool == null ? 0 : aPool.getThreadsAwaitingConnection ();
+  }
+
+  @Nonnull
+  @Nonempty
+  private static String _getAcquireTimeBucket (final long nMillis)
+  {
+    for (final long nUpperBound : ACQUIRE_TIME_BUCKETS_MS)
+      if (nMillis <= nUpperBound)
+        return "le-" + nUpperBound + "ms";
+    return "gt-" + ACQUIRE_TIME_BUCKETS_MS[ACQUIRE_TIME_BUCKETS_MS.length - 1] + "ms";
+  }
+
+  /**
+   * @return A histogram of the times it took to acquire connections from the
+   *         pool for the JDBC managers. The key is the name of the bucket (e.g.
+   *         <code>le-5ms</code>) and the value is the number of acquisitions in
+   *         that bucket. All buckets are contained in ascending order.
+   * @since 5.7.0
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public static ICommonsOrderedMap <String, Long> getConnectionAcquireTimeHistogram ()
+  {
+    final ICommonsOrderedMap <String, Long> ret = new CommonsLinkedHashMap <> ();
+    for (final long nUpperBound : ACQUIRE_TIME_BUCKETS_MS)
+      ret.put (_getAcquireTimeBucket (nUpperBound), Long.valueOf (0));
+    ret.put (_getAcquireTimeBucket (Long.MAX_VALUE), Long.valueOf (0));
+    for (final String sKey : STATS_ACQUIRE_TIME.getAllKeys ())
+      ret.put (sKey, Long.valueOf (STATS_ACQUIRE_TIME.getCount (sKey)));
+    return ret;
+  }
+
+  /**
+   * @return A connection provider that records the connection acquisition time
+   *         in the statistics. Never <code>null</code>.
+   * @since 5.7.0
+   */
+  @Nonnull
+  public IHasConnection getConnectionProvider ()
+  {
+    return m_aConnectionProvider;
+  }
+
   public void close () throws IOException
   {
     try
     {
-      if (m_aDataSource != null && !m_aDataSource.isClosed ())
+      final boolean bClosed = m_aDBCPDataSource != null ? m_aDBCPDataSource.isClosed ()
+                                                        : m_aHikariDataSource.isClosed ();
+      if (!bClosed)
       {
         if (LOGGER.isDebugEnabled ())
           LOGGER.debug ("Now closing DataSource");
 
-        m_aDataSource.close ();
+        if (m_aDBCPDataSource != null)
+          m_aDBCPDataSource.close ();
+        else
+          m_aHikariDataSource.close ();
 
         if (LOGGER.isInfoEnabled ())
           LOGGER.info ("Successfully closed DataSource");
@@ -17,6 +17,7 @@
 package com.helger.phoss.smp.backend.sql;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
 import org.slf4j.Logger;
@@ -26,9 +27,13 @@ import com.helger.commons.annotation.UsedViaReflection;
 import com.helger.commons.debug.GlobalDebug;
 import com.helger.commons.io.stream.StreamHelper;
 import com.helger.commons.string.StringHelper;
+import com.helger.db.jdbc.IHasConnection;
 import com.helger.phoss.smp.SMPServerConfiguration;
+import com.helger.phoss.smp.restapi.SMPServiceGroupVersionTracker;
+import com.helger.phoss.smp.restapi.SMPSignedResponseCache;
 import com.helger.scope.IScope;
 import com.helger.scope.singleton.AbstractGlobalSingleton;
+import com.helger.settings.exchange.configfile.ConfigFile;
 
 /**
  * DataSource provider singleton
@@ -74,7 +79,9 @@ public final class SMPDataSourceSingleton extends AbstractGlobalSingleton
     return DB_TYPE;
   }
 
-  private final SMPDataSourceProvider m_aDSP = new SMPDataSourceProvider ();
+  private final SMPDataSourceProvider m_aDSP;
+  private final SMPDataSourceProvider m_aReadDSP;
+  private final IHasConnection m_aReadConnectionProvider;
 
   /**
    * @deprecated Only called via reflection
@@ -82,7 +89,63 @@ public final class SMPDataSourceSingleton extends AbstractGlobalSingleton
   @Deprecated
   @UsedViaReflection
   public SMPDataSourceSingleton ()
-  {}
+  {
+    final ConfigFile aCF = SMPServerConfiguration.getConfigFile ();
+    final String sUserName = aCF.getAsString (SMPJDBCConfiguration.CONFIG_JDBC_USER);
+    final String sPassword = aCF.getAsString (SMPJDBCConfiguration.CONFIG_JDBC_PASSWORD);
+    m_aDSP = new SMPDataSourceProvider ("primary",
+                                        aCF.getAsString (SMPJDBCConfiguration.CONFIG_JDBC_URL),
+                                        sUserName,
+                                        sPassword,
+                                        false);
+
+    // Since 5.7.0
+    final String sReadURL = aCF.getAsString (SMPJDBCConfiguration.CONFIG_JDBC_READ_REPLICA_URL);
+    if (StringHelper.hasText (sReadURL))
+    {
+      // Cached responses would be filled from the read replica, which may not
+      // yet contain the latest changes. Without a TTL, the outdated response
+      // would be served until the next modification.
+      if (SMPSignedResponseCache.isEnabled ())
+        throw new IllegalStateException ("The read replica ('" +
+                                         SMPJDBCConfiguration.CONFIG_JDBC_READ_REPLICA_URL +
+                                         "') cannot be used together with the REST response cache ('" +
+                                         SMPServerConfiguration.KEY_SMP_REST_RESPONSE_CACHE_ENABLED +
+                                         "')");
+
+      // The same applies to conditional GET: the version is incremented on
+      // modification, so an outdated response read from the replica would be
+      // confirmed with "304 Not Modified" until the next modification.
+      if (SMPServiceGroupVersionTracker.isEnabled ())
+        throw new IllegalStateException ("The read replica ('" +
+                                         SMPJDBCConfiguration.CONFIG_JDBC_READ_REPLICA_URL +
+                                         "') cannot be used together with conditional GET ('" +
+                                         SMPServerConfiguration.KEY_SMP_REST_CONDITIONAL_GET_ENABLED +
+                                         "')");
+
+      // Use the credentials of the primary database, if none are provided
+      m_aReadDSP = new SMPDataSourceProvider ("read-replica",
+                                              sReadURL,
+                                              aCF.getAsString (SMPJDBCConfiguration.CONFIG_JDBC_READ_REPLICA_USER,
+                                                               sUserName),
+                                              aCF.getAsString (SMPJDBCConfiguration.CONFIG_JDBC_READ_REPLICA_PASSWORD,
+                                                               sPassword),
+                                              true);
+      if (aCF.getAsBoolean (SMPJDBCConfiguration.CONFIG_JDBC_READ_REPLICA_FALLBACK_ENABLED,
+                            SMPJDBCConfiguration.DEFAULT_JDBC_READ_REPLICA_FALLBACK_ENABLED))
+        m_aReadConnectionProvider = new SMPReadReplicaConnectionProvider (m_aReadDSP.getConnectionProvider (),
+                                                                          m_aDSP.getConnectionProvider (),
+                                                                          aCF.getAsLong (SMPJDBCConfiguration.CONFIG_JDBC_READ_REPLICA_FALLBACK_RETRY_MS,
+                                                                                         SMPJDBCConfiguration.DEFAULT_JDBC_READ_REPLICA_FALLBACK_RETRY_MS));
+      else
+        m_aReadConnectionProvider = m_aReadDSP.getConnectionProvider ();
+    }
+    else
+    {
+      m_aReadDSP = null;
+      m_aReadConnectionProvider = null;
+    }
+  }
 
   @Nonnull
   public static SMPDataSourceSingleton getInstance ()
@@ -93,7 +156,8 @@ public final class SMPDataSourceSingleton extends AbstractGlobalSingleton
   @Override
   protected void onBeforeDestroy (@Nonnull final IScope aScopeToBeDestroyed) throws Exception
   {
-    // Close the DataSource provider
+    // Close the DataSource providers
+    StreamHelper.close (m_aReadDSP);
     StreamHelper.close (m_aDSP);
   }
 
@@ -106,4 +170,27 @@ public final class SMPDataSourceSingleton extends AbstractGlobalSingleton
   {
     return m_aDSP;
   }
+
+  /**
+   * @return The DataSource provider of the read replica. May be
+   *         <code>null</code> if no read replica is configured.
+   * @since 5.7.0
+   */
+  @Nullable
+  public SMPDataSourceProvider getReadDataSourceProvider ()
+  {
+    return m_aReadDSP;
+  }
+
+  /**
+   * @return The connection provider for read-only operations, including the
+   *         optional fallback to the primary database. May be
+   *         <code>null</code> if no read replica is configured.
+   * @since 5.7.0
+   */
+  @Nullable
+  public IHasConnection getReadConnectionProvider ()
+  {
+    return m_aReadConnectionProvider;
+  }
 }
@@ -39,6 +39,33 @@ public final class SMPJDBCConfiguration
   public static final String CONFIG_JDBC_SCHEMA_CREATE = "jdbc.schema-create";
   public static final String CONFIG_TARGET_DATABASE = "target-database";
 
+  @Since ("5.7.0")
+  public static final String CONFIG_JDBC_POOL_TYPE = "jdbc.pool.type";
+  public static final ESMPJDBCPoolType DEFAULT_JDBC_POOL_TYPE = ESMPJDBCPoolType.DBCP;
+  @Since ("5.7.0")
+  public static final String CONFIG_JDBC_POOL_MIN_SIZE = "jdbc.pool.min-size";
+  @Since ("5.7.0")
+  public static final String CONFIG_JDBC_POOL_MAX_SIZE = "jdbc.pool.max-size";
+  @Since ("5.7.0")
+  public static final String CONFIG_JDBC_POOL_CONNECTION_TIMEOUT_MS = "jdbc.pool.connection-timeout.ms";
+  @Since ("5.7.0")
+  public static final String CONFIG_JDBC_POOL_IDLE_TIMEOUT_MS = "jdbc.pool.idle-timeout.ms";
+  @Since ("5.7.0")
+  public static final String CONFIG_JDBC_POOL_VALIDATION_QUERY = "jdbc.pool.validation-query";
+
+  @Since ("5.7.0")
+  public static final String CONFIG_JDBC_READ_REPLICA_URL = "jdbc.read-replica.url";
+  @Since ("5.7.0")
+  public static final String CONFIG_JDBC_READ_REPLICA_USER = "jdbc.read-replica.user";
+  @Since ("5.7.0")
+  public static final String CONFIG_JDBC_READ_REPLICA_PASSWORD = "jdbc.read-replica.password";
+  @Since ("5.7.0")
+  public static final String CONFIG_JDBC_READ_REPLICA_FALLBACK_ENABLED = "jdbc.read-replica.fallback.enabled";
+  public static final boolean DEFAULT_JDBC_READ_REPLICA_FALLBACK_ENABLED = true;
+  @Since ("5.7.0")
+  public static final String CONFIG_JDBC_READ_REPLICA_FALLBACK_RETRY_MS = "jdbc.read-replica.fallback.retry.ms";
+  public static final long DEFAULT_JDBC_READ_REPLICA_FALLBACK_RETRY_MS = 30_000;
+
   @Since ("5.0.6")
   public static final String CONFIG_JDBC_EXECUTION_TIME_WARNING_ENABLE = "jdbc.execution-time-warning.enabled";
   public static final boolean DEFAULT_JDBC_EXECUTION_TIME_WARNING_ENABLE = true;
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2019-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.phoss.smp.backend.sql;
+
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.statistics.IMutableStatisticsHandlerCounter;
+import com.helger.commons.statistics.StatisticsManager;
+import com.helger.db.jdbc.IHasConnection;
+import com.helger.db.jdbc.executor.DBNoConnectionException;
+
+/**
+ * A connection provider for read-only operations, that uses the read replica
+ * and falls back to the primary database if the read replica is not
+ * available. After a failure, the primary database is used for the configured
+ * retry interval, before the read replica is tried again.
+ *
+ * @author Philip Helger
+ * @since 5.7.0
+ */
+@ThreadSafe
+public final class SMPReadReplicaConnectionProvider implements IHasConnection
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (SMPReadReplicaConnectionProvider.class);
+  private static final IMutableStatisticsHandlerCounter STATS_COUNTER_FALLBACK = StatisticsManager.getCounterHandler (SMPReadReplicaConnectionProvider.class.getName () +
+                                                                                                                      "$fallback");
+
+  private final IHasConnection m_aReplica;
+  private final IHasConnection m_aPrimary;
+  private final long m_nRetryMS;
+  // The point in time until which the primary is used
+  private final AtomicLong m_aUnavailableUntil = new AtomicLong (0);
+
+  SMPReadReplicaConnectionProvider (@Nonnull final IHasConnection aReplica,
+                                    @Nonnull final IHasConnection aPrimary,
+                                    @Nonnegative final long nRetryMS)
+  {
+    ValueEnforcer.notNull (aReplica, "Replica");
+    ValueEnforcer.notNull (aPrimary, "Primary");
+    ValueEnforcer.isGE0 (nRetryMS, "RetryMS");
+    m_aReplica = aReplica;
+    m_aPrimary = aPrimary;
+    m_nRetryMS = nRetryMS;
+  }
+
+  public Connection getConnection () throws DBNoConnectionException
+  {
+    if (System.currentTimeMillis () >= m_aUnavailableUntil.get ())
+    {
+      try
+      {
+        final Connection ret = m_aReplica.getConnection ();
+        if (ret != null)
+          return ret;
+        LOGGER.warn ("Got no connection to the read replica - falling back to the primary database");
+      }
+      catch (final DBNoConnectionException ex)
+      {
+        LOGGER.warn ("Failed to connect to the read replica - falling back to the primary database for " +
+                     m_nRetryMS +
+                     " ms",
+                     ex);
+      }
+      m_aUnavailableUntil.set (System.currentTimeMillis () + m_nRetryMS);
+    }
+
+    STATS_COUNTER_FALLBACK.increment ();
+    return m_aPrimary.getConnection ();
+  }
+
+  public boolean shouldCloseConnection ()
+  {
+    // Both are pooled connections
+    return m_aReplica.shouldCloseConnection ();
+  }
+
+  /**
+   * @return The number of read connections that were taken from the primary
+   *         database, because the read replica was not available. Always &ge;
+   *         0.
+   */
+  public static long getFallbackCount ()
+  {
+    return STATS_COUNTER_FALLBACK.getCount ();
+  }
+}
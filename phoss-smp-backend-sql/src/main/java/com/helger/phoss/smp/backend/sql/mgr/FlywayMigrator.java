@@ -42,6 +42,7 @@ import com.helger.phoss.smp.backend.sql.migration.V11__MigrateUsersToDB;
 import com.helger.phoss.smp.backend.sql.migration.V12__MigrateUserGroupsToDB;
 import com.helger.phoss.smp.backend.sql.migration.V14__MigrateSettingsToDB;
 import com.helger.phoss.smp.backend.sql.migration.V15__MigrateDBUsersToPhotonUsers;
+import com.helger.phoss.smp.backend.sql.migration.V19__MigrateEndpointCertificatesToTable;
 import com.helger.phoss.smp.backend.sql.migration.V2__MigrateDBUsersToPhotonUsers;
 import com.helger.phoss.smp.backend.sql.migration.V5__MigrateTransportProfilesToDB;
 import com.helger.photon.audit.AuditHelper;
@@ -148,7 +149,8 @@ final class FlywayMigrator
                                                                new V11__MigrateUsersToDB (),
                                                                new V12__MigrateUserGroupsToDB (),
                                                                new V14__MigrateSettingsToDB (),
-                                                               new V15__MigrateDBUsersToPhotonUsers ())
+                                                               new V15__MigrateDBUsersToPhotonUsers (),
+                                                               new V19__MigrateEndpointCertificatesToTable ())
                                               .callbacks (aCallbackLogging, aCallbackAudit);
 
     // Flyway to handle the DB schema?
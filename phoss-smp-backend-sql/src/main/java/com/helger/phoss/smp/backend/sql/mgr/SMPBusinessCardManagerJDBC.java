@@ -54,6 +54,8 @@ import com.helger.json.serialize.JsonReader;
 import com.helger.json.serialize.JsonWriterSettings;
 import com.helger.peppolid.IParticipantIdentifier;
 import com.helger.peppolid.factory.IIdentifierFactory;
+import com.helger.phoss.smp.backend.sql.SMPDBExecutor;
+import com.helger.phoss.smp.backend.sql.SMPDataSourceSingleton;
 import com.helger.phoss.smp.domain.SMPMetaManager;
 import com.helger.phoss.smp.domain.businesscard.ISMPBusinessCard;
 import com.helger.phoss.smp.domain.businesscard.ISMPBusinessCardCallback;
@@ -79,6 +81,7 @@ public final class SMPBusinessCardManagerJDBC extends AbstractJDBCEnabledManager
   private static final IJsonWriterSettings JWS = JsonWriterSettings.DEFAULT_SETTINGS;
 
   private final CallbackList <ISMPBusinessCardCallback> m_aCBs = new CallbackList <> ();
+  private final Supplier <? extends DBExecutor> m_aReadDBExecSupplier;
 
   /**
    * Constructor
@@ -88,8 +91,33 @@ public final class SMPBusinessCardManagerJDBC extends AbstractJDBCEnabledManager
    *        <code>null</code>.
    */
   public SMPBusinessCardManagerJDBC (@Nonnull final Supplier <? extends DBExecutor> aDBExecSupplier)
+  {
+    this (aDBExecSupplier, aDBExecSupplier);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aDBExecSupplier
+   *        The supplier for {@link DBExecutor} objects. May not be
+   *        <code>null</code>.
+   * @param aReadDBExecSupplier
+   *        The supplier for {@link DBExecutor} objects used for pure read
+   *        operations. May not be <code>null</code>.
+   * @since 5.7.0
+   */
+  public SMPBusinessCardManagerJDBC (@Nonnull final Supplier <? extends DBExecutor> aDBExecSupplier,
+                                     @Nonnull final Supplier <? extends DBExecutor> aReadDBExecSupplier)
   {
     super (aDBExecSupplier);
+    ValueEnforcer.notNull (aReadDBExecSupplier, "ReadDBExecSupplier");
+    m_aReadDBExecSupplier = aReadDBExecSupplier;
+  }
+
+  @Nonnull
+  private DBExecutor _newReadExecutor ()
+  {
+    return m_aReadDBExecSupplier.get ();
   }
 
   @Nonnull
@@ -210,24 +238,35 @@ public final class SMPBusinessCardManagerJDBC extends AbstractJDBCEnabledManager
           LOGGER.info ("Deleted " + nDeleted + " existing DBBusinessCardEntity rows");
       }
 
+      // Insert all entities with as few statements as possible
+      final SMPMultiRowInsert aEntityInsert = new SMPMultiRowInsert (aExecutor,
+                                                                     SMPDataSourceSingleton.getDatabaseType (),
+                                                                     "smp_bce",
+                                                                     "id",
+                                                                     "pid",
+                                                                     "name",
+                                                                     "country",
+                                                                     "geoinfo",
+                                                                     "identifiers",
+                                                                     "websites",
+                                                                     "contacts",
+                                                                     "addon",
+                                                                     "regdate");
       for (final SMPBusinessCardEntity aEntity : aEntities)
       {
         // Single name only
-        aExecutor.insertOrUpdateOrDelete ("INSERT INTO smp_bce (id, pid, name, country, geoinfo, identifiers, websites, contacts, addon, regdate)" +
-                                          " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
-                                          new ConstantPreparedStatementDataProvider (aEntity.getID (),
-                                                                                     sPID,
-                                                                                     aEntity.names ()
-                                                                                            .getFirst ()
-                                                                                            .getName (),
-                                                                                     aEntity.getCountryCode (),
-                                                                                     aEntity.getGeographicalInformation (),
-                                                                                     getBCIAsJson (aEntity.identifiers ()).getAsJsonString (JWS),
-                                                                                     getStringAsJson (aEntity.websiteURIs ()).getAsJsonString (JWS),
-                                                                                     getBCCAsJson (aEntity.contacts ()).getAsJsonString (JWS),
-                                                                                     aEntity.getAdditionalInformation (),
-                                                                                     aEntity.getRegistrationDate ()));
+        aEntityInsert.addRow (aEntity.getID (),
+                              sPID,
+                              aEntity.names ().getFirst ().getName (),
+                              aEntity.getCountryCode (),
+                              aEntity.getGeographicalInformation (),
+                              getBCIAsJson (aEntity.identifiers ()).getAsJsonString (JWS),
+                              getStringAsJson (aEntity.websiteURIs ()).getAsJsonString (JWS),
+                              getBCCAsJson (aEntity.contacts ()).getAsJsonString (JWS),
+                              aEntity.getAdditionalInformation (),
+                              aEntity.getRegistrationDate ());
       }
+      aEntityInsert.flush ();
     });
     if (eSucces.isFailure ())
     {
@@ -259,7 +298,7 @@ public final class SMPBusinessCardManagerJDBC extends AbstractJDBCEnabledManager
     }
 
     // Invoke generic callbacks
-    m_aCBs.forEach (x -> x.onSMPBusinessCardCreatedOrUpdated (aNewBusinessCard));
+    SMPDBExecutor.runAfterCommit ( () -> m_aCBs.forEach (x -> x.onSMPBusinessCardCreatedOrUpdated (aNewBusinessCard)));
 
     return aNewBusinessCard;
   }
@@ -292,7 +331,7 @@ public final class SMPBusinessCardManagerJDBC extends AbstractJDBCEnabledManager
                                       Integer.valueOf (aSMPBusinessCard.getEntityCount ()));
 
     // Invoke generic callbacks
-    m_aCBs.forEach (x -> x.onSMPBusinessCardDeleted (aSMPBusinessCard));
+    SMPDBExecutor.runAfterCommit ( () -> m_aCBs.forEach (x -> x.onSMPBusinessCardDeleted (aSMPBusinessCard)));
     return EChange.CHANGED;
   }
 
@@ -354,10 +393,10 @@ public final class SMPBusinessCardManagerJDBC extends AbstractJDBCEnabledManager
     if (aID == null)
       return null;
 
-    final ICommonsList <DBResultRow> aDBResult = newExecutor ().queryAll ("SELECT id, name, country, geoinfo, identifiers, websites, contacts, addon, regdate" +
-                                                                          " FROM smp_bce" +
-                                                                          " WHERE pid=?",
-                                                                          new ConstantPreparedStatementDataProvider (aID.getURIEncoded ()));
+    final ICommonsList <DBResultRow> aDBResult = _newReadExecutor ().queryAll ("SELECT id, name, country, geoinfo, identifiers, websites, contacts, addon, regdate" +
+                                                                               " FROM smp_bce" +
+                                                                               " WHERE pid=?",
+                                                                               new ConstantPreparedStatementDataProvider (aID.getURIEncoded ()));
     if (aDBResult == null)
       return null;
 
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2019-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.phoss.smp.backend.sql.mgr;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.state.EChange;
+import com.helger.commons.string.StringHelper;
+import com.helger.db.jdbc.callback.ConstantPreparedStatementDataProvider;
+import com.helger.db.jdbc.executor.DBExecutor;
+import com.helger.db.jdbc.mgr.AbstractJDBCEnabledManager;
+import com.helger.phoss.smp.backend.sql.EDatabaseType;
+import com.helger.phoss.smp.backend.sql.SMPDBExecutor;
+import com.helger.phoss.smp.backend.sql.SMPDataSourceSingleton;
+import com.helger.phoss.smp.security.SMPCertificateCache;
+import com.helger.phoss.smp.security.SMPCertificateHashCache;
+
+/**
+ * Manages the <code>smp_certificate</code> table, that contains each distinct
+ * endpoint certificate only once, keyed by the SHA-256 hash of the certificate
+ * string. The endpoints only reference the hash. As the table content is
+ * addressed by the content, rows are never modified and can be cached forever.
+ * Rows that are no longer referenced are not deleted, because the same
+ * certificate is usually used again.
+ *
+ * @author Philip Helger
+ * @since 5.7.0
+ */
+public final class SMPCertificateManagerJDBC extends AbstractJDBCEnabledManager
+{
+  // Hash to certificate string, only for rows known to exist in the DB
+  // Bounded, as certificates may be arbitrarily long
+  private final SMPCertificateHashCache m_aCache = new SMPCertificateHashCache ();
+
+  /**
+   * Constructor
+   *
+   * @param aDBExecSupplier
+   *        The supplier for {@link DBExecutor} objects. May not be
+   *        <code>null</code>.
+   */
+  public SMPCertificateManagerJDBC (@Nonnull final Supplier <? extends DBExecutor> aDBExecSupplier)
+  {
+    super (aDBExecSupplier);
+  }
+
+  /**
+   * Insert the provided certificate into the <code>smp_certificate</code>
+   * table, if it is not yet contained. This uses the insert-if-absent statement
+   * of the database, so that concurrent transactions inserting the same new
+   * certificate don't fail with a primary key violation.
+   *
+   * @param aExecutor
+   *        The executor to use, usually within a transaction. May not be
+   *        <code>null</code>.
+   * @param sHash
+   *        The hash of the certificate as provided by
+   *        {@link com.helger.phoss.smp.security.SMPParsedCertificate#getCertificateHash(String)}.
+   *        May not be <code>null</code>.
+   * @param sCertificate
+   *        The certificate string. May not be <code>null</code>.
+   * @return {@link EChange#CHANGED} if a new row was inserted.
+   */
+  @Nonnull
+  public static EChange insertCertificateIfMissing (@Nonnull final DBExecutor aExecutor,
+                                                    @Nonnull final String sHash,
+                                                    @Nonnull final String sCertificate)
+  {
+    ValueEnforcer.notNull (aExecutor, "Executor");
+    ValueEnforcer.notEmpty (sHash, "Hash");
+    ValueEnforcer.notNull (sCertificate, "Certificate");
+
+    final String sSQL;
+    final EDatabaseType eDBType = SMPDataSourceSingleton.getDatabaseType ();
+    switch (eDBType)
+    {
+      case MYSQL:
+        sSQL = "INSERT IGNORE INTO smp_certificate (certificateHash, certificate) VALUES (?, ?)";
+        break;
+      case POSTGRESQL:
+        sSQL = "INSERT INTO smp_certificate (certificateHash, certificate) VALUES (?, ?) ON CONFLICT DO NOTHING";
+        break;
+      case ORACLE:
+        // Unlike MERGE, the hint is also safe for concurrent inserts
+        sSQL = "INSERT /*+ IGNORE_ROW_ON_DUPKEY_INDEX(smp_certificate, smp_certificate_pk) */" +
+               " INTO smp_certificate (certificateHash, certificate) VALUES (?, ?)";
+        break;
+      case DB2:
+        sSQL = "MERGE INTO smp_certificate t" +
+               " USING (VALUES (CAST(? AS VARCHAR(64)), CAST(? AS CLOB))) s (certificateHash, certificate)" +
+               " ON t.certificateHash=s.certificateHash" +
+               " WHEN NOT MATCHED THEN INSERT (certificateHash, certificate) VALUES (s.certificateHash, s.certificate)";
+        break;
+      default:
+        throw new IllegalStateException ("The insert statement for DB type " + eDBType + " is missing");
+    }
+    final long nInserted = aExecutor.insertOrUpdateOrDelete (sSQL,
+                                                             new ConstantPreparedStatementDataProvider (sHash, sCertificate));
+    return EChange.valueOf (nInserted > 0);
+  }
+
+  /**
+   * Make sure the provided certificate is contained in the
+   * <code>smp_certificate</code> table. Certificates that are already cached
+   * don't need a DB access.
+   *
+   * @param aExecutor
+   *        The executor to use, usually within a transaction. May not be
+   *        <code>null</code>.
+   * @param sCertificate
+   *        The certificate string. May be <code>null</code>.
+   * @param aNewEntries
+   *        The map that receives the hash and certificate, if it was not yet
+   *        cached. It needs to be passed to {@link #onCommitted(Map)} after the
+   *        transaction was successfully committed. May not be
+   *        <code>null</code>.
+   * @return The hash to be stored in the endpoint or <code>null</code> if the
+   *         certificate is <code>null</code>.
+   */
+  @Nullable
+  public String ensureCertificate (@Nonnull final DBExecutor aExecutor,
+                                   @Nullable final String sCertificate,
+                                   @Nonnull final Map <String, String> aNewEntries)
+  {
+    if (sCertificate == null)
+      return null;
+
+    final String sHash = SMPCertificateCache.getParsedCertificate (sCertificate).getCertificateHash ();
+    if (!m_aCache.containsKey (sHash) && !aNewEntries.containsKey (sHash))
+    {
+      insertCertificateIfMissing (aExecutor, sHash, sCertificate);
+      aNewEntries.put (sHash, sCertificate);
+    }
+    return sHash;
+  }
+
+  /**
+   * Remember the certificates passed to
+   * {@link #ensureCertificate(DBExecutor, String, Map)} after the transaction
+   * succeeded. If the transaction was part of an outer unit of work, they are
+   * only remembered after the unit of work was committed.
+   *
+   * @param aNewEntries
+   *        The new entries. May not be <code>null</code>.
+   */
+  public void onCommitted (@Nonnull final Map <String, String> aNewEntries)
+  {
+    SMPDBExecutor.runAfterCommit ( () -> {
+      aNewEntries.forEach ( (k, v) -> m_aCache.put (k, SMPCertificateCache.getInterned (v)));
+    });
+  }
+
+  /**
+   * Resolve a certificate hash as stored in the endpoints. The certificate
+   * itself is retrieved by joining the <code>smp_certificate</code> table in
+   * the endpoint queries, so that no additional query per endpoint is needed.
+   *
+   * @param sHash
+   *        The hash to resolve. May be <code>null</code>.
+   * @param sJoinedCertificate
+   *        The certificate read from the joined <code>smp_certificate</code>
+   *        table. May be <code>null</code>.
+   * @return <code>null</code> if the hash is <code>null</code> or unknown.
+   */
+  @Nullable
+  public String getCertificateOfHash (@Nullable final String sHash, @Nullable final String sJoinedCertificate)
+  {
+    if (StringHelper.hasNoText (sHash))
+      return null;
+
+    String ret = m_aCache.get (sHash);
+    if (ret == null && sJoinedCertificate != null)
+    {
+      // Share the same instance with all other endpoints
+      ret = SMPCertificateCache.getInterned (sJoinedCertificate);
+      m_aCache.put (sHash, ret);
+    }
+    return ret;
+  }
+
+  /**
+   * @return The number of cached certificates. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getCachedCertificateCount ()
+  {
+    return m_aCache.size ();
+  }
+}
@@ -72,7 +72,8 @@ public final class SMPManagerProviderSQL implements ISMPManagerProvider
 
     // Set the special PhotonSecurityManager factory
     // Must be before Flyway, so that auditing of Flyway actions (may) work
-    PhotonSecurityManagerFactoryJDBC.install (SMPDBExecutor::new, SMPDBExecutor.TABLE_NAME_CUSTOMIZER);
+    PhotonSecurityManagerFactoryJDBC.install (SMPDBExecutor::getCurrentOrNew,
+                                              SMPDBExecutor.TABLE_NAME_CUSTOMIZER);
 
     // Flyway migration is enabled by default
     if (aCF.getAsBoolean (SMPJDBCConfiguration.CONFIG_SMP_FLYWAY_ENABLED, true))
@@ -115,19 +116,20 @@ public final class SMPManagerProviderSQL implements ISMPManagerProvider
   @Nonnull
   public ISMPSettingsManager createSettingsMgr ()
   {
-    return new SMPSettingsManagerJDBC (SMPDBExecutor::new);
+    return new SMPSettingsManagerJDBC (SMPDBExecutor::getCurrentOrNew);
   }
 
   @Nonnull
   public ISMPTransportProfileManager createTransportProfileMgr ()
   {
-    return new SMPTransportProfileManagerJDBC (SMPDBExecutor::new);
+    return new SMPTransportProfileManagerJDBC (SMPDBExecutor::getCurrentOrNew);
   }
 
   @Nonnull
   public ISMPServiceGroupManager createServiceGroupMgr ()
   {
-    final SMPServiceGroupManagerJDBC ret = new SMPServiceGroupManagerJDBC (SMPDBExecutor::new);
+    final SMPServiceGroupManagerJDBC ret = new SMPServiceGroupManagerJDBC (SMPDBExecutor::getCurrentOrNew,
+                                                                           SMPDBExecutor::getCurrentOrNewForRead);
     // Enable cache by default
     ret.setCacheEnabled (SMPServerConfiguration.getConfigFile ()
                                                .getAsBoolean (SMPJDBCConfiguration.CONFIG_JDBC_CACHE_SG_ENABLED, true));
@@ -138,27 +140,31 @@ public final class SMPManagerProviderSQL implements ISMPManagerProvider
   public ISMPRedirectManager createRedirectMgr (@Nonnull final IIdentifierFactory aIdentifierFactory,
                                                 @Nonnull final ISMPServiceGroupManager aServiceGroupMgr)
   {
-    return new SMPRedirectManagerJDBC (SMPDBExecutor::new, aServiceGroupMgr);
+    return new SMPRedirectManagerJDBC (SMPDBExecutor::getCurrentOrNew,
+                                       SMPDBExecutor::getCurrentOrNewForRead,
+                                       aServiceGroupMgr);
   }
 
   @Nonnull
   public ISMPServiceInformationManager createServiceInformationMgr (@Nonnull final IIdentifierFactory aIdentifierFactory,
                                                                     @Nonnull final ISMPServiceGroupManager aServiceGroupMgr)
   {
-    return new SMPServiceInformationManagerJDBC (SMPDBExecutor::new, aServiceGroupMgr);
+    return new SMPServiceInformationManagerJDBC (SMPDBExecutor::getCurrentOrNew,
+                                                 SMPDBExecutor::getCurrentOrNewForRead,
+                                                 aServiceGroupMgr);
   }
 
   @Nonnull
   public ISMPParticipantMigrationManager createParticipantMigrationMgr ()
   {
-    return new SMPParticipantMigrationManagerJDBC (SMPDBExecutor::new);
+    return new SMPParticipantMigrationManagerJDBC (SMPDBExecutor::getCurrentOrNew);
   }
 
   @Nullable
   public ISMPBusinessCardManager createBusinessCardMgr (@Nonnull final IIdentifierFactory aIdentifierFactory,
                                                         @Nonnull final ISMPServiceGroupManager aServiceGroupMgr)
   {
-    return new SMPBusinessCardManagerJDBC (SMPDBExecutor::new);
+    return new SMPBusinessCardManagerJDBC (SMPDBExecutor::getCurrentOrNew, SMPDBExecutor::getCurrentOrNewForRead);
   }
 
   @Override
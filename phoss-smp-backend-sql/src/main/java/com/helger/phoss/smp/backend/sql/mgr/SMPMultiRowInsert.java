@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2019-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.phoss.smp.backend.sql.mgr;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.string.StringHelper;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.db.jdbc.callback.ConstantPreparedStatementDataProvider;
+import com.helger.db.jdbc.executor.DBExecutor;
+import com.helger.phoss.smp.backend.sql.EDatabaseType;
+
+/**
+ * Collects the rows to be inserted into a single table and inserts them with
+ * as few statements as possible. Instead of one statement per row, multi-row
+ * <code>INSERT ... VALUES (...), (...)</code> statements are used
+ * (<code>INSERT ALL</code> on Oracle). The number of rows per statement is
+ * limited so that the number of bind parameters stays in a range all supported
+ * databases accept.<br>
+ * Rows are only written when {@link #flush()} is called, so that the caller
+ * controls the order of inserts into tables with foreign keys.
+ *
+ * @author Philip Helger
+ * @since 5.7.0
+ */
+@NotThreadSafe
+public final class SMPMultiRowInsert
+{
+  /** The maximum number of bind parameters per statement */
+  public static final int MAX_PARAMS_PER_STATEMENT = 10_000;
+  /**
+   * The maximum number of bind parameters per statement for Oracle, because
+   * <code>INSERT ALL</code> supports at most 999 columns in all INTO clauses
+   */
+  public static final int MAX_PARAMS_PER_STATEMENT_ORACLE = 999;
+
+  private final DBExecutor m_aExecutor;
+  private final EDatabaseType m_eDBType;
+  private final String m_sTableName;
+  private final String [] m_aColumnNames;
+  private final int m_nMaxRowsPerStatement;
+  private final ICommonsList <Object> m_aPendingValues = new CommonsArrayList <> ();
+  private int m_nPendingRows = 0;
+  private int m_nExecutedStatements = 0;
+  private long m_nInsertedRows = 0;
+
+  public SMPMultiRowInsert (@Nonnull final DBExecutor aExecutor,
+                            @Nonnull final EDatabaseType eDBType,
+                            @Nonnull @Nonempty final String sTableName,
+                            @Nonnull @Nonempty final String... aColumnNames)
+  {
+    ValueEnforcer.notNull (aExecutor, "Executor");
+    ValueEnforcer.notNull (eDBType, "DBType");
+    ValueEnforcer.notEmpty (sTableName, "TableName");
+    ValueEnforcer.notEmptyNoNullValue (aColumnNames, "ColumnNames");
+    m_aExecutor = aExecutor;
+    m_eDBType = eDBType;
+    m_sTableName = sTableName;
+    m_aColumnNames = aColumnNames;
+    m_nMaxRowsPerStatement = getMaxRowsPerStatement (eDBType, aColumnNames.length);
+  }
+
+  /**
+   * Get the maximum number of rows that are inserted with a single statement.
+   *
+   * @param eDBType
+   *        The database type. May not be <code>null</code>.
+   * @param nColumnCount
+   *        The number of columns per row. Must be &gt; 0.
+   * @return The maximum number of rows per statement. Always &gt; 0.
+   */
+  @Nonnegative
+  public static int getMaxRowsPerStatement (@Nonnull final EDatabaseType eDBType,
+                                           @Nonnegative final int nColumnCount)
+  {
+    ValueEnforcer.notNull (eDBType, "DBType");
+    ValueEnforcer.isGT0 (nColumnCount, "ColumnCount");
+    final int nMaxParams = eDBType == EDatabaseType.ORACLE ? MAX_PARAMS_PER_STATEMENT_ORACLE : MAX_PARAMS_PER_STATEMENT;
+    return Math.max (1, nMaxParams / nColumnCount);
+  }
+
+  /**
+   * Create the SQL statement to insert the provided number of rows at once.
+   *
+   * @param eDBType
+   *        The database type to create the statement for. May not be
+   *        <code>null</code>.
+   * @param sTableName
+   *        The table name. May neither be <code>null</code> nor empty.
+   * @param aColumnNames
+   *        The column names. May neither be <code>null</code> nor empty.
+   * @param nRows
+   *        The number of rows. Must be &gt; 0.
+   * @return The SQL statement with one bind parameter per row and column.
+   */
+  @Nonnull
+  @Nonempty
+  public static String createSQL (@Nonnull final EDatabaseType eDBType,
+                                  @Nonnull @Nonempty final String sTableName,
+                                  @Nonnull @Nonempty final String [] aColumnNames,
+                                  @Nonnegative final int nRows)
+  {
+    ValueEnforcer.notNull (eDBType, "DBType");
+    ValueEnforcer.isGT0 (nRows, "Rows");
+
+    final String sColumns = " (" + StringHelper.getImploded (", ", aColumnNames) + ")";
+    final String sValues = "(" + StringHelper.getRepeated ("?, ", aColumnNames.length - 1) + "?)";
+    final StringBuilder aSB = new StringBuilder ();
+    if (eDBType == EDatabaseType.ORACLE)
+    {
+      // Oracle only supports multi-row VALUES from 23c on
+      aSB.append ("INSERT ALL");
+      for (int i = 0; i < nRows; ++i)
+        aSB.append (" INTO ").append (sTableName).append (sColumns).append (" VALUES ").append (sValues);
+      aSB.append (" SELECT 1 FROM DUAL");
+    }
+    else
+    {
+      aSB.append ("INSERT INTO ").append (sTableName).append (sColumns).append (" VALUES ");
+      for (int i = 0; i < nRows; ++i)
+      {
+        if (i > 0)
+          aSB.append (", ");
+        aSB.append (sValues);
+      }
+    }
+    return aSB.toString ();
+  }
+
+  /**
+   * Add a new row to be inserted. Nothing is written until {@link #flush()} is
+   * called.
+   *
+   * @param aValues
+   *        The values of the row in the order of the column names. May not be
+   *        <code>null</code>.
+   */
+  public void addRow (@Nonnull final Object... aValues)
+  {
+    ValueEnforcer.notNull (aValues, "Values");
+    ValueEnforcer.isTrue (aValues.length == m_aColumnNames.length,
+                          () -> "Expected " + m_aColumnNames.length + " values but got " + aValues.length);
+    m_aPendingValues.addAll (aValues);
+    m_nPendingRows++;
+  }
+
+  /**
+   * @return The number of rows added but not yet written. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getPendingRowCount ()
+  {
+    return m_nPendingRows;
+  }
+
+  /**
+   * Write all pending rows, using as few statements as possible.
+   */
+  public void flush ()
+  {
+    int nValueIndex = 0;
+    while (m_nPendingRows > 0)
+    {
+      final int nRows = Math.min (m_nPendingRows, m_nMaxRowsPerStatement);
+      final int nValueCount = nRows * m_aColumnNames.length;
+      final Object [] aValues = m_aPendingValues.subList (nValueIndex, nValueIndex + nValueCount).toArray ();
+      m_nInsertedRows += m_aExecutor.insertOrUpdateOrDelete (createSQL (m_eDBType, m_sTableName, m_aColumnNames, nRows),
+                                                             new ConstantPreparedStatementDataProvider (aValues));
+      m_nExecutedStatements++;
+      nValueIndex += nValueCount;
+      m_nPendingRows -= nRows;
+    }
+    m_aPendingValues.clear ();
+  }
+
+  /**
+   * @return The number of INSERT statements executed so far. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getExecutedStatementCount ()
+  {
+    return m_nExecutedStatements;
+  }
+
+  /**
+   * @return The number of rows inserted so far, as reported by the database.
+   *         Always &ge; 0.
+   */
+  @Nonnegative
+  public long getInsertedRowCount ()
+  {
+    return m_nInsertedRows;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("DBType", m_eDBType)
+                                       .append ("TableName", m_sTableName)
+                                       .append ("ColumnNames", m_aColumnNames)
+                                       .append ("PendingRows", m_nPendingRows)
+                                       .append ("ExecutedStatements", m_nExecutedStatements)
+                                       .getToString ();
+  }
+}
@@ -45,6 +45,7 @@ import com.helger.peppolid.IDocumentTypeIdentifier;
 import com.helger.peppolid.IParticipantIdentifier;
 import com.helger.peppolid.simple.doctype.SimpleDocumentTypeIdentifier;
 import com.helger.peppolid.simple.participant.SimpleParticipantIdentifier;
+import com.helger.phoss.smp.backend.sql.SMPDBExecutor;
 import com.helger.phoss.smp.domain.redirect.ISMPRedirect;
 import com.helger.phoss.smp.domain.redirect.ISMPRedirectCallback;
 import com.helger.phoss.smp.domain.redirect.ISMPRedirectManager;
@@ -65,6 +66,7 @@ public final class SMPRedirectManagerJDBC extends AbstractJDBCEnabledManager imp
   private static final Logger LOGGER = LoggerFactory.getLogger (SMPRedirectManagerJDBC.class);
 
   private final ISMPServiceGroupManager m_aServiceGroupMgr;
+  private final Supplier <? extends DBExecutor> m_aReadDBExecSupplier;
   private final CallbackList <ISMPRedirectCallback> m_aCallbacks = new CallbackList <> ();
 
   /**
@@ -78,11 +80,39 @@ public final class SMPRedirectManagerJDBC extends AbstractJDBCEnabledManager imp
    */
   public SMPRedirectManagerJDBC (@Nonnull final Supplier <? extends DBExecutor> aDBExecSupplier,
                                  @Nonnull final ISMPServiceGroupManager aServiceGroupMgr)
+  {
+    this (aDBExecSupplier, aDBExecSupplier, aServiceGroupMgr);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aDBExecSupplier
+   *        The supplier for {@link DBExecutor} objects. May not be
+   *        <code>null</code>.
+   * @param aReadDBExecSupplier
+   *        The supplier for {@link DBExecutor} objects used for pure read
+   *        operations. May not be <code>null</code>.
+   * @param aServiceGroupMgr
+   *        The service group manager to use. May not be <code>null</code>.
+   * @since 5.7.0
+   */
+  public SMPRedirectManagerJDBC (@Nonnull final Supplier <? extends DBExecutor> aDBExecSupplier,
+                                 @Nonnull final Supplier <? extends DBExecutor> aReadDBExecSupplier,
+                                 @Nonnull final ISMPServiceGroupManager aServiceGroupMgr)
   {
     super (aDBExecSupplier);
+    ValueEnforcer.notNull (aReadDBExecSupplier, "ReadDBExecSupplier");
+    m_aReadDBExecSupplier = aReadDBExecSupplier;
     m_aServiceGroupMgr = aServiceGroupMgr;
   }
 
+  @Nonnull
+  private DBExecutor _newReadExecutor ()
+  {
+    return m_aReadDBExecSupplier.get ();
+  }
+
   @Nonnull
   @ReturnsMutableObject
   public CallbackList <ISMPRedirectCallback> redirectCallbacks ()
@@ -170,7 +200,7 @@ public final class SMPRedirectManagerJDBC extends AbstractJDBCEnabledManager imp
                                         aSMPRedirect.getCertificate (),
                                         aSMPRedirect.getExtensions ().getExtensionsAsJsonString ());
 
-      m_aCallbacks.forEach (x -> x.onSMPRedirectCreated (aSMPRedirect));
+      SMPDBExecutor.runAfterCommit ( () -> m_aCallbacks.forEach (x -> x.onSMPRedirectCreated (aSMPRedirect)));
     }
     else
     {
@@ -184,7 +214,7 @@ public final class SMPRedirectManagerJDBC extends AbstractJDBCEnabledManager imp
                                         aSMPRedirect.getCertificate (),
                                         aSMPRedirect.getExtensions ().getExtensionsAsJsonString ());
 
-      m_aCallbacks.forEach (x -> x.onSMPRedirectUpdated (aSMPRedirect));
+      SMPDBExecutor.runAfterCommit ( () -> m_aCallbacks.forEach (x -> x.onSMPRedirectUpdated (aSMPRedirect)));
     }
     return aSMPRedirect;
   }
@@ -213,7 +243,7 @@ public final class SMPRedirectManagerJDBC extends AbstractJDBCEnabledManager imp
                                       aSMPRedirect.getID (),
                                       aSMPRedirect.getServiceGroupID (),
                                       aSMPRedirect.getDocumentTypeIdentifier ().getURIEncoded ());
-    m_aCallbacks.forEach (x -> x.onSMPRedirectDeleted (aSMPRedirect));
+    SMPDBExecutor.runAfterCommit ( () -> m_aCallbacks.forEach (x -> x.onSMPRedirectDeleted (aSMPRedirect)));
     return EChange.CHANGED;
   }
 
@@ -224,7 +254,7 @@ public final class SMPRedirectManagerJDBC extends AbstractJDBCEnabledManager imp
       return EChange.UNCHANGED;
 
     // Remember all existing
-    final ICommonsList <ISMPRedirect> aDeletedRedirects = getAllSMPRedirectsOfServiceGroup (aServiceGroup);
+    final ICommonsList <ISMPRedirect> aDeletedRedirects = _getAllSMPRedirectsOfServiceGroup (newExecutor (), aServiceGroup);
 
     // Now delete
     final IParticipantIdentifier aParticipantID = aServiceGroup.getParticipantIdentifier ();
@@ -246,7 +276,7 @@ public final class SMPRedirectManagerJDBC extends AbstractJDBCEnabledManager imp
                                           aSMPRedirect.getID (),
                                           aSMPRedirect.getServiceGroupID (),
                                           aSMPRedirect.getDocumentTypeIdentifier ().getURIEncoded ());
-        m_aCallbacks.forEach (x -> x.onSMPRedirectDeleted (aSMPRedirect));
+        SMPDBExecutor.runAfterCommit ( () -> m_aCallbacks.forEach (x -> x.onSMPRedirectDeleted (aSMPRedirect)));
       }
     }
     else
@@ -285,16 +315,24 @@ public final class SMPRedirectManagerJDBC extends AbstractJDBCEnabledManager imp
   @Nonnull
   @ReturnsMutableCopy
   public ICommonsList <ISMPRedirect> getAllSMPRedirectsOfServiceGroup (@Nullable final ISMPServiceGroup aServiceGroup)
+  {
+    return _getAllSMPRedirectsOfServiceGroup (_newReadExecutor (), aServiceGroup);
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  private static ICommonsList <ISMPRedirect> _getAllSMPRedirectsOfServiceGroup (@Nonnull final DBExecutor aExecutor,
+                                                                                @Nullable final ISMPServiceGroup aServiceGroup)
   {
     final ICommonsList <ISMPRedirect> ret = new CommonsArrayList <> ();
     if (aServiceGroup != null)
     {
       final IParticipantIdentifier aParticipantID = aServiceGroup.getParticipantIdentifier ();
-      final ICommonsList <DBResultRow> aDBResult = newExecutor ().queryAll ("SELECT documentIdentifierScheme, documentIdentifier, redirectionUrl, certificateUID, certificate, extension" +
-                                                                            " FROM smp_service_metadata_red" +
-                                                                            " WHERE businessIdentifierScheme=? AND businessIdentifier=?",
-                                                                            new ConstantPreparedStatementDataProvider (aParticipantID.getScheme (),
-                                                                                                                       aParticipantID.getValue ()));
+      final ICommonsList <DBResultRow> aDBResult = aExecutor.queryAll ("SELECT documentIdentifierScheme, documentIdentifier, redirectionUrl, certificateUID, certificate, extension" +
+                                                                       " FROM smp_service_metadata_red" +
+                                                                       " WHERE businessIdentifierScheme=? AND businessIdentifier=?",
+                                                                       new ConstantPreparedStatementDataProvider (aParticipantID.getScheme (),
+                                                                                                                  aParticipantID.getValue ()));
       if (aDBResult != null)
         for (final DBResultRow aRow : aDBResult)
         {
@@ -327,14 +365,14 @@ public final class SMPRedirectManagerJDBC extends AbstractJDBCEnabledManager imp
 
     final IParticipantIdentifier aParticipantID = aServiceGroup.getParticipantIdentifier ();
     final Wrapper <DBResultRow> aDBResult = new Wrapper <> ();
-    newExecutor ().querySingle ("SELECT redirectionUrl, certificateUID, certificate, extension" +
-                                " FROM smp_service_metadata_red" +
-                                " WHERE businessIdentifierScheme=? AND businessIdentifier=? AND documentIdentifierScheme=? and documentIdentifier=?",
-                                new ConstantPreparedStatementDataProvider (aParticipantID.getScheme (),
-                                                                           aParticipantID.getValue (),
-                                                                           aDocTypeID.getScheme (),
-                                                                           aDocTypeID.getValue ()),
-                                aDBResult::set);
+    _newReadExecutor ().querySingle ("SELECT redirectionUrl, certificateUID, certificate, extension" +
+                                     " FROM smp_service_metadata_red" +
+                                     " WHERE businessIdentifierScheme=? AND businessIdentifier=? AND documentIdentifierScheme=? and documentIdentifier=?",
+                                     new ConstantPreparedStatementDataProvider (aParticipantID.getScheme (),
+                                                                                aParticipantID.getValue (),
+                                                                                aDocTypeID.getScheme (),
+                                                                                aDocTypeID.getValue ()),
+                                     aDBResult::set);
     if (aDBResult.isNotSet ())
       return null;
 
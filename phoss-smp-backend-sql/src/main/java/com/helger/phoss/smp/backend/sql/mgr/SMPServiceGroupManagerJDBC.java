@@ -49,6 +49,7 @@ import com.helger.db.jdbc.mgr.AbstractJDBCEnabledManager;
 import com.helger.peppolid.CIdentifier;
 import com.helger.peppolid.IParticipantIdentifier;
 import com.helger.peppolid.simple.participant.SimpleParticipantIdentifier;
+import com.helger.phoss.smp.backend.sql.SMPDBExecutor;
 import com.helger.phoss.smp.domain.servicegroup.ISMPServiceGroup;
 import com.helger.phoss.smp.domain.servicegroup.ISMPServiceGroupCallback;
 import com.helger.phoss.smp.domain.servicegroup.ISMPServiceGroupManager;
@@ -76,6 +77,7 @@ public final class SMPServiceGroupManagerJDBC extends AbstractJDBCEnabledManager
   private static final Logger LOGGER = LoggerFactory.getLogger (SMPServiceGroupManagerJDBC.class);
 
   private final CallbackList <ISMPServiceGroupCallback> m_aCBs = new CallbackList <> ();
+  private final Supplier <? extends DBExecutor> m_aReadDBExecSupplier;
 
   private ExpiringMap <String, SMPServiceGroup> m_aCache;
 
@@ -87,13 +89,38 @@ public final class SMPServiceGroupManagerJDBC extends AbstractJDBCEnabledManager
    *        <code>null</code>.
    */
   public SMPServiceGroupManagerJDBC (@Nonnull final Supplier <? extends DBExecutor> aDBExecSupplier)
+  {
+    this (aDBExecSupplier, aDBExecSupplier);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aDBExecSupplier
+   *        The supplier for {@link DBExecutor} objects. May not be
+   *        <code>null</code>.
+   * @param aReadDBExecSupplier
+   *        The supplier for {@link DBExecutor} objects used for pure read
+   *        operations. May not be <code>null</code>.
+   * @since 5.7.0
+   */
+  public SMPServiceGroupManagerJDBC (@Nonnull final Supplier <? extends DBExecutor> aDBExecSupplier,
+                                     @Nonnull final Supplier <? extends DBExecutor> aReadDBExecSupplier)
   {
     super (aDBExecSupplier);
+    ValueEnforcer.notNull (aReadDBExecSupplier, "ReadDBExecSupplier");
+    m_aReadDBExecSupplier = aReadDBExecSupplier;
+  }
+
+  @Nonnull
+  private DBExecutor _newReadExecutor ()
+  {
+    return m_aReadDBExecSupplier.get ();
   }
 
   public boolean isCacheEnabled ()
   {
-    return false;
+    return m_aCache != null;
   }
 
   public void setCacheEnabled (final boolean bEnabled)
@@ -210,10 +237,13 @@ public final class SMPServiceGroupManagerJDBC extends AbstractJDBCEnabledManager
                                       Boolean.valueOf (bCreateInSML));
 
     final SMPServiceGroup aServiceGroup = new SMPServiceGroup (sOwnerID, aParticipantID, sExtension);
-    if (m_aCache != null)
-      m_aCache.put (aParticipantID.getURIEncoded (), aServiceGroup);
 
-    m_aCBs.forEach (x -> x.onSMPServiceGroupCreated (aServiceGroup, bCreateInSML));
+    // Don't cache or notify anything that may still be rolled back
+    SMPDBExecutor.runAfterCommit ( () -> {
+      if (m_aCache != null)
+        m_aCache.put (aParticipantID.getURIEncoded (), aServiceGroup);
+      m_aCBs.forEach (x -> x.onSMPServiceGroupCreated (aServiceGroup, bCreateInSML));
+    });
     return aServiceGroup;
   }
 
@@ -236,6 +266,10 @@ public final class SMPServiceGroupManagerJDBC extends AbstractJDBCEnabledManager
     final Wrapper <EChange> aWrappedChange = new Wrapper <> (EChange.UNCHANGED);
     final Wrapper <Exception> aCaughtException = new Wrapper <> ();
 
+    // Remove from cache before and after the modification
+    if (m_aCache != null)
+      m_aCache.remove (aParticipantID.getURIEncoded ());
+
     final DBExecutor aExecutor = newExecutor ();
     final ESuccess eSuccess = aExecutor.performInTransaction ( () -> {
       // Check if the passed service group ID is already in use
@@ -301,7 +335,11 @@ public final class SMPServiceGroupManagerJDBC extends AbstractJDBCEnabledManager
 
     // Callback only if something changed
     if (eChange.isChanged ())
-      m_aCBs.forEach (x -> x.onSMPServiceGroupUpdated (aParticipantID));
+    {
+      if (m_aCache != null)
+        m_aCache.remove (aParticipantID.getURIEncoded ());
+      SMPDBExecutor.runAfterCommit ( () -> m_aCBs.forEach (x -> x.onSMPServiceGroupUpdated (aParticipantID)));
+    }
 
     return eChange;
   }
@@ -385,7 +423,7 @@ public final class SMPServiceGroupManagerJDBC extends AbstractJDBCEnabledManager
 
       if (m_aCache != null)
         m_aCache.remove (aParticipantID.getURIEncoded ());
-      m_aCBs.forEach (x -> x.onSMPServiceGroupDeleted (aParticipantID, bDeleteInSML));
+      SMPDBExecutor.runAfterCommit ( () -> m_aCBs.forEach (x -> x.onSMPServiceGroupDeleted (aParticipantID, bDeleteInSML)));
     }
 
     return eChange;
@@ -480,14 +518,17 @@ public final class SMPServiceGroupManagerJDBC extends AbstractJDBCEnabledManager
       return ret;
 
     // Not in cache
+    // If the result is cached, it must be read from the primary database,
+    // because the read replica may not yet contain the latest changes
+    final DBExecutor aExecutor = m_aCache != null ? newExecutor () : _newReadExecutor ();
     final Wrapper <DBResultRow> aResult = new Wrapper <> ();
-    newExecutor ().querySingle ("SELECT sg.extension, so.username" +
-                                " FROM smp_service_group sg, smp_ownership so" +
-                                " WHERE sg.businessIdentifierScheme=? AND sg.businessIdentifier=?" +
-                                " AND so.businessIdentifierScheme=sg.businessIdentifierScheme AND so.businessIdentifier=sg.businessIdentifier",
-                                new ConstantPreparedStatementDataProvider (aParticipantID.getScheme (),
-                                                                           aParticipantID.getValue ()),
-                                aResult::set);
+    aExecutor.querySingle ("SELECT sg.extension, so.username" +
+                           " FROM smp_service_group sg, smp_ownership so" +
+                           " WHERE sg.businessIdentifierScheme=? AND sg.businessIdentifier=?" +
+                           " AND so.businessIdentifierScheme=sg.businessIdentifierScheme AND so.businessIdentifier=sg.businessIdentifier",
+                           new ConstantPreparedStatementDataProvider (aParticipantID.getScheme (),
+                                                                      aParticipantID.getValue ()),
+                           aResult::set);
     if (aResult.isNotSet ())
       return null;
 
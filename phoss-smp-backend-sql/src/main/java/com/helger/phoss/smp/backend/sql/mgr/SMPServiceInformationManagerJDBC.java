@@ -30,11 +30,12 @@ import com.helger.commons.annotation.ReturnsMutableObject;
 import com.helger.commons.callback.CallbackList;
 import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.CommonsLinkedHashMap;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
 import com.helger.commons.equals.EqualsHelper;
 import com.helger.commons.hashcode.HashCodeGenerator;
-import com.helger.commons.mutable.MutableBoolean;
 import com.helger.commons.state.EChange;
 import com.helger.commons.state.ESuccess;
 import com.helger.commons.string.StringHelper;
@@ -51,6 +52,9 @@ import com.helger.peppolid.IProcessIdentifier;
 import com.helger.peppolid.simple.doctype.SimpleDocumentTypeIdentifier;
 import com.helger.peppolid.simple.participant.SimpleParticipantIdentifier;
 import com.helger.peppolid.simple.process.SimpleProcessIdentifier;
+import com.helger.phoss.smp.backend.sql.EDatabaseType;
+import com.helger.phoss.smp.backend.sql.SMPDBExecutor;
+import com.helger.phoss.smp.backend.sql.SMPDataSourceSingleton;
 import com.helger.phoss.smp.domain.servicegroup.ISMPServiceGroup;
 import com.helger.phoss.smp.domain.servicegroup.ISMPServiceGroupManager;
 import com.helger.phoss.smp.domain.serviceinfo.ISMPEndpoint;
@@ -61,6 +65,7 @@ import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformationManager;
 import com.helger.phoss.smp.domain.serviceinfo.SMPEndpoint;
 import com.helger.phoss.smp.domain.serviceinfo.SMPProcess;
 import com.helger.phoss.smp.domain.serviceinfo.SMPServiceInformation;
+import com.helger.phoss.smp.domain.serviceinfo.SMPServiceInformationDiff;
 import com.helger.photon.audit.AuditHelper;
 
 /**
@@ -104,6 +109,8 @@ public final class SMPServiceInformationManagerJDBC extends AbstractJDBCEnabledM
   }
 
   private final ISMPServiceGroupManager m_aServiceGroupMgr;
+  private final Supplier <? extends DBExecutor> m_aReadDBExecSupplier;
+  private final SMPCertificateManagerJDBC m_aCertificateMgr;
   private final CallbackList <ISMPServiceInformationCallback> m_aCBs = new CallbackList <> ();
 
   /**
@@ -117,9 +124,38 @@ public final class SMPServiceInformationManagerJDBC extends AbstractJDBCEnabledM
    */
   public SMPServiceInformationManagerJDBC (@Nonnull final Supplier <? extends DBExecutor> aDBExecSupplier,
                                            @Nonnull final ISMPServiceGroupManager aServiceGroupMgr)
+  {
+    this (aDBExecSupplier, aDBExecSupplier, aServiceGroupMgr);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aDBExecSupplier
+   *        The supplier for {@link DBExecutor} objects. May not be
+   *        <code>null</code>.
+   * @param aReadDBExecSupplier
+   *        The supplier for {@link DBExecutor} objects used for pure read
+   *        operations. May not be <code>null</code>.
+   * @param aServiceGroupMgr
+   *        The service group manager to use. May not be <code>null</code>.
+   * @since 5.7.0
+   */
+  public SMPServiceInformationManagerJDBC (@Nonnull final Supplier <? extends DBExecutor> aDBExecSupplier,
+                                           @Nonnull final Supplier <? extends DBExecutor> aReadDBExecSupplier,
+                                           @Nonnull final ISMPServiceGroupManager aServiceGroupMgr)
   {
     super (aDBExecSupplier);
+    ValueEnforcer.notNull (aReadDBExecSupplier, "ReadDBExecSupplier");
+    m_aReadDBExecSupplier = aReadDBExecSupplier;
     m_aServiceGroupMgr = aServiceGroupMgr;
+    m_aCertificateMgr = new SMPCertificateManagerJDBC (aDBExecSupplier);
+  }
+
+  @Nonnull
+  private DBExecutor _newReadExecutor ()
+  {
+    return m_aReadDBExecSupplier.get ();
   }
 
   @Nonnull
@@ -129,97 +165,384 @@ public final class SMPServiceInformationManagerJDBC extends AbstractJDBCEnabledM
     return m_aCBs;
   }
 
+  /**
+   * The result of merging a single service information.
+   *
+   * @author Philip Helger
+   */
+  private enum EMergeResult
+  {
+    CREATED,
+    UPDATED,
+    UNCHANGED;
+  }
+
   @Nonnull
-  public ESuccess mergeSMPServiceInformation (@Nonnull final ISMPServiceInformation aSMPServiceInformation)
+  private static SMPMultiRowInsert _createProcessInsert (@Nonnull final DBExecutor aExecutor,
+                                                         @Nonnull final EDatabaseType eDBType)
   {
-    ValueEnforcer.notNull (aSMPServiceInformation, "ServiceInformation");
+    return new SMPMultiRowInsert (aExecutor,
+                                  eDBType,
+                                  "smp_process",
+                                  "businessIdentifierScheme",
+                                  "businessIdentifier",
+                                  "documentIdentifierScheme",
+                                  "documentIdentifier",
+                                  "processIdentifierType",
+                                  "processIdentifier",
+                                  "extension");
+  }
 
-    final MutableBoolean aUpdated = new MutableBoolean (false);
+  @Nonnull
+  private static SMPMultiRowInsert _createEndpointInsert (@Nonnull final DBExecutor aExecutor,
+                                                          @Nonnull final EDatabaseType eDBType)
+  {
+    return new SMPMultiRowInsert (aExecutor,
+                                  eDBType,
+                                  "smp_endpoint",
+                                  "businessIdentifierScheme",
+                                  "businessIdentifier",
+                                  "documentIdentifierScheme",
+                                  "documentIdentifier",
+                                  "processIdentifierType",
+                                  "processIdentifier",
+                                  "certificateHash",
+                                  "endpointReference",
+                                  "minimumAuthenticationLevel",
+                                  "requireBusinessLevelSignature",
+                                  "serviceActivationDate",
+                                  "serviceDescription",
+                                  "serviceExpirationDate",
+                                  "technicalContactUrl",
+                                  "technicalInformationUrl",
+                                  "transportProfile",
+                                  "extension");
+  }
 
-    final DBExecutor aExecutor = newExecutor ();
-    final ESuccess eSuccess = aExecutor.performInTransaction ( () -> {
-      // Simply delete the old one
-      final EChange eDeleted = _deleteSMPServiceInformationNoCallback (aSMPServiceInformation);
-      aUpdated.set (eDeleted.isChanged ());
+  private static void _addProcessRow (@Nonnull final SMPMultiRowInsert aProcessInsert,
+                                      @Nonnull final IParticipantIdentifier aPID,
+                                      @Nonnull final IDocumentTypeIdentifier aDocTypeID,
+                                      @Nonnull final ISMPProcess aProcess)
+  {
+    final IProcessIdentifier aProcessID = aProcess.getProcessIdentifier ();
+    aProcessInsert.addRow (aPID.getScheme (),
+                           aPID.getValue (),
+                           aDocTypeID.getScheme (),
+                           aDocTypeID.getValue (),
+                           aProcessID.getScheme (),
+                           aProcessID.getValue (),
+                           aProcess.getExtensions ().getExtensionsAsJsonString ());
+  }
 
-      // Insert new processes
-      final IParticipantIdentifier aPID = aSMPServiceInformation.getServiceGroup ().getParticipantIdentifier ();
-      final IDocumentTypeIdentifier aDocTypeID = aSMPServiceInformation.getDocumentTypeIdentifier ();
+  private void _addEndpointRow (@Nonnull final DBExecutor aExecutor,
+                                @Nonnull final SMPMultiRowInsert aEndpointInsert,
+                                @Nonnull final IParticipantIdentifier aPID,
+                                @Nonnull final IDocumentTypeIdentifier aDocTypeID,
+                                @Nonnull final IProcessIdentifier aProcessID,
+                                @Nonnull final ISMPEndpoint aEndpoint,
+                                @Nonnull final ICommonsMap <String, String> aNewCertificates)
+  {
+    aEndpointInsert.addRow (aPID.getScheme (),
+                            aPID.getValue (),
+                            aDocTypeID.getScheme (),
+                            aDocTypeID.getValue (),
+                            aProcessID.getScheme (),
+                            aProcessID.getValue (),
+                            m_aCertificateMgr.ensureCertificate (aExecutor, aEndpoint.getCertificate (), aNewCertificates),
+                            aEndpoint.getEndpointReference (),
+                            aEndpoint.getMinimumAuthenticationLevel (),
+                            Boolean.valueOf (aEndpoint.isRequireBusinessLevelSignature ()),
+                            DBValueHelper.toTimestamp (aEndpoint.getServiceActivationDateTime ()),
+                            aEndpoint.getServiceDescription (),
+                            DBValueHelper.toTimestamp (aEndpoint.getServiceExpirationDateTime ()),
+                            aEndpoint.getTechnicalContactUrl (),
+                            aEndpoint.getTechnicalInformationUrl (),
+                            aEndpoint.getTransportProfile (),
+                            aEndpoint.getExtensions ().getExtensionsAsJsonString ());
+  }
+
+  /**
+   * Delete a single process including all endpoints without a callback. Must
+   * be called within a transaction.
+   *
+   * @return The number of deleted rows. Always &ge; 0.
+   */
+  private static long _deleteProcessNoCallback (@Nonnull final DBExecutor aExecutor,
+                                                @Nonnull final IParticipantIdentifier aPID,
+                                                @Nonnull final IDocumentTypeIdentifier aDocTypeID,
+                                                @Nonnull final IProcessIdentifier aProcessID)
+  {
+    final long nCountEP = aExecutor.insertOrUpdateOrDelete ("DELETE FROM smp_endpoint" +
+                                                            " WHERE businessIdentifierScheme=? AND businessIdentifier=? AND documentIdentifierScheme=? AND documentIdentifier=? AND processIdentifierType=? AND processIdentifier=?",
+                                                            new ConstantPreparedStatementDataProvider (aPID.getScheme (),
+                                                                                                       aPID.getValue (),
+                                                                                                       aDocTypeID.getScheme (),
+                                                                                                       aDocTypeID.getValue (),
+                                                                                                       aProcessID.getScheme (),
+                                                                                                       aProcessID.getValue ()));
+    final long nCountProc = aExecutor.insertOrUpdateOrDelete ("DELETE FROM smp_process" +
+                                                              " WHERE businessIdentifierScheme=? AND businessIdentifier=? AND documentIdentifierScheme=? AND documentIdentifier=? AND processIdentifierType=? AND processIdentifier=?",
+                                                              new ConstantPreparedStatementDataProvider (aPID.getScheme (),
+                                                                                                         aPID.getValue (),
+                                                                                                         aDocTypeID.getScheme (),
+                                                                                                         aDocTypeID.getValue (),
+                                                                                                         aProcessID.getScheme (),
+                                                                                                         aProcessID.getValue ()));
+    return nCountEP + nCountProc;
+  }
 
-      aExecutor.insertOrUpdateOrDelete ("INSERT INTO smp_service_metadata (businessIdentifierScheme, businessIdentifier, documentIdentifierScheme, documentIdentifier, extension) VALUES (?, ?, ?, ?, ?)",
-                                        new ConstantPreparedStatementDataProvider (aPID.getScheme (),
+  /**
+   * Write only the differences between the stored and the new service
+   * information. Must be called within a transaction.
+   */
+  private void _applyDiff (@Nonnull final DBExecutor aExecutor,
+                           @Nonnull final ISMPServiceInformation aSMPServiceInformation,
+                           @Nonnull final SMPServiceInformationDiff aDiff,
+                           @Nonnull final ICommonsMap <String, String> aNewCertificates)
+  {
+    final IParticipantIdentifier aPID = aSMPServiceInformation.getServiceGroup ().getParticipantIdentifier ();
+    final IDocumentTypeIdentifier aDocTypeID = aSMPServiceInformation.getDocumentTypeIdentifier ();
+
+    if (aDiff.isExtensionChanged ())
+      aExecutor.insertOrUpdateOrDelete ("UPDATE smp_service_metadata SET extension=?" +
+                                        " WHERE businessIdentifierScheme=? AND businessIdentifier=? AND documentIdentifierScheme=? AND documentIdentifier=?",
+                                        new ConstantPreparedStatementDataProvider (aSMPServiceInformation.getExtensions ()
+                                                                                                         .getExtensionsAsJsonString (),
+                                                                                   aPID.getScheme (),
                                                                                    aPID.getValue (),
                                                                                    aDocTypeID.getScheme (),
-                                                                                   aDocTypeID.getValue (),
-                                                                                   aSMPServiceInformation.getExtensions ()
-                                                                                                         .getExtensionsAsJsonString ()));
+                                                                                   aDocTypeID.getValue ()));
 
-      for (final ISMPProcess aProcess : aSMPServiceInformation.getAllProcesses ())
-      {
-        final IProcessIdentifier aProcessID = aProcess.getProcessIdentifier ();
-        aExecutor.insertOrUpdateOrDelete ("INSERT INTO smp_process (businessIdentifierScheme, businessIdentifier, documentIdentifierScheme, documentIdentifier, processIdentifierType, processIdentifier, extension) VALUES (?, ?, ?, ?, ?, ?, ?)",
+    for (final ISMPProcess aProcess : aDiff.removedProcesses ())
+      _deleteProcessNoCallback (aExecutor, aPID, aDocTypeID, aProcess.getProcessIdentifier ());
+
+    final EDatabaseType eDBType = SMPDataSourceSingleton.getDatabaseType ();
+    final SMPMultiRowInsert aProcessInsert = _createProcessInsert (aExecutor, eDBType);
+    final SMPMultiRowInsert aEndpointInsert = _createEndpointInsert (aExecutor, eDBType);
+
+    for (final SMPServiceInformationDiff.ProcessDiff aProcessDiff : aDiff.changedProcesses ())
+    {
+      final ISMPProcess aProcess = aProcessDiff.getProcess ();
+      final IProcessIdentifier aProcessID = aProcess.getProcessIdentifier ();
+      if (aProcessDiff.isExtensionChanged ())
+        aExecutor.insertOrUpdateOrDelete ("UPDATE smp_process SET extension=?" +
+                                          " WHERE businessIdentifierScheme=? AND businessIdentifier=? AND documentIdentifierScheme=? AND documentIdentifier=? AND processIdentifierType=? AND processIdentifier=?",
+                                          new ConstantPreparedStatementDataProvider (aProcess.getExtensions ()
+                                                                                             .getExtensionsAsJsonString (),
+                                                                                     aPID.getScheme (),
+                                                                                     aPID.getValue (),
+                                                                                     aDocTypeID.getScheme (),
+                                                                                     aDocTypeID.getValue (),
+                                                                                     aProcessID.getScheme (),
+                                                                                     aProcessID.getValue ()));
+
+      for (final ISMPEndpoint aEndpoint : aProcessDiff.removedEndpoints ())
+        aExecutor.insertOrUpdateOrDelete ("DELETE FROM smp_endpoint" +
+                                          " WHERE businessIdentifierScheme=? AND businessIdentifier=? AND documentIdentifierScheme=? AND documentIdentifier=? AND processIdentifierType=? AND processIdentifier=? AND transportProfile=?",
                                           new ConstantPreparedStatementDataProvider (aPID.getScheme (),
                                                                                      aPID.getValue (),
                                                                                      aDocTypeID.getScheme (),
                                                                                      aDocTypeID.getValue (),
                                                                                      aProcessID.getScheme (),
                                                                                      aProcessID.getValue (),
-                                                                                     aProcess.getExtensions ()
-                                                                                             .getExtensionsAsJsonString ()));
-        // Insert new endpoints
-        for (final ISMPEndpoint aEndpoint : aProcess.getAllEndpoints ())
-        {
-          aExecutor.insertOrUpdateOrDelete ("INSERT INTO smp_endpoint (businessIdentifierScheme, businessIdentifier, documentIdentifierScheme, documentIdentifier, processIdentifierType, processIdentifier," +
-                                            " certificate, endpointReference, minimumAuthenticationLevel, requireBusinessLevelSignature, serviceActivationDate, serviceDescription, serviceExpirationDate, technicalContactUrl, technicalInformationUrl, transportProfile," +
-                                            " extension) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
-                                            new ConstantPreparedStatementDataProvider (aPID.getScheme (),
-                                                                                       aPID.getValue (),
-                                                                                       aDocTypeID.getScheme (),
-                                                                                       aDocTypeID.getValue (),
-                                                                                       aProcessID.getScheme (),
-                                                                                       aProcessID.getValue (),
-                                                                                       aEndpoint.getCertificate (),
-                                                                                       aEndpoint.getEndpointReference (),
-                                                                                       aEndpoint.getMinimumAuthenticationLevel (),
-                                                                                       Boolean.valueOf (aEndpoint.isRequireBusinessLevelSignature ()),
-                                                                                       DBValueHelper.toTimestamp (aEndpoint.getServiceActivationDateTime ()),
-                                                                                       aEndpoint.getServiceDescription (),
-                                                                                       DBValueHelper.toTimestamp (aEndpoint.getServiceExpirationDateTime ()),
-                                                                                       aEndpoint.getTechnicalContactUrl (),
-                                                                                       aEndpoint.getTechnicalInformationUrl (),
-                                                                                       aEndpoint.getTransportProfile (),
-                                                                                       aEndpoint.getExtensions ()
-                                                                                                .getExtensionsAsJsonString ()));
-        }
-      }
-    });
-    if (eSuccess.isFailure ())
-      return ESuccess.FAILURE;
+                                                                                     aEndpoint.getTransportProfile ()));
+
+      for (final ISMPEndpoint aEndpoint : aProcessDiff.changedEndpoints ())
+        aExecutor.insertOrUpdateOrDelete ("UPDATE smp_endpoint" +
+                                          " SET certificateHash=?, endpointReference=?, minimumAuthenticationLevel=?, requireBusinessLevelSignature=?," +
+                                          "   serviceActivationDate=?, serviceDescription=?, serviceExpirationDate=?, technicalContactUrl=?," +
+                                          "   technicalInformationUrl=?, extension=?" +
+                                          " WHERE businessIdentifierScheme=? AND businessIdentifier=? AND documentIdentifierScheme=? AND documentIdentifier=? AND processIdentifierType=? AND processIdentifier=? AND transportProfile=?",
+                                          new ConstantPreparedStatementDataProvider (m_aCertificateMgr.ensureCertificate (aExecutor,
+                                                                                                                          aEndpoint.getCertificate (),
+                                                                                                                          aNewCertificates),
+                                                                                     aEndpoint.getEndpointReference (),
+                                                                                     aEndpoint.getMinimumAuthenticationLevel (),
+                                                                                     Boolean.valueOf (aEndpoint.isRequireBusinessLevelSignature ()),
+                                                                                     DBValueHelper.toTimestamp (aEndpoint.getServiceActivationDateTime ()),
+                                                                                     aEndpoint.getServiceDescription (),
+                                                                                     DBValueHelper.toTimestamp (aEndpoint.getServiceExpirationDateTime ()),
+                                                                                     aEndpoint.getTechnicalContactUrl (),
+                                                                                     aEndpoint.getTechnicalInformationUrl (),
+                                                                                     aEndpoint.getExtensions ()
+                                                                                              .getExtensionsAsJsonString (),
+                                                                                     aPID.getScheme (),
+                                                                                     aPID.getValue (),
+                                                                                     aDocTypeID.getScheme (),
+                                                                                     aDocTypeID.getValue (),
+                                                                                     aProcessID.getScheme (),
+                                                                                     aProcessID.getValue (),
+                                                                                     aEndpoint.getTransportProfile ()));
 
-    // Callback outside of transaction
-    if (aUpdated.booleanValue ())
+      for (final ISMPEndpoint aEndpoint : aProcessDiff.addedEndpoints ())
+        _addEndpointRow (aExecutor, aEndpointInsert, aPID, aDocTypeID, aProcessID, aEndpoint, aNewCertificates);
+    }
+
+    for (final ISMPProcess aProcess : aDiff.addedProcesses ())
     {
-      AuditHelper.onAuditModifySuccess (SMPServiceInformation.OT,
-                                        "set-all",
-                                        aSMPServiceInformation.getID (),
-                                        aSMPServiceInformation.getServiceGroupID (),
-                                        aSMPServiceInformation.getDocumentTypeIdentifier ().getURIEncoded (),
-                                        aSMPServiceInformation.getAllProcesses (),
-                                        aSMPServiceInformation.getExtensions ().getExtensionsAsJsonString ());
-
-      m_aCBs.forEach (x -> x.onSMPServiceInformationUpdated (aSMPServiceInformation));
+      // Processes without endpoints are stored but not read, so remove them
+      // to avoid duplicate keys
+      _deleteProcessNoCallback (aExecutor, aPID, aDocTypeID, aProcess.getProcessIdentifier ());
+      _addProcessRow (aProcessInsert, aPID, aDocTypeID, aProcess);
+      for (final ISMPEndpoint aEndpoint : aProcess.getAllEndpoints ())
+        _addEndpointRow (aExecutor,
+                         aEndpointInsert,
+                         aPID,
+                         aDocTypeID,
+                         aProcess.getProcessIdentifier (),
+                         aEndpoint,
+                         aNewCertificates);
     }
-    else
+
+    // Processes first because of the foreign key
+    aProcessInsert.flush ();
+    aEndpointInsert.flush ();
+  }
+
+  /**
+   * Store the new service information without a callback. If it already
+   * exists, only the differences to the stored version are written. Must be
+   * called within a transaction.
+   *
+   * @return What happened. Never <code>null</code>.
+   */
+  @Nonnull
+  private EMergeResult _mergeSMPServiceInformationNoCallback (@Nonnull final DBExecutor aExecutor,
+                                                              @Nonnull final ISMPServiceInformation aSMPServiceInformation,
+                                                              @Nonnull final ICommonsMap <String, String> aNewCertificates)
+  {
+    final ISMPServiceInformation aOld = _getSMPServiceInformation (aExecutor,
+                                                                   aSMPServiceInformation.getServiceGroup (),
+                                                                   aSMPServiceInformation.getDocumentTypeIdentifier ());
+    if (aOld != null)
     {
-      AuditHelper.onAuditCreateSuccess (SMPServiceInformation.OT,
-                                        aSMPServiceInformation.getID (),
-                                        aSMPServiceInformation.getServiceGroupID (),
-                                        aSMPServiceInformation.getDocumentTypeIdentifier ().getURIEncoded (),
-                                        aSMPServiceInformation.getAllProcesses (),
-                                        aSMPServiceInformation.getExtensions ().getExtensionsAsJsonString ());
-      m_aCBs.forEach (x -> x.onSMPServiceInformationCreated (aSMPServiceInformation));
+      final SMPServiceInformationDiff aDiff = SMPServiceInformationDiff.create (aOld, aSMPServiceInformation);
+      if (aDiff.isEmpty ())
+        return EMergeResult.UNCHANGED;
+
+      _applyDiff (aExecutor, aSMPServiceInformation, aDiff, aNewCertificates);
+      return EMergeResult.UPDATED;
     }
 
+    // Delete leftovers that cannot be read (e.g. without processes)
+    final boolean bUpdated = _deleteSMPServiceInformationNoCallback (aExecutor, aSMPServiceInformation) > 0;
+
+    // Insert new processes
+    final IParticipantIdentifier aPID = aSMPServiceInformation.getServiceGroup ().getParticipantIdentifier ();
+    final IDocumentTypeIdentifier aDocTypeID = aSMPServiceInformation.getDocumentTypeIdentifier ();
+
+    aExecutor.insertOrUpdateOrDelete ("INSERT INTO smp_service_metadata (businessIdentifierScheme, businessIdentifier, documentIdentifierScheme, documentIdentifier, extension) VALUES (?, ?, ?, ?, ?)",
+                                      new ConstantPreparedStatementDataProvider (aPID.getScheme (),
+                                                                                 aPID.getValue (),
+                                                                                 aDocTypeID.getScheme (),
+                                                                                 aDocTypeID.getValue (),
+                                                                                 aSMPServiceInformation.getExtensions ()
+                                                                                                       .getExtensionsAsJsonString ()));
+
+    // Insert all processes and all endpoints with as few statements as
+    // possible
+    final EDatabaseType eDBType = SMPDataSourceSingleton.getDatabaseType ();
+    final SMPMultiRowInsert aProcessInsert = _createProcessInsert (aExecutor, eDBType);
+    final SMPMultiRowInsert aEndpointInsert = _createEndpointInsert (aExecutor, eDBType);
+    for (final ISMPProcess aProcess : aSMPServiceInformation.getAllProcesses ())
+    {
+      _addProcessRow (aProcessInsert, aPID, aDocTypeID, aProcess);
+      for (final ISMPEndpoint aEndpoint : aProcess.getAllEndpoints ())
+        _addEndpointRow (aExecutor,
+                         aEndpointInsert,
+                         aPID,
+                         aDocTypeID,
+                         aProcess.getProcessIdentifier (),
+                         aEndpoint,
+                         aNewCertificates);
+    }
+    // Processes first because of the foreign key
+    aProcessInsert.flush ();
+    aEndpointInsert.flush ();
+    return bUpdated ? EMergeResult.UPDATED : EMergeResult.CREATED;
+  }
+
+  private void _onMerged (@Nonnull final ISMPServiceInformation aSMPServiceInformation,
+                          @Nonnull final EMergeResult eResult)
+  {
+    switch (eResult)
+    {
+      case UPDATED:
+        AuditHelper.onAuditModifySuccess (SMPServiceInformation.OT,
+                                          "set-all",
+                                          aSMPServiceInformation.getID (),
+                                          aSMPServiceInformation.getServiceGroupID (),
+                                          aSMPServiceInformation.getDocumentTypeIdentifier ().getURIEncoded (),
+                                          aSMPServiceInformation.getAllProcesses (),
+                                          aSMPServiceInformation.getExtensions ().getExtensionsAsJsonString ());
+        SMPDBExecutor.runAfterCommit ( () -> m_aCBs.forEach (x -> x.onSMPServiceInformationUpdated (aSMPServiceInformation)));
+        break;
+      case CREATED:
+        AuditHelper.onAuditCreateSuccess (SMPServiceInformation.OT,
+                                          aSMPServiceInformation.getID (),
+                                          aSMPServiceInformation.getServiceGroupID (),
+                                          aSMPServiceInformation.getDocumentTypeIdentifier ().getURIEncoded (),
+                                          aSMPServiceInformation.getAllProcesses (),
+                                          aSMPServiceInformation.getExtensions ().getExtensionsAsJsonString ());
+        SMPDBExecutor.runAfterCommit ( () -> m_aCBs.forEach (x -> x.onSMPServiceInformationCreated (aSMPServiceInformation)));
+        break;
+      default:
+        // Nothing was written - nothing to tell
+        break;
+    }
+  }
+
+  @Nonnull
+  public ESuccess mergeSMPServiceInformation (@Nonnull final ISMPServiceInformation aSMPServiceInformation)
+  {
+    ValueEnforcer.notNull (aSMPServiceInformation, "ServiceInformation");
+
+    final Wrapper <EMergeResult> aResult = new Wrapper <> ();
+    // Certificates that were not yet known to be in the DB
+    final ICommonsMap <String, String> aNewCertificates = new CommonsHashMap <> ();
+
+    final DBExecutor aExecutor = newExecutor ();
+    final ESuccess eSuccess = aExecutor.performInTransaction ( () -> {
+      aResult.set (_mergeSMPServiceInformationNoCallback (aExecutor, aSMPServiceInformation, aNewCertificates));
+    });
+    if (eSuccess.isFailure ())
+      return ESuccess.FAILURE;
+
+    m_aCertificateMgr.onCommitted (aNewCertificates);
+
+    // Callback outside of transaction
+    _onMerged (aSMPServiceInformation, aResult.get ());
+    return ESuccess.SUCCESS;
+  }
+
+  @Nonnull
+  @Override
+  public ESuccess mergeAllSMPServiceInformation (@Nonnull final Iterable <? extends ISMPServiceInformation> aServiceInformations)
+  {
+    ValueEnforcer.notNull (aServiceInformations, "ServiceInformations");
+
+    // Service information to merge result
+    final ICommonsOrderedMap <ISMPServiceInformation, EMergeResult> aMerged = new CommonsLinkedHashMap <> ();
+    // Certificates that were not yet known to be in the DB
+    final ICommonsMap <String, String> aNewCertificates = new CommonsHashMap <> ();
+
+    // All in one transaction
+    final DBExecutor aExecutor = newExecutor ();
+    final ESuccess eSuccess = aExecutor.performInTransaction ( () -> {
+      for (final ISMPServiceInformation aSMPServiceInformation : aServiceInformations)
+      {
+        ValueEnforcer.notNull (aSMPServiceInformation, "ServiceInformation");
+        aMerged.put (aSMPServiceInformation,
+                     _mergeSMPServiceInformationNoCallback (aExecutor, aSMPServiceInformation, aNewCertificates));
+      }
+    });
+    if (eSuccess.isFailure ())
+      return ESuccess.FAILURE;
+
+    m_aCertificateMgr.onCommitted (aNewCertificates);
+
+    // Callbacks only after the commit
+    aMerged.forEach (this::_onMerged);
     return ESuccess.SUCCESS;
   }
 
@@ -244,33 +567,45 @@ public final class SMPServiceInformationManagerJDBC extends AbstractJDBCEnabledM
     return null;
   }
 
-  @Nonnull
-  private EChange _deleteSMPServiceInformationNoCallback (@Nonnull final ISMPServiceInformation aSMPServiceInformation)
+  /**
+   * Delete the service information without a callback. Must be called within a
+   * transaction.
+   *
+   * @return The number of deleted rows. Always &ge; 0.
+   */
+  private static long _deleteSMPServiceInformationNoCallback (@Nonnull final DBExecutor aExecutor,
+                                                              @Nonnull final ISMPServiceInformation aSMPServiceInformation)
   {
-    final Wrapper <Long> ret = new Wrapper <> (Long.valueOf (-1));
-    final DBExecutor aExecutor = newExecutor ();
-    final ESuccess eSuccess = aExecutor.performInTransaction ( () -> {
-      final IParticipantIdentifier aPID = aSMPServiceInformation.getServiceGroup ().getParticipantIdentifier ();
-      final IDocumentTypeIdentifier aDocTypeID = aSMPServiceInformation.getDocumentTypeIdentifier ();
-      final long nCountEP = aExecutor.insertOrUpdateOrDelete ("DELETE FROM smp_endpoint" +
+    final IParticipantIdentifier aPID = aSMPServiceInformation.getServiceGroup ().getParticipantIdentifier ();
+    final IDocumentTypeIdentifier aDocTypeID = aSMPServiceInformation.getDocumentTypeIdentifier ();
+    final long nCountEP = aExecutor.insertOrUpdateOrDelete ("DELETE FROM smp_endpoint" +
+                                                            " WHERE businessIdentifierScheme=? AND businessIdentifier=? AND documentIdentifierScheme=? AND documentIdentifier=?",
+                                                            new ConstantPreparedStatementDataProvider (aPID.getScheme (),
+                                                                                                       aPID.getValue (),
+                                                                                                       aDocTypeID.getScheme (),
+                                                                                                       aDocTypeID.getValue ()));
+    final long nCountProc = aExecutor.insertOrUpdateOrDelete ("DELETE FROM smp_process" +
                                                               " WHERE businessIdentifierScheme=? AND businessIdentifier=? AND documentIdentifierScheme=? AND documentIdentifier=?",
                                                               new ConstantPreparedStatementDataProvider (aPID.getScheme (),
                                                                                                          aPID.getValue (),
                                                                                                          aDocTypeID.getScheme (),
                                                                                                          aDocTypeID.getValue ()));
-      final long nCountProc = aExecutor.insertOrUpdateOrDelete ("DELETE FROM smp_process" +
-                                                                " WHERE businessIdentifierScheme=? AND businessIdentifier=? AND documentIdentifierScheme=? AND documentIdentifier=?",
-                                                                new ConstantPreparedStatementDataProvider (aPID.getScheme (),
-                                                                                                           aPID.getValue (),
-                                                                                                           aDocTypeID.getScheme (),
-                                                                                                           aDocTypeID.getValue ()));
-      final long nCountSM = aExecutor.insertOrUpdateOrDelete ("DELETE FROM smp_service_metadata" +
-                                                              " WHERE businessIdentifierScheme=? AND businessIdentifier=? AND documentIdentifierScheme=? AND documentIdentifier=?",
-                                                              new ConstantPreparedStatementDataProvider (aPID.getScheme (),
-                                                                                                         aPID.getValue (),
-                                                                                                         aDocTypeID.getScheme (),
-                                                                                                         aDocTypeID.getValue ()));
-      ret.set (Long.valueOf (nCountEP + nCountProc + nCountSM));
+    final long nCountSM = aExecutor.insertOrUpdateOrDelete ("DELETE FROM smp_service_metadata" +
+                                                            " WHERE businessIdentifierScheme=? AND businessIdentifier=? AND documentIdentifierScheme=? AND documentIdentifier=?",
+                                                            new ConstantPreparedStatementDataProvider (aPID.getScheme (),
+                                                                                                       aPID.getValue (),
+                                                                                                       aDocTypeID.getScheme (),
+                                                                                                       aDocTypeID.getValue ()));
+    return nCountEP + nCountProc + nCountSM;
+  }
+
+  @Nonnull
+  private EChange _deleteSMPServiceInformationNoCallback (@Nonnull final ISMPServiceInformation aSMPServiceInformation)
+  {
+    final Wrapper <Long> ret = new Wrapper <> (Long.valueOf (-1));
+    final DBExecutor aExecutor = newExecutor ();
+    final ESuccess eSuccess = aExecutor.performInTransaction ( () -> {
+      ret.set (Long.valueOf (_deleteSMPServiceInformationNoCallback (aExecutor, aSMPServiceInformation)));
     });
     if (eSuccess.isFailure ())
       return EChange.UNCHANGED;
@@ -292,8 +627,8 @@ public final class SMPServiceInformationManagerJDBC extends AbstractJDBCEnabledM
 
     AuditHelper.onAuditDeleteSuccess (SMPServiceInformation.OT, aSMPServiceInformation.getID ());
 
-    // Callback outside of transaction
-    m_aCBs.forEach (x -> x.onSMPServiceInformationDeleted (aSMPServiceInformation));
+    // Callback after the unit of work was committed
+    SMPDBExecutor.runAfterCommit ( () -> m_aCBs.forEach (x -> x.onSMPServiceInformationDeleted (aSMPServiceInformation)));
 
     return EChange.CHANGED;
   }
@@ -337,7 +672,7 @@ public final class SMPServiceInformationManagerJDBC extends AbstractJDBCEnabledM
       for (final ISMPServiceInformation aSMPServiceInformation : aAllDeleted.get ())
       {
         AuditHelper.onAuditDeleteSuccess (SMPServiceInformation.OT, aSMPServiceInformation.getID ());
-        m_aCBs.forEach (x -> x.onSMPServiceInformationDeleted (aSMPServiceInformation));
+        SMPDBExecutor.runAfterCommit ( () -> m_aCBs.forEach (x -> x.onSMPServiceInformationDeleted (aSMPServiceInformation)));
       }
 
     return EChange.CHANGED;
@@ -355,24 +690,10 @@ public final class SMPServiceInformationManagerJDBC extends AbstractJDBCEnabledM
     final ESuccess eSuccess = aExecutor.performInTransaction ( () -> {
       final IParticipantIdentifier aPID = aSMPServiceInformation.getServiceGroup ().getParticipantIdentifier ();
       final IDocumentTypeIdentifier aDocTypeID = aSMPServiceInformation.getDocumentTypeIdentifier ();
-      final IProcessIdentifier aProcessID = aProcess.getProcessIdentifier ();
-      final long nCountEP = aExecutor.insertOrUpdateOrDelete ("DELETE FROM smp_endpoint" +
-                                                              " WHERE businessIdentifierScheme=? AND businessIdentifier=? AND documentIdentifierScheme=? AND documentIdentifier=? AND processIdentifierType=? AND processIdentifier=?",
-                                                              new ConstantPreparedStatementDataProvider (aPID.getScheme (),
-                                                                                                         aPID.getValue (),
-                                                                                                         aDocTypeID.getScheme (),
-                                                                                                         aDocTypeID.getValue (),
-                                                                                                         aProcessID.getScheme (),
-                                                                                                         aProcessID.getValue ()));
-      final long nCountProc = aExecutor.insertOrUpdateOrDelete ("DELETE FROM smp_process" +
-                                                                " WHERE businessIdentifierScheme=? AND businessIdentifier=? AND documentIdentifierScheme=? AND documentIdentifier=? AND processIdentifierType=? AND processIdentifier=?",
-                                                                new ConstantPreparedStatementDataProvider (aPID.getScheme (),
-                                                                                                           aPID.getValue (),
-                                                                                                           aDocTypeID.getScheme (),
-                                                                                                           aDocTypeID.getValue (),
-                                                                                                           aProcessID.getScheme (),
-                                                                                                           aProcessID.getValue ()));
-      ret.set (Long.valueOf (nCountEP + nCountProc));
+      ret.set (Long.valueOf (_deleteProcessNoCallback (aExecutor,
+                                                       aPID,
+                                                       aDocTypeID,
+                                                       aProcess.getProcessIdentifier ())));
     });
     if (eSuccess.isFailure ())
       return EChange.UNCHANGED;
@@ -388,8 +709,8 @@ public final class SMPServiceInformationManagerJDBC extends AbstractJDBCEnabledM
     final ICommonsList <DBResultRow> aDBResult = newExecutor ().queryAll ("SELECT sm.businessIdentifierScheme, sm.businessIdentifier, sm.documentIdentifierScheme, sm.documentIdentifier, sm.extension," +
                                                                           "   sp.processIdentifierType, sp.processIdentifier, sp.extension," +
                                                                           "   se.transportProfile, se.endpointReference, se.requireBusinessLevelSignature, se.minimumAuthenticationLevel," +
-                                                                          "     se.serviceActivationDate, se.serviceExpirationDate, se.certificate, se.serviceDescription," +
-                                                                          "     se.technicalContactUrl, se.technicalInformationUrl, se.extension" +
+                                                                          "     se.serviceActivationDate, se.serviceExpirationDate, se.certificateHash, se.serviceDescription," +
+                                                                          "     se.technicalContactUrl, se.technicalInformationUrl, se.extension, sc.certificate" +
                                                                           " FROM smp_service_metadata sm" +
                                                                           " INNER JOIN smp_process sp" +
                                                                           "   ON sm.businessIdentifierScheme=sp.businessIdentifierScheme AND sm.businessIdentifier=sp.businessIdentifier" +
@@ -397,7 +718,8 @@ public final class SMPServiceInformationManagerJDBC extends AbstractJDBCEnabledM
                                                                           " INNER JOIN smp_endpoint se" +
                                                                           "   ON sp.businessIdentifierScheme=se.businessIdentifierScheme AND sp.businessIdentifier=se.businessIdentifier" +
                                                                           "   AND sp.documentIdentifierScheme=se.documentIdentifierScheme AND sp.documentIdentifier=se.documentIdentifier" +
-                                                                          "   AND sp.processIdentifierType=se.processIdentifierType AND sp.processIdentifier=se.processIdentifier");
+                                                                          "   AND sp.processIdentifierType=se.processIdentifierType AND sp.processIdentifier=se.processIdentifier" +
+                                                                          " LEFT OUTER JOIN smp_certificate sc ON se.certificateHash=sc.certificateHash");
 
     final ICommonsMap <IParticipantIdentifier, ICommonsMap <DocTypeAndExtension, ICommonsMap <SMPProcess, ICommonsList <SMPEndpoint>>>> aGrouping = new CommonsHashMap <> ();
     if (aDBResult != null)
@@ -424,7 +746,8 @@ public final class SMPServiceInformationManagerJDBC extends AbstractJDBCEnabledM
                                                        aDBRow.getAsString (11),
                                                        aDBRow.getAsXMLOffsetDateTime (12),
                                                        aDBRow.getAsXMLOffsetDateTime (13),
-                                                       aDBRow.getAsString (14),
+                                                       m_aCertificateMgr.getCertificateOfHash (aDBRow.getAsString (14),
+                                                                                               aDBRow.getAsString (19)),
                                                        aDBRow.getAsString (15),
                                                        aDBRow.getAsString (16),
                                                        aDBRow.getAsString (17),
@@ -483,8 +806,8 @@ public final class SMPServiceInformationManagerJDBC extends AbstractJDBCEnabledM
       final ICommonsList <DBResultRow> aDBResult = newExecutor ().queryAll ("SELECT sm.documentIdentifierScheme, sm.documentIdentifier, sm.extension," +
                                                                             "   sp.processIdentifierType, sp.processIdentifier, sp.extension," +
                                                                             "   se.transportProfile, se.endpointReference, se.requireBusinessLevelSignature, se.minimumAuthenticationLevel," +
-                                                                            "     se.serviceActivationDate, se.serviceExpirationDate, se.certificate, se.serviceDescription," +
-                                                                            "     se.technicalContactUrl, se.technicalInformationUrl, se.extension" +
+                                                                            "     se.serviceActivationDate, se.serviceExpirationDate, se.certificateHash, se.serviceDescription," +
+                                                                            "     se.technicalContactUrl, se.technicalInformationUrl, se.extension, sc.certificate" +
                                                                             " FROM smp_service_metadata sm" +
                                                                             " INNER JOIN smp_process sp" +
                                                                             "   ON sm.businessIdentifierScheme=sp.businessIdentifierScheme AND sm.businessIdentifier=sp.businessIdentifier" +
@@ -493,6 +816,7 @@ public final class SMPServiceInformationManagerJDBC extends AbstractJDBCEnabledM
                                                                             "   ON sp.businessIdentifierScheme=se.businessIdentifierScheme AND sp.businessIdentifier=se.businessIdentifier" +
                                                                             "   AND sp.documentIdentifierScheme=se.documentIdentifierScheme AND sp.documentIdentifier=se.documentIdentifier" +
                                                                             "   AND sp.processIdentifierType=se.processIdentifierType AND sp.processIdentifier=se.processIdentifier" +
+                                                                            " LEFT OUTER JOIN smp_certificate sc ON se.certificateHash=sc.certificateHash" +
                                                                             " WHERE sm.businessIdentifierScheme=? AND sm.businessIdentifier=?",
                                                                             new ConstantPreparedStatementDataProvider (aPID.getScheme (),
                                                                                                                        aPID.getValue ()));
@@ -519,7 +843,8 @@ public final class SMPServiceInformationManagerJDBC extends AbstractJDBCEnabledM
                                                          aDBRow.getAsString (9),
                                                          aDBRow.getAsXMLOffsetDateTime (10),
                                                          aDBRow.getAsXMLOffsetDateTime (11),
-                                                         aDBRow.getAsString (12),
+                                                         m_aCertificateMgr.getCertificateOfHash (aDBRow.getAsString (12),
+                                                                                                 aDBRow.getAsString (17)),
                                                          aDBRow.getAsString (13),
                                                          aDBRow.getAsString (14),
                                                          aDBRow.getAsString (15),
@@ -557,14 +882,46 @@ public final class SMPServiceInformationManagerJDBC extends AbstractJDBCEnabledM
     if (aServiceGroup != null)
     {
       final IParticipantIdentifier aPID = aServiceGroup.getParticipantIdentifier ();
-      final ICommonsList <DBResultRow> aDBResult = newExecutor ().queryAll ("SELECT sm.documentIdentifierScheme, sm.documentIdentifier" +
+      final ICommonsList <DBResultRow> aDBResult = _newReadExecutor ().queryAll ("SELECT sm.documentIdentifierScheme, sm.documentIdentifier" +
+                                                                                 " FROM smp_service_metadata sm" +
+                                                                                 " WHERE sm.businessIdentifierScheme=? AND sm.businessIdentifier=?",
+                                                                                 new ConstantPreparedStatementDataProvider (aPID.getScheme (),
+                                                                                                                            aPID.getValue ()));
+      if (aDBResult != null)
+        for (final DBResultRow aRow : aDBResult)
+          ret.add (new SimpleDocumentTypeIdentifier (aRow.getAsString (0), aRow.getAsString (1)));
+    }
+    return ret;
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  @Override
+  public ICommonsOrderedMap <IDocumentTypeIdentifier, Integer> getAllSMPDocumentTypesAndEndpointCountOfServiceGroup (@Nullable final ISMPServiceGroup aServiceGroup)
+  {
+    final ICommonsOrderedMap <IDocumentTypeIdentifier, Integer> ret = new CommonsLinkedHashMap <> ();
+    if (aServiceGroup != null)
+    {
+      final IParticipantIdentifier aPID = aServiceGroup.getParticipantIdentifier ();
+      // Outer joins, so that service information without endpoints are
+      // contained as well
+      final ICommonsList <DBResultRow> aDBResult = newExecutor ().queryAll ("SELECT sm.documentIdentifierScheme, sm.documentIdentifier, COUNT(se.transportProfile)" +
                                                                             " FROM smp_service_metadata sm" +
-                                                                            " WHERE sm.businessIdentifierScheme=? AND sm.businessIdentifier=?",
+                                                                            " LEFT OUTER JOIN smp_process sp" +
+                                                                            "   ON sm.businessIdentifierScheme=sp.businessIdentifierScheme AND sm.businessIdentifier=sp.businessIdentifier" +
+                                                                            "   AND sm.documentIdentifierScheme=sp.documentIdentifierScheme AND sm.documentIdentifier=sp.documentIdentifier" +
+                                                                            " LEFT OUTER JOIN smp_endpoint se" +
+                                                                            "   ON sp.businessIdentifierScheme=se.businessIdentifierScheme AND sp.businessIdentifier=se.businessIdentifier" +
+                                                                            "   AND sp.documentIdentifierScheme=se.documentIdentifierScheme AND sp.documentIdentifier=se.documentIdentifier" +
+                                                                            "   AND sp.processIdentifierType=se.processIdentifierType AND sp.processIdentifier=se.processIdentifier" +
+                                                                            " WHERE sm.businessIdentifierScheme=? AND sm.businessIdentifier=?" +
+                                                                            " GROUP BY sm.documentIdentifierScheme, sm.documentIdentifier",
                                                                             new ConstantPreparedStatementDataProvider (aPID.getScheme (),
                                                                                                                        aPID.getValue ()));
       if (aDBResult != null)
         for (final DBResultRow aRow : aDBResult)
-          ret.add (new SimpleDocumentTypeIdentifier (aRow.getAsString (0), aRow.getAsString (1)));
+          ret.put (new SimpleDocumentTypeIdentifier (aRow.getAsString (0), aRow.getAsString (1)),
+                   Integer.valueOf (aRow.getAsInt (2)));
     }
     return ret;
   }
@@ -578,25 +935,34 @@ public final class SMPServiceInformationManagerJDBC extends AbstractJDBCEnabledM
     if (aDocTypeID == null)
       return null;
 
+    return _getSMPServiceInformation (_newReadExecutor (), aServiceGroup, aDocTypeID);
+  }
+
+  @Nullable
+  private ISMPServiceInformation _getSMPServiceInformation (@Nonnull final DBExecutor aExecutor,
+                                                            @Nonnull final ISMPServiceGroup aServiceGroup,
+                                                            @Nonnull final IDocumentTypeIdentifier aDocTypeID)
+  {
     final IParticipantIdentifier aPID = aServiceGroup.getParticipantIdentifier ();
-    final ICommonsList <DBResultRow> aDBResult = newExecutor ().queryAll ("SELECT sm.extension," +
-                                                                          "   sp.processIdentifierType, sp.processIdentifier, sp.extension," +
-                                                                          "   se.transportProfile, se.endpointReference, se.requireBusinessLevelSignature, se.minimumAuthenticationLevel," +
-                                                                          "     se.serviceActivationDate, se.serviceExpirationDate, se.certificate, se.serviceDescription," +
-                                                                          "     se.technicalContactUrl, se.technicalInformationUrl, se.extension" +
-                                                                          " FROM smp_service_metadata sm" +
-                                                                          " INNER JOIN smp_process sp" +
-                                                                          "   ON sm.businessIdentifierScheme=sp.businessIdentifierScheme AND sm.businessIdentifier=sp.businessIdentifier" +
-                                                                          "   AND sm.documentIdentifierScheme=sp.documentIdentifierScheme AND sm.documentIdentifier=sp.documentIdentifier" +
-                                                                          " INNER JOIN smp_endpoint se" +
-                                                                          "   ON sp.businessIdentifierScheme=se.businessIdentifierScheme AND sp.businessIdentifier=se.businessIdentifier" +
-                                                                          "   AND sp.documentIdentifierScheme=se.documentIdentifierScheme AND sp.documentIdentifier=se.documentIdentifier" +
-                                                                          "   AND sp.processIdentifierType=se.processIdentifierType AND sp.processIdentifier=se.processIdentifier" +
-                                                                          " WHERE sm.businessIdentifierScheme=? AND sm.businessIdentifier=? AND sm.documentIdentifierScheme=? AND sm.documentIdentifier=?",
-                                                                          new ConstantPreparedStatementDataProvider (aPID.getScheme (),
-                                                                                                                     aPID.getValue (),
-                                                                                                                     aDocTypeID.getScheme (),
-                                                                                                                     aDocTypeID.getValue ()));
+    final ICommonsList <DBResultRow> aDBResult = aExecutor.queryAll ("SELECT sm.extension," +
+                                                                     "   sp.processIdentifierType, sp.processIdentifier, sp.extension," +
+                                                                     "   se.transportProfile, se.endpointReference, se.requireBusinessLevelSignature, se.minimumAuthenticationLevel," +
+                                                                     "     se.serviceActivationDate, se.serviceExpirationDate, se.certificateHash, se.serviceDescription," +
+                                                                     "     se.technicalContactUrl, se.technicalInformationUrl, se.extension, sc.certificate" +
+                                                                     " FROM smp_service_metadata sm" +
+                                                                     " INNER JOIN smp_process sp" +
+                                                                     "   ON sm.businessIdentifierScheme=sp.businessIdentifierScheme AND sm.businessIdentifier=sp.businessIdentifier" +
+                                                                     "   AND sm.documentIdentifierScheme=sp.documentIdentifierScheme AND sm.documentIdentifier=sp.documentIdentifier" +
+                                                                     " INNER JOIN smp_endpoint se" +
+                                                                     "   ON sp.businessIdentifierScheme=se.businessIdentifierScheme AND sp.businessIdentifier=se.businessIdentifier" +
+                                                                     "   AND sp.documentIdentifierScheme=se.documentIdentifierScheme AND sp.documentIdentifier=se.documentIdentifier" +
+                                                                     "   AND sp.processIdentifierType=se.processIdentifierType AND sp.processIdentifier=se.processIdentifier" +
+                                                                     " LEFT OUTER JOIN smp_certificate sc ON se.certificateHash=sc.certificateHash" +
+                                                                     " WHERE sm.businessIdentifierScheme=? AND sm.businessIdentifier=? AND sm.documentIdentifierScheme=? AND sm.documentIdentifier=?",
+                                                                     new ConstantPreparedStatementDataProvider (aPID.getScheme (),
+                                                                                                                aPID.getValue (),
+                                                                                                                aDocTypeID.getScheme (),
+                                                                                                                aDocTypeID.getValue ()));
     if (aDBResult != null && aDBResult.isNotEmpty ())
     {
       final String sServiceInformationExtension = aDBResult.getFirst ().getAsString (0);
@@ -616,7 +982,8 @@ public final class SMPServiceInformationManagerJDBC extends AbstractJDBCEnabledM
                                                        aDBRow.getAsString (7),
                                                        aDBRow.getAsXMLOffsetDateTime (8),
                                                        aDBRow.getAsXMLOffsetDateTime (9),
-                                                       aDBRow.getAsString (10),
+                                                       m_aCertificateMgr.getCertificateOfHash (aDBRow.getAsString (10),
+                                                                                               aDBRow.getAsString (15)),
                                                        aDBRow.getAsString (11),
                                                        aDBRow.getAsString (12),
                                                        aDBRow.getAsString (13),
@@ -17,10 +17,12 @@
 package com.helger.phoss.smp.backend.sql.mgr;
 
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
 
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.Nonempty;
@@ -32,6 +34,7 @@ import com.helger.commons.collection.attr.StringMap;
 import com.helger.commons.collection.impl.CommonsHashMap;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.concurrent.SimpleLock;
 import com.helger.commons.state.EChange;
 import com.helger.commons.state.ESuccess;
 import com.helger.commons.string.StringHelper;
@@ -43,6 +46,7 @@ import com.helger.db.jdbc.executor.DBExecutor;
 import com.helger.db.jdbc.executor.DBResultRow;
 import com.helger.db.jdbc.mgr.AbstractJDBCEnabledManager;
 import com.helger.phoss.smp.SMPServerConfiguration;
+import com.helger.phoss.smp.backend.sql.SMPDBExecutor;
 import com.helger.phoss.smp.settings.ISMPSettings;
 import com.helger.phoss.smp.settings.ISMPSettingsCallback;
 import com.helger.phoss.smp.settings.ISMPSettingsManager;
@@ -58,8 +62,48 @@ public class SMPSettingsManagerJDBC extends AbstractJDBCEnabledManager implement
   private static final String SML_REQUIRED = "sml-required";
   private static final String SML_ENABLED = "sml-enabled";
   private static final String SML_INFO_ID = "smlinfo-id";
+  // All keys that make up the settings - other keys are stored in the same
+  // table
+  private static final String [] SETTINGS_KEYS = { SMP_REST_WRITABLE_API_DISABLED,
+                                                   DIRECTORY_INTEGRATION_REQUIRED,
+                                                   DIRECTORY_INTEGRATION_ENABLED,
+                                                   DIRECTORY_INTEGRATION_AUTO_UPDATE,
+                                                   DIRECTORY_HOSTNAME,
+                                                   SML_REQUIRED,
+                                                   SML_ENABLED,
+                                                   SML_INFO_ID };
+
+  /**
+   * The settings as read from the database at a certain point in time. Never
+   * modified after creation.
+   *
+   * @author Philip Helger
+   */
+  @Immutable
+  private static final class Snapshot
+  {
+    private final ICommonsMap <String, String> m_aValues;
+    private final ISMPSettings m_aSettings;
+    private final long m_nReadNanos = System.nanoTime ();
+
+    Snapshot (@Nonnull final ICommonsMap <String, String> aAllValues)
+    {
+      m_aValues = new CommonsHashMap <> ();
+      for (final String sKey : SETTINGS_KEYS)
+        m_aValues.put (sKey, aAllValues.get (sKey));
+      m_aSettings = _createSettings (m_aValues);
+    }
+
+    boolean isOutdated (final long nRefreshNanos)
+    {
+      return nRefreshNanos > 0 && System.nanoTime () - m_nReadNanos > nRefreshNanos;
+    }
+  }
 
   private final CallbackList <ISMPSettingsCallback> m_aCallbacks = new CallbackList <> ();
+  private final SimpleLock m_aRefreshLock = new SimpleLock ();
+  private final long m_nRefreshNanos;
+  private volatile Snapshot m_aSnapshot;
 
   /**
    * Constructor
@@ -71,6 +115,7 @@ public class SMPSettingsManagerJDBC extends AbstractJDBCEnabledManager implement
   public SMPSettingsManagerJDBC (@Nonnull final Supplier <? extends DBExecutor> aDBExecSupplier)
   {
     super (aDBExecSupplier);
+    m_nRefreshNanos = TimeUnit.SECONDS.toNanos (Math.max (0, SMPServerConfiguration.getSettingsRefreshSeconds ()));
   }
 
   @Nonnull
@@ -112,7 +157,7 @@ public class SMPSettingsManagerJDBC extends AbstractJDBCEnabledManager implement
     ValueEnforcer.notEmpty (aEntries, "Entries");
 
     final DBExecutor aExecutor = newExecutor ();
-    return aExecutor.performInTransaction ( () -> {
+    final ESuccess eSuccess = aExecutor.performInTransaction ( () -> {
       for (final Map.Entry <String, String> aEntry : aEntries.entrySet ())
       {
         final String sKey = aEntry.getKey ();
@@ -121,6 +166,9 @@ public class SMPSettingsManagerJDBC extends AbstractJDBCEnabledManager implement
         setSettingsValue (aExecutor, sKey, sValue);
       }
     });
+    if (eSuccess.isSuccess ())
+      _refresh (true);
+    return eSuccess;
   }
 
   @Nonnull
@@ -160,10 +208,59 @@ public class SMPSettingsManagerJDBC extends AbstractJDBCEnabledManager implement
     return getSettingsValue (newExecutor (), sKey);
   }
 
+  /**
+   * Re-read the settings from the database and swap the snapshot. If the
+   * values changed compared to the previous snapshot, the callbacks are
+   * invoked.
+   *
+   * @param bForce
+   *        <code>true</code> to always re-read, <code>false</code> to only
+   *        re-read if the current snapshot is missing or outdated.
+   */
+  private void _refresh (final boolean bForce)
+  {
+    Snapshot aChanged = null;
+    m_aRefreshLock.lock ();
+    try
+    {
+      final Snapshot aOld = m_aSnapshot;
+      // Another thread may have refreshed in the meantime
+      if (bForce || aOld == null || aOld.isOutdated (m_nRefreshNanos))
+      {
+        final Snapshot aNew = new Snapshot (getAllSettingsValues ());
+        m_aSnapshot = aNew;
+        // Without a previous snapshot, only a write is considered a change
+        if (aOld == null ? bForce : !aOld.m_aValues.equals (aNew.m_aValues))
+          aChanged = aNew;
+      }
+    }
+    finally
+    {
+      m_aRefreshLock.unlock ();
+    }
+
+    if (aChanged != null)
+    {
+      final ISMPSettings aSettings = aChanged.m_aSettings;
+      SMPDBExecutor.runAfterCommit ( () -> m_aCallbacks.forEach (x -> x.onSMPSettingsChanged (aSettings)));
+    }
+  }
+
   @Nonnull
   public ISMPSettings getSettings ()
   {
-    final ICommonsMap <String, String> aValues = getAllSettingsValues ();
+    Snapshot aSnapshot = m_aSnapshot;
+    if (aSnapshot == null || aSnapshot.isOutdated (m_nRefreshNanos))
+    {
+      _refresh (false);
+      aSnapshot = m_aSnapshot;
+    }
+    return aSnapshot.m_aSettings;
+  }
+
+  @Nonnull
+  private static ISMPSettings _createSettings (@Nonnull final ICommonsMap <String, String> aValues)
+  {
     final SMPSettings ret = new SMPSettings (false);
     ret.setRESTWritableAPIDisabled (StringParser.parseBool (aValues.get (SMP_REST_WRITABLE_API_DISABLED),
                                                             SMPServerConfiguration.DEFAULT_SMP_REST_WRITABLE_API_DISABLED));
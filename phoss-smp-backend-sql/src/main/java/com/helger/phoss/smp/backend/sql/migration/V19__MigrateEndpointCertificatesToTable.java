@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2019-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.phoss.smp.backend.sql.migration;
+
+import javax.annotation.Nonnull;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.collection.impl.CommonsHashSet;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsSet;
+import com.helger.commons.mutable.MutableInt;
+import com.helger.commons.state.ESuccess;
+import com.helger.db.jdbc.callback.ConstantPreparedStatementDataProvider;
+import com.helger.db.jdbc.executor.DBExecutor;
+import com.helger.db.jdbc.executor.DBResultRow;
+import com.helger.phoss.smp.backend.sql.SMPDBExecutor;
+import com.helger.phoss.smp.backend.sql.mgr.SMPCertificateManagerJDBC;
+import com.helger.phoss.smp.security.SMPParsedCertificate;
+import com.helger.web.scope.mgr.WebScoped;
+
+/**
+ * Move the certificates of all existing endpoints to the new
+ * <code>smp_certificate</code> table, so that each distinct certificate is
+ * only stored once.
+ *
+ * @author Philip Helger
+ * @since 5.7.0
+ */
+public final class V19__MigrateEndpointCertificatesToTable extends BaseJavaMigration
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (V19__MigrateEndpointCertificatesToTable.class);
+
+  public void migrate (@Nonnull final Context context) throws Exception
+  {
+    try (final WebScoped aWS = new WebScoped ())
+    {
+      LOGGER.info ("Migrating all endpoint certificates to the certificate table");
+
+      final DBExecutor aExecutor = new SMPDBExecutor ();
+      final MutableInt aEndpointCount = new MutableInt (0);
+      final ICommonsSet <String> aHashes = new CommonsHashSet <> ();
+      final ESuccess eSuccess = aExecutor.performInTransaction ( () -> {
+        final ICommonsList <DBResultRow> aDBResult = aExecutor.queryAll ("SELECT businessIdentifierScheme, businessIdentifier, documentIdentifierScheme, documentIdentifier," +
+                                                                         " processIdentifierType, processIdentifier, transportProfile, certificate" +
+                                                                         " FROM smp_endpoint" +
+                                                                         " WHERE certificateHash IS NULL AND certificate IS NOT NULL");
+        if (aDBResult != null)
+          for (final DBResultRow aRow : aDBResult)
+          {
+            final String sCertificate = aRow.getAsString (7);
+            final String sHash = SMPParsedCertificate.getCertificateHash (sCertificate);
+            if (aHashes.add (sHash))
+              SMPCertificateManagerJDBC.insertCertificateIfMissing (aExecutor, sHash, sCertificate);
+
+            aExecutor.insertOrUpdateOrDelete ("UPDATE smp_endpoint SET certificateHash=?, certificate=NULL" +
+                                              " WHERE businessIdentifierScheme=? AND businessIdentifier=? AND documentIdentifierScheme=? AND documentIdentifier=?" +
+                                              " AND processIdentifierType=? AND processIdentifier=? AND transportProfile=?",
+                                              new ConstantPreparedStatementDataProvider (sHash,
+                                                                                         aRow.getAsString (0),
+                                                                                         aRow.getAsString (1),
+                                                                                         aRow.getAsString (2),
+                                                                                         aRow.getAsString (3),
+                                                                                         aRow.getAsString (4),
+                                                                                         aRow.getAsString (5),
+                                                                                         aRow.getAsString (6)));
+            aEndpointCount.inc ();
+          }
+      });
+      if (eSuccess.isFailure ())
+        throw new IllegalStateException ("Failed to migrate endpoint certificates to the certificate table");
+
+      LOGGER.info ("Finished migrating the certificates of " +
+                   aEndpointCount.intValue () +
+                   " endpoints to " +
+                   aHashes.size () +
+                   " distinct certificates");
+    }
+  }
+}
@@ -0,0 +1,27 @@
+--
+-- Copyright (C) 2019-2022 Philip Helger and contributors
+-- philip[at]helger[dot]com
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--         http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+
+CREATE TABLE "smp_certificate" (
+    "certificateHash" varchar(64) NOT NULL,
+    "certificate"     CLOB        NOT NULL,
+    CONSTRAINT "pk_smp_certificate" PRIMARY KEY
+      ("certificateHash")
+  );
+
+ALTER TABLE "smp_endpoint" ADD COLUMN "certificateHash" varchar(64);
+ALTER TABLE "smp_endpoint" ALTER COLUMN "certificate" DROP NOT NULL;
+CALL SYSPROC.ADMIN_CMD ('REORG TABLE "smp_endpoint"');
@@ -0,0 +1,28 @@
+--
+-- Copyright (C) 2019-2022 Philip Helger and contributors
+-- philip[at]helger[dot]com
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--         http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+
+CREATE TABLE smp_certificate (
+  certificateHash varchar(64) NOT NULL,
+  certificate     text        NOT NULL,
+  PRIMARY KEY (certificateHash)
+);
+
+COMMENT ON COLUMN smp_certificate.certificateHash IS 'Hex encoded SHA-256 hash of the certificate';
+COMMENT ON COLUMN smp_certificate.certificate     IS 'The certificate as used in the endpoints';
+
+ALTER TABLE smp_endpoint ADD COLUMN certificateHash varchar(64);
+ALTER TABLE smp_endpoint ALTER COLUMN certificate DROP NOT NULL;
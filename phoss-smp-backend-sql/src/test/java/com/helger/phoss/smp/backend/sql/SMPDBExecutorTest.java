@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2019-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.phoss.smp.backend.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.state.ESuccess;
+import com.helger.db.jdbc.IHasConnection;
+
+/**
+ * Test class for class {@link SMPDBExecutor}.
+ *
+ * @author Philip Helger
+ */
+public final class SMPDBExecutorTest
+{
+  /**
+   * A connection provider without a database, that only counts what happened.
+   */
+  private static final class MockConnectionProvider implements IHasConnection
+  {
+    private final AtomicInteger m_aConnections = new AtomicInteger (0);
+    private final AtomicInteger m_aCommits = new AtomicInteger (0);
+    private final AtomicInteger m_aRollbacks = new AtomicInteger (0);
+
+    public Connection getConnection ()
+    {
+      m_aConnections.incrementAndGet ();
+      final AtomicBoolean aAutoCommit = new AtomicBoolean (true);
+      final AtomicBoolean aClosed = new AtomicBoolean (false);
+      return (Connection) Proxy.newProxyInstance (Connection.class.getClassLoader (),
+                                                  new Class <?> [] { Connection.class },
+                                                  (aProxy, aMethod, aArgs) -> {
+                                                    switch (aMethod.getName ())
+                                                    {
+                                                      case "setAutoCommit":
+                                                        aAutoCommit.set (((Boolean) aArgs[0]).booleanValue ());
+                                                        return null;
+                                                      case "getAutoCommit":
+                                                        return Boolean.valueOf (aAutoCommit.get ());
+                                                      case "commit":
+                                                        m_aCommits.incrementAndGet ();
+                                                        return null;
+                                                      case "rollback":
+                                                        m_aRollbacks.incrementAndGet ();
+                                                        return null;
+                                                      case "close":
+                                                        aClosed.set (true);
+                                                        return null;
+                                                      case "isClosed":
+                                                        return Boolean.valueOf (aClosed.get ());
+                                                      case "isValid":
+                                                        return Boolean.TRUE;
+                                                      case "hashCode":
+                                                        return Integer.valueOf (System.identityHashCode (aProxy));
+                                                      case "equals":
+                                                        return Boolean.valueOf (aProxy == aArgs[0]);
+                                                      case "toString":
+                                                        return "MockConnection";
+                                                      default:
+                                                        if (aMethod.getReturnType () == boolean.class)
+                                                          return Boolean.FALSE;
+                                                        if (aMethod.getReturnType () == int.class)
+                                                          return Integer.valueOf (0);
+                                                        return null;
+                                                    }
+                                                  });
+    }
+
+    public boolean shouldCloseConnection ()
+    {
+      return true;
+    }
+  }
+
+  @Test
+  public void testNestedJoinsOuterTransaction ()
+  {
+    final MockConnectionProvider aProvider = new MockConnectionProvider ();
+    final SMPDBExecutor aExecutor = new SMPDBExecutor (aProvider);
+    assertFalse (SMPDBExecutor.isInTransaction ());
+
+    final AtomicInteger aNestedRuns = new AtomicInteger (0);
+    final ESuccess eSuccess = aExecutor.performInTransaction ( () -> {
+      assertTrue (SMPDBExecutor.isInTransaction ());
+      // Nested operations use the executor of the running transaction
+      assertSame (aExecutor, SMPDBExecutor.getCurrentOrNew ());
+      assertSame (aExecutor, SMPDBExecutor.getCurrentOrNewForRead ());
+
+      assertTrue (SMPDBExecutor.performInUnitOfWork (aNestedRuns::incrementAndGet, null).isSuccess ());
+      assertTrue (SMPDBExecutor.getCurrentOrNew ().performInTransaction (aNestedRuns::incrementAndGet).isSuccess ());
+      // Nothing committed yet
+      assertEquals (0, aProvider.m_aCommits.get ());
+    });
+    assertTrue (eSuccess.isSuccess ());
+    assertFalse (SMPDBExecutor.isInTransaction ());
+
+    assertEquals (2, aNestedRuns.get ());
+    // One connection and one commit for everything
+    assertEquals (1, aProvider.m_aConnections.get ());
+    assertEquals (1, aProvider.m_aCommits.get ());
+    assertEquals (0, aProvider.m_aRollbacks.get ());
+  }
+
+  @Test
+  public void testNestedFailureRollsBackOuter ()
+  {
+    final MockConnectionProvider aProvider = new MockConnectionProvider ();
+    final SMPDBExecutor aExecutor = new SMPDBExecutor (aProvider);
+    final ICommonsList <String> aEvents = new CommonsArrayList <> ();
+
+    final ESuccess eSuccess = aExecutor.performInTransaction ( () -> {
+      SMPDBExecutor.runAfterCommit ( () -> aEvents.add ("outer"));
+
+      final ESuccess eNested = SMPDBExecutor.performInUnitOfWork ( () -> {
+        SMPDBExecutor.runAfterCommit ( () -> aEvents.add ("nested"));
+        throw new IllegalStateException ("Intended nested failure");
+      }, ex -> aEvents.add ("exception"));
+      assertTrue (eNested.isFailure ());
+
+      // Continuing after the failure must not commit
+      aEvents.add ("continued");
+    }, ex -> {});
+    assertTrue (eSuccess.isFailure ());
+    assertFalse (SMPDBExecutor.isInTransaction ());
+
+    assertEquals (0, aProvider.m_aCommits.get ());
+    assertEquals (1, aProvider.m_aRollbacks.get ());
+    // No after commit action was run
+    assertEquals (new CommonsArrayList <> ("exception", "continued"), aEvents);
+
+    // The rollback-only state is not taken over to the next unit of work
+    assertTrue (aExecutor.performInTransaction ( () -> aEvents.add ("next")).isSuccess ());
+    assertEquals (1, aProvider.m_aCommits.get ());
+  }
+
+  @Test
+  public void testAfterCommitOrdering ()
+  {
+    final MockConnectionProvider aProvider = new MockConnectionProvider ();
+    final SMPDBExecutor aExecutor = new SMPDBExecutor (aProvider);
+    final ICommonsList <String> aEvents = new CommonsArrayList <> ();
+
+    final ESuccess eSuccess = aExecutor.performInTransaction ( () -> {
+      SMPDBExecutor.runAfterCommit ( () -> aEvents.add ("first-" + aProvider.m_aCommits.get ()));
+      SMPDBExecutor.performInUnitOfWork ( () -> {
+        SMPDBExecutor.runAfterCommit ( () -> aEvents.add ("nested-" + aProvider.m_aCommits.get ()));
+        aEvents.add ("nested-body");
+      }, null);
+      SMPDBExecutor.runAfterCommit ( () -> aEvents.add ("last-" + aProvider.m_aCommits.get ()));
+      aEvents.add ("body");
+    });
+    assertTrue (eSuccess.isSuccess ());
+
+    // All actions run after the single commit, in registration order
+    assertEquals (new CommonsArrayList <> ("nested-body", "body", "first-1", "nested-1", "last-1"), aEvents);
+
+    // Without a unit of work, the action is run immediately
+    aEvents.clear ();
+    SMPDBExecutor.runAfterCommit ( () -> aEvents.add ("direct"));
+    assertEquals (new CommonsArrayList <> ("direct"), aEvents);
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2019-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.phoss.smp.backend.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.db.jdbc.IHasConnection;
+
+/**
+ * Test class for class {@link SMPReadReplicaConnectionProvider}.
+ *
+ * @author Philip Helger
+ */
+public final class SMPReadReplicaConnectionProviderTest
+{
+  @Nonnull
+  private static IHasConnection _createCountingProvider (@Nonnull final AtomicInteger aCounter)
+  {
+    return new IHasConnection ()
+    {
+      public Connection getConnection ()
+      {
+        aCounter.incrementAndGet ();
+        // No connection available
+        return null;
+      }
+
+      public boolean shouldCloseConnection ()
+      {
+        return true;
+      }
+    };
+  }
+
+  @Test
+  public void testFallback () throws Exception
+  {
+    final AtomicInteger aReplicaCount = new AtomicInteger (0);
+    final AtomicInteger aPrimaryCount = new AtomicInteger (0);
+    final long nFallbacks = SMPReadReplicaConnectionProvider.getFallbackCount ();
+    final SMPReadReplicaConnectionProvider aCP = new SMPReadReplicaConnectionProvider (_createCountingProvider (aReplicaCount),
+                                                                                       _createCountingProvider (aPrimaryCount),
+                                                                                       60_000);
+
+    // Replica is tried first
+    assertNull (aCP.getConnection ());
+    assertEquals (1, aReplicaCount.get ());
+    assertEquals (1, aPrimaryCount.get ());
+
+    // Within the retry interval only the primary is used
+    assertNull (aCP.getConnection ());
+    assertEquals (1, aReplicaCount.get ());
+    assertEquals (2, aPrimaryCount.get ());
+    assertEquals (nFallbacks + 2, SMPReadReplicaConnectionProvider.getFallbackCount ());
+  }
+
+  @Test
+  public void testNoRetryInterval () throws Exception
+  {
+    final AtomicInteger aReplicaCount = new AtomicInteger (0);
+    final AtomicInteger aPrimaryCount = new AtomicInteger (0);
+    final SMPReadReplicaConnectionProvider aCP = new SMPReadReplicaConnectionProvider (_createCountingProvider (aReplicaCount),
+                                                                                       _createCountingProvider (aPrimaryCount),
+                                                                                       0);
+
+    // Replica is tried every time
+    assertNull (aCP.getConnection ());
+    assertNull (aCP.getConnection ());
+    assertEquals (2, aReplicaCount.get ());
+    assertEquals (2, aPrimaryCount.get ());
+  }
+}
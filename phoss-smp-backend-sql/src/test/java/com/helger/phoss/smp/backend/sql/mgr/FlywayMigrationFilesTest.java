@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2019-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.phoss.smp.backend.sql.mgr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsTreeSet;
+import com.helger.commons.collection.impl.ICommonsSortedSet;
+import com.helger.commons.io.file.FileSystemIterator;
+import com.helger.commons.string.StringHelper;
+import com.helger.phoss.smp.backend.sql.EDatabaseType;
+
+/**
+ * Test that all SQL based Flyway migrations are present for all supported
+ * database types.
+ *
+ * @author Philip Helger
+ */
+public final class FlywayMigrationFilesTest
+{
+  @Nonnull
+  private static ICommonsSortedSet <String> _getAllSQLVersions (@Nonnull final EDatabaseType eDBType)
+  {
+    final File aDir = new File ("src/main/resources/db/migrate-" + eDBType.getID ());
+    assertTrue (aDir.getAbsolutePath (), aDir.isDirectory ());
+
+    final ICommonsSortedSet <String> ret = new CommonsTreeSet <> ();
+    for (final File aFile : new FileSystemIterator (aDir))
+      if (aFile.isFile () && aFile.getName ().endsWith (".sql"))
+        ret.add (StringHelper.getUntilFirstExcl (aFile.getName (), "__"));
+    return ret;
+  }
+
+  @Test
+  public void testSameVersionsForAllDatabaseTypes ()
+  {
+    final ICommonsSortedSet <String> aExpected = _getAllSQLVersions (EDatabaseType.MYSQL);
+    assertTrue (aExpected.contains ("V20"));
+    for (final EDatabaseType eDBType : EDatabaseType.values ())
+      assertEquals (eDBType.getID (), aExpected, _getAllSQLVersions (eDBType));
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2019-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.phoss.smp.backend.sql.mgr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.helger.commons.string.StringHelper;
+import com.helger.phoss.smp.backend.sql.EDatabaseType;
+
+/**
+ * Test class for class {@link SMPMultiRowInsert}.
+ *
+ * @author Philip Helger
+ */
+public final class SMPMultiRowInsertTest
+{
+  private static final String [] COLS = { "a", "b", "c" };
+
+  @Test
+  public void testCreateSQL ()
+  {
+    for (final EDatabaseType eDBType : new EDatabaseType [] { EDatabaseType.MYSQL, EDatabaseType.POSTGRESQL })
+    {
+      assertEquals ("INSERT INTO t (a, b, c) VALUES (?, ?, ?)", SMPMultiRowInsert.createSQL (eDBType, "t", COLS, 1));
+      assertEquals ("INSERT INTO t (a, b, c) VALUES (?, ?, ?), (?, ?, ?)",
+                    SMPMultiRowInsert.createSQL (eDBType, "t", COLS, 2));
+    }
+    assertEquals ("INSERT ALL INTO t (a, b, c) VALUES (?, ?, ?) INTO t (a, b, c) VALUES (?, ?, ?) SELECT 1 FROM DUAL",
+                  SMPMultiRowInsert.createSQL (EDatabaseType.ORACLE, "t", COLS, 2));
+
+    // One bind parameter per row and column
+    for (final EDatabaseType eDBType : EDatabaseType.values ())
+      assertEquals (3 * 50, StringHelper.getCharCount (SMPMultiRowInsert.createSQL (eDBType, "t", COLS, 50), '?'));
+  }
+
+  @Test
+  public void testStatementCount ()
+  {
+    for (final EDatabaseType eDBType : new EDatabaseType [] { EDatabaseType.MYSQL, EDatabaseType.POSTGRESQL })
+    {
+      // smp_process has 7 and smp_endpoint has 17 columns
+      final int nMaxProcessRows = SMPMultiRowInsert.getMaxRowsPerStatement (eDBType, 7);
+      final int nMaxEndpointRows = SMPMultiRowInsert.getMaxRowsPerStatement (eDBType, 17);
+      assertTrue (nMaxProcessRows * 7 <= SMPMultiRowInsert.MAX_PARAMS_PER_STATEMENT);
+      assertTrue (nMaxEndpointRows * 17 <= SMPMultiRowInsert.MAX_PARAMS_PER_STATEMENT);
+
+      // 20 processes with 3 endpoints each previously required 1 + 20 + 60
+      // INSERT statements - now it is 1 + 1 + 1
+      assertTrue (20 <= nMaxProcessRows);
+      assertTrue (60 <= nMaxEndpointRows);
+    }
+
+    // Oracle has a lower limit
+    assertTrue (SMPMultiRowInsert.getMaxRowsPerStatement (EDatabaseType.ORACLE, 17) * 17 <= 999);
+
+    // Never less than 1 row per statement
+    assertEquals (1,
+                  SMPMultiRowInsert.getMaxRowsPerStatement (EDatabaseType.MYSQL,
+                                                            SMPMultiRowInsert.MAX_PARAMS_PER_STATEMENT + 1));
+  }
+}
@@ -21,6 +21,7 @@ import java.security.cert.X509Certificate;
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,12 +29,17 @@ import org.slf4j.LoggerFactory;
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.ELockType;
 import com.helger.commons.annotation.IsLocked;
+import com.helger.commons.annotation.MustBeLocked;
 import com.helger.commons.annotation.Nonempty;
 import com.helger.commons.annotation.ReturnsMutableCopy;
 import com.helger.commons.annotation.ReturnsMutableObject;
 import com.helger.commons.callback.CallbackList;
 import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.CommonsLinkedHashMap;
 import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
 import com.helger.commons.state.EChange;
 import com.helger.commons.string.StringHelper;
 import com.helger.dao.DAOException;
@@ -57,10 +63,45 @@ public final class SMPRedirectManagerXML extends AbstractPhotonMapBasedWALDAO <I
   private static final Logger LOGGER = LoggerFactory.getLogger (SMPRedirectManagerXML.class);
 
   private final CallbackList <ISMPRedirectCallback> m_aCallbacks = new CallbackList <> ();
+  // Service group ID to document type ID to redirect
+  @GuardedBy ("m_aRWLock")
+  private final ICommonsMap <String, ICommonsOrderedMap <String, SMPRedirect>> m_aIndex = new CommonsHashMap <> ();
 
   public SMPRedirectManagerXML (@Nonnull @Nonempty final String sFilename) throws DAOException
   {
     super (SMPRedirect.class, sFilename);
+
+    // The data was read in the super constructor
+    m_aRWLock.writeLocked ( () -> {
+      for (final ISMPRedirect aRedirect : getAll ())
+        _addToIndex ((SMPRedirect) aRedirect);
+    });
+  }
+
+  @Nonnull
+  private static String _getDocTypeKey (@Nonnull final IDocumentTypeIdentifier aDocTypeID)
+  {
+    return aDocTypeID.getURIEncoded ();
+  }
+
+  @MustBeLocked (ELockType.WRITE)
+  private void _addToIndex (@Nonnull final SMPRedirect aRedirect)
+  {
+    // Overwrites an existing redirect with the same ID
+    m_aIndex.computeIfAbsent (aRedirect.getServiceGroupID (), k -> new CommonsLinkedHashMap <> ())
+            .put (_getDocTypeKey (aRedirect.getDocumentTypeIdentifier ()), aRedirect);
+  }
+
+  @MustBeLocked (ELockType.WRITE)
+  private void _removeFromIndex (@Nonnull final SMPRedirect aRedirect)
+  {
+    final ICommonsOrderedMap <String, SMPRedirect> aMap = m_aIndex.get (aRedirect.getServiceGroupID ());
+    if (aMap != null)
+    {
+      aMap.remove (_getDocTypeKey (aRedirect.getDocumentTypeIdentifier ()));
+      if (aMap.isEmpty ())
+        m_aIndex.remove (aRedirect.getServiceGroupID ());
+    }
   }
 
   @Nonnull
@@ -76,6 +117,7 @@ public final class SMPRedirectManagerXML extends AbstractPhotonMapBasedWALDAO <I
   {
     m_aRWLock.writeLocked ( () -> {
       internalCreateItem (aSMPRedirect);
+      _addToIndex (aSMPRedirect);
     });
     AuditHelper.onAuditCreateSuccess (SMPRedirect.OT,
                                       aSMPRedirect.getID (),
@@ -94,6 +136,7 @@ public final class SMPRedirectManagerXML extends AbstractPhotonMapBasedWALDAO <I
   {
     m_aRWLock.writeLocked ( () -> {
       internalUpdateItem (aSMPRedirect);
+      _addToIndex (aSMPRedirect);
     });
     AuditHelper.onAuditModifySuccess (SMPRedirect.OT,
                                       "set-all",
@@ -193,6 +236,7 @@ public final class SMPRedirectManagerXML extends AbstractPhotonMapBasedWALDAO <I
           LOGGER.debug ("deleteSMPRedirect - failure");
         return EChange.UNCHANGED;
       }
+      _removeFromIndex (aRealRedirect);
     }
     finally
     {
@@ -242,7 +286,11 @@ public final class SMPRedirectManagerXML extends AbstractPhotonMapBasedWALDAO <I
   {
     final ICommonsList <ISMPRedirect> ret = new CommonsArrayList <> ();
     if (StringHelper.hasText (sServiceGroupID))
-      findAll (x -> x.getServiceGroupID ().equals (sServiceGroupID), ret::add);
+      m_aRWLock.readLocked ( () -> {
+        final ICommonsOrderedMap <String, SMPRedirect> aMap = m_aIndex.get (sServiceGroupID);
+        if (aMap != null)
+          ret.addAll (aMap.values ());
+      });
     return ret;
   }
 
@@ -261,7 +309,10 @@ public final class SMPRedirectManagerXML extends AbstractPhotonMapBasedWALDAO <I
     if (aDocTypeID == null)
       return null;
 
-    return findFirst (x -> x.getServiceGroupID ().equals (aServiceGroup.getID ()) &&
-                           aDocTypeID.hasSameContent (x.getDocumentTypeIdentifier ()));
+    final String sDocTypeKey = _getDocTypeKey (aDocTypeID);
+    return m_aRWLock.readLockedGet ( () -> {
+      final ICommonsOrderedMap <String, SMPRedirect> aMap = m_aIndex.get (aServiceGroup.getID ());
+      return aMap == null ? null : aMap.get (sDocTypeKey);
+    });
   }
 }
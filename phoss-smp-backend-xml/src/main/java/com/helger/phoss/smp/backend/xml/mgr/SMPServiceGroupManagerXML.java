@@ -19,16 +19,24 @@ package com.helger.phoss.smp.backend.xml.mgr;
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ELockType;
+import com.helger.commons.annotation.MustBeLocked;
 import com.helger.commons.annotation.Nonempty;
 import com.helger.commons.annotation.ReturnsMutableCopy;
 import com.helger.commons.annotation.ReturnsMutableObject;
 import com.helger.commons.callback.CallbackList;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.CommonsLinkedHashMap;
 import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
 import com.helger.commons.collection.impl.ICommonsSet;
 import com.helger.commons.state.EChange;
 import com.helger.commons.string.StringHelper;
@@ -64,10 +72,37 @@ public final class SMPServiceGroupManagerXML extends AbstractPhotonMapBasedWALDA
   private static final Logger LOGGER = LoggerFactory.getLogger (SMPServiceGroupManagerXML.class);
 
   private final CallbackList <ISMPServiceGroupCallback> m_aCBs = new CallbackList <> ();
+  // Owner ID to service group ID to service group
+  @GuardedBy ("m_aRWLock")
+  private final ICommonsMap <String, ICommonsOrderedMap <String, SMPServiceGroup>> m_aOwnerIndex = new CommonsHashMap <> ();
 
   public SMPServiceGroupManagerXML (@Nonnull @Nonempty final String sFilename) throws DAOException
   {
     super (SMPServiceGroup.class, sFilename);
+
+    // The data was read in the super constructor
+    m_aRWLock.writeLocked ( () -> {
+      for (final ISMPServiceGroup aSG : getAll ())
+        _addToOwnerIndex ((SMPServiceGroup) aSG);
+    });
+  }
+
+  @MustBeLocked (ELockType.WRITE)
+  private void _addToOwnerIndex (@Nonnull final SMPServiceGroup aSG)
+  {
+    m_aOwnerIndex.computeIfAbsent (aSG.getOwnerID (), k -> new CommonsLinkedHashMap <> ()).put (aSG.getID (), aSG);
+  }
+
+  @MustBeLocked (ELockType.WRITE)
+  private void _removeFromOwnerIndex (@Nonnull final String sOwnerID, @Nonnull final String sServiceGroupID)
+  {
+    final ICommonsOrderedMap <String, SMPServiceGroup> aMap = m_aOwnerIndex.get (sOwnerID);
+    if (aMap != null)
+    {
+      aMap.remove (sServiceGroupID);
+      if (aMap.isEmpty ())
+        m_aOwnerIndex.remove (sOwnerID);
+    }
   }
 
   @Nonnull
@@ -115,6 +150,7 @@ public final class SMPServiceGroupManagerXML extends AbstractPhotonMapBasedWALDA
     try
     {
       internalCreateItem (aSMPServiceGroup);
+      _addToOwnerIndex (aSMPServiceGroup);
     }
     catch (final RuntimeException ex)
     {
@@ -182,6 +218,7 @@ public final class SMPServiceGroupManagerXML extends AbstractPhotonMapBasedWALDA
     m_aRWLock.writeLock ().lock ();
     try
     {
+      final String sOldOwnerID = aSMPServiceGroup.getOwnerID ();
       EChange eChange = EChange.UNCHANGED;
       eChange = eChange.or (aSMPServiceGroup.setOwnerID (sNewOwnerID));
       eChange = eChange.or (aSMPServiceGroup.getExtensions ().setExtensionAsString (sExtension));
@@ -192,6 +229,11 @@ public final class SMPServiceGroupManagerXML extends AbstractPhotonMapBasedWALDA
         return EChange.UNCHANGED;
       }
       internalUpdateItem (aSMPServiceGroup);
+      if (!sOldOwnerID.equals (sNewOwnerID))
+      {
+        _removeFromOwnerIndex (sOldOwnerID, sServiceGroupID);
+        _addToOwnerIndex (aSMPServiceGroup);
+      }
     }
     finally
     {
@@ -267,6 +309,7 @@ public final class SMPServiceGroupManagerXML extends AbstractPhotonMapBasedWALDA
         }
         return EChange.UNCHANGED;
       }
+      _removeFromOwnerIndex (aSMPServiceGroup.getOwnerID (), aSMPServiceGroup.getID ());
 
       // Remember all redirects (in case of an error) and delete them
       aOldRedirects = aRedirectMgr.getAllSMPRedirectsOfServiceGroup (aSMPServiceGroup);
@@ -282,7 +325,10 @@ public final class SMPServiceGroupManagerXML extends AbstractPhotonMapBasedWALDA
 
       // Try to rollback the actions
       if (!containsWithID (aSMPServiceGroup.getID ()))
+      {
         internalCreateItem (aSMPServiceGroup);
+        _addToOwnerIndex (aSMPServiceGroup);
+      }
 
       // Restore redirects (if any)
       if (aOldRedirects != null)
@@ -349,13 +395,22 @@ public final class SMPServiceGroupManagerXML extends AbstractPhotonMapBasedWALDA
   @ReturnsMutableCopy
   public ICommonsList <ISMPServiceGroup> getAllSMPServiceGroupsOfOwner (@Nonnull final String sOwnerID)
   {
-    return getAll (x -> x.getOwnerID ().equals (sOwnerID));
+    final ICommonsList <ISMPServiceGroup> ret = new CommonsArrayList <> ();
+    m_aRWLock.readLocked ( () -> {
+      final ICommonsOrderedMap <String, SMPServiceGroup> aMap = m_aOwnerIndex.get (sOwnerID);
+      if (aMap != null)
+        ret.addAll (aMap.values ());
+    });
+    return ret;
   }
 
   @Nonnegative
   public long getSMPServiceGroupCountOfOwner (@Nonnull final String sOwnerID)
   {
-    return getCount (x -> x.getOwnerID ().equals (sOwnerID));
+    return m_aRWLock.readLockedInt ( () -> {
+      final ICommonsOrderedMap <String, SMPServiceGroup> aMap = m_aOwnerIndex.get (sOwnerID);
+      return aMap == null ? 0 : aMap.size ();
+    });
   }
 
   public ISMPServiceGroup getSMPServiceGroupOfID (@Nullable final IParticipantIdentifier aParticipantID)
@@ -19,17 +19,24 @@ package com.helger.phoss.smp.backend.xml.mgr;
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ELockType;
+import com.helger.commons.annotation.MustBeLocked;
 import com.helger.commons.annotation.Nonempty;
 import com.helger.commons.annotation.ReturnsMutableCopy;
 import com.helger.commons.annotation.ReturnsMutableObject;
 import com.helger.commons.callback.CallbackList;
 import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.CommonsLinkedHashMap;
 import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
 import com.helger.commons.equals.EqualsHelper;
 import com.helger.commons.state.EChange;
 import com.helger.commons.state.ESuccess;
@@ -45,6 +52,7 @@ import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformation;
 import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformationCallback;
 import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformationManager;
 import com.helger.phoss.smp.domain.serviceinfo.SMPServiceInformation;
+import com.helger.phoss.smp.domain.serviceinfo.SMPServiceInformationDiff;
 import com.helger.photon.app.dao.AbstractPhotonMapBasedWALDAO;
 import com.helger.photon.audit.AuditHelper;
 
@@ -61,10 +69,63 @@ public final class SMPServiceInformationManagerXML extends
   private static final Logger LOGGER = LoggerFactory.getLogger (SMPServiceInformationManagerXML.class);
 
   private final CallbackList <ISMPServiceInformationCallback> m_aCBs = new CallbackList <> ();
+  // Service group ID to document type ID to service information
+  @GuardedBy ("m_aRWLock")
+  private final ICommonsMap <String, ICommonsOrderedMap <String, SMPServiceInformation>> m_aIndex = new CommonsHashMap <> ();
 
   public SMPServiceInformationManagerXML (@Nonnull @Nonempty final String sFilename) throws DAOException
   {
     super (SMPServiceInformation.class, sFilename);
+
+    // The data was read in the super constructor
+    m_aRWLock.writeLocked ( () -> {
+      for (final ISMPServiceInformation aSI : getAll ())
+        if (!_addToIndex ((SMPServiceInformation) aSI))
+          LOGGER.warn ("Found more than one entry for service group '" +
+                       aSI.getServiceGroupID () +
+                       "' and document type '" +
+                       aSI.getDocumentTypeIdentifier ().getURIEncoded () +
+                       "'. This seems to be a bug! Using the first one.");
+    });
+  }
+
+  @Nonnull
+  private static String _getDocTypeKey (@Nonnull final IDocumentTypeIdentifier aDocTypeID)
+  {
+    return aDocTypeID.getURIEncoded ();
+  }
+
+  @MustBeLocked (ELockType.WRITE)
+  private boolean _addToIndex (@Nonnull final SMPServiceInformation aSI)
+  {
+    return m_aIndex.computeIfAbsent (aSI.getServiceGroupID (), k -> new CommonsLinkedHashMap <> ())
+                   .putIfAbsent (_getDocTypeKey (aSI.getDocumentTypeIdentifier ()), aSI) == null;
+  }
+
+  @MustBeLocked (ELockType.READ)
+  @Nullable
+  private SMPServiceInformation _getFromIndex (@Nonnull final String sServiceGroupID,
+                                               @Nonnull final IDocumentTypeIdentifier aDocTypeID)
+  {
+    final ICommonsOrderedMap <String, SMPServiceInformation> aMap = m_aIndex.get (sServiceGroupID);
+    return aMap == null ? null : aMap.get (_getDocTypeKey (aDocTypeID));
+  }
+
+  @MustBeLocked (ELockType.WRITE)
+  private void _removeFromIndex (@Nonnull final SMPServiceInformation aSI)
+  {
+    final ICommonsOrderedMap <String, SMPServiceInformation> aMap = m_aIndex.get (aSI.getServiceGroupID ());
+    if (aMap != null)
+    {
+      final String sDocTypeKey = _getDocTypeKey (aSI.getDocumentTypeIdentifier ());
+      // Only remove if it is the indexed object
+      if (aMap.get (sDocTypeKey) == aSI)
+      {
+        aMap.remove (sDocTypeKey);
+        if (aMap.isEmpty ())
+          m_aIndex.remove (aSI.getServiceGroupID ());
+      }
+    }
   }
 
   @Nonnull
@@ -104,25 +165,86 @@ public final class SMPServiceInformationManagerXML extends
     if (LOGGER.isDebugEnabled ())
       LOGGER.debug ("mergeSMPServiceInformation (" + aSMPServiceInformationObj + ")");
 
-    // Check for an update
+    // The lookup and the modification must happen under the same lock, so
+    // that concurrent merges of the same service group and document type
+    // cannot both create a new entry
+    final SMPServiceInformation aOldInformation;
     boolean bChangeExisting = false;
-    final SMPServiceInformation aOldInformation = (SMPServiceInformation) getSMPServiceInformationOfServiceGroupAndDocumentType (aSMPServiceInformation.getServiceGroup (),
-                                                                                                                                 aSMPServiceInformation.getDocumentTypeIdentifier ());
-    if (aOldInformation != null)
+    boolean bRemovedOld = false;
+    m_aRWLock.writeLock ().lock ();
+    try
+    {
+      // Check for an update
+      aOldInformation = _getFromIndex (aSMPServiceInformation.getServiceGroupID (),
+                                       aSMPServiceInformation.getDocumentTypeIdentifier ());
+      if (aOldInformation != null)
+      {
+        // If a service information is present, it must be the provided object!
+        // This is not true for the REST API
+        if (EqualsHelper.identityEqual (aOldInformation, aSMPServiceInformation))
+          bChangeExisting = true;
+        else
+          if (SMPServiceInformationDiff.create (aOldInformation, aSMPServiceInformation).isEmpty ())
+          {
+            // Same content - no need to write anything
+            if (LOGGER.isDebugEnabled ())
+              LOGGER.debug ("mergeSMPServiceInformation - success - unchanged");
+            return ESuccess.SUCCESS;
+          }
+      }
+
+      if (bChangeExisting)
+      {
+        // Edit existing
+        internalUpdateItem (aOldInformation);
+      }
+      else
+      {
+        // (Optionally delete the old one and) create the new one
+        if (aOldInformation != null)
+        {
+          // Delete only if present
+          final SMPServiceInformation aDeletedInformation = internalDeleteItem (aOldInformation.getID ());
+          bRemovedOld = EqualsHelper.identityEqual (aDeletedInformation, aOldInformation);
+          if (aDeletedInformation != null)
+            _removeFromIndex (aDeletedInformation);
+        }
+
+        if (!_addToIndex (aSMPServiceInformation))
+        {
+          // Another entry is indexed for the same key - never store an entry
+          // that cannot be found
+          LOGGER.error ("Failed to index service information for service group '" +
+                        aSMPServiceInformation.getServiceGroupID () +
+                        "' and document type '" +
+                        aSMPServiceInformation.getDocumentTypeIdentifier ().getURIEncoded () +
+                        "'");
+          AuditHelper.onAuditCreateFailure (SMPServiceInformation.OT,
+                                            aSMPServiceInformation.getID (),
+                                            aSMPServiceInformation.getServiceGroupID (),
+                                            aSMPServiceInformation.getDocumentTypeIdentifier ().getURIEncoded (),
+                                            "index-conflict");
+          return ESuccess.FAILURE;
+        }
+        try
+        {
+          internalCreateItem (aSMPServiceInformation);
+        }
+        catch (final RuntimeException ex)
+        {
+          // Don't keep an index entry for an item that was not created
+          _removeFromIndex (aSMPServiceInformation);
+          throw ex;
+        }
+      }
+    }
+    finally
     {
-      // If a service information is present, it must be the provided object!
-      // This is not true for the REST API
-      if (EqualsHelper.identityEqual (aOldInformation, aSMPServiceInformation))
-        bChangeExisting = true;
+      m_aRWLock.writeLock ().unlock ();
     }
 
     if (bChangeExisting)
     {
-      // Edit existing
-      m_aRWLock.writeLocked ( () -> {
-        internalUpdateItem (aOldInformation);
-      });
-
       AuditHelper.onAuditModifySuccess (SMPServiceInformation.OT,
                                         "set-all",
                                         aOldInformation.getID (),
@@ -138,25 +260,6 @@ public final class SMPServiceInformationManagerXML extends
     }
     else
     {
-      // (Optionally delete the old one and) create the new one
-      boolean bRemovedOld = false;
-      m_aRWLock.writeLock ().lock ();
-      try
-      {
-        if (aOldInformation != null)
-        {
-          // Delete only if present
-          final SMPServiceInformation aDeletedInformation = internalDeleteItem (aOldInformation.getID ());
-          bRemovedOld = EqualsHelper.identityEqual (aDeletedInformation, aOldInformation);
-        }
-
-        internalCreateItem (aSMPServiceInformation);
-      }
-      finally
-      {
-        m_aRWLock.writeLock ().unlock ();
-      }
-
       if (bRemovedOld)
       {
         AuditHelper.onAuditDeleteSuccess (SMPServiceInformation.OT,
@@ -190,6 +293,36 @@ public final class SMPServiceInformationManagerXML extends
     return ESuccess.SUCCESS;
   }
 
+  @Nonnull
+  @Override
+  public ESuccess mergeAllSMPServiceInformation (@Nonnull final Iterable <? extends ISMPServiceInformation> aServiceInformations)
+  {
+    ValueEnforcer.notNull (aServiceInformations, "ServiceInformations");
+
+    // Validate all elements upfront, so that nothing is written if a single
+    // element is unusable
+    for (final ISMPServiceInformation aServiceInformation : aServiceInformations)
+    {
+      ValueEnforcer.notNull (aServiceInformation, "ServiceInformation");
+      ValueEnforcer.isTrue (aServiceInformation instanceof SMPServiceInformation,
+                            () -> "Unsupported service information implementation " + aServiceInformation.getClass ().getName ());
+    }
+
+    // Write the file only once and not for every single element
+    beginWithoutAutoSave ();
+    try
+    {
+      for (final ISMPServiceInformation aServiceInformation : aServiceInformations)
+        if (mergeSMPServiceInformation (aServiceInformation).isFailure ())
+          return ESuccess.FAILURE;
+    }
+    finally
+    {
+      endWithoutAutoSave ();
+    }
+    return ESuccess.SUCCESS;
+  }
+
   @Nonnull
   public EChange deleteSMPServiceInformation (@Nullable final ISMPServiceInformation aSMPServiceInformation)
   {
@@ -214,6 +347,7 @@ public final class SMPServiceInformationManagerXML extends
           LOGGER.debug ("deleteSMPServiceInformation - failure");
         return EChange.UNCHANGED;
       }
+      _removeFromIndex (aRealServiceInformation);
     }
     finally
     {
@@ -315,8 +449,11 @@ public final class SMPServiceInformationManagerXML extends
     final ICommonsList <ISMPServiceInformation> ret = new CommonsArrayList <> ();
     if (aServiceGroup != null)
     {
-      final String sServiceGroupID = aServiceGroup.getID ();
-      findAll (x -> x.getServiceGroupID ().equals (sServiceGroupID), ret::add);
+      m_aRWLock.readLocked ( () -> {
+        final ICommonsOrderedMap <String, SMPServiceInformation> aMap = m_aIndex.get (aServiceGroup.getID ());
+        if (aMap != null)
+          ret.addAll (aMap.values ());
+      });
     }
     return ret;
   }
@@ -328,10 +465,30 @@ public final class SMPServiceInformationManagerXML extends
     final ICommonsList <IDocumentTypeIdentifier> ret = new CommonsArrayList <> ();
     if (aServiceGroup != null)
     {
-      final String sServiceGroupID = aServiceGroup.getID ();
-      findAllMapped (aSI -> aSI.getServiceGroupID ().equals (sServiceGroupID),
-                     ISMPServiceInformation::getDocumentTypeIdentifier,
-                     ret::add);
+      m_aRWLock.readLocked ( () -> {
+        final ICommonsOrderedMap <String, SMPServiceInformation> aMap = m_aIndex.get (aServiceGroup.getID ());
+        if (aMap != null)
+          for (final SMPServiceInformation aSI : aMap.values ())
+            ret.add (aSI.getDocumentTypeIdentifier ());
+      });
+    }
+    return ret;
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  @Override
+  public ICommonsOrderedMap <IDocumentTypeIdentifier, Integer> getAllSMPDocumentTypesAndEndpointCountOfServiceGroup (@Nullable final ISMPServiceGroup aServiceGroup)
+  {
+    final ICommonsOrderedMap <IDocumentTypeIdentifier, Integer> ret = new CommonsLinkedHashMap <> ();
+    if (aServiceGroup != null)
+    {
+      m_aRWLock.readLocked ( () -> {
+        final ICommonsOrderedMap <String, SMPServiceInformation> aMap = m_aIndex.get (aServiceGroup.getID ());
+        if (aMap != null)
+          for (final SMPServiceInformation aSI : aMap.values ())
+            ret.put (aSI.getDocumentTypeIdentifier (), Integer.valueOf (aSI.getTotalEndpointCount ()));
+      });
     }
     return ret;
   }
@@ -345,21 +502,7 @@ public final class SMPServiceInformationManagerXML extends
     if (aDocumentTypeIdentifier == null)
       return null;
 
-    final String sServiceGroupID = aServiceGroup.getID ();
-    final ICommonsList <ISMPServiceInformation> ret = getAll (aSI -> aSI.getServiceGroupID ()
-                                                                        .equals (sServiceGroupID) &&
-                                                                     aSI.getDocumentTypeIdentifier ()
-                                                                        .hasSameContent (aDocumentTypeIdentifier));
-
-    if (ret.isEmpty ())
-      return null;
-    if (ret.size () > 1)
-      LOGGER.warn ("Found more than one entry for service group '" +
-                   sServiceGroupID +
-                   "' and document type '" +
-                   aDocumentTypeIdentifier.getValue () +
-                   "'. This seems to be a bug! Using the first one.");
-    return ret.getFirst ();
+    return m_aRWLock.readLockedGet ( () -> _getFromIndex (aServiceGroup.getID (), aDocumentTypeIdentifier));
   }
 
   public boolean containsAnyEndpointWithTransportProfile (@Nullable final String sTransportProfileID)
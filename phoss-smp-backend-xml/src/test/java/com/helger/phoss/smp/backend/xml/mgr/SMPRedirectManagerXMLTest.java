@@ -21,6 +21,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -68,6 +69,7 @@ public final class SMPRedirectManagerXMLTest
     final IParticipantIdentifier aPI = aIdentifierFactory.createParticipantIdentifier (PeppolIdentifierHelper.DEFAULT_PARTICIPANT_SCHEME,
                                                                                        "0088:dummy");
     aServiceGroupMgr.deleteSMPServiceGroupNoEx (aPI, true);
+    final long nOwnerCount = aServiceGroupMgr.getSMPServiceGroupCountOfOwner (aTestUser.getID ());
 
     final ISMPServiceGroup aSG = aServiceGroupMgr.createSMPServiceGroup (aTestUser.getID (), aPI, null, true);
     assertNotNull (aSG);
@@ -90,11 +92,29 @@ public final class SMPRedirectManagerXMLTest
       assertEquals ("<ext />", aRedirect.getExtensions ().getFirstExtensionXMLString ().trim ());
 
       XMLTestHelper.testMicroTypeConversion (aRedirect);
+
+      // Lookups
+      assertEquals (nOwnerCount + 1, aServiceGroupMgr.getSMPServiceGroupCountOfOwner (aTestUser.getID ()));
+      assertEquals (1, aRedirectMgr.getAllSMPRedirectsOfServiceGroup (aSG).size ());
+      assertSame (aRedirect, aRedirectMgr.getSMPRedirectOfServiceGroupAndDocumentType (aSG, aDocTypeID));
+
+      // Update
+      final ISMPRedirect aRedirect2 = aRedirectMgr.createOrUpdateSMPRedirect (aSG,
+                                                                              aDocTypeID,
+                                                                              "bla2",
+                                                                              "foo",
+                                                                              null,
+                                                                              null);
+      assertEquals (1, aRedirectMgr.getSMPRedirectCount ());
+      assertEquals (1, aRedirectMgr.getAllSMPRedirectsOfServiceGroup (aSG).size ());
+      assertSame (aRedirect2, aRedirectMgr.getSMPRedirectOfServiceGroupAndDocumentType (aSG, aDocTypeID));
     }
     finally
     {
       aServiceGroupMgr.deleteSMPServiceGroup (aPI, true);
     }
+    assertEquals (nOwnerCount, aServiceGroupMgr.getSMPServiceGroupCountOfOwner (aTestUser.getID ()));
+    assertTrue (aRedirectMgr.getAllSMPRedirectsOfServiceGroup (aSG).isEmpty ());
   }
 
   @Test
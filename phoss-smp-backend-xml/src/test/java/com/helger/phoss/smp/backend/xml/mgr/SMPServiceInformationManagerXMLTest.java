@@ -20,14 +20,21 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TestRule;
 
 import com.helger.commons.collection.CollectionHelper;
 import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
 import com.helger.commons.datetime.PDTFactory;
 import com.helger.commons.datetime.XMLOffsetDateTime;
+import com.helger.commons.state.ESuccess;
 import com.helger.peppolid.IDocumentTypeIdentifier;
 import com.helger.peppolid.IParticipantIdentifier;
 import com.helger.peppolid.IProcessIdentifier;
@@ -224,10 +231,142 @@ public final class SMPServiceInformationManagerXMLTest
                                       .getAllProcesses ()
                                       .get (1)
                                       .getEndpointCount ());
+
+        // 3 endpoints in total
+        final ICommonsOrderedMap <IDocumentTypeIdentifier, Integer> aEndpointCounts = aServiceInformationMgr.getAllSMPDocumentTypesAndEndpointCountOfServiceGroup (aSG);
+        assertEquals (1, aEndpointCounts.size ());
+        assertEquals (Integer.valueOf (3), aEndpointCounts.get (aDocTypeID));
+      }
+    }
+    finally
+    {
+      aServiceGroupMgr.deleteSMPServiceGroup (aPI, true);
+    }
+  }
+
+  @Test
+  public void testMergeAll () throws SMPServerException
+  {
+    final IUser aTestUser = PhotonSecurityManager.getUserMgr ().getUserOfID (CSecurity.USER_ADMINISTRATOR_ID);
+    assertNotNull (aTestUser);
+
+    final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
+    final ISMPServiceGroupManager aServiceGroupMgr = SMPMetaManager.getServiceGroupMgr ();
+    final ISMPServiceInformationManager aServiceInformationMgr = SMPMetaManager.getServiceInformationMgr ();
+    assertEquals (0, aServiceInformationMgr.getSMPServiceInformationCount ());
+
+    final IParticipantIdentifier aPI = aIdentifierFactory.createParticipantIdentifier (PeppolIdentifierHelper.DEFAULT_PARTICIPANT_SCHEME,
+                                                                                       "0088:dummy");
+    aServiceGroupMgr.deleteSMPServiceGroupNoEx (aPI, true);
+
+    final ISMPServiceGroup aSG = aServiceGroupMgr.createSMPServiceGroup (aTestUser.getID (), aPI, null, true);
+    assertNotNull (aSG);
+    try
+    {
+      final IProcessIdentifier aProcessID = aIdentifierFactory.createProcessIdentifier (PeppolIdentifierHelper.DEFAULT_PROCESS_SCHEME,
+                                                                                        "testproc");
+      final SMPEndpoint aEP = new SMPEndpoint ("tp",
+                                               "http://localhost/as2",
+                                               false,
+                                               "minauth",
+                                               null,
+                                               null,
+                                               "cert",
+                                               "sd",
+                                               "tc",
+                                               "ti",
+                                               null);
+      final SMPProcess aProcess = new SMPProcess (aProcessID, new CommonsArrayList <> (aEP), null);
+      final ICommonsList <SMPServiceInformation> aSIs = new CommonsArrayList <> ();
+      for (int i = 0; i < 3; ++i)
+      {
+        final IDocumentTypeIdentifier aDocTypeID = aIdentifierFactory.createDocumentTypeIdentifier (PeppolIdentifierHelper.DOCUMENT_TYPE_SCHEME_BUSDOX_DOCID_QNS,
+                                                                                                    "testdoctype" + i);
+        aSIs.add (new SMPServiceInformation (aSG, aDocTypeID, new CommonsArrayList <> (aProcess), null));
+      }
+
+      // Create all
+      assertTrue (aServiceInformationMgr.mergeAllSMPServiceInformation (aSIs).isSuccess ());
+      assertEquals (3, aServiceInformationMgr.getSMPServiceInformationCount ());
+      assertEquals (3, aServiceInformationMgr.getAllSMPServiceInformationOfServiceGroup (aSG).size ());
+
+      // Replace all with new objects
+      final ICommonsList <SMPServiceInformation> aSIs2 = new CommonsArrayList <> ();
+      for (final SMPServiceInformation aSI : aSIs)
+        aSIs2.add (new SMPServiceInformation (aSG,
+                                              aSI.getDocumentTypeIdentifier (),
+                                              new CommonsArrayList <> (aProcess),
+                                              "<ext />"));
+      assertTrue (aServiceInformationMgr.mergeAllSMPServiceInformation (aSIs2).isSuccess ());
+      assertEquals (3, aServiceInformationMgr.getSMPServiceInformationCount ());
+      for (final ISMPServiceInformation aSI : aServiceInformationMgr.getAllSMPServiceInformationOfServiceGroup (aSG))
+        assertTrue (aSIs2.contains (aSI));
+    }
+    finally
+    {
+      aServiceGroupMgr.deleteSMPServiceGroup (aPI, true);
+    }
+  }
+
+  @Test
+  public void testConcurrentMerge () throws Exception
+  {
+    final IUser aTestUser = PhotonSecurityManager.getUserMgr ().getUserOfID (CSecurity.USER_ADMINISTRATOR_ID);
+    assertNotNull (aTestUser);
+
+    final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
+    final ISMPServiceGroupManager aServiceGroupMgr = SMPMetaManager.getServiceGroupMgr ();
+    final ISMPServiceInformationManager aServiceInformationMgr = SMPMetaManager.getServiceInformationMgr ();
+    assertEquals (0, aServiceInformationMgr.getSMPServiceInformationCount ());
+
+    final IParticipantIdentifier aPI = aIdentifierFactory.createParticipantIdentifier (PeppolIdentifierHelper.DEFAULT_PARTICIPANT_SCHEME,
+                                                                                       "0088:dummy");
+    aServiceGroupMgr.deleteSMPServiceGroupNoEx (aPI, true);
+
+    final ISMPServiceGroup aSG = aServiceGroupMgr.createSMPServiceGroup (aTestUser.getID (), aPI, null, true);
+    assertNotNull (aSG);
+    final ExecutorService aES = Executors.newFixedThreadPool (4);
+    try
+    {
+      final IProcessIdentifier aProcessID = aIdentifierFactory.createProcessIdentifier (PeppolIdentifierHelper.DEFAULT_PROCESS_SCHEME,
+                                                                                        "testproc");
+      final IDocumentTypeIdentifier aDocTypeID = aIdentifierFactory.createDocumentTypeIdentifier (PeppolIdentifierHelper.DOCUMENT_TYPE_SCHEME_BUSDOX_DOCID_QNS,
+                                                                                                  "testdoctype");
+      final SMPEndpoint aEP = new SMPEndpoint ("tp",
+                                               "http://localhost/as2",
+                                               false,
+                                               "minauth",
+                                               null,
+                                               null,
+                                               "cert",
+                                               "sd",
+                                               "tc",
+                                               "ti",
+                                               null);
+
+      // Always new objects for the same service group and document type
+      final ICommonsList <Future <ESuccess>> aFutures = new CommonsArrayList <> ();
+      for (int i = 0; i < 40; ++i)
+      {
+        final SMPServiceInformation aSI = new SMPServiceInformation (aSG,
+                                                                     aDocTypeID,
+                                                                     new CommonsArrayList <> (new SMPProcess (aProcessID,
+                                                                                                              new CommonsArrayList <> (aEP),
+                                                                                                              null)),
+                                                                     "<ext" + i + " />");
+        aFutures.add (aES.submit ( () -> aServiceInformationMgr.mergeSMPServiceInformation (aSI)));
       }
+      for (final Future <ESuccess> aFuture : aFutures)
+        assertTrue (aFuture.get ().isSuccess ());
+
+      // Never more than one entry
+      assertEquals (1, aServiceInformationMgr.getSMPServiceInformationCount ());
+      assertEquals (1, aServiceInformationMgr.getAllSMPServiceInformationOfServiceGroup (aSG).size ());
+      assertNotNull (aServiceInformationMgr.getSMPServiceInformationOfServiceGroupAndDocumentType (aSG, aDocTypeID));
     }
     finally
     {
+      aES.shutdown ();
       aServiceGroupMgr.deleteSMPServiceGroup (aPI, true);
     }
   }
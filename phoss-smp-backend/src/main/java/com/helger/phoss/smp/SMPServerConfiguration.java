@@ -83,6 +83,16 @@ public final class SMPServerConfiguration
   public static final String KEY_SMP_REST_LOG_EXCEPTIONS = "smp.rest.log.exceptions";
   public static final String KEY_SMP_REST_PAYLOAD_ON_ERROR = "smp.rest.payload.on.error";
   public static final String KEY_SMP_REST_REMOTE_QUERY_API_DISABLED = "smp.rest.remote.queryapi.disabled";
+  public static final String KEY_SMP_REST_RESPONSE_CACHE_ENABLED = "smp.rest.responsecache.enabled";
+  public static final String KEY_SMP_REST_RESPONSE_CACHE_MAX_ENTRIES = "smp.rest.responsecache.maxentries";
+  public static final String KEY_SMP_REST_RESPONSE_CACHE_MAX_BYTES = "smp.rest.responsecache.maxbytes";
+  public static final String KEY_SMP_REST_RESPONSE_CACHE_WARMER_ENABLED = "smp.rest.responsecache.warmer.enabled";
+  public static final String KEY_SMP_REST_RESPONSE_CACHE_WARMER_THREADS = "smp.rest.responsecache.warmer.threads";
+  public static final String KEY_SMP_REST_RESPONSE_CACHE_WARMER_QUEUE_SIZE = "smp.rest.responsecache.warmer.queuesize";
+  public static final String KEY_SMP_REST_RESPONSE_CACHE_WARMER_ON_STARTUP = "smp.rest.responsecache.warmer.onstartup";
+  public static final String KEY_SMP_REST_CONDITIONAL_GET_ENABLED = "smp.rest.conditionalget.enabled";
+  public static final String KEY_SMP_REST_NEGATIVE_LOOKUP_CACHE_ENABLED = "smp.rest.negativelookupcache.enabled";
+  public static final String KEY_SMP_SETTINGS_REFRESH_SECONDS = "smp.settings.refresh.seconds";
 
   public static final String KEY_SMP_STATUS_ENABLED = "smp.status.enabled";
   public static final String KEY_SMP_STATUS_SHOW_CERTIFICATE_DATES = "smp.status.show.certificate.dates";
@@ -117,6 +127,16 @@ public final class SMPServerConfiguration
   public static final boolean DEFAULT_SMP_REST_LOG_EXCEPTIONS = false;
   public static final boolean DEFAULT_SMP_REST_PAYLOAD_ON_ERROR = true;
   public static final boolean DEFAULT_SMP_REST_REMOTE_QUERY_API_DISABLED = true;
+  public static final boolean DEFAULT_SMP_REST_RESPONSE_CACHE_ENABLED = false;
+  public static final int DEFAULT_SMP_REST_RESPONSE_CACHE_MAX_ENTRIES = 10_000;
+  public static final long DEFAULT_SMP_REST_RESPONSE_CACHE_MAX_BYTES = 64 * CGlobal.BYTES_PER_MEGABYTE;
+  public static final boolean DEFAULT_SMP_REST_RESPONSE_CACHE_WARMER_ENABLED = false;
+  public static final int DEFAULT_SMP_REST_RESPONSE_CACHE_WARMER_THREADS = 2;
+  public static final int DEFAULT_SMP_REST_RESPONSE_CACHE_WARMER_QUEUE_SIZE = 1_000;
+  public static final boolean DEFAULT_SMP_REST_RESPONSE_CACHE_WARMER_ON_STARTUP = false;
+  public static final boolean DEFAULT_SMP_REST_CONDITIONAL_GET_ENABLED = false;
+  public static final boolean DEFAULT_SMP_REST_NEGATIVE_LOOKUP_CACHE_ENABLED = false;
+  public static final int DEFAULT_SMP_SETTINGS_REFRESH_SECONDS = 0;
 
   public static final boolean DEFAULT_SMP_STATUS_ENABLED = true;
   public static final boolean DEFAULT_SMP_STATUS_SHOW_CERTIFICATE_DATES = false;
@@ -387,6 +407,129 @@ public final class SMPServerConfiguration
                                           DEFAULT_SMP_REST_REMOTE_QUERY_API_DISABLED);
   }
 
+  /**
+   * @return <code>true</code> if the signed service metadata responses should
+   *         be cached in memory, <code>false</code> if not. By default it is
+   *         disabled. Only enable it, if a single SMP instance writes to the
+   *         backend, because the cache is only invalidated locally.
+   * @since 5.7.0
+   */
+  public static boolean isRESTResponseCacheEnabled ()
+  {
+    return getConfigFile ().getAsBoolean (KEY_SMP_REST_RESPONSE_CACHE_ENABLED, DEFAULT_SMP_REST_RESPONSE_CACHE_ENABLED);
+  }
+
+  /**
+   * @return The maximum number of signed responses to be cached. Defaults to
+   *         {@link #DEFAULT_SMP_REST_RESPONSE_CACHE_MAX_ENTRIES}.
+   * @since 5.7.0
+   */
+  public static int getRESTResponseCacheMaxEntries ()
+  {
+    return getConfigFile ().getAsInt (KEY_SMP_REST_RESPONSE_CACHE_MAX_ENTRIES,
+                                      DEFAULT_SMP_REST_RESPONSE_CACHE_MAX_ENTRIES);
+  }
+
+  /**
+   * @return The maximum number of bytes of all cached signed responses.
+   *         Defaults to {@link #DEFAULT_SMP_REST_RESPONSE_CACHE_MAX_BYTES}.
+   * @since 5.7.0
+   */
+  public static long getRESTResponseCacheMaxBytes ()
+  {
+    return getConfigFile ().getAsLong (KEY_SMP_REST_RESPONSE_CACHE_MAX_BYTES, DEFAULT_SMP_REST_RESPONSE_CACHE_MAX_BYTES);
+  }
+
+  /**
+   * @return <code>true</code> if the signed responses should be created in the
+   *         background after each write operation, <code>false</code> if not.
+   *         Only effective if the response cache is enabled. By default it is
+   *         disabled.
+   * @see #isRESTResponseCacheEnabled()
+   * @since 5.7.0
+   */
+  public static boolean isRESTResponseCacheWarmerEnabled ()
+  {
+    return getConfigFile ().getAsBoolean (KEY_SMP_REST_RESPONSE_CACHE_WARMER_ENABLED,
+                                          DEFAULT_SMP_REST_RESPONSE_CACHE_WARMER_ENABLED);
+  }
+
+  /**
+   * @return The number of threads used to create the signed responses in the
+   *         background. Defaults to
+   *         {@link #DEFAULT_SMP_REST_RESPONSE_CACHE_WARMER_THREADS}.
+   * @since 5.7.0
+   */
+  public static int getRESTResponseCacheWarmerThreads ()
+  {
+    return getConfigFile ().getAsInt (KEY_SMP_REST_RESPONSE_CACHE_WARMER_THREADS,
+                                      DEFAULT_SMP_REST_RESPONSE_CACHE_WARMER_THREADS);
+  }
+
+  /**
+   * @return The maximum number of pending background signing tasks. If the
+   *         queue is full, new tasks are dropped and the response is created
+   *         upon the next read. Defaults to
+   *         {@link #DEFAULT_SMP_REST_RESPONSE_CACHE_WARMER_QUEUE_SIZE}.
+   * @since 5.7.0
+   */
+  public static int getRESTResponseCacheWarmerQueueSize ()
+  {
+    return getConfigFile ().getAsInt (KEY_SMP_REST_RESPONSE_CACHE_WARMER_QUEUE_SIZE,
+                                      DEFAULT_SMP_REST_RESPONSE_CACHE_WARMER_QUEUE_SIZE);
+  }
+
+  /**
+   * @return <code>true</code> if all existing service information should be
+   *         signed in the background upon startup, <code>false</code> if not.
+   *         Defaults to <code>false</code>.
+   * @since 5.7.0
+   */
+  public static boolean isRESTResponseCacheWarmerOnStartup ()
+  {
+    return getConfigFile ().getAsBoolean (KEY_SMP_REST_RESPONSE_CACHE_WARMER_ON_STARTUP,
+                                          DEFAULT_SMP_REST_RESPONSE_CACHE_WARMER_ON_STARTUP);
+  }
+
+  /**
+   * @return <code>true</code> if the public lookup API should emit ETag and
+   *         Last-Modified HTTP headers and answer conditional GET requests with
+   *         HTTP 304, <code>false</code> if not. Only enable this, if a single
+   *         SMP instance writes to the backend. Defaults to <code>false</code>.
+   * @since 5.7.0
+   */
+  public static boolean isRESTConditionalGetEnabled ()
+  {
+    return getConfigFile ().getAsBoolean (KEY_SMP_REST_CONDITIONAL_GET_ENABLED,
+                                          DEFAULT_SMP_REST_CONDITIONAL_GET_ENABLED);
+  }
+
+  /**
+   * @return <code>true</code> if the public lookup API should answer requests
+   *         for service groups and document types that are definitely not
+   *         hosted without accessing the backend, <code>false</code> if not.
+   *         Only enable this, if a single SMP instance writes to the backend.
+   *         Defaults to <code>false</code>.
+   * @since 5.7.0
+   */
+  public static boolean isRESTNegativeLookupCacheEnabled ()
+  {
+    return getConfigFile ().getAsBoolean (KEY_SMP_REST_NEGATIVE_LOOKUP_CACHE_ENABLED,
+                                          DEFAULT_SMP_REST_NEGATIVE_LOOKUP_CACHE_ENABLED);
+  }
+
+  /**
+   * @return The number of seconds after which the in-memory SMP settings of
+   *         the database backends are re-read, so that changes made by other
+   *         SMP instances sharing the same database become visible. Values
+   *         &le; 0 disable the refresh. Defaults to 0.
+   * @since 5.7.0
+   */
+  public static int getSettingsRefreshSeconds ()
+  {
+    return getConfigFile ().getAsInt (KEY_SMP_SETTINGS_REFRESH_SECONDS, DEFAULT_SMP_SETTINGS_REFRESH_SECONDS);
+  }
+
   /**
    * @return <code>true</code> if the status servlet at
    *         <code>/smp-status/</code> is enabled, <code>false</code> if it is
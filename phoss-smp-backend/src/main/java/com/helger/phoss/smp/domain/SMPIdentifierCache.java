@@ -0,0 +1,343 @@
+/*
+ * Copyright (C) 2015-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * The Original Code is Copyright The Peppol project (http://www.peppol.eu)
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.helger.phoss.smp.domain;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.peppolid.IDocumentTypeIdentifier;
+import com.helger.peppolid.IIdentifier;
+import com.helger.peppolid.IParticipantIdentifier;
+import com.helger.peppolid.factory.IIdentifierFactory;
+
+/**
+ * A size bounded, approximate LRU cache from the raw URI encoded identifier strings, as they
+ * are contained in request paths, to the identifiers parsed with the
+ * configured identifier factory. A single lookup request parses the same path
+ * values in several layers, and the same participants are requested over and
+ * over again. Unparsable values are cached as well.<br>
+ * Note: the returned identifiers are shared and must not be modified.
+ *
+ * @author Philip Helger
+ * @since 5.7.0
+ */
+@ThreadSafe
+public final class SMPIdentifierCache
+{
+  /** The default maximum number of entries per identifier type */
+  public static final int DEFAULT_MAX_SIZE = 10_000;
+
+  /**
+   * A single parsed identifier together with its encoded forms.
+   *
+   * @author Philip Helger
+   * @param <T>
+   *        Identifier type
+   */
+  @Immutable
+  public static final class ParsedIdentifier <T extends IIdentifier>
+  {
+    private final T m_aIdentifier;
+    private final String m_sURIEncoded;
+    private final String m_sURIPercentEncoded;
+
+    ParsedIdentifier (@Nullable final T aIdentifier)
+    {
+      m_aIdentifier = aIdentifier;
+      m_sURIEncoded = aIdentifier == null ? null : aIdentifier.getURIEncoded ();
+      m_sURIPercentEncoded = aIdentifier == null ? null : aIdentifier.getURIPercentEncoded ();
+    }
+
+    /**
+     * @return The parsed identifier. May be <code>null</code> if the raw value
+     *         could not be parsed.
+     */
+    @Nullable
+    public T getIdentifier ()
+    {
+      return m_aIdentifier;
+    }
+
+    /**
+     * @return The URI encoded form of the parsed identifier. May be
+     *         <code>null</code> if the raw value could not be parsed.
+     */
+    @Nullable
+    public String getURIEncoded ()
+    {
+      return m_sURIEncoded;
+    }
+
+    /**
+     * @return The URI percent encoded form of the parsed identifier. May be
+     *         <code>null</code> if the raw value could not be parsed.
+     */
+    @Nullable
+    public String getURIPercentEncoded ()
+    {
+      return m_sURIPercentEncoded;
+    }
+
+    @Override
+    public String toString ()
+    {
+      return new ToStringGenerator (this).append ("Identifier", m_aIdentifier)
+                                       .append ("URIEncoded", m_sURIEncoded)
+                                       .getToString ();
+    }
+  }
+
+  /**
+   * The approximate LRU map of a single identifier type. Lookups don't lock -
+   * each entry just remembers when it was last accessed. When the maximum size
+   * is exceeded, the least recently accessed entries are evicted until the map
+   * is 10% below its maximum size.
+   *
+   * @author Philip Helger
+   * @param <T>
+   *        Identifier type
+   */
+  private static final class LRUCache <T extends IIdentifier>
+  {
+    private static final class Entry <T extends IIdentifier>
+    {
+      private final ParsedIdentifier <T> m_aParsed;
+      private volatile long m_nLastAccess;
+
+      Entry (@Nonnull final ParsedIdentifier <T> aParsed)
+      {
+        m_aParsed = aParsed;
+        m_nLastAccess = System.nanoTime ();
+      }
+
+      @Nonnull
+      ParsedIdentifier <T> touch ()
+      {
+        m_nLastAccess = System.nanoTime ();
+        return m_aParsed;
+      }
+    }
+
+    private final int m_nMaxSize;
+    private final Map <String, Entry <T>> m_aMap = new ConcurrentHashMap <> ();
+    private final AtomicBoolean m_aEvicting = new AtomicBoolean (false);
+
+    LRUCache (@Nonnegative final int nMaxSize)
+    {
+      m_nMaxSize = nMaxSize;
+    }
+
+    @Nonnull
+    ParsedIdentifier <T> get (@Nonnull final String sRaw, @Nonnull final Function <String, T> aParser)
+    {
+      final Entry <T> aEntry = m_aMap.get (sRaw);
+      if (aEntry != null)
+        return aEntry.touch ();
+
+      // Parse outside of the map - concurrent parsing of the same value is
+      // harmless
+      final Entry <T> aNew = new Entry <> (new ParsedIdentifier <> (aParser.apply (sRaw)));
+      final Entry <T> aOld = m_aMap.putIfAbsent (sRaw, aNew);
+      if (aOld != null)
+        return aOld.touch ();
+
+      if (m_aMap.size () > m_nMaxSize)
+        _evict ();
+      return aNew.m_aParsed;
+    }
+
+    private void _evict ()
+    {
+      // Only one thread evicts, all others continue unblocked
+      if (!m_aEvicting.compareAndSet (false, true))
+        return;
+      try
+      {
+        final int nTargetSize = m_nMaxSize - m_nMaxSize / 10;
+        final int nToRemove = m_aMap.size () - nTargetSize;
+        if (nToRemove > 0)
+        {
+          // Determine the access time limit of the entries to remove
+          final long [] aLastAccess = m_aMap.values ().stream ().mapToLong (x -> x.m_nLastAccess).sorted ().toArray ();
+          if (aLastAccess.length > 0)
+          {
+            final long nLimit = aLastAccess[Math.min (nToRemove, aLastAccess.length) - 1];
+            int nRemoved = 0;
+            final Iterator <Map.Entry <String, Entry <T>>> it = m_aMap.entrySet ().iterator ();
+            while (nRemoved < nToRemove && it.hasNext ())
+            {
+              final Map.Entry <String, Entry <T>> aItem = it.next ();
+              // Entries accessed in the meantime are kept
+              if (aItem.getValue ().m_nLastAccess <= nLimit && m_aMap.remove (aItem.getKey (), aItem.getValue ()))
+                nRemoved++;
+            }
+          }
+        }
+      }
+      finally
+      {
+        m_aEvicting.set (false);
+      }
+    }
+
+    @Nonnegative
+    int size ()
+    {
+      return m_aMap.size ();
+    }
+
+    void clear ()
+    {
+      m_aMap.clear ();
+    }
+  }
+
+  private final IIdentifierFactory m_aIdentifierFactory;
+  private final LRUCache <IParticipantIdentifier> m_aParticipantIDs;
+  private final LRUCache <IDocumentTypeIdentifier> m_aDocTypeIDs;
+
+  public SMPIdentifierCache (@Nonnull final IIdentifierFactory aIdentifierFactory)
+  {
+    this (aIdentifierFactory, DEFAULT_MAX_SIZE);
+  }
+
+  public SMPIdentifierCache (@Nonnull final IIdentifierFactory aIdentifierFactory,
+                             @Nonnegative final int nMaxSizePerType)
+  {
+    ValueEnforcer.notNull (aIdentifierFactory, "IdentifierFactory");
+    ValueEnforcer.isGT0 (nMaxSizePerType, "MaxSizePerType");
+    m_aIdentifierFactory = aIdentifierFactory;
+    m_aParticipantIDs = new LRUCache <> (nMaxSizePerType);
+    m_aDocTypeIDs = new LRUCache <> (nMaxSizePerType);
+  }
+
+  /**
+   * @return The identifier factory used for parsing. Never <code>null</code>.
+   */
+  @Nonnull
+  public IIdentifierFactory getIdentifierFactory ()
+  {
+    return m_aIdentifierFactory;
+  }
+
+  /**
+   * Get the parsed participant identifier with its encoded forms.
+   *
+   * @param sURIEncodedIdentifier
+   *        The URI encoded participant identifier. May be <code>null</code>.
+   * @return <code>null</code> if the passed value is <code>null</code>. The
+   *         contained identifier is <code>null</code> if the value could not
+   *         be parsed.
+   */
+  @Nullable
+  public ParsedIdentifier <IParticipantIdentifier> getParsedParticipantIdentifier (@Nullable final String sURIEncodedIdentifier)
+  {
+    if (sURIEncodedIdentifier == null)
+      return null;
+    return m_aParticipantIDs.get (sURIEncodedIdentifier, m_aIdentifierFactory::parseParticipantIdentifier);
+  }
+
+  /**
+   * Same as {@link IIdentifierFactory#parseParticipantIdentifier(String)} but
+   * cached.
+   *
+   * @param sURIEncodedIdentifier
+   *        The URI encoded participant identifier. May be <code>null</code>.
+   * @return <code>null</code> if the value is <code>null</code> or could not
+   *         be parsed.
+   */
+  @Nullable
+  public IParticipantIdentifier parseParticipantIdentifier (@Nullable final String sURIEncodedIdentifier)
+  {
+    final ParsedIdentifier <IParticipantIdentifier> aParsed = getParsedParticipantIdentifier (sURIEncodedIdentifier);
+    return aParsed == null ? null : aParsed.getIdentifier ();
+  }
+
+  /**
+   * Get the parsed document type identifier with its encoded forms.
+   *
+   * @param sURIEncodedIdentifier
+   *        The URI encoded document type identifier. May be <code>null</code>.
+   * @return <code>null</code> if the passed value is <code>null</code>. The
+   *         contained identifier is <code>null</code> if the value could not
+   *         be parsed.
+   */
+  @Nullable
+  public ParsedIdentifier <IDocumentTypeIdentifier> getParsedDocumentTypeIdentifier (@Nullable final String sURIEncodedIdentifier)
+  {
+    if (sURIEncodedIdentifier == null)
+      return null;
+    return m_aDocTypeIDs.get (sURIEncodedIdentifier, m_aIdentifierFactory::parseDocumentTypeIdentifier);
+  }
+
+  /**
+   * Same as {@link IIdentifierFactory#parseDocumentTypeIdentifier(String)} but
+   * cached.
+   *
+   * @param sURIEncodedIdentifier
+   *        The URI encoded document type identifier. May be <code>null</code>.
+   * @return <code>null</code> if the value is <code>null</code> or could not
+   *         be parsed.
+   */
+  @Nullable
+  public IDocumentTypeIdentifier parseDocumentTypeIdentifier (@Nullable final String sURIEncodedIdentifier)
+  {
+    final ParsedIdentifier <IDocumentTypeIdentifier> aParsed = getParsedDocumentTypeIdentifier (sURIEncodedIdentifier);
+    return aParsed == null ? null : aParsed.getIdentifier ();
+  }
+
+  /**
+   * @return The number of cached participant identifiers. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getParticipantIdentifierCount ()
+  {
+    return m_aParticipantIDs.size ();
+  }
+
+  /**
+   * @return The number of cached document type identifiers. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getDocumentTypeIdentifierCount ()
+  {
+    return m_aDocTypeIDs.size ();
+  }
+
+  /**
+   * Remove all cached identifiers.
+   */
+  public void clearCache ()
+  {
+    m_aParticipantIDs.clear ();
+    m_aDocTypeIDs.clear ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("IdentifierFactory", m_aIdentifierFactory)
+                                       .append ("ParticipantIDs", getParticipantIdentifierCount ())
+                                       .append ("DocTypeIDs", getDocumentTypeIdentifierCount ())
+                                       .getToString ();
+  }
+}
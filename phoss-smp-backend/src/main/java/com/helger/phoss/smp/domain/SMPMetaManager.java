@@ -39,6 +39,9 @@ import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformation;
 import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformationManager;
 import com.helger.phoss.smp.domain.sml.ISMLInfoManager;
 import com.helger.phoss.smp.domain.transportprofile.ISMPTransportProfileManager;
+import com.helger.phoss.smp.restapi.SMPNegativeLookupCache;
+import com.helger.phoss.smp.restapi.SMPServiceGroupVersionTracker;
+import com.helger.phoss.smp.restapi.SMPSignedResponseCache;
 import com.helger.phoss.smp.security.SMPKeyManager;
 import com.helger.phoss.smp.security.SMPTrustManager;
 import com.helger.phoss.smp.settings.ISMPSettings;
@@ -63,6 +66,7 @@ public final class SMPMetaManager extends AbstractGlobalSingleton
   private static ISMPManagerProvider s_aManagerProvider = null;
 
   private IIdentifierFactory m_aIdentifierFactory;
+  private SMPIdentifierCache m_aIdentifierCache;
   private ISMPURLProvider m_aSMPURLProvider;
   private ISMLInfoManager m_aSMLInfoMgr;
   private ISMPSettingsManager m_aSettingsMgr;
@@ -138,6 +142,44 @@ public final class SMPMetaManager extends AbstractGlobalSingleton
       }
       m_aBusinessCardMgr.bcCallbacks ().add (new LoggingSMPBusinessCardCallback ());
     }
+    if (SMPSignedResponseCache.isEnabled ())
+    {
+      // Invalidate the cached signed responses on every change
+      final SMPSignedResponseCache aResponseCache = SMPSignedResponseCache.getInstance ();
+      m_aServiceGroupMgr.serviceGroupCallbacks ().add (aResponseCache.getServiceGroupCallback ());
+      m_aRedirectMgr.redirectCallbacks ().add (aResponseCache.getRedirectCallback ());
+      m_aServiceInformationMgr.serviceInformationCallbacks ().add (aResponseCache.getServiceInformationCallback ());
+    }
+    if (SMPServiceGroupVersionTracker.isEnabled ())
+    {
+      // Increase the versions for conditional GET on every change
+      final SMPServiceGroupVersionTracker aVersionTracker = SMPServiceGroupVersionTracker.getInstance ();
+      m_aServiceGroupMgr.serviceGroupCallbacks ().add (aVersionTracker.getServiceGroupCallback ());
+      m_aRedirectMgr.redirectCallbacks ().add (aVersionTracker.getRedirectCallback ());
+      m_aServiceInformationMgr.serviceInformationCallbacks ().add (aVersionTracker.getServiceInformationCallback ());
+      if (m_aBusinessCardMgr != null)
+        m_aBusinessCardMgr.bcCallbacks ().add (aVersionTracker.getBusinessCardCallback ());
+    }
+    if (SMPNegativeLookupCache.isEnabled ())
+    {
+      // Add all created elements to the negative lookup cache
+      final SMPNegativeLookupCache aNegativeCache = SMPNegativeLookupCache.getInstance ();
+      m_aServiceGroupMgr.serviceGroupCallbacks ().add (aNegativeCache.getServiceGroupCallback ());
+      m_aRedirectMgr.redirectCallbacks ().add (aNegativeCache.getRedirectCallback ());
+      m_aServiceInformationMgr.serviceInformationCallbacks ().add (aNegativeCache.getServiceInformationCallback ());
+    }
+  }
+
+  private void _buildNegativeLookupCache ()
+  {
+    if (SMPNegativeLookupCache.isEnabled ())
+    {
+      // Required for SQL version
+      try (final WebScoped aWS = new WebScoped ())
+      {
+        SMPNegativeLookupCache.getInstance ().rebuild (m_aServiceGroupMgr, m_aServiceInformationMgr, m_aRedirectMgr);
+      }
+    }
   }
 
   private void _performMigrations ()
@@ -178,6 +220,7 @@ public final class SMPMetaManager extends AbstractGlobalSingleton
 
       final ESMPIdentifierType eIdentifierType = SMPServerConfiguration.getIdentifierType ();
       m_aIdentifierFactory = eIdentifierType.getIdentifierFactory ();
+      m_aIdentifierCache = new SMPIdentifierCache (m_aIdentifierFactory);
 
       // Initialize first because the service group manager initializes the
       // RegistrationHookFactory
@@ -248,6 +291,9 @@ public final class SMPMetaManager extends AbstractGlobalSingleton
       // After all
       s_aManagerProvider.afterInitManagers ();
 
+      // Requires the callbacks to be registered
+      _buildNegativeLookupCache ();
+
       LOGGER.info (ClassHelper.getClassLocalName (this) + " was initialized");
     }
     catch (final Exception ex)
@@ -268,6 +314,17 @@ public final class SMPMetaManager extends AbstractGlobalSingleton
     return getInstance ().m_aIdentifierFactory;
   }
 
+  /**
+   * @return The cache for parsing identifiers from request paths, based on
+   *         {@link #getIdentifierFactory()}. Never <code>null</code>.
+   * @since 5.7.0
+   */
+  @Nonnull
+  public static SMPIdentifierCache getIdentifierCache ()
+  {
+    return getInstance ().m_aIdentifierCache;
+  }
+
   @Nonnull
   public static ISMPURLProvider getSMPURLProvider ()
   {
@@ -14,10 +14,13 @@ import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.ReturnsMutableCopy;
 import com.helger.commons.annotation.ReturnsMutableObject;
 import com.helger.commons.callback.CallbackList;
+import com.helger.commons.collection.impl.CommonsLinkedHashMap;
 import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
 import com.helger.commons.state.EChange;
 import com.helger.commons.state.ESuccess;
 import com.helger.peppol.smp.ISMPTransportProfile;
@@ -53,6 +56,33 @@ public interface ISMPServiceInformationManager
   @Nonnull
   ESuccess mergeSMPServiceInformation (@Nonnull ISMPServiceInformation aServiceInformation);
 
+  /**
+   * Create or update a list of SMP service information objects at once. This
+   * is semantically identical to calling
+   * {@link #mergeSMPServiceInformation(ISMPServiceInformation)} for each
+   * element, but implementations may persist all of them in a single backend
+   * operation and invoke the callbacks afterwards. The default implementation
+   * simply merges one after the other and stops at the first failure.
+   * Implementations are not required to be atomic. If elements were saved
+   * before a failure, the callbacks must be invoked for them.
+   *
+   * @param aServiceInformations
+   *        The service information objects to handle. May not be
+   *        <code>null</code> and may not contain <code>null</code> elements.
+   * @return {@link ESuccess}
+   * @since 5.7.0
+   */
+  @Nonnull
+  default ESuccess mergeAllSMPServiceInformation (@Nonnull final Iterable <? extends ISMPServiceInformation> aServiceInformations)
+  {
+    ValueEnforcer.notNull (aServiceInformations, "ServiceInformations");
+
+    for (final ISMPServiceInformation aServiceInformation : aServiceInformations)
+      if (mergeSMPServiceInformation (aServiceInformation).isFailure ())
+        return ESuccess.FAILURE;
+    return ESuccess.SUCCESS;
+  }
+
   /**
    * Find the service information matching the passed quadruple of parameters.
    * If one of the parameters is <code>null</code> no match should be found and
@@ -171,6 +201,37 @@ public interface ISMPServiceInformationManager
   @ReturnsMutableCopy
   ICommonsList <IDocumentTypeIdentifier> getAllSMPDocumentTypesOfServiceGroup (@Nullable ISMPServiceGroup aServiceGroup);
 
+  /**
+   * Get all SMP document types that are registered for the provided service
+   * group together with the total number of endpoints of each service
+   * information. This is used to handle the REST service group request with a
+   * single backend query. The default implementation queries each service
+   * information separately and should be overridden by the implementations.
+   *
+   * @param aServiceGroup
+   *        The service group of interest. May be <code>null</code>.
+   * @return Never <code>null</code> but maybe empty map from document type
+   *         identifier to the number of endpoints. An empty result means that
+   *         either a non-existing service group was passed <b>or</b> that no
+   *         service information objects exist for the provided service group.
+   * @see #getAllSMPDocumentTypesOfServiceGroup(ISMPServiceGroup)
+   * @since 5.7.0
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  default ICommonsOrderedMap <IDocumentTypeIdentifier, Integer> getAllSMPDocumentTypesAndEndpointCountOfServiceGroup (@Nullable final ISMPServiceGroup aServiceGroup)
+  {
+    final ICommonsOrderedMap <IDocumentTypeIdentifier, Integer> ret = new CommonsLinkedHashMap <> ();
+    for (final IDocumentTypeIdentifier aDocTypeID : getAllSMPDocumentTypesOfServiceGroup (aServiceGroup))
+    {
+      final ISMPServiceInformation aServiceInfo = getSMPServiceInformationOfServiceGroupAndDocumentType (aServiceGroup,
+                                                                                                         aDocTypeID);
+      if (aServiceInfo != null)
+        ret.put (aDocTypeID, Integer.valueOf (aServiceInfo.getTotalEndpointCount ()));
+    }
+    return ret;
+  }
+
   /**
    * Get the service information for the passed tuple of service group and
    * document type identifier.
@@ -26,6 +26,8 @@ import com.helger.commons.string.StringHelper;
 import com.helger.commons.string.ToStringGenerator;
 import com.helger.phoss.smp.SMPServerConfiguration;
 import com.helger.phoss.smp.domain.extension.AbstractSMPHasExtension;
+import com.helger.phoss.smp.security.SMPCertificateCache;
+import com.helger.phoss.smp.security.SMPParsedCertificate;
 import com.helger.security.certificate.CertificateHelper;
 import com.helger.smpclient.peppol.utils.SMPExtensionConverter;
 import com.helger.smpclient.peppol.utils.W3CEndpointReferenceHelper;
@@ -151,7 +153,8 @@ public class SMPEndpoint extends AbstractSMPHasExtension implements ISMPEndpoint
 
   public final void setCertificate (@Nullable final String sCertificate)
   {
-    m_sCertificate = sCertificate;
+    // Many endpoints share the same certificate
+    m_sCertificate = SMPCertificateCache.getInterned (sCertificate);
   }
 
   @Nullable
@@ -200,7 +203,8 @@ public class SMPEndpoint extends AbstractSMPHasExtension implements ISMPEndpoint
     ret.setServiceExpirationDate (m_aServiceExpirationDT);
     // For compatibility, don't add BEGIN_CERTIFCATE and END_CERTIFICATE
     // For .NET compatibility only use "\n" as line separator
-    ret.setCertificate (CertificateHelper.getRFC1421CompliantString (m_sCertificate, false, "\n"));
+    final SMPParsedCertificate aParsedCert = SMPCertificateCache.getParsedCertificate (m_sCertificate);
+    ret.setCertificate (aParsedCert == null ? null : aParsedCert.getRFC1421String ());
     ret.setServiceDescription (m_sServiceDescription);
     ret.setTechnicalContactUrl (m_sTechnicalContactUrl);
     ret.setTechnicalInformationUrl (m_sTechnicalInformationUrl);
@@ -218,7 +222,8 @@ public class SMPEndpoint extends AbstractSMPHasExtension implements ISMPEndpoint
     ret.setMinimumAuthenticationLevel (m_sMinimumAuthenticationLevel);
     ret.setServiceActivationDate (m_aServiceActivationDT);
     ret.setServiceExpirationDate (m_aServiceExpirationDT);
-    ret.setCertificate (CertificateHelper.convertCertificateStringToByteArray (m_sCertificate));
+    final SMPParsedCertificate aParsedCert = SMPCertificateCache.getParsedCertificate (m_sCertificate);
+    ret.setCertificate (aParsedCert == null ? null : aParsedCert.getEncoded ());
     ret.setServiceDescription (m_sServiceDescription);
     ret.setTechnicalContactUrl (m_sTechnicalContactUrl);
     ret.setTechnicalInformationUrl (m_sTechnicalInformationUrl);
@@ -243,7 +248,8 @@ public class SMPEndpoint extends AbstractSMPHasExtension implements ISMPEndpoint
       ret.setActivationDate (m_aServiceActivationDT.toLocalDate ());
     if (m_aServiceExpirationDT != null)
       ret.setExpirationDate (m_aServiceExpirationDT.toLocalDate ());
-    final X509Certificate aX509Cert = CertificateHelper.convertStringToCertficateOrNull (m_sCertificate);
+    final SMPParsedCertificate aParsedCert = SMPCertificateCache.getParsedCertificate (m_sCertificate);
+    final X509Certificate aX509Cert = aParsedCert == null ? null : aParsedCert.getX509Certificate ();
     if (aX509Cert != null)
     {
       final com.helger.xsds.bdxr.smp2.ac.CertificateType aCert = new com.helger.xsds.bdxr.smp2.ac.CertificateType ();
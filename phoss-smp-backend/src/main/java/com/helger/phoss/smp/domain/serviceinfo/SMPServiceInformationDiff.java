@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2015-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * The Original Code is Copyright The Peppol project (http://www.peppol.eu)
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.helger.phoss.smp.domain.serviceinfo;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableObject;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.equals.EqualsHelper;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.phoss.smp.domain.extension.ISMPHasExtension;
+
+/**
+ * The structural difference between two versions of the same service
+ * information. Processes are identified by their process identifier and
+ * endpoints by their transport profile. This allows backends to only write the
+ * parts that really changed and to skip the write completely, if nothing
+ * changed.
+ *
+ * @author Philip Helger
+ * @since 5.7.0
+ */
+@Immutable
+public final class SMPServiceInformationDiff
+{
+  /**
+   * The difference of a single process that is contained in both versions.
+   *
+   * @author Philip Helger
+   */
+  @Immutable
+  public static final class ProcessDiff
+  {
+    private final ISMPProcess m_aProcess;
+    private final boolean m_bExtensionChanged;
+    private final ICommonsList <ISMPEndpoint> m_aRemovedEndpoints = new CommonsArrayList <> ();
+    private final ICommonsList <ISMPEndpoint> m_aAddedEndpoints = new CommonsArrayList <> ();
+    private final ICommonsList <ISMPEndpoint> m_aChangedEndpoints = new CommonsArrayList <> ();
+
+    ProcessDiff (@Nonnull final ISMPProcess aOldProcess, @Nonnull final ISMPProcess aNewProcess)
+    {
+      m_aProcess = aNewProcess;
+      m_bExtensionChanged = isExtensionChanged (aOldProcess, aNewProcess);
+      for (final ISMPEndpoint aOldEndpoint : aOldProcess.getAllEndpoints ())
+      {
+        final ISMPEndpoint aNewEndpoint = aNewProcess.getEndpointOfTransportProfile (aOldEndpoint.getTransportProfile ());
+        if (aNewEndpoint == null)
+          m_aRemovedEndpoints.add (aOldEndpoint);
+        else
+          if (!aOldEndpoint.equals (aNewEndpoint))
+            m_aChangedEndpoints.add (aNewEndpoint);
+      }
+      for (final ISMPEndpoint aNewEndpoint : aNewProcess.getAllEndpoints ())
+        if (aOldProcess.getEndpointOfTransportProfile (aNewEndpoint.getTransportProfile ()) == null)
+          m_aAddedEndpoints.add (aNewEndpoint);
+    }
+
+    /**
+     * @return The new version of the process. Never <code>null</code>.
+     */
+    @Nonnull
+    public ISMPProcess getProcess ()
+    {
+      return m_aProcess;
+    }
+
+    /**
+     * @return <code>true</code> if the process extension changed.
+     */
+    public boolean isExtensionChanged ()
+    {
+      return m_bExtensionChanged;
+    }
+
+    /**
+     * @return The old endpoints that are no longer contained. Never
+     *         <code>null</code> but maybe empty.
+     */
+    @Nonnull
+    @ReturnsMutableObject
+    public ICommonsList <ISMPEndpoint> removedEndpoints ()
+    {
+      return m_aRemovedEndpoints;
+    }
+
+    /**
+     * @return The new endpoints that were not contained before. Never
+     *         <code>null</code> but maybe empty.
+     */
+    @Nonnull
+    @ReturnsMutableObject
+    public ICommonsList <ISMPEndpoint> addedEndpoints ()
+    {
+      return m_aAddedEndpoints;
+    }
+
+    /**
+     * @return The new versions of all endpoints that are contained in both
+     *         versions but have different content. Never <code>null</code> but
+     *         maybe empty.
+     */
+    @Nonnull
+    @ReturnsMutableObject
+    public ICommonsList <ISMPEndpoint> changedEndpoints ()
+    {
+      return m_aChangedEndpoints;
+    }
+
+    /**
+     * @return <code>true</code> if nothing changed in this process.
+     */
+    public boolean isEmpty ()
+    {
+      return !m_bExtensionChanged &&
+             m_aRemovedEndpoints.isEmpty () &&
+             m_aAddedEndpoints.isEmpty () &&
+             m_aChangedEndpoints.isEmpty ();
+    }
+
+    @Override
+    public String toString ()
+    {
+      return new ToStringGenerator (this).append ("ProcessID", m_aProcess.getProcessIdentifier ())
+                                         .append ("ExtensionChanged", m_bExtensionChanged)
+                                         .append ("RemovedEndpoints", m_aRemovedEndpoints.size ())
+                                         .append ("AddedEndpoints", m_aAddedEndpoints.size ())
+                                         .append ("ChangedEndpoints", m_aChangedEndpoints.size ())
+                                         .getToString ();
+    }
+  }
+
+  private final boolean m_bExtensionChanged;
+  private final ICommonsList <ISMPProcess> m_aRemovedProcesses = new CommonsArrayList <> ();
+  private final ICommonsList <ISMPProcess> m_aAddedProcesses = new CommonsArrayList <> ();
+  private final ICommonsList <ProcessDiff> m_aChangedProcesses = new CommonsArrayList <> ();
+
+  private SMPServiceInformationDiff (@Nonnull final ISMPServiceInformation aOld,
+                                     @Nonnull final ISMPServiceInformation aNew)
+  {
+    m_bExtensionChanged = isExtensionChanged (aOld, aNew);
+    for (final ISMPProcess aOldProcess : aOld.getAllProcesses ())
+    {
+      final ISMPProcess aNewProcess = aNew.getProcessOfID (aOldProcess.getProcessIdentifier ());
+      if (aNewProcess == null)
+        m_aRemovedProcesses.add (aOldProcess);
+      else
+      {
+        final ProcessDiff aProcessDiff = new ProcessDiff (aOldProcess, aNewProcess);
+        if (!aProcessDiff.isEmpty ())
+          m_aChangedProcesses.add (aProcessDiff);
+      }
+    }
+    for (final ISMPProcess aNewProcess : aNew.getAllProcesses ())
+      if (aOld.getProcessOfID (aNewProcess.getProcessIdentifier ()) == null)
+        m_aAddedProcesses.add (aNewProcess);
+  }
+
+  /**
+   * @return <code>true</code> if the service information extension changed.
+   */
+  public boolean isExtensionChanged ()
+  {
+    return m_bExtensionChanged;
+  }
+
+  /**
+   * @return The old processes that are no longer contained. Never
+   *         <code>null</code> but maybe empty.
+   */
+  @Nonnull
+  @ReturnsMutableObject
+  public ICommonsList <ISMPProcess> removedProcesses ()
+  {
+    return m_aRemovedProcesses;
+  }
+
+  /**
+   * @return The new processes that were not contained before, including all
+   *         their endpoints. Never <code>null</code> but maybe empty.
+   */
+  @Nonnull
+  @ReturnsMutableObject
+  public ICommonsList <ISMPProcess> addedProcesses ()
+  {
+    return m_aAddedProcesses;
+  }
+
+  /**
+   * @return The differences of all processes that are contained in both
+   *         versions and that have at least one change. Never
+   *         <code>null</code> but maybe empty.
+   */
+  @Nonnull
+  @ReturnsMutableObject
+  public ICommonsList <ProcessDiff> changedProcesses ()
+  {
+    return m_aChangedProcesses;
+  }
+
+  /**
+   * @return <code>true</code> if the process/endpoint tree changed,
+   *         independent of the service information extension.
+   */
+  public boolean isProcessesChanged ()
+  {
+    return m_aRemovedProcesses.isNotEmpty () || m_aAddedProcesses.isNotEmpty () || m_aChangedProcesses.isNotEmpty ();
+  }
+
+  /**
+   * @return <code>true</code> if both versions have the same content.
+   */
+  public boolean isEmpty ()
+  {
+    return !m_bExtensionChanged && !isProcessesChanged ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("ExtensionChanged", m_bExtensionChanged)
+                                       .append ("RemovedProcesses", m_aRemovedProcesses.size ())
+                                       .append ("AddedProcesses", m_aAddedProcesses.size ())
+                                       .append ("ChangedProcesses", m_aChangedProcesses)
+                                       .getToString ();
+  }
+
+  static boolean isExtensionChanged (@Nonnull final ISMPHasExtension aOld, @Nonnull final ISMPHasExtension aNew)
+  {
+    // Compare the serialized form, as this is what is stored
+    return !EqualsHelper.equals (aOld.getExtensions ().getExtensionsAsJsonString (),
+                                 aNew.getExtensions ().getExtensionsAsJsonString ());
+  }
+
+  /**
+   * Compute the difference between the old and the new version of a service
+   * information.
+   *
+   * @param aOld
+   *        The old version as currently stored. May not be <code>null</code>.
+   * @param aNew
+   *        The new version to be stored. May not be <code>null</code>.
+   * @return The difference and never <code>null</code>.
+   */
+  @Nonnull
+  public static SMPServiceInformationDiff create (@Nonnull final ISMPServiceInformation aOld,
+                                                 @Nonnull final ISMPServiceInformation aNew)
+  {
+    ValueEnforcer.notNull (aOld, "Old");
+    ValueEnforcer.notNull (aNew, "New");
+    return new SMPServiceInformationDiff (aOld, aNew);
+  }
+}
@@ -16,7 +16,9 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 /**
- * HTTP 400 (Bad Request) exception wrapper
+ * HTTP 400 (Bad Request) exception wrapper.<br>
+ * Since 5.7.0 this exception has no stack trace, because it is an expected
+ * outcome of the public lookup API and the message is self-explanatory.
  *
  * @author Philip Helger
  * @since 5.1.0
@@ -33,7 +35,8 @@ public class SMPBadRequestException extends SMPServerException
    */
   public SMPBadRequestException (@Nonnull final String sMessage, @Nullable final URI aEffectedURI)
   {
-    super ("Bad request: " + sMessage + (aEffectedURI == null ? "" : " at '" + aEffectedURI.toString () + "'"));
+    super ("Bad request: " + sMessage + (aEffectedURI == null ? "" : " at '" + aEffectedURI.toString () + "'"),
+           false);
   }
 
   @Nonnull
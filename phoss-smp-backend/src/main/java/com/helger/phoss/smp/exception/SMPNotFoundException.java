@@ -16,7 +16,9 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 /**
- * HTTP 404 exception wrapper
+ * HTTP 404 exception wrapper.<br>
+ * Since 5.7.0 this exception has no stack trace, because it is an expected
+ * outcome of the public lookup API and the message is self-explanatory.
  *
  * @author Philip Helger
  */
@@ -43,6 +45,6 @@ public class SMPNotFoundException extends SMPServerException
    */
   public SMPNotFoundException (@Nonnull final String sMessage, @Nullable final URI aNotFoundURI)
   {
-    super ("Not found: " + sMessage + (aNotFoundURI == null ? "" : " at " + aNotFoundURI));
+    super ("Not found: " + sMessage + (aNotFoundURI == null ? "" : " at " + aNotFoundURI), false);
   }
 }
@@ -28,4 +28,22 @@ public class SMPServerException extends Exception
   {
     super (sMessage, aCause);
   }
+
+  /**
+   * Constructor for exceptions that represent expected outcomes (like an
+   * unknown participant) and are thrown very often. Filling in the stack trace
+   * is by far the most expensive part of creating an exception.
+   *
+   * @param sMessage
+   *        The exception message.
+   * @param bWithStackTrace
+   *        <code>true</code> to fill in the stack trace, <code>false</code> to
+   *        create the exception without stack trace and without suppressed
+   *        exceptions.
+   * @since 5.7.0
+   */
+  protected SMPServerException (@Nonnull final String sMessage, final boolean bWithStackTrace)
+  {
+    super (sMessage, null, bWithStackTrace, bWithStackTrace);
+  }
 }
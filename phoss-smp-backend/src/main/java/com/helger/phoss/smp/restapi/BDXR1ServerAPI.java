@@ -12,6 +12,7 @@ package com.helger.phoss.smp.restapi;
 
 import java.security.cert.X509Certificate;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -22,7 +23,11 @@ import org.slf4j.LoggerFactory;
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.base64.Base64;
 import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.CommonsHashSet;
 import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.collection.impl.ICommonsSet;
 import com.helger.commons.lang.BooleanHelper;
 import com.helger.commons.state.EChange;
 import com.helger.commons.state.ESuccess;
@@ -35,6 +40,7 @@ import com.helger.peppolid.IParticipantIdentifier;
 import com.helger.peppolid.factory.IIdentifierFactory;
 import com.helger.peppolid.simple.process.SimpleProcessIdentifier;
 import com.helger.phoss.smp.CSMPServer;
+import com.helger.phoss.smp.domain.SMPIdentifierCache;
 import com.helger.phoss.smp.domain.SMPMetaManager;
 import com.helger.phoss.smp.domain.redirect.ISMPRedirect;
 import com.helger.phoss.smp.domain.redirect.ISMPRedirectManager;
@@ -108,8 +114,8 @@ public final class BDXR1ServerAPI
 
     try
     {
-      final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
@@ -119,6 +125,13 @@ public final class BDXR1ServerAPI
       final ISMPServiceGroupManager aServiceGroupMgr = SMPMetaManager.getServiceGroupMgr ();
       final ISMPServiceInformationManager aServiceInfoMgr = SMPMetaManager.getServiceInformationMgr ();
 
+      if (SMPNegativeLookupCache.isUnknownServiceGroupIfEnabled (aPathServiceGroupID))
+      {
+        // Definitely no such service group
+        throw new SMPNotFoundException ("Unknown Service Group ID '" + sPathServiceGroupID + "'",
+                                        m_aAPIDataProvider.getCurrentURI ());
+      }
+
       final ISMPServiceGroup aServiceGroup = aServiceGroupMgr.getSMPServiceGroupOfID (aPathServiceGroupID);
       if (aServiceGroup == null)
       {
@@ -129,13 +142,13 @@ public final class BDXR1ServerAPI
 
       // Then add the service metadata references
       final ServiceMetadataReferenceCollectionType aRefCollection = new ServiceMetadataReferenceCollectionType ();
-      for (final IDocumentTypeIdentifier aDocTypeID : aServiceInfoMgr.getAllSMPDocumentTypesOfServiceGroup (aServiceGroup))
+      for (final Map.Entry <IDocumentTypeIdentifier, Integer> aEntry : aServiceInfoMgr.getAllSMPDocumentTypesAndEndpointCountOfServiceGroup (aServiceGroup)
+                                                                                               .entrySet ())
       {
         // Ignore all service information without endpoints
-        final ISMPServiceInformation aServiceInfo = aServiceInfoMgr.getSMPServiceInformationOfServiceGroupAndDocumentType (aServiceGroup,
-                                                                                                                           aDocTypeID);
-        if (aServiceInfo != null && aServiceInfo.getTotalEndpointCount () > 0)
+        if (aEntry.getValue ().intValue () > 0)
         {
+          final IDocumentTypeIdentifier aDocTypeID = aEntry.getKey ();
           final ServiceMetadataReferenceType aMetadataReference = new ServiceMetadataReferenceType ();
           aMetadataReference.setHref (m_aAPIDataProvider.getServiceMetadataReferenceHref (aPathServiceGroupID,
                                                                                           aDocTypeID));
@@ -234,8 +247,8 @@ public final class BDXR1ServerAPI
 
     try
     {
-      final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
@@ -245,6 +258,13 @@ public final class BDXR1ServerAPI
       final ISMPServiceGroupManager aServiceGroupMgr = SMPMetaManager.getServiceGroupMgr ();
       final ISMPServiceInformationManager aServiceInfoMgr = SMPMetaManager.getServiceInformationMgr ();
 
+      if (SMPNegativeLookupCache.isUnknownServiceGroupIfEnabled (aPathServiceGroupID))
+      {
+        // Definitely no such service group
+        throw new SMPNotFoundException ("Unknown Service Group '" + sPathServiceGroupID + "'",
+                                        m_aAPIDataProvider.getCurrentURI ());
+      }
+
       // Retrieve the service group
       final ISMPServiceGroup aServiceGroup = aServiceGroupMgr.getSMPServiceGroupOfID (aPathServiceGroupID);
       if (aServiceGroup == null)
@@ -257,13 +277,13 @@ public final class BDXR1ServerAPI
       // Then add the service metadata references
       final ServiceGroupType aSG = aServiceGroup.getAsJAXBObjectBDXR1 ();
       final ServiceMetadataReferenceCollectionType aCollectionType = new ServiceMetadataReferenceCollectionType ();
-      for (final IDocumentTypeIdentifier aDocTypeID : aServiceInfoMgr.getAllSMPDocumentTypesOfServiceGroup (aServiceGroup))
+      for (final Map.Entry <IDocumentTypeIdentifier, Integer> aEntry : aServiceInfoMgr.getAllSMPDocumentTypesAndEndpointCountOfServiceGroup (aServiceGroup)
+                                                                                               .entrySet ())
       {
         // Ignore all service information without endpoints
-        final ISMPServiceInformation aServiceInfo = aServiceInfoMgr.getSMPServiceInformationOfServiceGroupAndDocumentType (aServiceGroup,
-                                                                                                                           aDocTypeID);
-        if (aServiceInfo != null && aServiceInfo.getTotalEndpointCount () > 0)
+        if (aEntry.getValue ().intValue () > 0)
         {
+          final IDocumentTypeIdentifier aDocTypeID = aEntry.getKey ();
           final ServiceMetadataReferenceType aMetadataReference = new ServiceMetadataReferenceType ();
           aMetadataReference.setHref (m_aAPIDataProvider.getServiceMetadataReferenceHref (aPathServiceGroupID,
                                                                                           aDocTypeID));
@@ -304,7 +324,8 @@ public final class BDXR1ServerAPI
     try
     {
       final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
@@ -378,8 +399,8 @@ public final class BDXR1ServerAPI
 
     try
     {
-      final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
@@ -407,6 +428,69 @@ public final class BDXR1ServerAPI
     }
   }
 
+  /**
+   * Log and count a service metadata request, that was answered without
+   * calling {@link #getServiceRegistration(String, String)}, e.g. from the
+   * signed response cache or with a "304 Not Modified".
+   *
+   * @param sPathServiceGroupID
+   *        The service group ID from the path. May be <code>null</code>.
+   * @param sPathDocTypeID
+   *        The document type ID from the path. May be <code>null</code>.
+   * @param sSource
+   *        A short description where the response came from. May not be
+   *        <code>null</code>.
+   * @since 5.7.0
+   */
+  public static void onServiceRegistrationShortcut (@Nullable final String sPathServiceGroupID,
+                                                    @Nullable final String sPathDocTypeID,
+                                                    @Nonnull final String sSource)
+  {
+    final String sLog = LOG_PREFIX + "GET /" + sPathServiceGroupID + "/services/" + sPathDocTypeID;
+    final String sAction = "getServiceRegistration";
+
+    if (LOGGER.isInfoEnabled ())
+      LOGGER.info (sLog);
+    STATS_COUNTER_INVOCATION.increment (sAction);
+
+    if (LOGGER.isInfoEnabled ())
+      LOGGER.info (sLog + " SUCCESS (" + sSource + ")");
+    STATS_COUNTER_SUCCESS.increment (sAction);
+  }
+
+  /**
+   * Log and count a failed service metadata request, that was answered
+   * without calling {@link #getServiceRegistration(String, String)}, e.g. as
+   * part of a batch request.
+   *
+   * @param sPathServiceGroupID
+   *        The service group ID from the path. May be <code>null</code>.
+   * @param sPathDocTypeID
+   *        The document type ID from the path. May be <code>null</code>.
+   * @param sSource
+   *        A short description where the response came from. May not be
+   *        <code>null</code>.
+   * @param sErrorMessage
+   *        The error message. May not be <code>null</code>.
+   * @since 5.7.0
+   */
+  public static void onServiceRegistrationShortcutError (@Nullable final String sPathServiceGroupID,
+                                                         @Nullable final String sPathDocTypeID,
+                                                         @Nonnull final String sSource,
+                                                         @Nonnull final String sErrorMessage)
+  {
+    final String sLog = LOG_PREFIX + "GET /" + sPathServiceGroupID + "/services/" + sPathDocTypeID;
+    final String sAction = "getServiceRegistration";
+
+    if (LOGGER.isInfoEnabled ())
+      LOGGER.info (sLog);
+    STATS_COUNTER_INVOCATION.increment (sAction);
+
+    if (LOGGER.isWarnEnabled ())
+      LOGGER.warn (sLog + " ERROR (" + sSource + ") - " + sErrorMessage);
+    STATS_COUNTER_ERROR.increment (sAction);
+  }
+
   @Nonnull
   public SignedServiceMetadataType getServiceRegistration (@Nonnull final String sPathServiceGroupID,
                                                            @Nonnull final String sPathDocTypeID) throws SMPServerException
@@ -420,14 +504,21 @@ public final class BDXR1ServerAPI
 
     try
     {
-      final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
         throw SMPBadRequestException.failedToParseSG (sPathServiceGroupID, m_aAPIDataProvider.getCurrentURI ());
       }
 
+      if (SMPNegativeLookupCache.isUnknownServiceGroupIfEnabled (aPathServiceGroupID))
+      {
+        // Definitely no such service group
+        throw new SMPNotFoundException ("No such Service Group '" + sPathServiceGroupID + "'",
+                                        m_aAPIDataProvider.getCurrentURI ());
+      }
+
       final ISMPServiceGroup aPathServiceGroup = SMPMetaManager.getServiceGroupMgr ()
                                                                .getSMPServiceGroupOfID (aPathServiceGroupID);
       if (aPathServiceGroup == null)
@@ -436,12 +527,19 @@ public final class BDXR1ServerAPI
                                         m_aAPIDataProvider.getCurrentURI ());
       }
 
-      final IDocumentTypeIdentifier aPathDocTypeID = aIdentifierFactory.parseDocumentTypeIdentifier (sPathDocTypeID);
+      final IDocumentTypeIdentifier aPathDocTypeID = aIdentifierCache.parseDocumentTypeIdentifier (sPathDocTypeID);
       if (aPathDocTypeID == null)
       {
         throw SMPBadRequestException.failedToParseDocType (sPathDocTypeID, m_aAPIDataProvider.getCurrentURI ());
       }
 
+      if (SMPNegativeLookupCache.isUnknownServiceGroupDocTypeIfEnabled (aPathServiceGroupID, aPathDocTypeID))
+      {
+        // Definitely neither a redirect nor a service information
+        throw new SMPNotFoundException ("service(" + sPathServiceGroupID + "," + sPathDocTypeID + ")",
+                                        m_aAPIDataProvider.getCurrentURI ());
+      }
+
       // First check for redirection, then for actual service
       final ISMPRedirectManager aRedirectMgr = SMPMetaManager.getRedirectMgr ();
       final ISMPRedirect aRedirect = aRedirectMgr.getSMPRedirectOfServiceGroupAndDocumentType (aPathServiceGroup,
@@ -487,6 +585,37 @@ public final class BDXR1ServerAPI
     }
   }
 
+  @Nonnull
+  private static ICommonsList <SMPProcess> _createProcesses (@Nonnull final ProcessListType aJAXBProcesses)
+  {
+    final ICommonsList <SMPProcess> aProcesses = new CommonsArrayList <> ();
+    for (final ProcessType aJAXBProcess : aJAXBProcesses.getProcess ())
+    {
+      final ICommonsList <SMPEndpoint> aEndpoints = new CommonsArrayList <> ();
+      for (final EndpointType aJAXBEndpoint : aJAXBProcess.getServiceEndpointList ().getEndpoint ())
+      {
+        final SMPEndpoint aEndpoint = new SMPEndpoint (aJAXBEndpoint.getTransportProfile (),
+                                                       aJAXBEndpoint.getEndpointURI (),
+                                                       BooleanHelper.getBooleanValue (aJAXBEndpoint.isRequireBusinessLevelSignature (),
+                                                                                      SMPEndpoint.DEFAULT_REQUIRES_BUSINESS_LEVEL_SIGNATURE),
+                                                       aJAXBEndpoint.getMinimumAuthenticationLevel (),
+                                                       aJAXBEndpoint.getServiceActivationDate (),
+                                                       aJAXBEndpoint.getServiceExpirationDate (),
+                                                       Base64.encodeBytes (aJAXBEndpoint.getCertificate ()),
+                                                       aJAXBEndpoint.getServiceDescription (),
+                                                       aJAXBEndpoint.getTechnicalContactUrl (),
+                                                       aJAXBEndpoint.getTechnicalInformationUrl (),
+                                                       convertToJsonString (aJAXBEndpoint.getExtension ()));
+        aEndpoints.add (aEndpoint);
+      }
+      final SMPProcess aProcess = new SMPProcess (SimpleProcessIdentifier.wrap (aJAXBProcess.getProcessIdentifier ()),
+                                                  aEndpoints,
+                                                  convertToJsonString (aJAXBProcess.getExtension ()));
+      aProcesses.add (aProcess);
+    }
+    return aProcesses;
+  }
+
   @Nonnull
   public ESuccess saveServiceRegistration (@Nonnull final String sPathServiceGroupID,
                                            @Nonnull final String sPathDocumentTypeID,
@@ -504,14 +633,15 @@ public final class BDXR1ServerAPI
     {
       // Parse provided identifiers
       final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
         throw SMPBadRequestException.failedToParseSG (sPathServiceGroupID, m_aAPIDataProvider.getCurrentURI ());
       }
 
-      final IDocumentTypeIdentifier aPathDocTypeID = aIdentifierFactory.parseDocumentTypeIdentifier (sPathDocumentTypeID);
+      final IDocumentTypeIdentifier aPathDocTypeID = aIdentifierCache.parseDocumentTypeIdentifier (sPathDocumentTypeID);
       if (aPathDocTypeID == null)
       {
         // Invalid identifier
@@ -621,32 +751,7 @@ public final class BDXR1ServerAPI
         if (aServiceInformation != null)
         {
           // Handle service information
-          final ProcessListType aJAXBProcesses = aServiceInformation.getProcessList ();
-          final ICommonsList <SMPProcess> aProcesses = new CommonsArrayList <> ();
-          for (final ProcessType aJAXBProcess : aJAXBProcesses.getProcess ())
-          {
-            final ICommonsList <SMPEndpoint> aEndpoints = new CommonsArrayList <> ();
-            for (final EndpointType aJAXBEndpoint : aJAXBProcess.getServiceEndpointList ().getEndpoint ())
-            {
-              final SMPEndpoint aEndpoint = new SMPEndpoint (aJAXBEndpoint.getTransportProfile (),
-                                                             aJAXBEndpoint.getEndpointURI (),
-                                                             BooleanHelper.getBooleanValue (aJAXBEndpoint.isRequireBusinessLevelSignature (),
-                                                                                            SMPEndpoint.DEFAULT_REQUIRES_BUSINESS_LEVEL_SIGNATURE),
-                                                             aJAXBEndpoint.getMinimumAuthenticationLevel (),
-                                                             aJAXBEndpoint.getServiceActivationDate (),
-                                                             aJAXBEndpoint.getServiceExpirationDate (),
-                                                             Base64.encodeBytes (aJAXBEndpoint.getCertificate ()),
-                                                             aJAXBEndpoint.getServiceDescription (),
-                                                             aJAXBEndpoint.getTechnicalContactUrl (),
-                                                             aJAXBEndpoint.getTechnicalInformationUrl (),
-                                                             convertToJsonString (aJAXBEndpoint.getExtension ()));
-              aEndpoints.add (aEndpoint);
-            }
-            final SMPProcess aProcess = new SMPProcess (SimpleProcessIdentifier.wrap (aJAXBProcess.getProcessIdentifier ()),
-                                                        aEndpoints,
-                                                        convertToJsonString (aJAXBProcess.getExtension ()));
-            aProcesses.add (aProcess);
-          }
+          final ICommonsList <SMPProcess> aProcesses = _createProcesses (aServiceInformation.getProcessList ());
 
           final ISMPServiceInformationManager aServiceInfoMgr = SMPMetaManager.getServiceInformationMgr ();
           final String sExtensionXML = convertToJsonString (aServiceInformation.getExtension ());
@@ -686,6 +791,145 @@ public final class BDXR1ServerAPI
     }
   }
 
+  /**
+   * Create or update multiple service information objects at once. Credentials
+   * are validated once, the ownership is verified once per service group and
+   * all objects are persisted with a single backend operation. Redirects are
+   * not supported.
+   *
+   * @param aServiceMetadatas
+   *        The service metadata objects to save. Each one must contain a
+   *        service information. May neither be <code>null</code> nor empty.
+   * @param aCredentials
+   *        The credentials to use. May not be <code>null</code>.
+   * @return {@link ESuccess}
+   * @throws SMPServerException
+   *         On error
+   * @since 5.7.0
+   */
+  @Nonnull
+  public ESuccess saveServiceRegistrations (@Nonnull final ICommonsList <ServiceMetadataType> aServiceMetadatas,
+                                            @Nonnull final BasicAuthClientCredentials aCredentials) throws SMPServerException
+  {
+    final String sLog = LOG_PREFIX + "PUT /bulk/services (" + aServiceMetadatas.size () + " entries)";
+    final String sAction = "saveServiceRegistrations";
+
+    if (LOGGER.isInfoEnabled ())
+      LOGGER.info (sLog);
+    STATS_COUNTER_INVOCATION.increment (sAction);
+
+    try
+    {
+      if (aServiceMetadatas.isEmpty ())
+      {
+        throw new SMPBadRequestException ("Save Service Metadata was called without any Service Metadata",
+                                          m_aAPIDataProvider.getCurrentURI ());
+      }
+
+      final IUser aDataUser = SMPUserManagerPhoton.validateUserCredentials (aCredentials);
+
+      final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
+      final ISMPServiceGroupManager aServiceGroupMgr = SMPMetaManager.getServiceGroupMgr ();
+      // Resolve each service group only once
+      final ICommonsMap <String, ISMPServiceGroup> aServiceGroups = new CommonsHashMap <> ();
+      final ICommonsSet <String> aUniqueKeys = new CommonsHashSet <> ();
+      final ICommonsList <SMPServiceInformation> aServiceInfos = new CommonsArrayList <> ();
+      for (final ServiceMetadataType aServiceMetadata : aServiceMetadatas)
+      {
+        final ServiceInformationType aServiceInformation = aServiceMetadata.getServiceInformation ();
+        if (aServiceInformation == null)
+        {
+          throw new SMPBadRequestException ("Bulk Save Service Metadata only supports ServiceInformation elements",
+                                            m_aAPIDataProvider.getCurrentURI ());
+        }
+
+        final IParticipantIdentifier aPayloadServiceGroupID;
+        if (aServiceInformation.getParticipantIdentifier () == null)
+          aPayloadServiceGroupID = null;
+        else
+          aPayloadServiceGroupID = aIdentifierFactory.createParticipantIdentifier (aServiceInformation.getParticipantIdentifier ()
+                                                                                                      .getScheme (),
+                                                                                   aServiceInformation.getParticipantIdentifier ()
+                                                                                                      .getValue ());
+        if (aPayloadServiceGroupID == null)
+        {
+          throw new SMPBadRequestException ("Save Service Metadata was called with a missing or invalid Service Information Participant ID",
+                                            m_aAPIDataProvider.getCurrentURI ());
+        }
+
+        final IDocumentTypeIdentifier aPayloadDocTypeID;
+        if (aServiceInformation.getDocumentIdentifier () == null)
+          aPayloadDocTypeID = null;
+        else
+          aPayloadDocTypeID = aIdentifierFactory.createDocumentTypeIdentifier (aServiceInformation.getDocumentIdentifier ()
+                                                                                                  .getScheme (),
+                                                                               aServiceInformation.getDocumentIdentifier ()
+                                                                                                  .getValue ());
+        if (aPayloadDocTypeID == null)
+        {
+          throw new SMPBadRequestException ("Save Service Metadata was called with a missing or invalid Service Information Document Type ID for '" +
+                                            aPayloadServiceGroupID.getURIEncoded () +
+                                            "'",
+                                            m_aAPIDataProvider.getCurrentURI ());
+        }
+
+        final String sServiceGroupKey = aPayloadServiceGroupID.getURIEncoded ();
+        if (!aUniqueKeys.add (sServiceGroupKey + ' ' + aPayloadDocTypeID.getURIEncoded ()))
+        {
+          throw new SMPBadRequestException ("Save Service Metadata was called more than once for '" +
+                                            sServiceGroupKey +
+                                            "' and '" +
+                                            aPayloadDocTypeID.getURIEncoded () +
+                                            "'",
+                                            m_aAPIDataProvider.getCurrentURI ());
+        }
+
+        ISMPServiceGroup aServiceGroup = aServiceGroups.get (sServiceGroupKey);
+        if (aServiceGroup == null)
+        {
+          SMPUserManagerPhoton.verifyOwnership (aPayloadServiceGroupID, aDataUser);
+
+          aServiceGroup = aServiceGroupMgr.getSMPServiceGroupOfID (aPayloadServiceGroupID);
+          if (aServiceGroup == null)
+          {
+            // Service group not found
+            throw new SMPNotFoundException ("Service Group '" + sServiceGroupKey + "' is not on this SMP",
+                                            m_aAPIDataProvider.getCurrentURI ());
+          }
+          aServiceGroups.put (sServiceGroupKey, aServiceGroup);
+        }
+
+        final String sExtensionXML = convertToJsonString (aServiceInformation.getExtension ());
+        aServiceInfos.add (new SMPServiceInformation (aServiceGroup,
+                                                      aPayloadDocTypeID,
+                                                      _createProcesses (aServiceInformation.getProcessList ()),
+                                                      sExtensionXML));
+      }
+
+      // Main save
+      final ISMPServiceInformationManager aServiceInfoMgr = SMPMetaManager.getServiceInformationMgr ();
+      if (aServiceInfoMgr.mergeAllSMPServiceInformation (aServiceInfos).isFailure ())
+      {
+        if (LOGGER.isErrorEnabled ())
+          LOGGER.error (sLog + " - ERROR - ServiceInformation");
+        STATS_COUNTER_ERROR.increment (sAction);
+        return ESuccess.FAILURE;
+      }
+
+      if (LOGGER.isInfoEnabled ())
+        LOGGER.info (sLog + " SUCCESS - " + aServiceInfos.size () + " ServiceInformation");
+      STATS_COUNTER_SUCCESS.increment (sAction);
+      return ESuccess.SUCCESS;
+    }
+    catch (final SMPServerException ex)
+    {
+      if (LOGGER.isWarnEnabled ())
+        LOGGER.warn (sLog + " ERROR - " + ex.getMessage ());
+      STATS_COUNTER_ERROR.increment (sAction);
+      throw ex;
+    }
+  }
+
   public void deleteServiceRegistration (@Nonnull final String sPathServiceGroupID,
                                          @Nonnull final String sPathDocTypeID,
                                          @Nonnull final BasicAuthClientCredentials aCredentials) throws SMPServerException
@@ -699,15 +943,15 @@ public final class BDXR1ServerAPI
 
     try
     {
-      final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
         throw SMPBadRequestException.failedToParseSG (sPathServiceGroupID, m_aAPIDataProvider.getCurrentURI ());
       }
 
-      final IDocumentTypeIdentifier aPathDocTypeID = aIdentifierFactory.parseDocumentTypeIdentifier (sPathDocTypeID);
+      final IDocumentTypeIdentifier aPathDocTypeID = aIdentifierCache.parseDocumentTypeIdentifier (sPathDocTypeID);
       if (aPathDocTypeID == null)
       {
         // Invalid identifier
@@ -799,8 +1043,8 @@ public final class BDXR1ServerAPI
 
     try
     {
-      final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
@@ -37,6 +37,7 @@ import com.helger.peppolid.IParticipantIdentifier;
 import com.helger.peppolid.IProcessIdentifier;
 import com.helger.peppolid.factory.IIdentifierFactory;
 import com.helger.phoss.smp.CSMPServer;
+import com.helger.phoss.smp.domain.SMPIdentifierCache;
 import com.helger.phoss.smp.domain.SMPMetaManager;
 import com.helger.phoss.smp.domain.redirect.ISMPRedirect;
 import com.helger.phoss.smp.domain.redirect.ISMPRedirectManager;
@@ -105,8 +106,8 @@ public final class BDXR2ServerAPI
 
     try
     {
-      final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
@@ -116,6 +117,13 @@ public final class BDXR2ServerAPI
       final ISMPServiceGroupManager aServiceGroupMgr = SMPMetaManager.getServiceGroupMgr ();
       final ISMPServiceInformationManager aServiceInfoMgr = SMPMetaManager.getServiceInformationMgr ();
 
+      if (SMPNegativeLookupCache.isUnknownServiceGroupIfEnabled (aPathServiceGroupID))
+      {
+        // Definitely no such service group
+        throw new SMPNotFoundException ("Unknown Service Group '" + sPathServiceGroupID + "'",
+                                        m_aAPIDataProvider.getCurrentURI ());
+      }
+
       // Retrieve the service group
       final ISMPServiceGroup aServiceGroup = aServiceGroupMgr.getSMPServiceGroupOfID (aPathServiceGroupID);
       if (aServiceGroup == null)
@@ -127,13 +135,13 @@ public final class BDXR2ServerAPI
 
       // Then add the service metadata references
       final ServiceGroupType aSG = aServiceGroup.getAsJAXBObjectBDXR2 ();
-      for (final IDocumentTypeIdentifier aDocTypeID : aServiceInfoMgr.getAllSMPDocumentTypesOfServiceGroup (aServiceGroup))
+      for (final Map.Entry <IDocumentTypeIdentifier, Integer> aEntry : aServiceInfoMgr.getAllSMPDocumentTypesAndEndpointCountOfServiceGroup (aServiceGroup)
+                                                                                               .entrySet ())
       {
         // Ignore all service information without endpoints
-        final ISMPServiceInformation aServiceInfo = aServiceInfoMgr.getSMPServiceInformationOfServiceGroupAndDocumentType (aServiceGroup,
-                                                                                                                           aDocTypeID);
-        if (aServiceInfo != null && aServiceInfo.getTotalEndpointCount () > 0)
+        if (aEntry.getValue ().intValue () > 0)
         {
+          final IDocumentTypeIdentifier aDocTypeID = aEntry.getKey ();
           final ServiceReferenceType aMetadataReference = new ServiceReferenceType ();
           {
             final IDType aID = new IDType ();
@@ -177,7 +185,8 @@ public final class BDXR2ServerAPI
     try
     {
       final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
@@ -251,8 +260,8 @@ public final class BDXR2ServerAPI
 
     try
     {
-      final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
@@ -280,6 +289,69 @@ public final class BDXR2ServerAPI
     }
   }
 
+  /**
+   * Log and count a service metadata request, that was answered without
+   * calling {@link #getServiceRegistration(String, String)}, e.g. from the
+   * signed response cache or with a "304 Not Modified".
+   *
+   * @param sPathServiceGroupID
+   *        The service group ID from the path. May be <code>null</code>.
+   * @param sPathDocTypeID
+   *        The document type ID from the path. May be <code>null</code>.
+   * @param sSource
+   *        A short description where the response came from. May not be
+   *        <code>null</code>.
+   * @since 5.7.0
+   */
+  public static void onServiceRegistrationShortcut (@Nullable final String sPathServiceGroupID,
+                                                    @Nullable final String sPathDocTypeID,
+                                                    @Nonnull final String sSource)
+  {
+    final String sLog = LOG_PREFIX + "GET /" + sPathServiceGroupID + "/services/" + sPathDocTypeID;
+    final String sAction = "getServiceRegistration";
+
+    if (LOGGER.isInfoEnabled ())
+      LOGGER.info (sLog);
+    STATS_COUNTER_INVOCATION.increment (sAction);
+
+    if (LOGGER.isInfoEnabled ())
+      LOGGER.info (sLog + " SUCCESS (" + sSource + ")");
+    STATS_COUNTER_SUCCESS.increment (sAction);
+  }
+
+  /**
+   * Log and count a failed service metadata request, that was answered
+   * without calling {@link #getServiceRegistration(String, String)}, e.g. as
+   * part of a batch request.
+   *
+   * @param sPathServiceGroupID
+   *        The service group ID from the path. May be <code>null</code>.
+   * @param sPathDocTypeID
+   *        The document type ID from the path. May be <code>null</code>.
+   * @param sSource
+   *        A short description where the response came from. May not be
+   *        <code>null</code>.
+   * @param sErrorMessage
+   *        The error message. May not be <code>null</code>.
+   * @since 5.7.0
+   */
+  public static void onServiceRegistrationShortcutError (@Nullable final String sPathServiceGroupID,
+                                                         @Nullable final String sPathDocTypeID,
+                                                         @Nonnull final String sSource,
+                                                         @Nonnull final String sErrorMessage)
+  {
+    final String sLog = LOG_PREFIX + "GET /" + sPathServiceGroupID + "/services/" + sPathDocTypeID;
+    final String sAction = "getServiceRegistration";
+
+    if (LOGGER.isInfoEnabled ())
+      LOGGER.info (sLog);
+    STATS_COUNTER_INVOCATION.increment (sAction);
+
+    if (LOGGER.isWarnEnabled ())
+      LOGGER.warn (sLog + " ERROR (" + sSource + ") - " + sErrorMessage);
+    STATS_COUNTER_ERROR.increment (sAction);
+  }
+
   @Nonnull
   public ServiceMetadataType getServiceRegistration (@Nonnull final String sPathServiceGroupID,
                                                      @Nonnull final String sPathDocTypeID) throws SMPServerException
@@ -293,14 +365,21 @@ public final class BDXR2ServerAPI
 
     try
     {
-      final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
         throw SMPBadRequestException.failedToParseSG (sPathServiceGroupID, m_aAPIDataProvider.getCurrentURI ());
       }
 
+      if (SMPNegativeLookupCache.isUnknownServiceGroupIfEnabled (aPathServiceGroupID))
+      {
+        // Definitely no such service group
+        throw new SMPNotFoundException ("No such Service Group '" + sPathServiceGroupID + "'",
+                                        m_aAPIDataProvider.getCurrentURI ());
+      }
+
       final ISMPServiceGroup aPathServiceGroup = SMPMetaManager.getServiceGroupMgr ()
                                                                .getSMPServiceGroupOfID (aPathServiceGroupID);
       if (aPathServiceGroup == null)
@@ -309,12 +388,19 @@ public final class BDXR2ServerAPI
                                         m_aAPIDataProvider.getCurrentURI ());
       }
 
-      final IDocumentTypeIdentifier aPathDocTypeID = aIdentifierFactory.parseDocumentTypeIdentifier (sPathDocTypeID);
+      final IDocumentTypeIdentifier aPathDocTypeID = aIdentifierCache.parseDocumentTypeIdentifier (sPathDocTypeID);
       if (aPathDocTypeID == null)
       {
         throw SMPBadRequestException.failedToParseDocType (sPathDocTypeID, m_aAPIDataProvider.getCurrentURI ());
       }
 
+      if (SMPNegativeLookupCache.isUnknownServiceGroupDocTypeIfEnabled (aPathServiceGroupID, aPathDocTypeID))
+      {
+        // Definitely neither a redirect nor a service information
+        throw new SMPNotFoundException ("service(" + sPathServiceGroupID + "," + sPathDocTypeID + ")",
+                                        m_aAPIDataProvider.getCurrentURI ());
+      }
+
       // First check for redirection, then for actual service
       final ISMPRedirectManager aRedirectMgr = SMPMetaManager.getRedirectMgr ();
       final ISMPRedirect aRedirect = aRedirectMgr.getSMPRedirectOfServiceGroupAndDocumentType (aPathServiceGroup,
@@ -376,14 +462,15 @@ public final class BDXR2ServerAPI
     {
       // Parse provided identifiers
       final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
         throw SMPBadRequestException.failedToParseSG (sPathServiceGroupID, m_aAPIDataProvider.getCurrentURI ());
       }
 
-      final IDocumentTypeIdentifier aPathDocTypeID = aIdentifierFactory.parseDocumentTypeIdentifier (sPathDocumentTypeID);
+      final IDocumentTypeIdentifier aPathDocTypeID = aIdentifierCache.parseDocumentTypeIdentifier (sPathDocumentTypeID);
       if (aPathDocTypeID == null)
       {
         // Invalid identifier
@@ -598,15 +685,15 @@ public final class BDXR2ServerAPI
 
     try
     {
-      final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
         throw SMPBadRequestException.failedToParseSG (sPathServiceGroupID, m_aAPIDataProvider.getCurrentURI ());
       }
 
-      final IDocumentTypeIdentifier aPathDocTypeID = aIdentifierFactory.parseDocumentTypeIdentifier (sPathDocTypeID);
+      final IDocumentTypeIdentifier aPathDocTypeID = aIdentifierCache.parseDocumentTypeIdentifier (sPathDocTypeID);
       if (aPathDocTypeID == null)
       {
         // Invalid identifier
@@ -698,8 +785,8 @@ public final class BDXR2ServerAPI
 
     try
     {
-      final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
@@ -28,6 +28,7 @@ import com.helger.pd.businesscard.generic.PDBusinessEntity;
 import com.helger.pd.businesscard.v3.PD3BusinessCardType;
 import com.helger.peppolid.IParticipantIdentifier;
 import com.helger.peppolid.factory.IIdentifierFactory;
+import com.helger.phoss.smp.domain.SMPIdentifierCache;
 import com.helger.phoss.smp.domain.SMPMetaManager;
 import com.helger.phoss.smp.domain.businesscard.ISMPBusinessCard;
 import com.helger.phoss.smp.domain.businesscard.ISMPBusinessCardManager;
@@ -76,8 +77,8 @@ public final class BusinessCardServerAPI
 
     try
     {
-      final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sServiceGroupID);
       if (aServiceGroupID == null)
       {
         // Invalid identifier
@@ -137,7 +138,8 @@ public final class BusinessCardServerAPI
     {
       // Parse and validate identifier
       final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sServiceGroupID);
       if (aServiceGroupID == null)
       {
         // Invalid identifier
@@ -228,8 +230,8 @@ public final class BusinessCardServerAPI
 
     try
     {
-      final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sServiceGroupID);
       if (aServiceGroupID == null)
       {
         // Invalid identifier
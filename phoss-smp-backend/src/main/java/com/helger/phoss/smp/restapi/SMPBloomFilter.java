@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2015-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * The Original Code is Copyright The Peppol project (http://www.peppol.eu)
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.helger.phoss.smp.restapi;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A simple thread-safe Bloom filter for strings. Elements can only be added,
+ * never removed. {@link #mightContain(String)} never returns
+ * <code>false</code> for an element that was added.
+ *
+ * @author Philip Helger
+ * @since 5.7.0
+ */
+@ThreadSafe
+public final class SMPBloomFilter
+{
+  private final AtomicLongArray m_aBits;
+  private final long m_nBitCount;
+  private final int m_nHashCount;
+  private final LongAdder m_aAddCount = new LongAdder ();
+
+  /**
+   * Constructor
+   *
+   * @param nExpectedElements
+   *        The number of elements the filter is sized for. Must be &gt; 0.
+   * @param dFalsePositiveRate
+   *        The desired false positive rate if the expected number of elements
+   *        was added. Must be &gt; 0 and &lt; 1.
+   */
+  public SMPBloomFilter (@Nonnegative final int nExpectedElements, final double dFalsePositiveRate)
+  {
+    ValueEnforcer.isGT0 (nExpectedElements, "ExpectedElements");
+    ValueEnforcer.isTrue (dFalsePositiveRate > 0 && dFalsePositiveRate < 1, "FalsePositiveRate must be between 0 and 1");
+
+    // The standard formulas for the optimal number of bits and hash functions
+    final double dLn2 = Math.log (2);
+    final long nBits = Math.max (64,
+                                 (long) Math.ceil (-nExpectedElements * Math.log (dFalsePositiveRate) / (dLn2 * dLn2)));
+    final int nLongs = (int) ((nBits + 63) / 64);
+    m_aBits = new AtomicLongArray (nLongs);
+    m_nBitCount = nLongs * 64L;
+    m_nHashCount = Math.max (1, (int) Math.round ((double) m_nBitCount / nExpectedElements * dLn2));
+  }
+
+  private static long _hash64 (@Nonnull final String s)
+  {
+    // FNV-1a over all chars, finished with a 64 bit mix
+    long h = 0xcbf29ce484222325L;
+    final int nLen = s.length ();
+    for (int i = 0; i < nLen; ++i)
+    {
+      h ^= s.charAt (i);
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  private long _getBitIndex (final long nHash, final int nIndex)
+  {
+    // Double hashing
+    final int nHash1 = (int) nHash;
+    final int nHash2 = (int) (nHash >>> 32);
+    final long nCombined = nHash1 + (long) nIndex * nHash2;
+    return (nCombined & Long.MAX_VALUE) % m_nBitCount;
+  }
+
+  /**
+   * Add an element.
+   *
+   * @param sElement
+   *        The element to add. May not be <code>null</code>.
+   */
+  public void add (@Nonnull final String sElement)
+  {
+    ValueEnforcer.notNull (sElement, "Element");
+
+    final long nHash = _hash64 (sElement);
+    for (int i = 0; i < m_nHashCount; ++i)
+    {
+      final long nBit = _getBitIndex (nHash, i);
+      final int nLongIndex = (int) (nBit >>> 6);
+      final long nMask = 1L << (nBit & 63);
+      long nOld;
+      while (((nOld = m_aBits.get (nLongIndex)) & nMask) == 0)
+        if (m_aBits.compareAndSet (nLongIndex, nOld, nOld | nMask))
+          break;
+    }
+    m_aAddCount.increment ();
+  }
+
+  /**
+   * Check if an element might have been added.
+   *
+   * @param sElement
+   *        The element to check. May not be <code>null</code>.
+   * @return <code>false</code> if the element was definitely never added,
+   *         <code>true</code> if it was probably added.
+   */
+  public boolean mightContain (@Nonnull final String sElement)
+  {
+    ValueEnforcer.notNull (sElement, "Element");
+
+    final long nHash = _hash64 (sElement);
+    for (int i = 0; i < m_nHashCount; ++i)
+    {
+      final long nBit = _getBitIndex (nHash, i);
+      if ((m_aBits.get ((int) (nBit >>> 6)) & (1L << (nBit & 63))) == 0)
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * @return The number of bits of the filter. Always a multiple of 64.
+   */
+  @Nonnegative
+  public long getBitCount ()
+  {
+    return m_nBitCount;
+  }
+
+  /**
+   * @return The number of hash functions used per element. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getHashFunctionCount ()
+  {
+    return m_nHashCount;
+  }
+
+  /**
+   * @return The number of add operations, including duplicate elements.
+   */
+  @Nonnegative
+  public long getAddCount ()
+  {
+    return m_aAddCount.sum ();
+  }
+
+  /**
+   * @return The number of bytes used for the bits.
+   */
+  @Nonnegative
+  public long getMemoryBytes ()
+  {
+    return m_nBitCount / 8;
+  }
+
+  /**
+   * @return The current probability that {@link #mightContain(String)} returns
+   *         <code>true</code> for an element that was never added, based on the
+   *         share of set bits. Between 0 and 1.
+   */
+  public double getCurrentFalsePositiveRate ()
+  {
+    long nSetBits = 0;
+    final int nLongs = m_aBits.length ();
+    for (int i = 0; i < nLongs; ++i)
+      nSetBits += Long.bitCount (m_aBits.get (i));
+    return Math.pow ((double) nSetBits / m_nBitCount, m_nHashCount);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("BitCount", m_nBitCount)
+                                       .append ("HashCount", m_nHashCount)
+                                       .append ("AddCount", getAddCount ())
+                                       .getToString ();
+  }
+}
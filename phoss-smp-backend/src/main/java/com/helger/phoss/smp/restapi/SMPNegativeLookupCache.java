@@ -0,0 +1,440 @@
+/*
+ * Copyright (C) 2015-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * The Original Code is Copyright The Peppol project (http://www.peppol.eu)
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.helger.phoss.smp.restapi;
+
+import java.util.Locale;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.UsedViaReflection;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsSet;
+import com.helger.commons.concurrent.SimpleLock;
+import com.helger.commons.timing.StopWatch;
+import com.helger.peppolid.IDocumentTypeIdentifier;
+import com.helger.peppolid.IParticipantIdentifier;
+import com.helger.phoss.smp.SMPServerConfiguration;
+import com.helger.phoss.smp.domain.redirect.ISMPRedirect;
+import com.helger.phoss.smp.domain.redirect.ISMPRedirectCallback;
+import com.helger.phoss.smp.domain.redirect.ISMPRedirectManager;
+import com.helger.phoss.smp.domain.servicegroup.ISMPServiceGroup;
+import com.helger.phoss.smp.domain.servicegroup.ISMPServiceGroupCallback;
+import com.helger.phoss.smp.domain.servicegroup.ISMPServiceGroupManager;
+import com.helger.phoss.smp.domain.servicegroup.SMPServiceGroup;
+import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformation;
+import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformationCallback;
+import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformationManager;
+import com.helger.scope.singleton.AbstractGlobalSingleton;
+
+/**
+ * A negative lookup cache for the public lookup API. It keeps Bloom filters of
+ * all hosted service groups and of all hosted service group and document type
+ * pairs (service information and redirects), so that requests for unknown
+ * participants or document types can be answered without accessing the
+ * backend.<br>
+ * The filters are built from the backend upon startup and extended by the
+ * callbacks of the local managers. Bloom filters don't support removal, so
+ * deletions never clear any bits. Deleted elements stay in the filters and
+ * elements added beyond the sized capacity set additional bits, so the
+ * effective false positive rate grows until the next {@link #rebuild}. A
+ * rebuild is only triggered when the {@link com.helger.phoss.smp.domain.SMPMetaManager}
+ * is initialized, which means upon application startup. The current rates
+ * and the memory usage are part of the status API
+ * (<code>smp.rest.negativelookupcache.*</code>), so that a restart can be
+ * scheduled if the rates are too high.<br>
+ * Note: elements are only added by the callbacks of the local managers, so this
+ * must only be enabled if a single SMP instance writes to the backend.
+ * Otherwise newly created participants would be reported as unknown.
+ *
+ * @author Philip Helger
+ * @since 5.7.0
+ */
+@ThreadSafe
+public final class SMPNegativeLookupCache extends AbstractGlobalSingleton
+{
+  /** The false positive rate the filters are sized for */
+  public static final double FALSE_POSITIVE_RATE = 0.01;
+  /** The minimum number of elements the filters are sized for */
+  public static final int MIN_EXPECTED_ELEMENTS = 10_000;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (SMPNegativeLookupCache.class);
+
+  /**
+   * The filters of a single build.
+   *
+   * @author Philip Helger
+   */
+  private static final class Filters
+  {
+    private final SMPBloomFilter m_aServiceGroups;
+    private final SMPBloomFilter m_aServiceGroupDocTypes;
+
+    Filters (final int nServiceGroupCount, final int nDocTypeCount)
+    {
+      // Leave room for growth
+      m_aServiceGroups = new SMPBloomFilter (Math.max (MIN_EXPECTED_ELEMENTS, nServiceGroupCount * 2),
+                                             FALSE_POSITIVE_RATE);
+      m_aServiceGroupDocTypes = new SMPBloomFilter (Math.max (MIN_EXPECTED_ELEMENTS, nDocTypeCount * 2),
+                                                    FALSE_POSITIVE_RATE);
+    }
+  }
+
+  /**
+   * Adds the created elements to the filters.
+   *
+   * @author Philip Helger
+   */
+  private final class ModificationCallback implements
+                                           ISMPServiceGroupCallback,
+                                           ISMPRedirectCallback,
+                                           ISMPServiceInformationCallback
+  {
+    public void onSMPServiceGroupCreated (@Nonnull final ISMPServiceGroup aServiceGroup, final boolean bCreateInSML)
+    {
+      _addServiceGroup (aServiceGroup.getID ());
+    }
+
+    public void onSMPServiceGroupUpdated (@Nonnull final IParticipantIdentifier aParticipantID)
+    {
+      // Nothing to add
+    }
+
+    public void onSMPServiceGroupDeleted (@Nonnull final IParticipantIdentifier aParticipantID,
+                                          final boolean bDeleteInSML)
+    {
+      // Cannot be removed
+    }
+
+    @Override
+    public void onSMPRedirectCreated (@Nonnull final ISMPRedirect aRedirect)
+    {
+      _addServiceGroupDocType (aRedirect.getServiceGroupID (), aRedirect.getDocumentTypeIdentifier ());
+    }
+
+    @Override
+    public void onSMPRedirectUpdated (@Nonnull final ISMPRedirect aRedirect)
+    {
+      onSMPRedirectCreated (aRedirect);
+    }
+
+    @Override
+    public void onSMPServiceInformationCreated (@Nonnull final ISMPServiceInformation aServiceInformation)
+    {
+      _addServiceGroupDocType (aServiceInformation.getServiceGroupID (),
+                               aServiceInformation.getDocumentTypeIdentifier ());
+    }
+
+    @Override
+    public void onSMPServiceInformationUpdated (@Nonnull final ISMPServiceInformation aServiceInformation)
+    {
+      onSMPServiceInformationCreated (aServiceInformation);
+    }
+  }
+
+  private final ModificationCallback m_aCallback = new ModificationCallback ();
+  private final SimpleLock m_aRebuildLock = new SimpleLock ();
+  // null until the first build finished
+  @GuardedBy ("m_aRWLock")
+  private Filters m_aFilters;
+  // Only set while a rebuild is running
+  @GuardedBy ("m_aRWLock")
+  private Filters m_aPendingFilters;
+
+  /**
+   * @deprecated Only called via reflection
+   */
+  @Deprecated
+  @UsedViaReflection
+  public SMPNegativeLookupCache ()
+  {}
+
+  @Nonnull
+  public static SMPNegativeLookupCache getInstance ()
+  {
+    return getGlobalSingleton (SMPNegativeLookupCache.class);
+  }
+
+  /**
+   * @return <code>true</code> if the negative lookup cache is enabled in the
+   *         configuration, <code>false</code> if not.
+   */
+  public static boolean isEnabled ()
+  {
+    return SMPServerConfiguration.isRESTNegativeLookupCacheEnabled ();
+  }
+
+  @Nonnull
+  private static String _getServiceGroupKey (@Nonnull final String sServiceGroupID)
+  {
+    // Ignore case to be safe with case insensitive identifier schemes
+    return sServiceGroupID.toLowerCase (Locale.US);
+  }
+
+  @Nonnull
+  private static String _getServiceGroupDocTypeKey (@Nonnull final String sServiceGroupID,
+                                                    @Nonnull final IDocumentTypeIdentifier aDocTypeID)
+  {
+    return _getServiceGroupKey (sServiceGroupID) + ' ' + aDocTypeID.getURIEncoded ().toLowerCase (Locale.US);
+  }
+
+  private void _addServiceGroup (@Nonnull final String sServiceGroupID)
+  {
+    final String sKey = _getServiceGroupKey (sServiceGroupID);
+    m_aRWLock.readLocked ( () -> {
+      // Adding to the filters itself is thread-safe
+      if (m_aFilters != null)
+        m_aFilters.m_aServiceGroups.add (sKey);
+      if (m_aPendingFilters != null)
+        m_aPendingFilters.m_aServiceGroups.add (sKey);
+    });
+  }
+
+  private void _addServiceGroupDocType (@Nonnull final String sServiceGroupID,
+                                        @Nonnull final IDocumentTypeIdentifier aDocTypeID)
+  {
+    final String sKey = _getServiceGroupDocTypeKey (sServiceGroupID, aDocTypeID);
+    m_aRWLock.readLocked ( () -> {
+      if (m_aFilters != null)
+        m_aFilters.m_aServiceGroupDocTypes.add (sKey);
+      if (m_aPendingFilters != null)
+        m_aPendingFilters.m_aServiceGroupDocTypes.add (sKey);
+    });
+  }
+
+  /**
+   * @return The callback to be registered at the service group manager. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public ISMPServiceGroupCallback getServiceGroupCallback ()
+  {
+    return m_aCallback;
+  }
+
+  /**
+   * @return The callback to be registered at the redirect manager. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public ISMPRedirectCallback getRedirectCallback ()
+  {
+    return m_aCallback;
+  }
+
+  /**
+   * @return The callback to be registered at the service information manager.
+   *         Never <code>null</code>.
+   */
+  @Nonnull
+  public ISMPServiceInformationCallback getServiceInformationCallback ()
+  {
+    return m_aCallback;
+  }
+
+  /**
+   * Build new filters from the backend and replace the existing ones. The
+   * callbacks must already be registered, so that no concurrent modification
+   * is lost.
+   *
+   * @param aServiceGroupMgr
+   *        The service group manager to use. May not be <code>null</code>.
+   * @param aServiceInfoMgr
+   *        The service information manager to use. May not be
+   *        <code>null</code>.
+   * @param aRedirectMgr
+   *        The redirect manager to use. May not be <code>null</code>.
+   */
+  public void rebuild (@Nonnull final ISMPServiceGroupManager aServiceGroupMgr,
+                       @Nonnull final ISMPServiceInformationManager aServiceInfoMgr,
+                       @Nonnull final ISMPRedirectManager aRedirectMgr)
+  {
+    ValueEnforcer.notNull (aServiceGroupMgr, "ServiceGroupMgr");
+    ValueEnforcer.notNull (aServiceInfoMgr, "ServiceInfoMgr");
+    ValueEnforcer.notNull (aRedirectMgr, "RedirectMgr");
+
+    m_aRebuildLock.locked ( () -> {
+      final StopWatch aSW = StopWatch.createdStarted ();
+
+      // Sizing is based on the counts before reading
+      final Filters aNewFilters = new Filters ((int) aServiceGroupMgr.getSMPServiceGroupCount (),
+                                               (int) (aServiceInfoMgr.getSMPServiceInformationCount () +
+                                                      aRedirectMgr.getSMPRedirectCount ()));
+      // From now on, all additions also go to the new filters
+      m_aRWLock.writeLocked ( () -> m_aPendingFilters = aNewFilters);
+      try
+      {
+        final ICommonsSet <String> aServiceGroupIDs = aServiceGroupMgr.getAllSMPServiceGroupIDs ();
+        for (final String sServiceGroupID : aServiceGroupIDs)
+          aNewFilters.m_aServiceGroups.add (_getServiceGroupKey (sServiceGroupID));
+
+        final ICommonsList <ISMPServiceInformation> aServiceInfos = aServiceInfoMgr.getAllSMPServiceInformation ();
+        for (final ISMPServiceInformation aServiceInfo : aServiceInfos)
+          aNewFilters.m_aServiceGroupDocTypes.add (_getServiceGroupDocTypeKey (aServiceInfo.getServiceGroupID (),
+                                                                               aServiceInfo.getDocumentTypeIdentifier ()));
+
+        final ICommonsList <ISMPRedirect> aRedirects = aRedirectMgr.getAllSMPRedirects ();
+        for (final ISMPRedirect aRedirect : aRedirects)
+          aNewFilters.m_aServiceGroupDocTypes.add (_getServiceGroupDocTypeKey (aRedirect.getServiceGroupID (),
+                                                                               aRedirect.getDocumentTypeIdentifier ()));
+
+        m_aRWLock.writeLocked ( () -> {
+          m_aFilters = aNewFilters;
+          m_aPendingFilters = null;
+        });
+
+        LOGGER.info ("Built negative lookup cache with " +
+                     aServiceGroupIDs.size () +
+                     " service groups and " +
+                     (aServiceInfos.size () + aRedirects.size ()) +
+                     " document types in " +
+                     aSW.stopAndGetMillis () +
+                     " milliseconds using " +
+                     getMemoryBytes () +
+                     " bytes");
+      }
+      catch (final RuntimeException ex)
+      {
+        // Keep the old filters
+        m_aRWLock.writeLocked ( () -> m_aPendingFilters = null);
+        throw ex;
+      }
+    });
+  }
+
+  @Nullable
+  private Filters _getFilters ()
+  {
+    return m_aRWLock.readLockedGet ( () -> m_aFilters);
+  }
+
+  /**
+   * @return <code>true</code> if the filters were built, <code>false</code> if
+   *         not. If not, nothing is reported as unknown.
+   */
+  public boolean isBuilt ()
+  {
+    return _getFilters () != null;
+  }
+
+  /**
+   * Check if a service group is definitely not hosted.
+   *
+   * @param aParticipantID
+   *        The participant ID of the service group. May not be
+   *        <code>null</code>.
+   * @return <code>true</code> if the service group is definitely unknown,
+   *         <code>false</code> if it might exist.
+   */
+  public boolean isUnknownServiceGroup (@Nonnull final IParticipantIdentifier aParticipantID)
+  {
+    ValueEnforcer.notNull (aParticipantID, "ParticipantID");
+
+    final Filters aFilters = _getFilters ();
+    return aFilters != null &&
+           !aFilters.m_aServiceGroups.mightContain (_getServiceGroupKey (SMPServiceGroup.createSMPServiceGroupID (aParticipantID)));
+  }
+
+  /**
+   * Check if neither a service information nor a redirect exists for the
+   * provided service group and document type.
+   *
+   * @param aParticipantID
+   *        The participant ID of the service group. May not be
+   *        <code>null</code>.
+   * @param aDocTypeID
+   *        The document type ID. May not be <code>null</code>.
+   * @return <code>true</code> if the combination is definitely unknown,
+   *         <code>false</code> if it might exist.
+   */
+  public boolean isUnknownServiceGroupDocType (@Nonnull final IParticipantIdentifier aParticipantID,
+                                               @Nonnull final IDocumentTypeIdentifier aDocTypeID)
+  {
+    ValueEnforcer.notNull (aParticipantID, "ParticipantID");
+    ValueEnforcer.notNull (aDocTypeID, "DocTypeID");
+
+    final Filters aFilters = _getFilters ();
+    return aFilters != null &&
+           !aFilters.m_aServiceGroupDocTypes.mightContain (_getServiceGroupDocTypeKey (SMPServiceGroup.createSMPServiceGroupID (aParticipantID),
+                                                                                       aDocTypeID));
+  }
+
+  /**
+   * @return The current false positive rate of the service group filter. 0 if
+   *         the filters were not yet built.
+   */
+  public double getServiceGroupFalsePositiveRate ()
+  {
+    final Filters aFilters = _getFilters ();
+    return aFilters == null ? 0 : aFilters.m_aServiceGroups.getCurrentFalsePositiveRate ();
+  }
+
+  /**
+   * @return The current false positive rate of the service group and document
+   *         type filter. 0 if the filters were not yet built.
+   */
+  public double getServiceGroupDocTypeFalsePositiveRate ()
+  {
+    final Filters aFilters = _getFilters ();
+    return aFilters == null ? 0 : aFilters.m_aServiceGroupDocTypes.getCurrentFalsePositiveRate ();
+  }
+
+  /**
+   * @return The number of bytes used by all filters. 0 if the filters were not
+   *         yet built.
+   */
+  public long getMemoryBytes ()
+  {
+    final Filters aFilters = _getFilters ();
+    return aFilters == null ? 0
+                            : aFilters.m_aServiceGroups.getMemoryBytes () +
+                              aFilters.m_aServiceGroupDocTypes.getMemoryBytes ();
+  }
+
+  /**
+   * Shortcut to check if a service group is definitely unknown, if the cache
+   * is enabled.
+   *
+   * @param aParticipantID
+   *        The participant ID of the service group. May not be
+   *        <code>null</code>.
+   * @return <code>true</code> if the cache is enabled and the service group is
+   *         definitely unknown.
+   */
+  public static boolean isUnknownServiceGroupIfEnabled (@Nonnull final IParticipantIdentifier aParticipantID)
+  {
+    return isEnabled () && getInstance ().isUnknownServiceGroup (aParticipantID);
+  }
+
+  /**
+   * Shortcut to check if a service group and document type combination is
+   * definitely unknown, if the cache is enabled.
+   *
+   * @param aParticipantID
+   *        The participant ID of the service group. May not be
+   *        <code>null</code>.
+   * @param aDocTypeID
+   *        The document type ID. May not be <code>null</code>.
+   * @return <code>true</code> if the cache is enabled and the combination is
+   *         definitely unknown.
+   */
+  public static boolean isUnknownServiceGroupDocTypeIfEnabled (@Nonnull final IParticipantIdentifier aParticipantID,
+                                                               @Nonnull final IDocumentTypeIdentifier aDocTypeID)
+  {
+    return isEnabled () && getInstance ().isUnknownServiceGroupDocType (aParticipantID, aDocTypeID);
+  }
+}
@@ -11,15 +11,21 @@
 package com.helger.phoss.smp.restapi;
 
 import java.security.cert.X509Certificate;
+import java.util.Map;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.CommonsHashSet;
 import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.collection.impl.ICommonsSet;
 import com.helger.commons.state.EChange;
 import com.helger.commons.state.ESuccess;
 import com.helger.commons.statistics.IMutableStatisticsHandlerKeyedCounter;
@@ -31,6 +37,7 @@ import com.helger.peppolid.IParticipantIdentifier;
 import com.helger.peppolid.factory.IIdentifierFactory;
 import com.helger.peppolid.simple.process.SimpleProcessIdentifier;
 import com.helger.phoss.smp.CSMPServer;
+import com.helger.phoss.smp.domain.SMPIdentifierCache;
 import com.helger.phoss.smp.domain.SMPMetaManager;
 import com.helger.phoss.smp.domain.redirect.ISMPRedirect;
 import com.helger.phoss.smp.domain.redirect.ISMPRedirectManager;
@@ -98,8 +105,8 @@ public final class SMPServerAPI
 
     try
     {
-      final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
@@ -109,6 +116,13 @@ public final class SMPServerAPI
       final ISMPServiceGroupManager aServiceGroupMgr = SMPMetaManager.getServiceGroupMgr ();
       final ISMPServiceInformationManager aServiceInfoMgr = SMPMetaManager.getServiceInformationMgr ();
 
+      if (SMPNegativeLookupCache.isUnknownServiceGroupIfEnabled (aPathServiceGroupID))
+      {
+        // Definitely no such service group
+        throw new SMPNotFoundException ("Unknown Service Group ID '" + sPathServiceGroupID + "'",
+                                        m_aAPIDataProvider.getCurrentURI ());
+      }
+
       final ISMPServiceGroup aServiceGroup = aServiceGroupMgr.getSMPServiceGroupOfID (aPathServiceGroupID);
       if (aServiceGroup == null)
       {
@@ -120,13 +134,13 @@ public final class SMPServerAPI
       // Then add the service metadata references
       final ServiceMetadataReferenceCollectionType aRefCollection = new ServiceMetadataReferenceCollectionType ();
 
-      for (final IDocumentTypeIdentifier aDocTypeID : aServiceInfoMgr.getAllSMPDocumentTypesOfServiceGroup (aServiceGroup))
+      for (final Map.Entry <IDocumentTypeIdentifier, Integer> aEntry : aServiceInfoMgr.getAllSMPDocumentTypesAndEndpointCountOfServiceGroup (aServiceGroup)
+                                                                                               .entrySet ())
       {
         // Ignore all service information without endpoints
-        final ISMPServiceInformation aServiceInfo = aServiceInfoMgr.getSMPServiceInformationOfServiceGroupAndDocumentType (aServiceGroup,
-                                                                                                                           aDocTypeID);
-        if (aServiceInfo != null && aServiceInfo.getTotalEndpointCount () > 0)
+        if (aEntry.getValue ().intValue () > 0)
         {
+          final IDocumentTypeIdentifier aDocTypeID = aEntry.getKey ();
           final ServiceMetadataReferenceType aMetadataReference = new ServiceMetadataReferenceType ();
           aMetadataReference.setHref (m_aAPIDataProvider.getServiceMetadataReferenceHref (aPathServiceGroupID,
                                                                                           aDocTypeID));
@@ -225,8 +239,8 @@ public final class SMPServerAPI
 
     try
     {
-      final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
@@ -236,6 +250,13 @@ public final class SMPServerAPI
       final ISMPServiceGroupManager aServiceGroupMgr = SMPMetaManager.getServiceGroupMgr ();
       final ISMPServiceInformationManager aServiceInfoMgr = SMPMetaManager.getServiceInformationMgr ();
 
+      if (SMPNegativeLookupCache.isUnknownServiceGroupIfEnabled (aPathServiceGroupID))
+      {
+        // Definitely no such service group
+        throw new SMPNotFoundException ("Unknown Service Group '" + sPathServiceGroupID + "'",
+                                        m_aAPIDataProvider.getCurrentURI ());
+      }
+
       // Retrieve the service group
       final ISMPServiceGroup aServiceGroup = aServiceGroupMgr.getSMPServiceGroupOfID (aPathServiceGroupID);
       if (aServiceGroup == null)
@@ -248,13 +269,13 @@ public final class SMPServerAPI
       // Then add the service metadata references
       final ServiceGroupType aSG = aServiceGroup.getAsJAXBObjectPeppol ();
       final ServiceMetadataReferenceCollectionType aCollectionType = new ServiceMetadataReferenceCollectionType ();
-      for (final IDocumentTypeIdentifier aDocTypeID : aServiceInfoMgr.getAllSMPDocumentTypesOfServiceGroup (aServiceGroup))
+      for (final Map.Entry <IDocumentTypeIdentifier, Integer> aEntry : aServiceInfoMgr.getAllSMPDocumentTypesAndEndpointCountOfServiceGroup (aServiceGroup)
+                                                                                               .entrySet ())
       {
         // Ignore all service information without endpoints
-        final ISMPServiceInformation aServiceInfo = aServiceInfoMgr.getSMPServiceInformationOfServiceGroupAndDocumentType (aServiceGroup,
-                                                                                                                           aDocTypeID);
-        if (aServiceInfo != null && aServiceInfo.getTotalEndpointCount () > 0)
+        if (aEntry.getValue ().intValue () > 0)
         {
+          final IDocumentTypeIdentifier aDocTypeID = aEntry.getKey ();
           final ServiceMetadataReferenceType aMetadataReference = new ServiceMetadataReferenceType ();
           aMetadataReference.setHref (m_aAPIDataProvider.getServiceMetadataReferenceHref (aPathServiceGroupID,
                                                                                           aDocTypeID));
@@ -295,7 +316,8 @@ public final class SMPServerAPI
     try
     {
       final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
@@ -369,8 +391,8 @@ public final class SMPServerAPI
 
     try
     {
-      final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
@@ -398,6 +420,69 @@ public final class SMPServerAPI
     }
   }
 
+  /**
+   * Log and count a service metadata request, that was answered without
+   * calling {@link #getServiceRegistration(String, String)}, e.g. from the
+   * signed response cache or with a "304 Not Modified".
+   *
+   * @param sPathServiceGroupID
+   *        The service group ID from the path. May be <code>null</code>.
+   * @param sPathDocTypeID
+   *        The document type ID from the path. May be <code>null</code>.
+   * @param sSource
+   *        A short description where the response came from. May not be
+   *        <code>null</code>.
+   * @since 5.7.0
+   */
+  public static void onServiceRegistrationShortcut (@Nullable final String sPathServiceGroupID,
+                                                    @Nullable final String sPathDocTypeID,
+                                                    @Nonnull final String sSource)
+  {
+    final String sLog = LOG_PREFIX + "GET /" + sPathServiceGroupID + "/services/" + sPathDocTypeID;
+    final String sAction = "getServiceRegistration";
+
+    if (LOGGER.isInfoEnabled ())
+      LOGGER.info (sLog);
+    STATS_COUNTER_INVOCATION.increment (sAction);
+
+    if (LOGGER.isInfoEnabled ())
+      LOGGER.info (sLog + " SUCCESS (" + sSource + ")");
+    STATS_COUNTER_SUCCESS.increment (sAction);
+  }
+
+  /**
+   * Log and count a failed service metadata request, that was answered
+   * without calling {@link #getServiceRegistration(String, String)}, e.g. as
+   * part of a batch request.
+   *
+   * @param sPathServiceGroupID
+   *        The service group ID from the path. May be <code>null</code>.
+   * @param sPathDocTypeID
+   *        The document type ID from the path. May be <code>null</code>.
+   * @param sSource
+   *        A short description where the response came from. May not be
+   *        <code>null</code>.
+   * @param sErrorMessage
+   *        The error message. May not be <code>null</code>.
+   * @since 5.7.0
+   */
+  public static void onServiceRegistrationShortcutError (@Nullable final String sPathServiceGroupID,
+                                                         @Nullable final String sPathDocTypeID,
+                                                         @Nonnull final String sSource,
+                                                         @Nonnull final String sErrorMessage)
+  {
+    final String sLog = LOG_PREFIX + "GET /" + sPathServiceGroupID + "/services/" + sPathDocTypeID;
+    final String sAction = "getServiceRegistration";
+
+    if (LOGGER.isInfoEnabled ())
+      LOGGER.info (sLog);
+    STATS_COUNTER_INVOCATION.increment (sAction);
+
+    if (LOGGER.isWarnEnabled ())
+      LOGGER.warn (sLog + " ERROR (" + sSource + ") - " + sErrorMessage);
+    STATS_COUNTER_ERROR.increment (sAction);
+  }
+
   @Nonnull
   public SignedServiceMetadataType getServiceRegistration (@Nonnull final String sPathServiceGroupID,
                                                            @Nonnull final String sPathDocTypeID) throws SMPServerException
@@ -411,14 +496,21 @@ public final class SMPServerAPI
 
     try
     {
-      final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
         throw SMPBadRequestException.failedToParseSG (sPathServiceGroupID, m_aAPIDataProvider.getCurrentURI ());
       }
 
+      if (SMPNegativeLookupCache.isUnknownServiceGroupIfEnabled (aPathServiceGroupID))
+      {
+        // Definitely no such service group
+        throw new SMPNotFoundException ("No such Service Group '" + sPathServiceGroupID + "'",
+                                        m_aAPIDataProvider.getCurrentURI ());
+      }
+
       final ISMPServiceGroup aPathServiceGroup = SMPMetaManager.getServiceGroupMgr ()
                                                                .getSMPServiceGroupOfID (aPathServiceGroupID);
       if (aPathServiceGroup == null)
@@ -427,12 +519,19 @@ public final class SMPServerAPI
                                         m_aAPIDataProvider.getCurrentURI ());
       }
 
-      final IDocumentTypeIdentifier aPathDocTypeID = aIdentifierFactory.parseDocumentTypeIdentifier (sPathDocTypeID);
+      final IDocumentTypeIdentifier aPathDocTypeID = aIdentifierCache.parseDocumentTypeIdentifier (sPathDocTypeID);
       if (aPathDocTypeID == null)
       {
         throw SMPBadRequestException.failedToParseDocType (sPathDocTypeID, m_aAPIDataProvider.getCurrentURI ());
       }
 
+      if (SMPNegativeLookupCache.isUnknownServiceGroupDocTypeIfEnabled (aPathServiceGroupID, aPathDocTypeID))
+      {
+        // Definitely neither a redirect nor a service information
+        throw new SMPNotFoundException ("service(" + sPathServiceGroupID + "," + sPathDocTypeID + ")",
+                                        m_aAPIDataProvider.getCurrentURI ());
+      }
+
       // First check for redirection, then for actual service
       final ISMPRedirectManager aRedirectMgr = SMPMetaManager.getRedirectMgr ();
       final ISMPRedirect aRedirect = aRedirectMgr.getSMPRedirectOfServiceGroupAndDocumentType (aPathServiceGroup,
@@ -478,6 +577,36 @@ public final class SMPServerAPI
     }
   }
 
+  @Nonnull
+  private static ICommonsList <SMPProcess> _createProcesses (@Nonnull final ProcessListType aJAXBProcesses)
+  {
+    final ICommonsList <SMPProcess> aProcesses = new CommonsArrayList <> ();
+    for (final ProcessType aJAXBProcess : aJAXBProcesses.getProcess ())
+    {
+      final ICommonsList <SMPEndpoint> aEndpoints = new CommonsArrayList <> ();
+      for (final EndpointType aJAXBEndpoint : aJAXBProcess.getServiceEndpointList ().getEndpoint ())
+      {
+        final SMPEndpoint aEndpoint = new SMPEndpoint (aJAXBEndpoint.getTransportProfile (),
+                                                       W3CEndpointReferenceHelper.getAddress (aJAXBEndpoint.getEndpointReference ()),
+                                                       aJAXBEndpoint.isRequireBusinessLevelSignature (),
+                                                       aJAXBEndpoint.getMinimumAuthenticationLevel (),
+                                                       aJAXBEndpoint.getServiceActivationDate (),
+                                                       aJAXBEndpoint.getServiceExpirationDate (),
+                                                       aJAXBEndpoint.getCertificate (),
+                                                       aJAXBEndpoint.getServiceDescription (),
+                                                       aJAXBEndpoint.getTechnicalContactUrl (),
+                                                       aJAXBEndpoint.getTechnicalInformationUrl (),
+                                                       SMPExtensionConverter.convertToString (aJAXBEndpoint.getExtension ()));
+        aEndpoints.add (aEndpoint);
+      }
+      final SMPProcess aProcess = new SMPProcess (SimpleProcessIdentifier.wrap (aJAXBProcess.getProcessIdentifier ()),
+                                                  aEndpoints,
+                                                  SMPExtensionConverter.convertToString (aJAXBProcess.getExtension ()));
+      aProcesses.add (aProcess);
+    }
+    return aProcesses;
+  }
+
   @Nonnull
   public ESuccess saveServiceRegistration (@Nonnull final String sPathServiceGroupID,
                                            @Nonnull final String sPathDocumentTypeID,
@@ -495,14 +624,15 @@ public final class SMPServerAPI
     {
       // Parse provided identifiers
       final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
         throw SMPBadRequestException.failedToParseSG (sPathServiceGroupID, m_aAPIDataProvider.getCurrentURI ());
       }
 
-      final IDocumentTypeIdentifier aPathDocTypeID = aIdentifierFactory.parseDocumentTypeIdentifier (sPathDocumentTypeID);
+      final IDocumentTypeIdentifier aPathDocTypeID = aIdentifierCache.parseDocumentTypeIdentifier (sPathDocumentTypeID);
       if (aPathDocTypeID == null)
       {
         // Invalid identifier
@@ -620,31 +750,7 @@ public final class SMPServerAPI
         if (aServiceInformation != null)
         {
           // Handle service information
-          final ProcessListType aJAXBProcesses = aServiceInformation.getProcessList ();
-          final ICommonsList <SMPProcess> aProcesses = new CommonsArrayList <> ();
-          for (final ProcessType aJAXBProcess : aJAXBProcesses.getProcess ())
-          {
-            final ICommonsList <SMPEndpoint> aEndpoints = new CommonsArrayList <> ();
-            for (final EndpointType aJAXBEndpoint : aJAXBProcess.getServiceEndpointList ().getEndpoint ())
-            {
-              final SMPEndpoint aEndpoint = new SMPEndpoint (aJAXBEndpoint.getTransportProfile (),
-                                                             W3CEndpointReferenceHelper.getAddress (aJAXBEndpoint.getEndpointReference ()),
-                                                             aJAXBEndpoint.isRequireBusinessLevelSignature (),
-                                                             aJAXBEndpoint.getMinimumAuthenticationLevel (),
-                                                             aJAXBEndpoint.getServiceActivationDate (),
-                                                             aJAXBEndpoint.getServiceExpirationDate (),
-                                                             aJAXBEndpoint.getCertificate (),
-                                                             aJAXBEndpoint.getServiceDescription (),
-                                                             aJAXBEndpoint.getTechnicalContactUrl (),
-                                                             aJAXBEndpoint.getTechnicalInformationUrl (),
-                                                             SMPExtensionConverter.convertToString (aJAXBEndpoint.getExtension ()));
-              aEndpoints.add (aEndpoint);
-            }
-            final SMPProcess aProcess = new SMPProcess (SimpleProcessIdentifier.wrap (aJAXBProcess.getProcessIdentifier ()),
-                                                        aEndpoints,
-                                                        SMPExtensionConverter.convertToString (aJAXBProcess.getExtension ()));
-            aProcesses.add (aProcess);
-          }
+          final ICommonsList <SMPProcess> aProcesses = _createProcesses (aServiceInformation.getProcessList ());
 
           final ISMPServiceInformationManager aServiceInfoMgr = SMPMetaManager.getServiceInformationMgr ();
           final String sExtensionXML = SMPExtensionConverter.convertToString (aServiceInformation.getExtension ());
@@ -684,6 +790,145 @@ public final class SMPServerAPI
     }
   }
 
+  /**
+   * Create or update multiple service information objects at once. Credentials
+   * are validated once, the ownership is verified once per service group and
+   * all objects are persisted with a single backend operation. Redirects are
+   * not supported.
+   *
+   * @param aServiceMetadatas
+   *        The service metadata objects to save. Each one must contain a
+   *        service information. May neither be <code>null</code> nor empty.
+   * @param aCredentials
+   *        The credentials to use. May not be <code>null</code>.
+   * @return {@link ESuccess}
+   * @throws SMPServerException
+   *         On error
+   * @since 5.7.0
+   */
+  @Nonnull
+  public ESuccess saveServiceRegistrations (@Nonnull final ICommonsList <ServiceMetadataType> aServiceMetadatas,
+                                            @Nonnull final BasicAuthClientCredentials aCredentials) throws SMPServerException
+  {
+    final String sLog = LOG_PREFIX + "PUT /bulk/services (" + aServiceMetadatas.size () + " entries)";
+    final String sAction = "saveServiceRegistrations";
+
+    if (LOGGER.isInfoEnabled ())
+      LOGGER.info (sLog);
+    STATS_COUNTER_INVOCATION.increment (sAction);
+
+    try
+    {
+      if (aServiceMetadatas.isEmpty ())
+      {
+        throw new SMPBadRequestException ("Save Service Metadata was called without any Service Metadata",
+                                          m_aAPIDataProvider.getCurrentURI ());
+      }
+
+      final IUser aDataUser = SMPUserManagerPhoton.validateUserCredentials (aCredentials);
+
+      final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
+      final ISMPServiceGroupManager aServiceGroupMgr = SMPMetaManager.getServiceGroupMgr ();
+      // Resolve each service group only once
+      final ICommonsMap <String, ISMPServiceGroup> aServiceGroups = new CommonsHashMap <> ();
+      final ICommonsSet <String> aUniqueKeys = new CommonsHashSet <> ();
+      final ICommonsList <SMPServiceInformation> aServiceInfos = new CommonsArrayList <> ();
+      for (final ServiceMetadataType aServiceMetadata : aServiceMetadatas)
+      {
+        final ServiceInformationType aServiceInformation = aServiceMetadata.getServiceInformation ();
+        if (aServiceInformation == null)
+        {
+          throw new SMPBadRequestException ("Bulk Save Service Metadata only supports ServiceInformation elements",
+                                            m_aAPIDataProvider.getCurrentURI ());
+        }
+
+        final IParticipantIdentifier aPayloadServiceGroupID;
+        if (aServiceInformation.getParticipantIdentifier () == null)
+          aPayloadServiceGroupID = null;
+        else
+          aPayloadServiceGroupID = aIdentifierFactory.createParticipantIdentifier (aServiceInformation.getParticipantIdentifier ()
+                                                                                                      .getScheme (),
+                                                                                   aServiceInformation.getParticipantIdentifier ()
+                                                                                                      .getValue ());
+        if (aPayloadServiceGroupID == null)
+        {
+          throw new SMPBadRequestException ("Save Service Metadata was called with a missing or invalid Service Information Participant ID",
+                                            m_aAPIDataProvider.getCurrentURI ());
+        }
+
+        final IDocumentTypeIdentifier aPayloadDocTypeID;
+        if (aServiceInformation.getDocumentIdentifier () == null)
+          aPayloadDocTypeID = null;
+        else
+          aPayloadDocTypeID = aIdentifierFactory.createDocumentTypeIdentifier (aServiceInformation.getDocumentIdentifier ()
+                                                                                                  .getScheme (),
+                                                                               aServiceInformation.getDocumentIdentifier ()
+                                                                                                  .getValue ());
+        if (aPayloadDocTypeID == null)
+        {
+          throw new SMPBadRequestException ("Save Service Metadata was called with a missing or invalid Service Information Document Type ID for '" +
+                                            aPayloadServiceGroupID.getURIEncoded () +
+                                            "'",
+                                            m_aAPIDataProvider.getCurrentURI ());
+        }
+
+        final String sServiceGroupKey = aPayloadServiceGroupID.getURIEncoded ();
+        if (!aUniqueKeys.add (sServiceGroupKey + ' ' + aPayloadDocTypeID.getURIEncoded ()))
+        {
+          throw new SMPBadRequestException ("Save Service Metadata was called more than once for '" +
+                                            sServiceGroupKey +
+                                            "' and '" +
+                                            aPayloadDocTypeID.getURIEncoded () +
+                                            "'",
+                                            m_aAPIDataProvider.getCurrentURI ());
+        }
+
+        ISMPServiceGroup aServiceGroup = aServiceGroups.get (sServiceGroupKey);
+        if (aServiceGroup == null)
+        {
+          SMPUserManagerPhoton.verifyOwnership (aPayloadServiceGroupID, aDataUser);
+
+          aServiceGroup = aServiceGroupMgr.getSMPServiceGroupOfID (aPayloadServiceGroupID);
+          if (aServiceGroup == null)
+          {
+            // Service group not found
+            throw new SMPNotFoundException ("Service Group '" + sServiceGroupKey + "' is not on this SMP",
+                                            m_aAPIDataProvider.getCurrentURI ());
+          }
+          aServiceGroups.put (sServiceGroupKey, aServiceGroup);
+        }
+
+        final String sExtensionXML = SMPExtensionConverter.convertToString (aServiceInformation.getExtension ());
+        aServiceInfos.add (new SMPServiceInformation (aServiceGroup,
+                                                      aPayloadDocTypeID,
+                                                      _createProcesses (aServiceInformation.getProcessList ()),
+                                                      sExtensionXML));
+      }
+
+      // Main save
+      final ISMPServiceInformationManager aServiceInfoMgr = SMPMetaManager.getServiceInformationMgr ();
+      if (aServiceInfoMgr.mergeAllSMPServiceInformation (aServiceInfos).isFailure ())
+      {
+        if (LOGGER.isErrorEnabled ())
+          LOGGER.error (sLog + " - ERROR - ServiceInformation");
+        STATS_COUNTER_ERROR.increment (sAction);
+        return ESuccess.FAILURE;
+      }
+
+      if (LOGGER.isInfoEnabled ())
+        LOGGER.info (sLog + " SUCCESS - " + aServiceInfos.size () + " ServiceInformation");
+      STATS_COUNTER_SUCCESS.increment (sAction);
+      return ESuccess.SUCCESS;
+    }
+    catch (final SMPServerException ex)
+    {
+      if (LOGGER.isWarnEnabled ())
+        LOGGER.warn (sLog + " ERROR - " + ex.getMessage ());
+      STATS_COUNTER_ERROR.increment (sAction);
+      throw ex;
+    }
+  }
+
   public void deleteServiceRegistration (@Nonnull final String sPathServiceGroupID,
                                          @Nonnull final String sPathDocTypeID,
                                          @Nonnull final BasicAuthClientCredentials aCredentials) throws SMPServerException
@@ -697,15 +942,15 @@ public final class SMPServerAPI
 
     try
     {
-      final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
         throw SMPBadRequestException.failedToParseSG (sPathServiceGroupID, m_aAPIDataProvider.getCurrentURI ());
       }
 
-      final IDocumentTypeIdentifier aPathDocTypeID = aIdentifierFactory.parseDocumentTypeIdentifier (sPathDocTypeID);
+      final IDocumentTypeIdentifier aPathDocTypeID = aIdentifierCache.parseDocumentTypeIdentifier (sPathDocTypeID);
       if (aPathDocTypeID == null)
       {
         // Invalid identifier
@@ -797,8 +1042,8 @@ public final class SMPServerAPI
 
     try
     {
-      final IIdentifierFactory aIdentifierFactory = SMPMetaManager.getIdentifierFactory ();
-      final IParticipantIdentifier aPathServiceGroupID = aIdentifierFactory.parseParticipantIdentifier (sPathServiceGroupID);
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      final IParticipantIdentifier aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
       if (aPathServiceGroupID == null)
       {
         // Invalid identifier
@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2015-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * The Original Code is Copyright The Peppol project (http://www.peppol.eu)
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.helger.phoss.smp.restapi;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.datetime.PDTFactory;
+import com.helger.commons.string.StringHelper;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * The version of a single service group as tracked by
+ * {@link SMPServiceGroupVersionTracker}. It is used to answer conditional GET
+ * requests.<br>
+ * All resources of a service group share the same version, so the entity tag
+ * is always created for a specific resource (see
+ * {@link #getResourceID(String, String...)}). Otherwise e.g. the tag of the
+ * service group could be used to revalidate a service metadata response.
+ *
+ * @author Philip Helger
+ * @since 5.7.0
+ */
+@Immutable
+public final class SMPServiceGroupVersion
+{
+  private final String m_sEpoch;
+  private final long m_nVersion;
+  private final ZonedDateTime m_aLastModified;
+
+  public SMPServiceGroupVersion (@Nonnull @Nonempty final String sEpoch,
+                                 @Nonnegative final long nVersion,
+                                 @Nonnull final ZonedDateTime aLastModified)
+  {
+    ValueEnforcer.notEmpty (sEpoch, "Epoch");
+    ValueEnforcer.isGE0 (nVersion, "Version");
+    ValueEnforcer.notNull (aLastModified, "LastModified");
+    m_sEpoch = sEpoch;
+    m_nVersion = nVersion;
+    // HTTP dates only have second precision
+    m_aLastModified = aLastModified.truncatedTo (ChronoUnit.SECONDS);
+  }
+
+  /**
+   * @return The epoch of the tracker that created this version. Neither
+   *         <code>null</code> nor empty.
+   */
+  @Nonnull
+  @Nonempty
+  public String getEpoch ()
+  {
+    return m_sEpoch;
+  }
+
+  /**
+   * @return The version number within the epoch. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getVersion ()
+  {
+    return m_nVersion;
+  }
+
+  /**
+   * @return The last modification date time with second precision. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public ZonedDateTime getLastModified ()
+  {
+    return m_aLastModified;
+  }
+
+  /**
+   * Create the ID of a single resource of a service group, to be used in
+   * {@link #getETag(String, boolean)}.
+   *
+   * @param sKind
+   *        The kind of resource (e.g. "servicegroup" or "metadata"). May
+   *        neither be <code>null</code> nor empty.
+   * @param aParts
+   *        The parts identifying the resource within the kind, usually the
+   *        service group ID and optionally the document type ID. May not be
+   *        <code>null</code>.
+   * @return The unambiguous resource ID. Neither <code>null</code> nor empty.
+   */
+  @Nonnull
+  @Nonempty
+  public static String getResourceID (@Nonnull @Nonempty final String sKind, @Nonnull final String... aParts)
+  {
+    ValueEnforcer.notEmpty (sKind, "Kind");
+    ValueEnforcer.notNull (aParts, "Parts");
+
+    final StringBuilder aSB = new StringBuilder (sKind);
+    for (final String sPart : aParts)
+    {
+      // Length prefix, as the parts may contain any character
+      final String sRealPart = StringHelper.getNotNull (sPart);
+      aSB.append ('/').append (sRealPart.length ()).append (':').append (sRealPart);
+    }
+    return aSB.toString ();
+  }
+
+  @Nonnull
+  @Nonempty
+  private String _getOpaqueTag (@Nonnull @Nonempty final String sResourceID)
+  {
+    ValueEnforcer.notEmpty (sResourceID, "ResourceID");
+
+    final byte [] aDigest;
+    try
+    {
+      aDigest = MessageDigest.getInstance ("SHA-256").digest (sResourceID.getBytes (StandardCharsets.UTF_8));
+    }
+    catch (final NoSuchAlgorithmException ex)
+    {
+      throw new IllegalStateException ("SHA-256 is not supported", ex);
+    }
+
+    // 64 bits of the hash are sufficient to distinguish the resources
+    long nHash = 0;
+    for (int i = 0; i < 8; ++i)
+      nHash = (nHash << 8) | (aDigest[i] & 0xff);
+    return "\"" + m_sEpoch + "-" + Long.toString (m_nVersion, 36) + "-" + Long.toUnsignedString (nHash, 36) + "\"";
+  }
+
+  /**
+   * Get the entity tag of a single resource of the service group.
+   *
+   * @param sResourceID
+   *        The resource ID as created by {@link #getResourceID(String, String...)}.
+   *        May neither be <code>null</code> nor empty.
+   * @param bWeak
+   *        <code>true</code> to create a weak entity tag. This must be used if
+   *        the response body depends on the request (e.g. contains the
+   *        requested host name), so that it is only semantically equivalent.
+   * @return The quoted entity tag. Neither <code>null</code> nor empty.
+   */
+  @Nonnull
+  @Nonempty
+  public String getETag (@Nonnull @Nonempty final String sResourceID, final boolean bWeak)
+  {
+    final String ret = _getOpaqueTag (sResourceID);
+    return bWeak ? "W/" + ret : ret;
+  }
+
+  @Nonnull
+  private static String _getOpaque (@Nonnull final String sETag)
+  {
+    final String ret = sETag.trim ();
+    return ret.startsWith ("W/") ? ret.substring (2) : ret;
+  }
+
+  /**
+   * Check if the value of an <code>If-None-Match</code> HTTP header matches
+   * the provided entity tag. As suggested for GET requests, the weak comparison
+   * is used.
+   *
+   * @param sIfNoneMatch
+   *        The HTTP header value. May be <code>null</code>.
+   * @param sETag
+   *        The entity tag of the resource as created by
+   *        {@link #getETag(String, boolean)}. May not be <code>null</code>.
+   * @return <code>true</code> if one of the contained entity tags matches.
+   */
+  public static boolean matchesIfNoneMatch (@Nullable final String sIfNoneMatch, @Nonnull final String sETag)
+  {
+    ValueEnforcer.notNull (sETag, "ETag");
+    if (StringHelper.hasNoText (sIfNoneMatch))
+      return false;
+    final String sOpaqueTag = _getOpaque (sETag);
+    for (final String sPart : StringHelper.getExploded (',', sIfNoneMatch))
+      if (sOpaqueTag.equals (_getOpaque (sPart)))
+        return true;
+    return false;
+  }
+
+  /**
+   * Check if this version was not modified after the value of an
+   * <code>If-Modified-Since</code> HTTP header.
+   *
+   * @param aIfModifiedSince
+   *        The parsed HTTP header value. May be <code>null</code>.
+   * @return <code>true</code> if this version is not newer.
+   */
+  public boolean isNotModifiedSince (@Nullable final ZonedDateTime aIfModifiedSince)
+  {
+    return aIfModifiedSince != null && isLastModifiedUsable () && !m_aLastModified.isAfter (aIfModifiedSince);
+  }
+
+  /**
+   * Check if the last modification date time may be used as a validator. As
+   * it only has second precision, this is not the case while the second of the
+   * last modification is not over yet: another modification in the same second
+   * would not change it, so a client could never detect it.
+   *
+   * @return <code>true</code> if the last modification happened before the
+   *         current second, <code>false</code> if not.
+   */
+  public boolean isLastModifiedUsable ()
+  {
+    return m_aLastModified.isBefore (PDTFactory.getCurrentZonedDateTimeUTC ().truncatedTo (ChronoUnit.SECONDS));
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Epoch", m_sEpoch)
+                                       .append ("Version", m_nVersion)
+                                       .append ("LastModified", m_aLastModified)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright (C) 2015-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * The Original Code is Copyright The Peppol project (http://www.peppol.eu)
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.helger.phoss.smp.restapi;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.annotation.UsedViaReflection;
+import com.helger.commons.datetime.PDTFactory;
+import com.helger.commons.random.RandomHelper;
+import com.helger.peppolid.IParticipantIdentifier;
+import com.helger.phoss.smp.SMPServerConfiguration;
+import com.helger.phoss.smp.domain.businesscard.ISMPBusinessCard;
+import com.helger.phoss.smp.domain.businesscard.ISMPBusinessCardCallback;
+import com.helger.phoss.smp.domain.redirect.ISMPRedirect;
+import com.helger.phoss.smp.domain.redirect.ISMPRedirectCallback;
+import com.helger.phoss.smp.domain.servicegroup.ISMPServiceGroup;
+import com.helger.phoss.smp.domain.servicegroup.ISMPServiceGroupCallback;
+import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformation;
+import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformationCallback;
+import com.helger.scope.singleton.AbstractGlobalSingleton;
+
+/**
+ * Keeps a version number and a last modification date time per service group,
+ * that is increased on every write operation on the service group, its service
+ * information, redirects or business card. This is the basis for the ETag and
+ * Last-Modified HTTP headers of the public lookup API.<br>
+ * All versions belong to a random epoch that changes with every start and
+ * every key store change, so that entity tags from a previous run never match.
+ * Service groups that were not modified in the current epoch have version 0 and
+ * the start of the epoch as last modification. That is also true for service
+ * groups that don't exist at all, so a conditional GET based on the
+ * modification date may only be answered after the existence of the resource
+ * was verified.<br>
+ * Versions of deleted service groups are kept, so that a later re-creation
+ * never results in a previously used entity tag. To bound the memory, a new
+ * epoch is started if more than {@link #MAX_TRACKED_SERVICE_GROUPS} service
+ * groups were modified in the current epoch. This only invalidates all entity
+ * tags once.<br>
+ * Note: the versions are only increased by the callbacks of the local managers,
+ * so this should only be enabled if a single SMP instance writes to the
+ * backend.
+ *
+ * @author Philip Helger
+ * @since 5.7.0
+ */
+@ThreadSafe
+public final class SMPServiceGroupVersionTracker extends AbstractGlobalSingleton
+{
+  /** The maximum number of service groups tracked per epoch */
+  public static final int MAX_TRACKED_SERVICE_GROUPS = 100_000;
+
+  /**
+   * The data of a single epoch
+   *
+   * @author Philip Helger
+   */
+  private static final class Epoch
+  {
+    private final String m_sEpoch;
+    private final SMPServiceGroupVersion m_aInitialVersion;
+    private final Map <String, SMPServiceGroupVersion> m_aMap = new ConcurrentHashMap <> ();
+
+    Epoch ()
+    {
+      m_sEpoch = Long.toString (RandomHelper.getRandom ().nextLong () & Long.MAX_VALUE, 36);
+      m_aInitialVersion = new SMPServiceGroupVersion (m_sEpoch, 0, PDTFactory.getCurrentZonedDateTimeUTC ());
+    }
+  }
+
+  /**
+   * Increases the versions based on the write operations on the managers.
+   *
+   * @author Philip Helger
+   */
+  private final class ModificationCallback implements
+                                           ISMPServiceGroupCallback,
+                                           ISMPRedirectCallback,
+                                           ISMPServiceInformationCallback,
+                                           ISMPBusinessCardCallback
+  {
+    public void onSMPServiceGroupCreated (@Nonnull final ISMPServiceGroup aServiceGroup, final boolean bCreateInSML)
+    {
+      onModified (aServiceGroup.getParticipantIdentifier ());
+    }
+
+    public void onSMPServiceGroupUpdated (@Nonnull final IParticipantIdentifier aParticipantID)
+    {
+      onModified (aParticipantID);
+    }
+
+    public void onSMPServiceGroupDeleted (@Nonnull final IParticipantIdentifier aParticipantID,
+                                          final boolean bDeleteInSML)
+    {
+      onModified (aParticipantID);
+    }
+
+    @Override
+    public void onSMPRedirectCreated (@Nonnull final ISMPRedirect aRedirect)
+    {
+      onModified (aRedirect.getServiceGroup ().getParticipantIdentifier ());
+    }
+
+    @Override
+    public void onSMPRedirectUpdated (@Nonnull final ISMPRedirect aRedirect)
+    {
+      onSMPRedirectCreated (aRedirect);
+    }
+
+    @Override
+    public void onSMPRedirectDeleted (@Nonnull final ISMPRedirect aRedirect)
+    {
+      onSMPRedirectCreated (aRedirect);
+    }
+
+    @Override
+    public void onSMPServiceInformationCreated (@Nonnull final ISMPServiceInformation aServiceInformation)
+    {
+      onModified (aServiceInformation.getServiceGroup ().getParticipantIdentifier ());
+    }
+
+    @Override
+    public void onSMPServiceInformationUpdated (@Nonnull final ISMPServiceInformation aServiceInformation)
+    {
+      onSMPServiceInformationCreated (aServiceInformation);
+    }
+
+    @Override
+    public void onSMPServiceInformationDeleted (@Nonnull final ISMPServiceInformation aServiceInformation)
+    {
+      onSMPServiceInformationCreated (aServiceInformation);
+    }
+
+    public void onSMPBusinessCardCreatedOrUpdated (@Nonnull final ISMPBusinessCard aBusinessCard)
+    {
+      onModified (aBusinessCard.getParticipantIdentifier ());
+    }
+
+    public void onSMPBusinessCardDeleted (@Nonnull final ISMPBusinessCard aBusinessCard)
+    {
+      onModified (aBusinessCard.getParticipantIdentifier ());
+    }
+  }
+
+  private final ModificationCallback m_aCallback = new ModificationCallback ();
+  private volatile Epoch m_aEpoch = new Epoch ();
+
+  /**
+   * @deprecated Only called via reflection
+   */
+  @Deprecated
+  @UsedViaReflection
+  public SMPServiceGroupVersionTracker ()
+  {}
+
+  @Nonnull
+  public static SMPServiceGroupVersionTracker getInstance ()
+  {
+    return getGlobalSingleton (SMPServiceGroupVersionTracker.class);
+  }
+
+  /**
+   * @return <code>true</code> if conditional GET requests are enabled in the
+   *         configuration, <code>false</code> if not.
+   */
+  public static boolean isEnabled ()
+  {
+    return SMPServerConfiguration.isRESTConditionalGetEnabled ();
+  }
+
+  /**
+   * Start a new epoch if the tracker is instantiated. This is e.g. needed if
+   * the signing key changes.
+   */
+  public static void newEpochIfInstantiated ()
+  {
+    final SMPServiceGroupVersionTracker aInstance = getGlobalSingletonIfInstantiated (SMPServiceGroupVersionTracker.class);
+    if (aInstance != null)
+      aInstance.newEpoch ();
+  }
+
+  @Nonnull
+  private static String _getKey (@Nonnull final IParticipantIdentifier aParticipantID)
+  {
+    // Ignore case to be safe with case insensitive identifier schemes
+    return aParticipantID.getURIEncoded ().toLowerCase (Locale.US);
+  }
+
+  /**
+   * @return The callback to be registered at the service group manager. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public ISMPServiceGroupCallback getServiceGroupCallback ()
+  {
+    return m_aCallback;
+  }
+
+  /**
+   * @return The callback to be registered at the redirect manager. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public ISMPRedirectCallback getRedirectCallback ()
+  {
+    return m_aCallback;
+  }
+
+  /**
+   * @return The callback to be registered at the service information manager.
+   *         Never <code>null</code>.
+   */
+  @Nonnull
+  public ISMPServiceInformationCallback getServiceInformationCallback ()
+  {
+    return m_aCallback;
+  }
+
+  /**
+   * @return The callback to be registered at the business card manager. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public ISMPBusinessCardCallback getBusinessCardCallback ()
+  {
+    return m_aCallback;
+  }
+
+  /**
+   * @return The current epoch. Neither <code>null</code> nor empty.
+   */
+  @Nonnull
+  @Nonempty
+  public String getEpoch ()
+  {
+    return m_aEpoch.m_sEpoch;
+  }
+
+  /**
+   * Get the current version of the provided service group. The version must be
+   * retrieved before the backend is queried, so that a concurrent modification
+   * never results in outdated data with a new version.
+   *
+   * @param aParticipantID
+   *        The participant ID of the service group. May not be
+   *        <code>null</code>.
+   * @return The current version and never <code>null</code>.
+   */
+  @Nonnull
+  public SMPServiceGroupVersion getVersion (@Nonnull final IParticipantIdentifier aParticipantID)
+  {
+    ValueEnforcer.notNull (aParticipantID, "ParticipantID");
+
+    final Epoch aEpoch = m_aEpoch;
+    final SMPServiceGroupVersion ret = aEpoch.m_aMap.get (_getKey (aParticipantID));
+    return ret != null ? ret : aEpoch.m_aInitialVersion;
+  }
+
+  /**
+   * Increase the version of the provided service group.
+   *
+   * @param aParticipantID
+   *        The participant ID of the service group. May not be
+   *        <code>null</code>.
+   */
+  public void onModified (@Nonnull final IParticipantIdentifier aParticipantID)
+  {
+    ValueEnforcer.notNull (aParticipantID, "ParticipantID");
+
+    final Epoch aEpoch = m_aEpoch;
+    aEpoch.m_aMap.compute (_getKey (aParticipantID),
+                           (k, aOld) -> new SMPServiceGroupVersion (aEpoch.m_sEpoch,
+                                                                    aOld == null ? 1 : aOld.getVersion () + 1,
+                                                                    PDTFactory.getCurrentZonedDateTimeUTC ()));
+    if (aEpoch.m_aMap.size () > MAX_TRACKED_SERVICE_GROUPS && m_aEpoch == aEpoch)
+    {
+      // Starting over is safe, as no entity tag of the old epoch will match
+      newEpoch ();
+    }
+  }
+
+  /**
+   * Start a new epoch and forget all versions.
+   */
+  public void newEpoch ()
+  {
+    m_aEpoch = new Epoch ();
+  }
+
+  /**
+   * @return The number of service groups modified in the current epoch. Always
+   *         &ge; 0.
+   */
+  @Nonnegative
+  public int getModifiedCount ()
+  {
+    return m_aEpoch.m_aMap.size ();
+  }
+
+  /**
+   * Shortcut to get the version if conditional GET is enabled.
+   *
+   * @param aParticipantID
+   *        The participant ID of the service group. May be <code>null</code>.
+   * @return <code>null</code> if conditional GET is disabled or if the
+   *         participant ID is <code>null</code>.
+   */
+  @Nullable
+  public static SMPServiceGroupVersion getVersionIfEnabled (@Nullable final IParticipantIdentifier aParticipantID)
+  {
+    if (aParticipantID == null || !isEnabled ())
+      return null;
+    return getInstance ().getVersion (aParticipantID);
+  }
+}
@@ -0,0 +1,563 @@
+/*
+ * Copyright (C) 2015-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * The Original Code is Copyright The Peppol project (http://www.peppol.eu)
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.helger.phoss.smp.restapi;
+
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.UsedViaReflection;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.CommonsHashSet;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.collection.impl.ICommonsSet;
+import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.statistics.IMutableStatisticsHandlerCounter;
+import com.helger.commons.statistics.StatisticsManager;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.peppolid.IDocumentTypeIdentifier;
+import com.helger.peppolid.IParticipantIdentifier;
+import com.helger.phoss.smp.ESMPRESTType;
+import com.helger.phoss.smp.SMPServerConfiguration;
+import com.helger.phoss.smp.domain.redirect.ISMPRedirect;
+import com.helger.phoss.smp.domain.redirect.ISMPRedirectCallback;
+import com.helger.phoss.smp.domain.servicegroup.ISMPServiceGroup;
+import com.helger.phoss.smp.domain.servicegroup.ISMPServiceGroupCallback;
+import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformation;
+import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformationCallback;
+import com.helger.scope.singleton.AbstractGlobalSingleton;
+
+/**
+ * A size and byte bounded LRU cache for the final, signed and serialized
+ * service metadata responses. Signing is the most expensive part of the public
+ * lookup, so the bytes are kept until a write operation on the respective
+ * service group, service information or redirect invalidates them.<br>
+ * Cache hits are lock free and only record the access time. If a limit is
+ * exceeded, the least recently used entries are evicted in a batch, so the LRU
+ * order is approximate. The entries are indexed by service group, so that an
+ * invalidation only touches the entries of the affected service group.<br>
+ * Participant identifiers are compared case insensitive (as in
+ * {@link SMPServiceGroupVersionTracker}), document type identifiers are
+ * compared case sensitive. This applies to lookup and invalidation alike.<br>
+ * Note: the invalidation is only triggered by the callbacks of the local
+ * managers, so this cache should only be enabled if a single SMP instance
+ * writes to the backend.
+ *
+ * @author Philip Helger
+ * @since 5.7.0
+ */
+@ThreadSafe
+public final class SMPSignedResponseCache extends AbstractGlobalSingleton
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (SMPSignedResponseCache.class);
+  private static final IMutableStatisticsHandlerCounter STATS_COUNTER_HIT = StatisticsManager.getCounterHandler (SMPSignedResponseCache.class.getName () +
+                                                                                                                 "$hit");
+  private static final IMutableStatisticsHandlerCounter STATS_COUNTER_MISS = StatisticsManager.getCounterHandler (SMPSignedResponseCache.class.getName () +
+                                                                                                                  "$miss");
+  private static final IMutableStatisticsHandlerCounter STATS_COUNTER_EVICT = StatisticsManager.getCounterHandler (SMPSignedResponseCache.class.getName () +
+                                                                                                                   "$evict");
+
+  /**
+   * The cache key consisting of participant ID, document type ID and REST
+   * type.
+   *
+   * @author Philip Helger
+   */
+  private static final class Key
+  {
+    private final String m_sServiceGroupID;
+    private final String m_sDocTypeID;
+    private final ESMPRESTType m_eRESTType;
+
+    Key (@Nonnull final String sServiceGroupID,
+         @Nonnull final String sDocTypeID,
+         @Nonnull final ESMPRESTType eRESTType)
+    {
+      m_sServiceGroupID = sServiceGroupID;
+      m_sDocTypeID = sDocTypeID;
+      m_eRESTType = eRESTType;
+    }
+
+    @Override
+    public boolean equals (final Object o)
+    {
+      if (o == this)
+        return true;
+      if (o == null || !getClass ().equals (o.getClass ()))
+        return false;
+      final Key rhs = (Key) o;
+      return m_sServiceGroupID.equals (rhs.m_sServiceGroupID) &&
+             m_sDocTypeID.equals (rhs.m_sDocTypeID) &&
+             m_eRESTType.equals (rhs.m_eRESTType);
+    }
+
+    @Override
+    public int hashCode ()
+    {
+      return new HashCodeGenerator (this).append (m_sServiceGroupID)
+                                         .append (m_sDocTypeID)
+                                         .append (m_eRESTType)
+                                         .getHashCode ();
+    }
+
+    @Override
+    public String toString ()
+    {
+      return new ToStringGenerator (this).append ("ServiceGroupID", m_sServiceGroupID)
+                                         .append ("DocTypeID", m_sDocTypeID)
+                                         .append ("RESTType", m_eRESTType)
+                                         .getToString ();
+    }
+  }
+
+  /**
+   * A single cached response with its last access time.
+   *
+   * @author Philip Helger
+   */
+  private static final class Entry
+  {
+    private final byte [] m_aBytes;
+    private volatile long m_nLastAccess;
+
+    Entry (@Nonnull final byte [] aBytes)
+    {
+      m_aBytes = aBytes;
+      m_nLastAccess = System.nanoTime ();
+    }
+  }
+
+  /**
+   * Invalidates the cache entries based on the write operations on the
+   * managers.
+   *
+   * @author Philip Helger
+   */
+  private final class InvalidationCallback implements
+                                           ISMPServiceGroupCallback,
+                                           ISMPRedirectCallback,
+                                           ISMPServiceInformationCallback
+  {
+    public void onSMPServiceGroupCreated (@Nonnull final ISMPServiceGroup aServiceGroup, final boolean bCreateInSML)
+    {
+      invalidateServiceGroup (aServiceGroup.getParticipantIdentifier ());
+    }
+
+    public void onSMPServiceGroupUpdated (@Nonnull final IParticipantIdentifier aParticipantID)
+    {
+      invalidateServiceGroup (aParticipantID);
+    }
+
+    public void onSMPServiceGroupDeleted (@Nonnull final IParticipantIdentifier aParticipantID,
+                                          final boolean bDeleteInSML)
+    {
+      invalidateServiceGroup (aParticipantID);
+    }
+
+    @Override
+    public void onSMPRedirectCreated (@Nonnull final ISMPRedirect aRedirect)
+    {
+      invalidate (aRedirect.getServiceGroup ().getParticipantIdentifier (), aRedirect.getDocumentTypeIdentifier ());
+    }
+
+    @Override
+    public void onSMPRedirectUpdated (@Nonnull final ISMPRedirect aRedirect)
+    {
+      onSMPRedirectCreated (aRedirect);
+    }
+
+    @Override
+    public void onSMPRedirectDeleted (@Nonnull final ISMPRedirect aRedirect)
+    {
+      onSMPRedirectCreated (aRedirect);
+    }
+
+    @Override
+    public void onSMPServiceInformationCreated (@Nonnull final ISMPServiceInformation aServiceInformation)
+    {
+      invalidate (aServiceInformation.getServiceGroup ().getParticipantIdentifier (),
+                  aServiceInformation.getDocumentTypeIdentifier ());
+    }
+
+    @Override
+    public void onSMPServiceInformationUpdated (@Nonnull final ISMPServiceInformation aServiceInformation)
+    {
+      onSMPServiceInformationCreated (aServiceInformation);
+    }
+
+    @Override
+    public void onSMPServiceInformationDeleted (@Nonnull final ISMPServiceInformation aServiceInformation)
+    {
+      onSMPServiceInformationCreated (aServiceInformation);
+    }
+  }
+
+  private final int m_nMaxEntries;
+  private final long m_nMaxBytes;
+  private final InvalidationCallback m_aCallback = new InvalidationCallback ();
+  // Read without lock, only modified with the write lock
+  private final Map <Key, Entry> m_aMap = new ConcurrentHashMap <> ();
+  // Service group ID to the keys of that service group
+  @GuardedBy ("m_aRWLock")
+  private final ICommonsMap <String, ICommonsSet <Key>> m_aServiceGroupIndex = new CommonsHashMap <> ();
+  @GuardedBy ("m_aRWLock")
+  private long m_nTotalBytes = 0;
+  private volatile long m_nGeneration = 0;
+
+  /**
+   * @deprecated Only called via reflection
+   */
+  @Deprecated
+  @UsedViaReflection
+  public SMPSignedResponseCache ()
+  {
+    m_nMaxEntries = SMPServerConfiguration.getRESTResponseCacheMaxEntries ();
+    m_nMaxBytes = SMPServerConfiguration.getRESTResponseCacheMaxBytes ();
+  }
+
+  @Nonnull
+  public static SMPSignedResponseCache getInstance ()
+  {
+    return getGlobalSingleton (SMPSignedResponseCache.class);
+  }
+
+  /**
+   * @return <code>true</code> if the cache is enabled in the configuration,
+   *         <code>false</code> if not.
+   * @see SMPServerConfiguration#isRESTResponseCacheEnabled()
+   */
+  public static boolean isEnabled ()
+  {
+    return SMPServerConfiguration.isRESTResponseCacheEnabled ();
+  }
+
+  /**
+   * Clear the cache, if it was already instantiated. This is e.g. required if
+   * the signing key changes.
+   */
+  public static void clearIfInstantiated ()
+  {
+    final SMPSignedResponseCache aInstance = getGlobalSingletonIfInstantiated (SMPSignedResponseCache.class);
+    if (aInstance != null)
+      aInstance.clear ();
+  }
+
+  @Nonnull
+  private static String _getServiceGroupID (@Nonnull final IParticipantIdentifier aParticipantID)
+  {
+    // Ignore case to be safe with case insensitive identifier schemes
+    return aParticipantID.getURIEncoded ().toLowerCase (Locale.US);
+  }
+
+  @Nonnull
+  private static Key _createKey (@Nonnull final IParticipantIdentifier aParticipantID,
+                                 @Nonnull final IDocumentTypeIdentifier aDocTypeID,
+                                 @Nonnull final ESMPRESTType eRESTType)
+  {
+    return new Key (_getServiceGroupID (aParticipantID), aDocTypeID.getURIEncoded (), eRESTType);
+  }
+
+  /**
+   * @return The callback to be registered at the service group manager to
+   *         invalidate the cache. Never <code>null</code>.
+   */
+  @Nonnull
+  public ISMPServiceGroupCallback getServiceGroupCallback ()
+  {
+    return m_aCallback;
+  }
+
+  /**
+   * @return The callback to be registered at the redirect manager to
+   *         invalidate the cache. Never <code>null</code>.
+   */
+  @Nonnull
+  public ISMPRedirectCallback getRedirectCallback ()
+  {
+    return m_aCallback;
+  }
+
+  /**
+   * @return The callback to be registered at the service information manager
+   *         to invalidate the cache. Never <code>null</code>.
+   */
+  @Nonnull
+  public ISMPServiceInformationCallback getServiceInformationCallback ()
+  {
+    return m_aCallback;
+  }
+
+  /**
+   * @return The current invalidation generation. It is increased on every
+   *         invalidation and must be retrieved before the data for a response
+   *         is read from the backend.
+   * @see #put(IParticipantIdentifier, IDocumentTypeIdentifier, ESMPRESTType,
+   *      byte[], long)
+   */
+  public long getGeneration ()
+  {
+    return m_nGeneration;
+  }
+
+  /**
+   * Get the cached signed response.
+   *
+   * @param aParticipantID
+   *        Participant ID. May not be <code>null</code>.
+   * @param aDocTypeID
+   *        Document type ID. May not be <code>null</code>.
+   * @param eRESTType
+   *        REST type the response was created for. May not be
+   *        <code>null</code>.
+   * @return <code>null</code> if no such response is cached. The returned array
+   *         must not be modified.
+   */
+  @Nullable
+  public byte [] get (@Nonnull final IParticipantIdentifier aParticipantID,
+                      @Nonnull final IDocumentTypeIdentifier aDocTypeID,
+                      @Nonnull final ESMPRESTType eRESTType)
+  {
+    final Key aKey = _createKey (aParticipantID, aDocTypeID, eRESTType);
+    // No lock needed
+    final Entry aEntry = m_aMap.get (aKey);
+    if (aEntry == null)
+    {
+      STATS_COUNTER_MISS.increment ();
+      return null;
+    }
+    aEntry.m_nLastAccess = System.nanoTime ();
+    STATS_COUNTER_HIT.increment ();
+    return aEntry.m_aBytes;
+  }
+
+  /**
+   * Put a new signed response into the cache. If the response is larger than
+   * the total byte limit it is not cached. If a limit is exceeded, the least
+   * recently used entries are evicted until both limits are undercut by 10%,
+   * so that not every subsequent put needs to evict.
+   *
+   * @param aParticipantID
+   *        Participant ID. May not be <code>null</code>.
+   * @param aDocTypeID
+   *        Document type ID. May not be <code>null</code>.
+   * @param eRESTType
+   *        REST type the response was created for. May not be
+   *        <code>null</code>.
+   * @param aSignedBytes
+   *        The signed and serialized response. May not be <code>null</code>.
+   *        The array must not be modified afterwards.
+   * @param nGeneration
+   *        The result of {@link #getGeneration()} before the response was
+   *        created. If an invalidation happened in the meantime, the response
+   *        may be outdated and is not cached.
+   */
+  public void put (@Nonnull final IParticipantIdentifier aParticipantID,
+                   @Nonnull final IDocumentTypeIdentifier aDocTypeID,
+                   @Nonnull final ESMPRESTType eRESTType,
+                   @Nonnull final byte [] aSignedBytes,
+                   final long nGeneration)
+  {
+    ValueEnforcer.notNull (aSignedBytes, "SignedBytes");
+    if (m_nMaxEntries <= 0 || aSignedBytes.length > m_nMaxBytes)
+      return;
+
+    final Key aKey = _createKey (aParticipantID, aDocTypeID, eRESTType);
+    m_aRWLock.writeLocked ( () -> {
+      if (m_nGeneration != nGeneration)
+      {
+        // Something was invalidated in between
+        return;
+      }
+
+      final Entry aOld = m_aMap.put (aKey, new Entry (aSignedBytes));
+      if (aOld != null)
+        m_nTotalBytes -= aOld.m_aBytes.length;
+      else
+        m_aServiceGroupIndex.computeIfAbsent (aKey.m_sServiceGroupID, k -> new CommonsHashSet <> ()).add (aKey);
+      m_nTotalBytes += aSignedBytes.length;
+
+      if (m_aMap.size () > m_nMaxEntries || m_nTotalBytes > m_nMaxBytes)
+        _evict (aKey);
+    });
+  }
+
+  @GuardedBy ("m_aRWLock")
+  private void _evict (@Nonnull final Key aKeyToKeep)
+  {
+    final int nTargetEntries = m_nMaxEntries - m_nMaxEntries / 10;
+    final long nTargetBytes = m_nMaxBytes - m_nMaxBytes / 10;
+
+    // Oldest access first
+    final ICommonsList <Map.Entry <Key, Entry>> aEntries = new CommonsArrayList <> (m_aMap.entrySet ());
+    aEntries.sort (Comparator.comparingLong (x -> x.getValue ().m_nLastAccess));
+    for (final Map.Entry <Key, Entry> aEntry : aEntries)
+    {
+      if (m_aMap.size () <= nTargetEntries && m_nTotalBytes <= nTargetBytes)
+        break;
+      final Key aKey = aEntry.getKey ();
+      if (!aKey.equals (aKeyToKeep))
+      {
+        _remove (aKey);
+        STATS_COUNTER_EVICT.increment ();
+      }
+    }
+  }
+
+  @GuardedBy ("m_aRWLock")
+  private void _remove (@Nonnull final Key aKey)
+  {
+    final Entry aOld = m_aMap.remove (aKey);
+    if (aOld != null)
+    {
+      m_nTotalBytes -= aOld.m_aBytes.length;
+      final ICommonsSet <Key> aKeys = m_aServiceGroupIndex.get (aKey.m_sServiceGroupID);
+      if (aKeys != null)
+      {
+        aKeys.remove (aKey);
+        if (aKeys.isEmpty ())
+          m_aServiceGroupIndex.remove (aKey.m_sServiceGroupID);
+      }
+    }
+  }
+
+  /**
+   * Invalidate all responses of the provided service group and document type.
+   *
+   * @param aParticipantID
+   *        Participant ID. May not be <code>null</code>.
+   * @param aDocTypeID
+   *        Document type ID. May not be <code>null</code>.
+   */
+  public void invalidate (@Nonnull final IParticipantIdentifier aParticipantID,
+                          @Nonnull final IDocumentTypeIdentifier aDocTypeID)
+  {
+    final String sServiceGroupID = _getServiceGroupID (aParticipantID);
+    final String sDocTypeID = aDocTypeID.getURIEncoded ();
+    final int nRemoved = m_aRWLock.writeLockedInt ( () -> {
+      m_nGeneration++;
+      final ICommonsSet <Key> aKeys = m_aServiceGroupIndex.get (sServiceGroupID);
+      if (aKeys == null)
+        return 0;
+      int ret = 0;
+      // Copy, because _remove modifies the set
+      for (final Key aKey : new CommonsArrayList <> (aKeys))
+        if (aKey.m_sDocTypeID.equals (sDocTypeID))
+        {
+          _remove (aKey);
+          ret++;
+        }
+      return ret;
+    });
+    if (nRemoved > 0 && LOGGER.isDebugEnabled ())
+      LOGGER.debug ("Invalidated " + nRemoved + " signed response(s) of '" + sServiceGroupID + "' and '" + sDocTypeID + "'");
+  }
+
+  /**
+   * Invalidate all responses of the provided service group.
+   *
+   * @param aParticipantID
+   *        Participant ID. May not be <code>null</code>.
+   */
+  public void invalidateServiceGroup (@Nonnull final IParticipantIdentifier aParticipantID)
+  {
+    final String sServiceGroupID = _getServiceGroupID (aParticipantID);
+    final int nRemoved = m_aRWLock.writeLockedInt ( () -> {
+      m_nGeneration++;
+      final ICommonsSet <Key> aKeys = m_aServiceGroupIndex.remove (sServiceGroupID);
+      if (aKeys == null)
+        return 0;
+      for (final Key aKey : aKeys)
+        m_nTotalBytes -= m_aMap.remove (aKey).m_aBytes.length;
+      return aKeys.size ();
+    });
+    if (nRemoved > 0 && LOGGER.isDebugEnabled ())
+      LOGGER.debug ("Invalidated " + nRemoved + " signed response(s) of '" + sServiceGroupID + "'");
+  }
+
+  /**
+   * Remove all cached responses.
+   */
+  public void clear ()
+  {
+    m_aRWLock.writeLocked ( () -> {
+      m_nGeneration++;
+      m_aMap.clear ();
+      m_aServiceGroupIndex.clear ();
+      m_nTotalBytes = 0;
+    });
+    LOGGER.info ("Cleared all signed responses");
+  }
+
+  /**
+   * @return The number of cached responses. Always &ge; 0.
+   */
+  @Nonnegative
+  public int size ()
+  {
+    return m_aMap.size ();
+  }
+
+  /**
+   * @return The number of bytes of all cached responses. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getTotalBytes ()
+  {
+    return m_aRWLock.readLockedLong ( () -> m_nTotalBytes);
+  }
+
+  /**
+   * @return The maximum number of entries as configured.
+   */
+  public int getMaxEntries ()
+  {
+    return m_nMaxEntries;
+  }
+
+  /**
+   * @return The maximum number of bytes as configured.
+   */
+  public long getMaxBytes ()
+  {
+    return m_nMaxBytes;
+  }
+
+  /**
+   * @return The number of cache hits since startup.
+   */
+  @Nonnegative
+  public static long getHitCount ()
+  {
+    return STATS_COUNTER_HIT.getCount ();
+  }
+
+  /**
+   * @return The number of cache misses since startup.
+   */
+  @Nonnegative
+  public static long getMissCount ()
+  {
+    return STATS_COUNTER_MISS.getCount ();
+  }
+}
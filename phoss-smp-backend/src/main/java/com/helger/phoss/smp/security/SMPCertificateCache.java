@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2015-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * The Original Code is Copyright The Peppol project (http://www.peppol.eu)
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.helger.phoss.smp.security;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.annotation.PresentForCodeCoverage;
+
+/**
+ * A size bounded cache from certificate strings to their parsed
+ * representations. Usually many endpoints share the same few certificates, so
+ * this avoids parsing the same certificate over and over again when creating
+ * responses. It is also used to let all endpoints with the same certificate
+ * share the same string instance.<br>
+ * The cache does not use a lock. Creating an entry is cheap, as all
+ * representations are only computed on first access (see
+ * {@link SMPParsedCertificate}). The cache is bounded by the number of
+ * entries and by the total length of all certificate strings, as the parsed
+ * representations are proportional to it. If a limit is exceeded, arbitrary
+ * entries are evicted, until both are 10% below their maximum. Certificate
+ * strings longer than {@link #MAX_CERTIFICATE_LENGTH} are never cached.
+ *
+ * @author Philip Helger
+ * @since 5.7.0
+ */
+@ThreadSafe
+public final class SMPCertificateCache
+{
+  /** The maximum number of distinct certificates to keep */
+  public static final int MAX_SIZE = 1_000;
+  /** The maximum total length of all cached certificate strings */
+  public static final long MAX_TOTAL_LENGTH = 4 * 1024 * 1024;
+  /** The maximum length of a single certificate string to be cached */
+  public static final int MAX_CERTIFICATE_LENGTH = 64 * 1024;
+
+  private static final Map <String, SMPParsedCertificate> CACHE = new ConcurrentHashMap <> ();
+  private static final AtomicLong TOTAL_LENGTH = new AtomicLong (0);
+
+  @PresentForCodeCoverage
+  private static final SMPCertificateCache INSTANCE = new SMPCertificateCache ();
+
+  private SMPCertificateCache ()
+  {}
+
+  static boolean isCacheable (@Nonnull final String sCertificate)
+  {
+    return sCertificate.length () <= MAX_CERTIFICATE_LENGTH;
+  }
+
+  static boolean isLimitExceeded (@Nonnull final Map <String, ?> aMap, @Nonnull final AtomicLong aTotalLength)
+  {
+    return aMap.size () > MAX_SIZE || aTotalLength.get () > MAX_TOTAL_LENGTH;
+  }
+
+  static <V> void evict (@Nonnull final Map <String, V> aMap,
+                         @Nonnull final AtomicLong aTotalLength,
+                         @Nonnull final ToIntFunction <? super V> aLengthFct)
+  {
+    final int nTargetSize = MAX_SIZE - MAX_SIZE / 10;
+    final long nTargetLength = MAX_TOTAL_LENGTH - MAX_TOTAL_LENGTH / 10;
+    final Iterator <Map.Entry <String, V>> it = aMap.entrySet ().iterator ();
+    while ((aMap.size () > nTargetSize || aTotalLength.get () > nTargetLength) && it.hasNext ())
+    {
+      final Map.Entry <String, V> aEntry = it.next ();
+      // Only account for what this thread really removed
+      if (aMap.remove (aEntry.getKey (), aEntry.getValue ()))
+        aTotalLength.addAndGet (-aLengthFct.applyAsInt (aEntry.getValue ()));
+    }
+  }
+
+  /**
+   * Get the parsed representation of the provided certificate string. It is
+   * created on first access and shared afterwards.
+   *
+   * @param sCertificate
+   *        The certificate string as stored in the backend. May be
+   *        <code>null</code>.
+   * @return <code>null</code> if the certificate string is <code>null</code>.
+   */
+  @Nullable
+  public static SMPParsedCertificate getParsedCertificate (@Nullable final String sCertificate)
+  {
+    if (sCertificate == null)
+      return null;
+
+    SMPParsedCertificate ret = CACHE.get (sCertificate);
+    if (ret == null)
+    {
+      // Cheap, because nothing is parsed yet
+      ret = new SMPParsedCertificate (sCertificate);
+      if (isCacheable (sCertificate))
+      {
+        final SMPParsedCertificate aOld = CACHE.putIfAbsent (sCertificate, ret);
+        if (aOld != null)
+          ret = aOld;
+        else
+        {
+          TOTAL_LENGTH.addAndGet (sCertificate.length ());
+          if (isLimitExceeded (CACHE, TOTAL_LENGTH))
+            evict (CACHE, TOTAL_LENGTH, x -> x.getCertificate ().length ());
+        }
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Get the shared instance of an equal certificate string. This is used when
+   * endpoints are loaded, so that thousands of endpoints with the same
+   * certificate don't keep thousands of copies of it.
+   *
+   * @param sCertificate
+   *        The certificate string to intern. May be <code>null</code>.
+   * @return <code>null</code> if the certificate string is <code>null</code>.
+   */
+  @Nullable
+  public static String getInterned (@Nullable final String sCertificate)
+  {
+    final SMPParsedCertificate aParsedCert = getParsedCertificate (sCertificate);
+    return aParsedCert == null ? null : aParsedCert.getCertificate ();
+  }
+
+  /**
+   * @return The number of cached certificates. Always &ge; 0.
+   */
+  @Nonnegative
+  public static int size ()
+  {
+    return CACHE.size ();
+  }
+
+  /**
+   * @return The total length of all cached certificate strings. Always &ge; 0.
+   */
+  @Nonnegative
+  public static long getTotalLength ()
+  {
+    return TOTAL_LENGTH.get ();
+  }
+
+  /**
+   * Remove all cached certificates.
+   */
+  public static void clearCache ()
+  {
+    CACHE.clear ();
+    TOTAL_LENGTH.set (0);
+  }
+}
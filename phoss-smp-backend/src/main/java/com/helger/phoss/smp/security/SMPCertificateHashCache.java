@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2015-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * The Original Code is Copyright The Peppol project (http://www.peppol.eu)
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.helger.phoss.smp.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A bounded map from certificate hash to certificate string, for backends that
+ * store the certificates separately from the endpoints. It uses the same limits
+ * and the same eviction as {@link SMPCertificateCache}.
+ *
+ * @author Philip Helger
+ * @since 5.7.0
+ */
+@ThreadSafe
+public final class SMPCertificateHashCache
+{
+  private final Map <String, String> m_aMap = new ConcurrentHashMap <> ();
+  private final AtomicLong m_aTotalLength = new AtomicLong (0);
+
+  public SMPCertificateHashCache ()
+  {}
+
+  /**
+   * @param sHash
+   *        The certificate hash to check. May be <code>null</code>.
+   * @return <code>true</code> if a certificate is cached for the hash.
+   */
+  public boolean containsKey (@Nullable final String sHash)
+  {
+    return sHash != null && m_aMap.containsKey (sHash);
+  }
+
+  /**
+   * @param sHash
+   *        The certificate hash to look up. May be <code>null</code>.
+   * @return The cached certificate string or <code>null</code> if none is
+   *         cached.
+   */
+  @Nullable
+  public String get (@Nullable final String sHash)
+  {
+    return sHash == null ? null : m_aMap.get (sHash);
+  }
+
+  /**
+   * Cache a certificate string. Certificate strings longer than
+   * {@link SMPCertificateCache#MAX_CERTIFICATE_LENGTH} are ignored.
+   *
+   * @param sHash
+   *        The certificate hash. May not be <code>null</code>.
+   * @param sCertificate
+   *        The certificate string. May not be <code>null</code>.
+   */
+  public void put (@Nonnull final String sHash, @Nonnull final String sCertificate)
+  {
+    if (!SMPCertificateCache.isCacheable (sCertificate))
+      return;
+
+    final String sOld = m_aMap.put (sHash, sCertificate);
+    m_aTotalLength.addAndGet (sCertificate.length () - (sOld == null ? 0 : sOld.length ()));
+    if (SMPCertificateCache.isLimitExceeded (m_aMap, m_aTotalLength))
+      SMPCertificateCache.evict (m_aMap, m_aTotalLength, String::length);
+  }
+
+  /**
+   * @return The number of cached certificates. Always &ge; 0.
+   */
+  @Nonnegative
+  public int size ()
+  {
+    return m_aMap.size ();
+  }
+
+  /**
+   * @return The total length of all cached certificate strings. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getTotalLength ()
+  {
+    return m_aTotalLength.get ();
+  }
+}
@@ -27,37 +27,21 @@ import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.TrustManagerFactory;
 import javax.xml.crypto.MarshalException;
-import javax.xml.crypto.dsig.CanonicalizationMethod;
-import javax.xml.crypto.dsig.DigestMethod;
-import javax.xml.crypto.dsig.Reference;
-import javax.xml.crypto.dsig.SignatureMethod;
-import javax.xml.crypto.dsig.SignedInfo;
-import javax.xml.crypto.dsig.Transform;
-import javax.xml.crypto.dsig.XMLSignature;
 import javax.xml.crypto.dsig.XMLSignatureException;
-import javax.xml.crypto.dsig.XMLSignatureFactory;
-import javax.xml.crypto.dsig.dom.DOMSignContext;
-import javax.xml.crypto.dsig.keyinfo.KeyInfo;
-import javax.xml.crypto.dsig.keyinfo.KeyInfoFactory;
-import javax.xml.crypto.dsig.keyinfo.X509Data;
-import javax.xml.crypto.dsig.spec.C14NMethodParameterSpec;
-import javax.xml.crypto.dsig.spec.SignatureMethodParameterSpec;
-import javax.xml.crypto.dsig.spec.TransformParameterSpec;
 
-import org.apache.xml.security.c14n.Canonicalizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Element;
 
-import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.UsedViaReflection;
-import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.datetime.PDTFactory;
 import com.helger.commons.exception.InitializationException;
 import com.helger.commons.ws.TrustManagerTrustAll;
 import com.helger.peppol.utils.PeppolKeyStoreHelper;
 import com.helger.phoss.smp.ESMPRESTType;
 import com.helger.phoss.smp.SMPServerConfiguration;
+import com.helger.phoss.smp.restapi.SMPServiceGroupVersionTracker;
+import com.helger.phoss.smp.restapi.SMPSignedResponseCache;
 import com.helger.scope.singleton.AbstractGlobalSingleton;
 import com.helger.security.keystore.EKeyStoreLoadError;
 import com.helger.security.keystore.KeyStoreHelper;
@@ -83,6 +67,7 @@ public final class SMPKeyManager extends AbstractGlobalSingleton
 
   private KeyStore m_aKeyStore;
   private KeyStore.PrivateKeyEntry m_aKeyEntry;
+  private volatile SMPXMLSigner m_aSigner;
 
   private static void _setKeyStoreValid (final boolean bValid)
   {
@@ -102,6 +87,10 @@ public final class SMPKeyManager extends AbstractGlobalSingleton
     _loadError (null, null);
     m_aKeyStore = null;
     m_aKeyEntry = null;
+    m_aSigner = null;
+    // All previously signed responses are outdated
+    SMPSignedResponseCache.clearIfInstantiated ();
+    SMPServiceGroupVersionTracker.newEpochIfInstantiated ();
 
     // Load the key store and get the signing key
     final LoadedKeyStore aLoadedKeyStore = KeyStoreHelper.loadKeyStore (SMPServerConfiguration.getKeyStoreType (),
@@ -125,6 +114,7 @@ public final class SMPKeyManager extends AbstractGlobalSingleton
     }
 
     m_aKeyEntry = aLoadedKey.getKeyEntry ();
+    m_aSigner = new SMPXMLSigner (m_aKeyEntry);
     LOGGER.info ("SMPKeyManager successfully initialized with keystore '" +
                  SMPServerConfiguration.getKeyStorePath () +
                  "' and alias '" +
@@ -237,6 +227,7 @@ public final class SMPKeyManager extends AbstractGlobalSingleton
    *         Marshalling the signature failed
    * @throws XMLSignatureException
    *         Some XMLDSig specific stuff failed
+   * @see SMPXMLSigner
    */
   public void signXML (@Nonnull final Element aElementToSign,
                        @Nonnull final ESMPRESTType eRESTType) throws NoSuchAlgorithmException,
@@ -244,74 +235,10 @@ public final class SMPKeyManager extends AbstractGlobalSingleton
                                                               MarshalException,
                                                               XMLSignatureException
   {
-    ValueEnforcer.notNull (aElementToSign, "ElementToSign");
-    ValueEnforcer.notNull (eRESTType, "RESTType");
-
-    // Create a DOM XMLSignatureFactory that will be used to
-    // generate the enveloped signature.
-    final XMLSignatureFactory aSignatureFactory = XMLSignatureFactory.getInstance ("DOM");
-
-    // Create a Reference to the enveloped document (in this case,
-    // you are signing the whole document, so a URI of "" signifies
-    // that, and also specify the SHA1 digest algorithm and
-    // the ENVELOPED Transform)
-    final String sDigestAlgo = eRESTType.isBDXR () ? DigestMethod.SHA256 : DigestMethod.SHA1;
-    final Reference aReference = aSignatureFactory.newReference ("",
-                                                                 aSignatureFactory.newDigestMethod (sDigestAlgo, null),
-                                                                 new CommonsArrayList <> (aSignatureFactory.newTransform (Transform.ENVELOPED,
-                                                                                                                          (TransformParameterSpec) null)),
-                                                                 (String) null,
-                                                                 (String) null);
-
-    // Create the SignedInfo.
-    // * Before Peppol SMP Spec 1.2.0 this was EXCLUSIVE, since 1.2.0 it is
-    // INCLUSIVE as of May 1st, 2022
-    // * OASIS BDXR always used INCLUSIVE
-    // * CIPA and this server always used INCLUSIVE, but this was changed for
-    // 5.0.1 to EXCLUSIVE
-    // TODO after 01/05/2022 remove code
-    final String sC18N;
-    final String sSignatureMethod;
-    switch (eRESTType)
-    {
-      case PEPPOL:
-        sC18N = CanonicalizationMethod.INCLUSIVE;
-        sSignatureMethod = SignatureMethod.RSA_SHA1;
-        break;
-      case OASIS_BDXR_V1:
-        sC18N = CanonicalizationMethod.INCLUSIVE;
-        sSignatureMethod = "http://www.w3.org/2001/04/xmldsig-more#rsa-sha256";
-        break;
-      case OASIS_BDXR_V2:
-        sC18N = Canonicalizer.ALGO_ID_C14N11_OMIT_COMMENTS;
-        sSignatureMethod = "http://www.w3.org/2001/04/xmldsig-more#rsa-sha256";
-        break;
-      default:
-        throw new IllegalStateException ("Unsupported REST type");
-    }
-    final SignedInfo aSingedInfo = aSignatureFactory.newSignedInfo (aSignatureFactory.newCanonicalizationMethod (sC18N,
-                                                                                                                 (C14NMethodParameterSpec) null),
-                                                                    aSignatureFactory.newSignatureMethod (sSignatureMethod,
-                                                                                                          (SignatureMethodParameterSpec) null),
-                                                                    new CommonsArrayList <> (aReference));
-
-    // Create the KeyInfo containing the X509Data.
-    final KeyInfoFactory aKeyInfoFactory = aSignatureFactory.getKeyInfoFactory ();
-    final X509Certificate aCert = (X509Certificate) m_aKeyEntry.getCertificate ();
-    final X509Data aX509Data = aKeyInfoFactory.newX509Data (new CommonsArrayList <> (aCert.getSubjectX500Principal ()
-                                                                                          .getName (),
-                                                                                     aCert));
-    final KeyInfo aKeyInfo = aKeyInfoFactory.newKeyInfo (new CommonsArrayList <> (aX509Data));
-
-    // Create a DOMSignContext and specify the RSA PrivateKey and
-    // location of the resulting XMLSignature's parent element.
-    final DOMSignContext aSignContext = new DOMSignContext (m_aKeyEntry.getPrivateKey (), aElementToSign);
-
-    // Create the XMLSignature, but don't sign it yet.
-    final XMLSignature aSignature = aSignatureFactory.newXMLSignature (aSingedInfo, aKeyInfo);
-
-    // Marshal, generate, and sign the enveloped signature.
-    aSignature.sign (aSignContext);
+    final SMPXMLSigner aSigner = m_aSigner;
+    if (aSigner == null)
+      throw new IllegalStateException ("No signing key is loaded");
+    aSigner.signXML (aElementToSign, eRESTType);
   }
 
   /**
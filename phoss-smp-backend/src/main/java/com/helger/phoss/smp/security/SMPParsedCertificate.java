@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2015-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * The Original Code is Copyright The Peppol project (http://www.peppol.eu)
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.helger.phoss.smp.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.X509Certificate;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.security.certificate.CertificateHelper;
+
+/**
+ * The different representations of a single certificate string as needed for
+ * the responses and for storing it. All of them are calculated lazily on first
+ * access and kept afterwards. Concurrent first accesses may calculate the same
+ * value more than once, which is harmless. Instances are retrieved via
+ * {@link SMPCertificateCache}.
+ *
+ * @author Philip Helger
+ * @since 5.7.0
+ */
+@ThreadSafe
+public final class SMPParsedCertificate
+{
+  private final String m_sCertificate;
+  private volatile String m_sHash;
+  // The following fields may be null, so they need a separate flag
+  private String m_sRFC1421String;
+  private volatile boolean m_bRFC1421StringComputed;
+  private byte [] m_aEncoded;
+  private volatile boolean m_bEncodedComputed;
+  private X509Certificate m_aX509Cert;
+  private volatile boolean m_bX509CertComputed;
+
+  public SMPParsedCertificate (@Nonnull final String sCertificate)
+  {
+    ValueEnforcer.notNull (sCertificate, "Certificate");
+    m_sCertificate = sCertificate;
+  }
+
+  /**
+   * @return The original certificate string. Never <code>null</code>.
+   */
+  @Nonnull
+  public String getCertificate ()
+  {
+    return m_sCertificate;
+  }
+
+  /**
+   * @return The hex encoded SHA-256 hash of the certificate string. Neither
+   *         <code>null</code> nor empty.
+   * @see #getCertificateHash(String)
+   */
+  @Nonnull
+  @Nonempty
+  public String getCertificateHash ()
+  {
+    String ret = m_sHash;
+    if (ret == null)
+    {
+      ret = getCertificateHash (m_sCertificate);
+      m_sHash = ret;
+    }
+    return ret;
+  }
+
+  /**
+   * @return The RFC 1421 compliant representation without PEM header and
+   *         footer, using "\n" as the line separator. May be <code>null</code>.
+   */
+  @Nullable
+  public String getRFC1421String ()
+  {
+    if (m_bRFC1421StringComputed)
+      return m_sRFC1421String;
+
+    // For compatibility, don't add BEGIN_CERTIFCATE and END_CERTIFICATE
+    // For .NET compatibility only use "\n" as line separator
+    final String ret = CertificateHelper.getRFC1421CompliantString (m_sCertificate, false, "\n");
+    m_sRFC1421String = ret;
+    // Volatile write publishes the value
+    m_bRFC1421StringComputed = true;
+    return ret;
+  }
+
+  @Nullable
+  private byte [] _getEncoded ()
+  {
+    if (m_bEncodedComputed)
+      return m_aEncoded;
+
+    final byte [] ret = CertificateHelper.convertCertificateStringToByteArray (m_sCertificate);
+    m_aEncoded = ret;
+    m_bEncodedComputed = true;
+    return ret;
+  }
+
+  /**
+   * @return A copy of the decoded bytes of the certificate string. May be
+   *         <code>null</code>.
+   */
+  @Nullable
+  @ReturnsMutableCopy
+  public byte [] getEncoded ()
+  {
+    final byte [] ret = _getEncoded ();
+    return ret == null ? null : ret.clone ();
+  }
+
+  /**
+   * @return The parsed X.509 certificate or <code>null</code> if the string
+   *         could not be parsed.
+   */
+  @Nullable
+  public X509Certificate getX509Certificate ()
+  {
+    if (m_bX509CertComputed)
+      return m_aX509Cert;
+
+    final X509Certificate ret = CertificateHelper.convertStringToCertficateOrNull (m_sCertificate);
+    m_aX509Cert = ret;
+    m_bX509CertComputed = true;
+    return ret;
+  }
+
+  /**
+   * Get the key under which a certificate string is stored in the backends
+   * that keep each distinct certificate only once.
+   *
+   * @param sCertificate
+   *        The certificate string. May not be <code>null</code>.
+   * @return The lower case hex encoded SHA-256 hash of the UTF-8 bytes of the
+   *         certificate string. Always 64 characters long.
+   */
+  @Nonnull
+  @Nonempty
+  public static String getCertificateHash (@Nonnull final String sCertificate)
+  {
+    ValueEnforcer.notNull (sCertificate, "Certificate");
+    final byte [] aDigest;
+    try
+    {
+      aDigest = MessageDigest.getInstance ("SHA-256").digest (sCertificate.getBytes (StandardCharsets.UTF_8));
+    }
+    catch (final NoSuchAlgorithmException ex)
+    {
+      throw new IllegalStateException ("SHA-256 is not supported", ex);
+    }
+    final StringBuilder aSB = new StringBuilder (aDigest.length * 2);
+    for (final byte b : aDigest)
+      aSB.append (Character.forDigit ((b >> 4) & 0xf, 16)).append (Character.forDigit (b & 0xf, 16));
+    return aSB.toString ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Hash", getCertificateHash ())
+                                       .append ("X509CertComputed", m_bX509CertComputed)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2015-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * The Original Code is Copyright The Peppol project (http://www.peppol.eu)
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.helger.phoss.smp.security;
+
+import java.security.InvalidAlgorithmParameterException;
+import java.security.KeyStore;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.EnumMap;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.crypto.MarshalException;
+import javax.xml.crypto.dsig.CanonicalizationMethod;
+import javax.xml.crypto.dsig.DigestMethod;
+import javax.xml.crypto.dsig.Reference;
+import javax.xml.crypto.dsig.SignatureMethod;
+import javax.xml.crypto.dsig.SignedInfo;
+import javax.xml.crypto.dsig.Transform;
+import javax.xml.crypto.dsig.XMLSignature;
+import javax.xml.crypto.dsig.XMLSignatureException;
+import javax.xml.crypto.dsig.XMLSignatureFactory;
+import javax.xml.crypto.dsig.dom.DOMSignContext;
+import javax.xml.crypto.dsig.keyinfo.KeyInfo;
+import javax.xml.crypto.dsig.keyinfo.KeyInfoFactory;
+import javax.xml.crypto.dsig.keyinfo.X509Data;
+import javax.xml.crypto.dsig.spec.C14NMethodParameterSpec;
+import javax.xml.crypto.dsig.spec.SignatureMethodParameterSpec;
+import javax.xml.crypto.dsig.spec.TransformParameterSpec;
+
+import org.apache.xml.security.c14n.Canonicalizer;
+import org.w3c.dom.Element;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.phoss.smp.ESMPRESTType;
+
+/**
+ * Creates XMLDSig enveloped signatures with a single private key. All parts of
+ * the signature that don't depend on the element to be signed are created only
+ * once per thread, because {@link XMLSignatureFactory} instances may not be
+ * used concurrently. A new instance must be created every time the key is
+ * changed.
+ *
+ * @author Philip Helger
+ * @since 5.7.0
+ */
+@ThreadSafe
+public final class SMPXMLSigner
+{
+  /**
+   * The algorithm specific parts of a signature that can be reused.
+   *
+   * @author Philip Helger
+   */
+  private static final class AlgorithmTemplate
+  {
+    private final DigestMethod m_aDigestMethod;
+    private final Transform m_aEnvelopedTransform;
+    private final CanonicalizationMethod m_aC14NMethod;
+    private final SignatureMethod m_aSignatureMethod;
+
+    AlgorithmTemplate (@Nonnull final XMLSignatureFactory aSignatureFactory,
+                       @Nonnull final ESMPRESTType eRESTType) throws NoSuchAlgorithmException,
+                                                              InvalidAlgorithmParameterException
+    {
+      final String sDigestAlgo = eRESTType.isBDXR () ? DigestMethod.SHA256 : DigestMethod.SHA1;
+
+      // * Before Peppol SMP Spec 1.2.0 this was EXCLUSIVE, since 1.2.0 it is
+      // INCLUSIVE as of May 1st, 2022
+      // * OASIS BDXR always used INCLUSIVE
+      // * CIPA and this server always used INCLUSIVE, but this was changed for
+      // 5.0.1 to EXCLUSIVE
+      final String sC18N;
+      final String sSignatureMethod;
+      switch (eRESTType)
+      {
+        case PEPPOL:
+          sC18N = CanonicalizationMethod.INCLUSIVE;
+          sSignatureMethod = SignatureMethod.RSA_SHA1;
+          break;
+        case OASIS_BDXR_V1:
+          sC18N = CanonicalizationMethod.INCLUSIVE;
+          sSignatureMethod = "http://www.w3.org/2001/04/xmldsig-more#rsa-sha256";
+          break;
+        case OASIS_BDXR_V2:
+          sC18N = Canonicalizer.ALGO_ID_C14N11_OMIT_COMMENTS;
+          sSignatureMethod = "http://www.w3.org/2001/04/xmldsig-more#rsa-sha256";
+          break;
+        default:
+          throw new IllegalStateException ("Unsupported REST type");
+      }
+
+      m_aDigestMethod = aSignatureFactory.newDigestMethod (sDigestAlgo, null);
+      m_aEnvelopedTransform = aSignatureFactory.newTransform (Transform.ENVELOPED, (TransformParameterSpec) null);
+      m_aC14NMethod = aSignatureFactory.newCanonicalizationMethod (sC18N, (C14NMethodParameterSpec) null);
+      m_aSignatureMethod = aSignatureFactory.newSignatureMethod (sSignatureMethod,
+                                                                 (SignatureMethodParameterSpec) null);
+    }
+  }
+
+  /**
+   * Everything that may only be used by a single thread.
+   *
+   * @author Philip Helger
+   */
+  private static final class PerThreadState
+  {
+    private final XMLSignatureFactory m_aSignatureFactory;
+    private final KeyInfo m_aKeyInfo;
+    private final Map <ESMPRESTType, AlgorithmTemplate> m_aTemplates = new EnumMap <> (ESMPRESTType.class);
+
+    PerThreadState (@Nonnull final X509Certificate aCert, @Nonnull final String sSubjectName)
+    {
+      // Create a DOM XMLSignatureFactory that will be used to generate the
+      // enveloped signature.
+      m_aSignatureFactory = XMLSignatureFactory.getInstance ("DOM");
+
+      // Create the KeyInfo containing the X509Data.
+      final KeyInfoFactory aKeyInfoFactory = m_aSignatureFactory.getKeyInfoFactory ();
+      final X509Data aX509Data = aKeyInfoFactory.newX509Data (new CommonsArrayList <> (sSubjectName, aCert));
+      m_aKeyInfo = aKeyInfoFactory.newKeyInfo (new CommonsArrayList <> (aX509Data));
+    }
+
+    @Nonnull
+    AlgorithmTemplate getTemplate (@Nonnull final ESMPRESTType eRESTType) throws NoSuchAlgorithmException,
+                                                                          InvalidAlgorithmParameterException
+    {
+      AlgorithmTemplate ret = m_aTemplates.get (eRESTType);
+      if (ret == null)
+      {
+        ret = new AlgorithmTemplate (m_aSignatureFactory, eRESTType);
+        m_aTemplates.put (eRESTType, ret);
+      }
+      return ret;
+    }
+  }
+
+  private final PrivateKey m_aPrivateKey;
+  private final X509Certificate m_aCert;
+  private final String m_sSubjectName;
+  private final ThreadLocal <PerThreadState> m_aPerThreadState;
+
+  public SMPXMLSigner (@Nonnull final KeyStore.PrivateKeyEntry aKeyEntry)
+  {
+    ValueEnforcer.notNull (aKeyEntry, "KeyEntry");
+    ValueEnforcer.isTrue (aKeyEntry.getCertificate () instanceof X509Certificate,
+                          "KeyEntry must contain an X509 certificate");
+    m_aPrivateKey = aKeyEntry.getPrivateKey ();
+    m_aCert = (X509Certificate) aKeyEntry.getCertificate ();
+    m_sSubjectName = m_aCert.getSubjectX500Principal ().getName ();
+    m_aPerThreadState = ThreadLocal.withInitial ( () -> new PerThreadState (m_aCert, m_sSubjectName));
+  }
+
+  /**
+   * @return The certificate that is contained in the signatures. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public X509Certificate getCertificate ()
+  {
+    return m_aCert;
+  }
+
+  /**
+   * Sign the provided element using XMLDSig. The signature is appended to the
+   * element.
+   *
+   * @param aElementToSign
+   *        The XML element to sign. May not be <code>null</code>.
+   * @param eRESTType
+   *        The REST type current configured. This differences are the hash
+   *        algorithm as well as the canonicalization algorithms.
+   * @throws NoSuchAlgorithmException
+   *         An algorithm is not supported by the underlying platform.
+   * @throws InvalidAlgorithmParameterException
+   *         Parameters for certain algorithms are invalid.
+   * @throws MarshalException
+   *         Marshalling the signature failed
+   * @throws XMLSignatureException
+   *         Some XMLDSig specific stuff failed
+   */
+  public void signXML (@Nonnull final Element aElementToSign,
+                       @Nonnull final ESMPRESTType eRESTType) throws NoSuchAlgorithmException,
+                                                              InvalidAlgorithmParameterException,
+                                                              MarshalException,
+                                                              XMLSignatureException
+  {
+    ValueEnforcer.notNull (aElementToSign, "ElementToSign");
+    ValueEnforcer.notNull (eRESTType, "RESTType");
+
+    final PerThreadState aState = m_aPerThreadState.get ();
+    final XMLSignatureFactory aSignatureFactory = aState.m_aSignatureFactory;
+    final AlgorithmTemplate aTemplate = aState.getTemplate (eRESTType);
+
+    // Create a Reference to the enveloped document (in this case, you are
+    // signing the whole document, so a URI of "" signifies that, and also
+    // specify the digest algorithm and the ENVELOPED Transform). A Reference
+    // keeps the calculated digest value, so it cannot be reused.
+    final Reference aReference = aSignatureFactory.newReference ("",
+                                                                 aTemplate.m_aDigestMethod,
+                                                                 new CommonsArrayList <> (aTemplate.m_aEnvelopedTransform),
+                                                                 (String) null,
+                                                                 (String) null);
+    final SignedInfo aSignedInfo = aSignatureFactory.newSignedInfo (aTemplate.m_aC14NMethod,
+                                                                    aTemplate.m_aSignatureMethod,
+                                                                    new CommonsArrayList <> (aReference));
+
+    // Create a DOMSignContext and specify the RSA PrivateKey and
+    // location of the resulting XMLSignature's parent element.
+    final DOMSignContext aSignContext = new DOMSignContext (m_aPrivateKey, aElementToSign);
+
+    // Marshal, generate, and sign the enveloped signature.
+    final XMLSignature aSignature = aSignatureFactory.newXMLSignature (aSignedInfo, aState.m_aKeyInfo);
+    aSignature.sign (aSignContext);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("SubjectName", m_sSubjectName).getToString ();
+  }
+}
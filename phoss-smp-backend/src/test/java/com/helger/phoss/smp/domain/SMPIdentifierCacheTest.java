@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2015-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * The Original Code is Copyright The Peppol project (http://www.peppol.eu)
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.helger.phoss.smp.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.helger.peppolid.IParticipantIdentifier;
+import com.helger.peppolid.factory.PeppolIdentifierFactory;
+
+/**
+ * Test class for class {@link SMPIdentifierCache}.
+ *
+ * @author Philip Helger
+ */
+public final class SMPIdentifierCacheTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final SMPIdentifierCache aCache = new SMPIdentifierCache (PeppolIdentifierFactory.INSTANCE, 2);
+    assertNull (aCache.parseParticipantIdentifier (null));
+
+    final IParticipantIdentifier aPI = aCache.parseParticipantIdentifier ("iso6523-actorid-upis::0088:dummy");
+    assertNotNull (aPI);
+    assertSame (aPI, aCache.parseParticipantIdentifier ("iso6523-actorid-upis::0088:dummy"));
+    assertEquals ("iso6523-actorid-upis::0088:dummy",
+                  aCache.getParsedParticipantIdentifier ("iso6523-actorid-upis::0088:dummy").getURIEncoded ());
+
+    // Unparsable values are cached as well
+    assertNull (aCache.parseParticipantIdentifier ("no-separator"));
+    assertNull (aCache.getParsedParticipantIdentifier ("no-separator").getURIEncoded ());
+    assertEquals (2, aCache.getParticipantIdentifierCount ());
+
+    // Size bounded
+    assertNotNull (aCache.parseParticipantIdentifier ("iso6523-actorid-upis::0088:other"));
+    assertEquals (2, aCache.getParticipantIdentifierCount ());
+
+    assertNotNull (aCache.parseDocumentTypeIdentifier ("busdox-docid-qns::urn:doc"));
+    assertEquals (1, aCache.getDocumentTypeIdentifierCount ());
+
+    aCache.clearCache ();
+    assertEquals (0, aCache.getParticipantIdentifierCount ());
+    assertEquals (0, aCache.getDocumentTypeIdentifierCount ());
+  }
+
+  @Test
+  public void testEvictLeastRecentlyUsed ()
+  {
+    final SMPIdentifierCache aCache = new SMPIdentifierCache (PeppolIdentifierFactory.INSTANCE, 10);
+    final IParticipantIdentifier aFirst = aCache.parseParticipantIdentifier ("iso6523-actorid-upis::0088:0");
+    assertNotNull (aFirst);
+    for (int i = 1; i < 10; ++i)
+      assertNotNull (aCache.parseParticipantIdentifier ("iso6523-actorid-upis::0088:" + i));
+    assertEquals (10, aCache.getParticipantIdentifierCount ());
+
+    // Access the oldest entry again
+    assertSame (aFirst, aCache.parseParticipantIdentifier ("iso6523-actorid-upis::0088:0"));
+
+    // Exceeding the maximum evicts down to 90%
+    assertNotNull (aCache.parseParticipantIdentifier ("iso6523-actorid-upis::0088:10"));
+    assertEquals (9, aCache.getParticipantIdentifierCount ());
+
+    // The recently accessed entry was kept
+    assertSame (aFirst, aCache.parseParticipantIdentifier ("iso6523-actorid-upis::0088:0"));
+    assertEquals (9, aCache.getParticipantIdentifierCount ());
+  }
+}
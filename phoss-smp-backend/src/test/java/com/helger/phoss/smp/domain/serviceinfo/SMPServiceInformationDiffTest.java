@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2015-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * The Original Code is Copyright The Peppol project (http://www.peppol.eu)
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.helger.phoss.smp.domain.serviceinfo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.datetime.XMLOffsetDateTime;
+import com.helger.peppolid.IDocumentTypeIdentifier;
+import com.helger.peppolid.IParticipantIdentifier;
+import com.helger.peppolid.peppol.PeppolIdentifierHelper;
+import com.helger.peppolid.simple.doctype.SimpleDocumentTypeIdentifier;
+import com.helger.peppolid.simple.participant.SimpleParticipantIdentifier;
+import com.helger.peppolid.simple.process.SimpleProcessIdentifier;
+import com.helger.phoss.smp.domain.servicegroup.ISMPServiceGroup;
+import com.helger.phoss.smp.domain.servicegroup.SMPServiceGroup;
+import com.helger.phoss.smp.mock.SMPServerTestRule;
+import com.helger.photon.security.CSecurity;
+
+/**
+ * Test class for class {@link SMPServiceInformationDiff}.
+ *
+ * @author Philip Helger
+ */
+public final class SMPServiceInformationDiffTest
+{
+  @Rule
+  public final TestRule m_aTestRule = new SMPServerTestRule ();
+
+  @Nonnull
+  private static SMPEndpoint _createEndpoint (@Nonnull final String sTransportProfile, @Nonnull final String sURL)
+  {
+    return new SMPEndpoint (sTransportProfile,
+                            sURL,
+                            false,
+                            (String) null,
+                            (XMLOffsetDateTime) null,
+                            (XMLOffsetDateTime) null,
+                            "cert",
+                            "sd",
+                            "tc",
+                            (String) null,
+                            (String) null);
+  }
+
+  @Nonnull
+  private static SMPProcess _createProcess (@Nonnull final String sProcessID,
+                                            @Nonnull final SMPEndpoint... aEndpoints)
+  {
+    return new SMPProcess (new SimpleProcessIdentifier (PeppolIdentifierHelper.DEFAULT_PROCESS_SCHEME, sProcessID),
+                           new CommonsArrayList <> (aEndpoints),
+                           null);
+  }
+
+  @Nonnull
+  private static ICommonsList <SMPProcess> _createProcesses ()
+  {
+    return new CommonsArrayList <> (_createProcess ("p1",
+                                                    _createEndpoint ("tp1", "http://a"),
+                                                    _createEndpoint ("tp2", "http://b")),
+                                    _createProcess ("p2", _createEndpoint ("tp1", "http://a")));
+  }
+
+  @Test
+  public void testBasic ()
+  {
+    final IParticipantIdentifier aPI = new SimpleParticipantIdentifier (PeppolIdentifierHelper.DEFAULT_PARTICIPANT_SCHEME,
+                                                                        "0088:dummy");
+    final ISMPServiceGroup aSG = new SMPServiceGroup (CSecurity.USER_ADMINISTRATOR_ID, aPI, null);
+    final IDocumentTypeIdentifier aDocTypeID = new SimpleDocumentTypeIdentifier (PeppolIdentifierHelper.DOCUMENT_TYPE_SCHEME_BUSDOX_DOCID_QNS,
+                                                                                 "testdoctype");
+
+    final SMPServiceInformation aOld = new SMPServiceInformation (aSG, aDocTypeID, _createProcesses (), null);
+
+    // Same content in different objects
+    SMPServiceInformation aNew = new SMPServiceInformation (aSG, aDocTypeID, _createProcesses (), null);
+    SMPServiceInformationDiff aDiff = SMPServiceInformationDiff.create (aOld, aNew);
+    assertTrue (aDiff.isEmpty ());
+    assertFalse (aDiff.isProcessesChanged ());
+
+    // Only the extension changed
+    aNew = new SMPServiceInformation (aSG, aDocTypeID, _createProcesses (), "<ext />");
+    aDiff = SMPServiceInformationDiff.create (aOld, aNew);
+    assertFalse (aDiff.isEmpty ());
+    assertTrue (aDiff.isExtensionChanged ());
+    assertFalse (aDiff.isProcessesChanged ());
+
+    // Change URL of one endpoint, remove one endpoint and one process, add
+    // one process
+    aNew = new SMPServiceInformation (aSG,
+                                      aDocTypeID,
+                                      new CommonsArrayList <> (_createProcess ("p1",
+                                                                               _createEndpoint ("tp1", "http://c"),
+                                                                               _createEndpoint ("tp3", "http://d")),
+                                                               _createProcess ("p3",
+                                                                               _createEndpoint ("tp1", "http://a"))),
+                                      null);
+    aDiff = SMPServiceInformationDiff.create (aOld, aNew);
+    assertFalse (aDiff.isEmpty ());
+    assertFalse (aDiff.isExtensionChanged ());
+    assertTrue (aDiff.isProcessesChanged ());
+
+    assertEquals (1, aDiff.removedProcesses ().size ());
+    assertEquals ("p2", aDiff.removedProcesses ().getFirst ().getProcessIdentifier ().getValue ());
+    assertEquals (1, aDiff.addedProcesses ().size ());
+    assertEquals ("p3", aDiff.addedProcesses ().getFirst ().getProcessIdentifier ().getValue ());
+    assertEquals (1, aDiff.changedProcesses ().size ());
+
+    final SMPServiceInformationDiff.ProcessDiff aProcessDiff = aDiff.changedProcesses ().getFirst ();
+    assertSame (aNew.getProcessOfID (aProcessDiff.getProcess ().getProcessIdentifier ()), aProcessDiff.getProcess ());
+    assertFalse (aProcessDiff.isExtensionChanged ());
+    assertEquals (1, aProcessDiff.removedEndpoints ().size ());
+    assertEquals ("tp2", aProcessDiff.removedEndpoints ().getFirst ().getTransportProfile ());
+    assertEquals (1, aProcessDiff.addedEndpoints ().size ());
+    assertEquals ("tp3", aProcessDiff.addedEndpoints ().getFirst ().getTransportProfile ());
+    assertEquals (1, aProcessDiff.changedEndpoints ().size ());
+    assertEquals ("http://c", aProcessDiff.changedEndpoints ().getFirst ().getEndpointReference ());
+  }
+}
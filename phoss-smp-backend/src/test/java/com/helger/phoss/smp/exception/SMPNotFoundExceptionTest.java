@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2015-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * The Original Code is Copyright The Peppol project (http://www.peppol.eu)
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.helger.phoss.smp.exception;
+
+import static org.junit.Assert.assertEquals;
+
+import java.net.URI;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link SMPNotFoundException} and
+ * {@link SMPBadRequestException}.
+ *
+ * @author Philip Helger
+ */
+public final class SMPNotFoundExceptionTest
+{
+  @Test
+  public void testNoStackTrace ()
+  {
+    final URI aURI = URI.create ("http://localhost/iso6523-actorid-upis::0088:dummy");
+
+    final SMPNotFoundException ex = new SMPNotFoundException ("Unknown Service Group", aURI);
+    assertEquals ("Not found: Unknown Service Group at " + aURI, ex.getMessage ());
+    assertEquals (0, ex.getStackTrace ().length);
+
+    final SMPBadRequestException ex2 = SMPBadRequestException.failedToParseSG ("abc", aURI);
+    assertEquals ("Bad request: Failed to parse Service Group ID 'abc' at '" + aURI + "'", ex2.getMessage ());
+    assertEquals (0, ex2.getStackTrace ().length);
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2015-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * The Original Code is Copyright The Peppol project (http://www.peppol.eu)
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.helger.phoss.smp.restapi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link SMPBloomFilter}.
+ *
+ * @author Philip Helger
+ */
+public final class SMPBloomFilterTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final SMPBloomFilter aFilter = new SMPBloomFilter (1000, 0.01);
+    assertTrue (aFilter.getHashFunctionCount () > 0);
+    assertEquals (0, aFilter.getAddCount ());
+    assertEquals (0, aFilter.getCurrentFalsePositiveRate (), 0);
+
+    for (int i = 0; i < 1000; ++i)
+      aFilter.add ("iso6523-actorid-upis::0088:" + i);
+    assertEquals (1000, aFilter.getAddCount ());
+
+    // No false negatives
+    for (int i = 0; i < 1000; ++i)
+      assertTrue (aFilter.mightContain ("iso6523-actorid-upis::0088:" + i));
+
+    // Roughly the expected false positive rate
+    int nFalsePositives = 0;
+    for (int i = 0; i < 10_000; ++i)
+      if (aFilter.mightContain ("iso6523-actorid-upis::9915:" + i))
+        nFalsePositives++;
+    assertTrue ("Too many false positives: " + nFalsePositives, nFalsePositives < 300);
+    assertTrue (aFilter.getCurrentFalsePositiveRate () < 0.03);
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2015-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * The Original Code is Copyright The Peppol project (http://www.peppol.eu)
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.helger.phoss.smp.restapi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.ZonedDateTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import com.helger.commons.datetime.PDTFactory;
+import com.helger.peppolid.IParticipantIdentifier;
+import com.helger.peppolid.peppol.PeppolIdentifierHelper;
+import com.helger.peppolid.simple.participant.SimpleParticipantIdentifier;
+import com.helger.phoss.smp.mock.SMPServerTestRule;
+
+/**
+ * Test class for class {@link SMPServiceGroupVersionTracker}.
+ *
+ * @author Philip Helger
+ */
+public final class SMPServiceGroupVersionTrackerTest
+{
+  @Rule
+  public final TestRule m_aTestRule = new SMPServerTestRule ();
+
+  @Test
+  public void testBasic ()
+  {
+    final IParticipantIdentifier aPI = new SimpleParticipantIdentifier (PeppolIdentifierHelper.DEFAULT_PARTICIPANT_SCHEME,
+                                                                        "0088:dummy");
+    final IParticipantIdentifier aPI2 = new SimpleParticipantIdentifier (PeppolIdentifierHelper.DEFAULT_PARTICIPANT_SCHEME,
+                                                                         "0088:DUMMY");
+    final SMPServiceGroupVersionTracker aTracker = SMPServiceGroupVersionTracker.getInstance ();
+    aTracker.newEpoch ();
+
+    final String sSG = SMPServiceGroupVersion.getResourceID ("servicegroup", aPI.getURIEncoded ());
+    final String sMetadata = SMPServiceGroupVersion.getResourceID ("metadata", aPI.getURIEncoded (), "doctype");
+
+    final SMPServiceGroupVersion aV0 = aTracker.getVersion (aPI);
+    assertEquals (0, aV0.getVersion ());
+    assertEquals (aTracker.getEpoch (), aV0.getEpoch ());
+    final String sETag0 = aV0.getETag (sSG, false);
+    assertTrue (SMPServiceGroupVersion.matchesIfNoneMatch (sETag0, sETag0));
+    assertTrue (SMPServiceGroupVersion.matchesIfNoneMatch ("\"abc\", W/" + sETag0, sETag0));
+    assertTrue (SMPServiceGroupVersion.matchesIfNoneMatch (sETag0, aV0.getETag (sSG, true)));
+    assertFalse (SMPServiceGroupVersion.matchesIfNoneMatch ("\"abc\"", sETag0));
+    assertFalse (SMPServiceGroupVersion.matchesIfNoneMatch (null, sETag0));
+    assertFalse (aV0.isNotModifiedSince (null));
+
+    // Weak tags
+    assertTrue (aV0.getETag (sSG, true).startsWith ("W/\""));
+    assertTrue (sETag0.startsWith ("\""));
+
+    // Different resources of the same service group have different tags
+    assertNotEquals (sETag0, aV0.getETag (sMetadata, false));
+    assertFalse (SMPServiceGroupVersion.matchesIfNoneMatch (sETag0, aV0.getETag (sMetadata, false)));
+    assertNotEquals (aV0.getETag (SMPServiceGroupVersion.getResourceID ("metadata", "a", "bc"), false),
+                     aV0.getETag (SMPServiceGroupVersion.getResourceID ("metadata", "ab", "c"), false));
+
+    // Unmodified service groups share the initial version, but not the tag
+    final IParticipantIdentifier aPI3 = new SimpleParticipantIdentifier (PeppolIdentifierHelper.DEFAULT_PARTICIPANT_SCHEME,
+                                                                         "0088:other");
+    final SMPServiceGroupVersion aOther = aTracker.getVersion (aPI3);
+    assertEquals (0, aOther.getVersion ());
+    assertNotEquals (sETag0,
+                     aOther.getETag (SMPServiceGroupVersion.getResourceID ("servicegroup", aPI3.getURIEncoded ()), false));
+
+    // Case insensitive
+    aTracker.onModified (aPI2);
+    final SMPServiceGroupVersion aV1 = aTracker.getVersion (aPI);
+    assertEquals (1, aV1.getVersion ());
+    assertNotEquals (sETag0, aV1.getETag (sSG, false));
+    assertFalse (SMPServiceGroupVersion.matchesIfNoneMatch (sETag0, aV1.getETag (sSG, false)));
+
+    // New epoch
+    aTracker.newEpoch ();
+    final SMPServiceGroupVersion aV2 = aTracker.getVersion (aPI);
+    assertEquals (0, aV2.getVersion ());
+    assertNotEquals (sETag0, aV2.getETag (sSG, false));
+  }
+
+  @Test
+  public void testLastModified ()
+  {
+    final ZonedDateTime aNow = PDTFactory.getCurrentZonedDateTimeUTC ();
+
+    // Modified in the past
+    final SMPServiceGroupVersion aOld = new SMPServiceGroupVersion ("epoch", 1, aNow.minusSeconds (5));
+    assertTrue (aOld.isLastModifiedUsable ());
+    assertTrue (aOld.isNotModifiedSince (aOld.getLastModified ()));
+    assertTrue (aOld.isNotModifiedSince (aNow));
+    assertFalse (aOld.isNotModifiedSince (aOld.getLastModified ().minusSeconds (1)));
+    assertFalse (aOld.isNotModifiedSince (null));
+
+    // Modified in the current second - may still change without a new date
+    final SMPServiceGroupVersion aCurrent = new SMPServiceGroupVersion ("epoch", 2, aNow.plusSeconds (1));
+    assertFalse (aCurrent.isLastModifiedUsable ());
+    assertFalse (aCurrent.isNotModifiedSince (aCurrent.getLastModified ()));
+    assertFalse (aCurrent.isNotModifiedSince (aNow.plusSeconds (10)));
+  }
+
+  @Test
+  public void testMaxTracked ()
+  {
+    final SMPServiceGroupVersionTracker aTracker = SMPServiceGroupVersionTracker.getInstance ();
+    aTracker.newEpoch ();
+    final String sEpoch = aTracker.getEpoch ();
+
+    for (int i = 0; i < SMPServiceGroupVersionTracker.MAX_TRACKED_SERVICE_GROUPS; ++i)
+      aTracker.onModified (new SimpleParticipantIdentifier (PeppolIdentifierHelper.DEFAULT_PARTICIPANT_SCHEME,
+                                                            "0088:" + i));
+    assertEquals (SMPServiceGroupVersionTracker.MAX_TRACKED_SERVICE_GROUPS, aTracker.getModifiedCount ());
+    assertEquals (sEpoch, aTracker.getEpoch ());
+
+    // Deleting and re-creating still increases the version
+    final IParticipantIdentifier aPI = new SimpleParticipantIdentifier (PeppolIdentifierHelper.DEFAULT_PARTICIPANT_SCHEME,
+                                                                        "0088:0");
+    aTracker.onModified (aPI);
+    assertEquals (2, aTracker.getVersion (aPI).getVersion ());
+
+    // One more starts a new epoch
+    aTracker.onModified (new SimpleParticipantIdentifier (PeppolIdentifierHelper.DEFAULT_PARTICIPANT_SCHEME,
+                                                          "0088:new"));
+    assertNotEquals (sEpoch, aTracker.getEpoch ());
+    assertEquals (0, aTracker.getModifiedCount ());
+    assertEquals (0, aTracker.getVersion (aPI).getVersion ());
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2015-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * The Original Code is Copyright The Peppol project (http://www.peppol.eu)
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.helger.phoss.smp.restapi;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import com.helger.peppolid.IDocumentTypeIdentifier;
+import com.helger.peppolid.IParticipantIdentifier;
+import com.helger.peppolid.peppol.PeppolIdentifierHelper;
+import com.helger.peppolid.simple.doctype.SimpleDocumentTypeIdentifier;
+import com.helger.peppolid.simple.participant.SimpleParticipantIdentifier;
+import com.helger.phoss.smp.ESMPRESTType;
+import com.helger.phoss.smp.mock.SMPServerTestRule;
+
+/**
+ * Test class for class {@link SMPSignedResponseCache}.
+ *
+ * @author Philip Helger
+ */
+public final class SMPSignedResponseCacheTest
+{
+  @Rule
+  public final TestRule m_aTestRule = new SMPServerTestRule ();
+
+  @Test
+  public void testBasic ()
+  {
+    final IParticipantIdentifier aPI = new SimpleParticipantIdentifier (PeppolIdentifierHelper.DEFAULT_PARTICIPANT_SCHEME,
+                                                                        "0088:dummy");
+    final IDocumentTypeIdentifier aDocTypeID = new SimpleDocumentTypeIdentifier (PeppolIdentifierHelper.DOCUMENT_TYPE_SCHEME_BUSDOX_DOCID_QNS,
+                                                                                 "testdoctype");
+    final IDocumentTypeIdentifier aDocTypeID2 = new SimpleDocumentTypeIdentifier (PeppolIdentifierHelper.DOCUMENT_TYPE_SCHEME_BUSDOX_DOCID_QNS,
+                                                                                  "testdoctype2");
+    final byte [] aBytes = { 1, 2, 3 };
+
+    final SMPSignedResponseCache aCache = SMPSignedResponseCache.getInstance ();
+    aCache.clear ();
+    assertEquals (0, aCache.size ());
+    assertNull (aCache.get (aPI, aDocTypeID, ESMPRESTType.PEPPOL));
+
+    aCache.put (aPI, aDocTypeID, ESMPRESTType.PEPPOL, aBytes, aCache.getGeneration ());
+    aCache.put (aPI, aDocTypeID2, ESMPRESTType.PEPPOL, aBytes, aCache.getGeneration ());
+    assertEquals (2, aCache.size ());
+    assertEquals (6, aCache.getTotalBytes ());
+    assertArrayEquals (aBytes, aCache.get (aPI, aDocTypeID, ESMPRESTType.PEPPOL));
+    // Different REST type
+    assertNull (aCache.get (aPI, aDocTypeID, ESMPRESTType.OASIS_BDXR_V1));
+
+    // Invalidate a single document type
+    aCache.invalidate (aPI, aDocTypeID);
+    assertNull (aCache.get (aPI, aDocTypeID, ESMPRESTType.PEPPOL));
+    assertArrayEquals (aBytes, aCache.get (aPI, aDocTypeID2, ESMPRESTType.PEPPOL));
+    assertEquals (3, aCache.getTotalBytes ());
+
+    // Invalidate via callback
+    aCache.put (aPI, aDocTypeID, ESMPRESTType.PEPPOL, aBytes, aCache.getGeneration ());
+    aCache.getServiceGroupCallback ().onSMPServiceGroupDeleted (aPI, false);
+    assertEquals (0, aCache.size ());
+    assertEquals (0, aCache.getTotalBytes ());
+
+    // Outdated generation is not cached
+    final long nGeneration = aCache.getGeneration ();
+    aCache.invalidate (aPI, aDocTypeID2);
+    aCache.put (aPI, aDocTypeID, ESMPRESTType.PEPPOL, aBytes, nGeneration);
+    assertEquals (0, aCache.size ());
+  }
+
+  @Test
+  public void testCase ()
+  {
+    final IParticipantIdentifier aPI = new SimpleParticipantIdentifier (PeppolIdentifierHelper.DEFAULT_PARTICIPANT_SCHEME,
+                                                                        "0088:dummy");
+    final IParticipantIdentifier aPIUpper = new SimpleParticipantIdentifier (PeppolIdentifierHelper.DEFAULT_PARTICIPANT_SCHEME,
+                                                                             "0088:DUMMY");
+    final IDocumentTypeIdentifier aDocTypeID = new SimpleDocumentTypeIdentifier (PeppolIdentifierHelper.DOCUMENT_TYPE_SCHEME_BUSDOX_DOCID_QNS,
+                                                                                 "testdoctype");
+    final IDocumentTypeIdentifier aDocTypeIDUpper = new SimpleDocumentTypeIdentifier (PeppolIdentifierHelper.DOCUMENT_TYPE_SCHEME_BUSDOX_DOCID_QNS,
+                                                                                      "TESTDOCTYPE");
+    final byte [] aBytes = { 1, 2, 3 };
+
+    final SMPSignedResponseCache aCache = SMPSignedResponseCache.getInstance ();
+    aCache.clear ();
+    aCache.put (aPI, aDocTypeID, ESMPRESTType.PEPPOL, aBytes, aCache.getGeneration ());
+
+    // Participant IDs are case insensitive
+    assertArrayEquals (aBytes, aCache.get (aPIUpper, aDocTypeID, ESMPRESTType.PEPPOL));
+    // Document type IDs are case sensitive
+    assertNull (aCache.get (aPI, aDocTypeIDUpper, ESMPRESTType.PEPPOL));
+
+    // Same rules for the invalidation
+    aCache.invalidate (aPIUpper, aDocTypeIDUpper);
+    assertEquals (1, aCache.size ());
+    aCache.invalidate (aPIUpper, aDocTypeID);
+    assertEquals (0, aCache.size ());
+
+    aCache.put (aPI, aDocTypeID, ESMPRESTType.PEPPOL, aBytes, aCache.getGeneration ());
+    aCache.put (aPI, aDocTypeID, ESMPRESTType.OASIS_BDXR_V1, aBytes, aCache.getGeneration ());
+    assertEquals (2, aCache.size ());
+    aCache.invalidateServiceGroup (aPIUpper);
+    assertEquals (0, aCache.size ());
+    assertEquals (0, aCache.getTotalBytes ());
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2015-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * The Original Code is Copyright The Peppol project (http://www.peppol.eu)
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.helger.phoss.smp.security;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.helger.commons.string.StringHelper;
+
+/**
+ * Test class for class {@link SMPCertificateCache}.
+ *
+ * @author Philip Helger
+ */
+public final class SMPCertificateCacheTest
+{
+  @Test
+  public void testBasic ()
+  {
+    assertNull (SMPCertificateCache.getParsedCertificate (null));
+    assertNull (SMPCertificateCache.getInterned (null));
+
+    // Not a valid certificate, but that doesn't matter for the cache
+    final String s1 = new String ("abc");
+    final String s2 = new String ("abc");
+    assertNotSame (s1, s2);
+    assertSame (SMPCertificateCache.getInterned (s1), SMPCertificateCache.getInterned (s2));
+
+    final SMPParsedCertificate aParsed = SMPCertificateCache.getParsedCertificate (s2);
+    assertNotNull (aParsed);
+    assertSame (aParsed, SMPCertificateCache.getParsedCertificate (s1));
+    assertNull (aParsed.getX509Certificate ());
+    assertEquals ("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", aParsed.getCertificateHash ());
+
+    SMPCertificateCache.clearCache ();
+    assertEquals (0, SMPCertificateCache.size ());
+  }
+
+  @Test
+  public void testMaxSize ()
+  {
+    SMPCertificateCache.clearCache ();
+    for (int i = 0; i <= SMPCertificateCache.MAX_SIZE; ++i)
+      assertNotNull (SMPCertificateCache.getParsedCertificate ("cert" + i));
+    assertTrue (SMPCertificateCache.size () <= SMPCertificateCache.MAX_SIZE);
+
+    // Still usable after eviction
+    final SMPParsedCertificate aParsed = SMPCertificateCache.getParsedCertificate ("cert");
+    assertSame (aParsed, SMPCertificateCache.getParsedCertificate (new String ("cert")));
+    assertNull (aParsed.getX509Certificate ());
+
+    SMPCertificateCache.clearCache ();
+  }
+
+  @Test
+  public void testMaxTotalLength ()
+  {
+    SMPCertificateCache.clearCache ();
+
+    // Huge certificates are usable, but not cached
+    final String sHuge = StringHelper.getRepeated ('a', SMPCertificateCache.MAX_CERTIFICATE_LENGTH + 1);
+    final SMPParsedCertificate aParsed = SMPCertificateCache.getParsedCertificate (sHuge);
+    assertNotNull (aParsed);
+    assertSame (sHuge, aParsed.getCertificate ());
+    assertNotSame (aParsed, SMPCertificateCache.getParsedCertificate (sHuge));
+    assertEquals (0, SMPCertificateCache.size ());
+    assertEquals (0, SMPCertificateCache.getTotalLength ());
+
+    // Less entries than the maximum, but too long in total
+    final int nLength = SMPCertificateCache.MAX_CERTIFICATE_LENGTH;
+    final int nCount = (int) (SMPCertificateCache.MAX_TOTAL_LENGTH / nLength) + 10;
+    assertTrue (nCount < SMPCertificateCache.MAX_SIZE);
+    for (int i = 0; i < nCount; ++i)
+      SMPCertificateCache.getParsedCertificate (i + StringHelper.getRepeated ('b', nLength - 4));
+    assertTrue (SMPCertificateCache.size () < nCount);
+    assertTrue (SMPCertificateCache.getTotalLength () <= SMPCertificateCache.MAX_TOTAL_LENGTH);
+
+    SMPCertificateCache.clearCache ();
+  }
+
+  @Test
+  public void testHashCache ()
+  {
+    final SMPCertificateHashCache aCache = new SMPCertificateHashCache ();
+    assertNull (aCache.get ("h"));
+    assertFalse (aCache.containsKey (null));
+
+    aCache.put ("h", "cert");
+    assertTrue (aCache.containsKey ("h"));
+    assertEquals ("cert", aCache.get ("h"));
+    assertEquals (4, aCache.getTotalLength ());
+
+    // Huge certificates are not cached
+    aCache.put ("huge", StringHelper.getRepeated ('a', SMPCertificateCache.MAX_CERTIFICATE_LENGTH + 1));
+    assertFalse (aCache.containsKey ("huge"));
+
+    for (int i = 0; i <= SMPCertificateCache.MAX_SIZE; ++i)
+      aCache.put ("h" + i, "cert" + i);
+    assertTrue (aCache.size () <= SMPCertificateCache.MAX_SIZE);
+    assertTrue (aCache.getTotalLength () <= SMPCertificateCache.MAX_TOTAL_LENGTH);
+  }
+}
@@ -20,8 +20,8 @@ import java.sql.Connection;
 import java.sql.SQLException;
 
 import javax.annotation.Nonnull;
+import javax.sql.DataSource;
 
-import org.apache.commons.dbcp2.BasicDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,8 +33,11 @@ import com.helger.db.jdbc.ConnectionFromDataSource;
 import com.helger.db.jdbc.IHasConnection;
 import com.helger.db.jdbc.executor.DBNoConnectionException;
 import com.helger.phoss.smp.SMPServerConfiguration;
+import com.helger.phoss.smp.backend.sql.SMPDBExecutor;
+import com.helger.phoss.smp.backend.sql.SMPDataSourceProvider;
 import com.helger.phoss.smp.backend.sql.SMPDataSourceSingleton;
 import com.helger.phoss.smp.backend.sql.SMPJDBCConfiguration;
+import com.helger.phoss.smp.backend.sql.SMPReadReplicaConnectionProvider;
 import com.helger.phoss.smp.status.ISMPStatusProviderExtensionSPI;
 
 /**
@@ -50,14 +53,14 @@ public class SMPSQLStatusProviderExtensionSPI implements ISMPStatusProviderExten
 
   private static boolean _isDBConnectionPossible ()
   {
-    final BasicDataSource aDS = SMPDataSourceSingleton.getInstance ().getDataSourceProvider ().getDataSource ();
+    final DataSource aDS = SMPDataSourceSingleton.getInstance ().getDataSourceProvider ().getDataSource ();
     try
     {
       aDS.setLoginTimeout (1);
     }
     catch (final SQLException | UnsupportedOperationException ex)
     {
-      // Not possible on BasicDataSource
+      // Not possible on all DataSource implementations
     }
 
     // Note: maxReconnects setting for MySQL makes no difference
@@ -95,6 +98,31 @@ public class SMPSQLStatusProviderExtensionSPI implements ISMPStatusProviderExten
       ret.put ("smp.sql.target-database",
                SMPServerConfiguration.getConfigFile ().getAsString (SMPJDBCConfiguration.CONFIG_TARGET_DATABASE));
 
+      // Since 5.7.0
+      final SMPDataSourceProvider aDSP = SMPDataSourceSingleton.getInstance ().getDataSourceProvider ();
+      ret.put ("smp.sql.pool.type", aDSP.getPoolType ().getID ());
+      ret.put ("smp.sql.pool.active", Integer.valueOf (aDSP.getNumActive ()));
+      ret.put ("smp.sql.pool.idle", Integer.valueOf (aDSP.getNumIdle ()));
+      ret.put ("smp.sql.pool.waiting", Integer.valueOf (aDSP.getNumWaiting ()));
+      SMPDataSourceProvider.getConnectionAcquireTimeHistogram ()
+                           .forEach ( (k, v) -> ret.put ("smp.sql.pool.acquire-time." + k, v));
+      ret.put ("smp.sql.executor.created", Long.valueOf (SMPDBExecutor.getCreatedExecutorCount ()));
+      ret.put ("smp.sql.executor.reused", Long.valueOf (SMPDBExecutor.getReusedExecutorCount ()));
+      ret.put ("smp.sql.transaction.count", Long.valueOf (SMPDBExecutor.getTransactionCount ()));
+      ret.put ("smp.sql.transaction.nested", Long.valueOf (SMPDBExecutor.getNestedTransactionCount ()));
+
+      final SMPDataSourceProvider aReadDSP = SMPDataSourceSingleton.getInstance ().getReadDataSourceProvider ();
+      ret.put ("smp.sql.read-replica.enabled", Boolean.valueOf (aReadDSP != null));
+      if (aReadDSP != null)
+      {
+        ret.put ("smp.sql.read-replica.pool.active", Integer.valueOf (aReadDSP.getNumActive ()));
+        ret.put ("smp.sql.read-replica.pool.idle", Integer.valueOf (aReadDSP.getNumIdle ()));
+        ret.put ("smp.sql.read-replica.pool.waiting", Integer.valueOf (aReadDSP.getNumWaiting ()));
+        ret.put ("smp.sql.read-replica.executor.created", Long.valueOf (SMPDBExecutor.getReadExecutorCount ()));
+        ret.put ("smp.sql.read-replica.fallback.count",
+                 Long.valueOf (SMPReadReplicaConnectionProvider.getFallbackCount ()));
+      }
+
       if (!bDisableLongRunningOperations)
       {
         // Since 5.4.0
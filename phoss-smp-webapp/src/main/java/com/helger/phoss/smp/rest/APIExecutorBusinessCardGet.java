@@ -19,16 +19,19 @@ package com.helger.phoss.smp.rest;
 import java.util.Map;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.helger.commons.annotation.Nonempty;
 import com.helger.commons.mime.CMimeType;
 import com.helger.pd.businesscard.v3.PD3BusinessCardMarshaller;
 import com.helger.pd.businesscard.v3.PD3BusinessCardType;
+import com.helger.peppolid.IParticipantIdentifier;
 import com.helger.phoss.smp.app.SMPWebAppConfiguration;
 import com.helger.phoss.smp.domain.SMPMetaManager;
 import com.helger.phoss.smp.exception.SMPPreconditionFailedException;
 import com.helger.phoss.smp.restapi.BusinessCardServerAPI;
 import com.helger.phoss.smp.restapi.ISMPServerAPIDataProvider;
+import com.helger.phoss.smp.restapi.SMPServiceGroupVersion;
 import com.helger.photon.api.IAPIDescriptor;
 import com.helger.servlet.response.UnifiedResponse;
 import com.helger.web.scope.IRequestWebScopeWithoutResponse;
@@ -36,6 +39,13 @@ import com.helger.xml.serialize.write.XMLWriterSettings;
 
 public final class APIExecutorBusinessCardGet extends AbstractSMPAPIExecutor
 {
+  private static boolean _existsBusinessCard (@Nullable final String sServiceGroupID)
+  {
+    final IParticipantIdentifier aParticipantID = SMPMetaManager.getIdentifierCache ()
+                                                                .parseParticipantIdentifier (sServiceGroupID);
+    return aParticipantID != null && SMPMetaManager.getBusinessCardMgr ().getSMPBusinessCardOfID (aParticipantID) != null;
+  }
+
   public void invokeAPI (@Nonnull final IAPIDescriptor aAPIDescriptor,
                          @Nonnull @Nonempty final String sPath,
                          @Nonnull final Map <String, String> aPathVariables,
@@ -54,10 +64,17 @@ public final class APIExecutorBusinessCardGet extends AbstractSMPAPIExecutor
                                                 aDataProvider.getCurrentURI ());
     }
 
+    // Conditional GET
+    final SMPServiceGroupVersion aVersion = getServiceGroupVersion (sServiceGroupID);
+    final String sETag = getETag (aVersion, false, "businesscard", sServiceGroupID);
+    if (handleNotModified (aVersion, sETag, () -> _existsBusinessCard (sServiceGroupID), aRequestScope, aUnifiedResponse))
+      return;
+
     // getBusinessCard throws an exception if non is found
     final PD3BusinessCardType ret = new BusinessCardServerAPI (aDataProvider).getBusinessCard (sServiceGroupID);
     final byte [] aBytes = new PD3BusinessCardMarshaller ().getAsBytes (ret);
 
+    setServiceGroupVersion (aVersion, sETag, aUnifiedResponse);
     aUnifiedResponse.setContent (aBytes).setMimeType (CMimeType.TEXT_XML).setCharset (XMLWriterSettings.DEFAULT_XML_CHARSET_OBJ);
   }
 }
@@ -26,11 +26,10 @@ import com.helger.phoss.smp.SMPServerConfiguration;
 import com.helger.phoss.smp.exception.SMPInternalErrorException;
 import com.helger.phoss.smp.restapi.BDXR1ServerAPI;
 import com.helger.phoss.smp.restapi.ISMPServerAPIDataProvider;
+import com.helger.phoss.smp.restapi.SMPServiceGroupVersion;
 import com.helger.phoss.smp.restapi.SMPServerAPI;
 import com.helger.photon.api.IAPIDescriptor;
 import com.helger.servlet.response.UnifiedResponse;
-import com.helger.smpclient.bdxr1.marshal.BDXR1MarshallerCompleteServiceGroupType;
-import com.helger.smpclient.peppol.marshal.SMPMarshallerCompleteServiceGroupType;
 import com.helger.web.scope.IRequestWebScopeWithoutResponse;
 import com.helger.xml.serialize.write.XMLWriterSettings;
 
@@ -45,6 +44,16 @@ public final class APIExecutorServiceGroupCompleteGet extends AbstractSMPAPIExec
     final String sPathServiceGroupID = aPathVariables.get (SMPRestFilter.PARAM_SERVICE_GROUP_ID);
     final ISMPServerAPIDataProvider aDataProvider = new SMPRestDataProvider (aRequestScope, sPathServiceGroupID);
 
+    // Conditional GET - the references contain the requested host name
+    final SMPServiceGroupVersion aVersion = getServiceGroupVersion (sPathServiceGroupID);
+    final String sETag = getETag (aVersion, true, "complete", sPathServiceGroupID);
+    if (handleNotModified (aVersion,
+                           sETag,
+                           () -> existsServiceGroup (sPathServiceGroupID),
+                           aRequestScope,
+                           aUnifiedResponse))
+      return;
+
     final byte [] aBytes;
     switch (SMPServerConfiguration.getRESTType ())
     {
@@ -52,14 +61,14 @@ public final class APIExecutorServiceGroupCompleteGet extends AbstractSMPAPIExec
       {
         // Unspecified extension
         final com.helger.xsds.peppol.smp1.CompleteServiceGroupType ret = new SMPServerAPI (aDataProvider).getCompleteServiceGroup (sPathServiceGroupID);
-        aBytes = new SMPMarshallerCompleteServiceGroupType (XML_SCHEMA_VALIDATION).getAsBytes (ret);
+        aBytes = SMPResponseMarshallers.getPeppolCompleteServiceGroup ().getAsBytes (ret);
         break;
       }
       case OASIS_BDXR_V1:
       {
         // Unspecified extension
         final com.helger.xsds.bdxr.smp1.CompleteServiceGroupType ret = new BDXR1ServerAPI (aDataProvider).getCompleteServiceGroup (sPathServiceGroupID);
-        aBytes = new BDXR1MarshallerCompleteServiceGroupType (XML_SCHEMA_VALIDATION).getAsBytes (ret);
+        aBytes = SMPResponseMarshallers.getBDXR1CompleteServiceGroup ().getAsBytes (ret);
         break;
       }
       // Not supported with OASIS BDXR v2
@@ -73,6 +82,7 @@ public final class APIExecutorServiceGroupCompleteGet extends AbstractSMPAPIExec
       throw new SMPInternalErrorException ("Failed to convert the returned CompleteServiceGroup to XML");
     }
 
+    setServiceGroupVersion (aVersion, sETag, aUnifiedResponse);
     aUnifiedResponse.setContent (aBytes)
                     .setMimeType (CMimeType.TEXT_XML)
                     .setCharset (XMLWriterSettings.DEFAULT_XML_CHARSET_OBJ);
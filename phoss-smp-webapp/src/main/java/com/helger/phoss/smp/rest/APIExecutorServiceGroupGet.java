@@ -27,12 +27,10 @@ import com.helger.phoss.smp.exception.SMPInternalErrorException;
 import com.helger.phoss.smp.restapi.BDXR1ServerAPI;
 import com.helger.phoss.smp.restapi.BDXR2ServerAPI;
 import com.helger.phoss.smp.restapi.ISMPServerAPIDataProvider;
+import com.helger.phoss.smp.restapi.SMPServiceGroupVersion;
 import com.helger.phoss.smp.restapi.SMPServerAPI;
 import com.helger.photon.api.IAPIDescriptor;
 import com.helger.servlet.response.UnifiedResponse;
-import com.helger.smpclient.bdxr1.marshal.BDXR1MarshallerServiceGroupType;
-import com.helger.smpclient.bdxr2.marshal.BDXR2MarshallerServiceGroup;
-import com.helger.smpclient.peppol.marshal.SMPMarshallerServiceGroupType;
 import com.helger.web.scope.IRequestWebScopeWithoutResponse;
 import com.helger.xml.serialize.write.XMLWriterSettings;
 
@@ -47,25 +45,35 @@ public final class APIExecutorServiceGroupGet extends AbstractSMPAPIExecutor
     final String sPathServiceGroupID = aPathVariables.get (SMPRestFilter.PARAM_SERVICE_GROUP_ID);
     final ISMPServerAPIDataProvider aDataProvider = new SMPRestDataProvider (aRequestScope, sPathServiceGroupID);
 
+    // Conditional GET - the references contain the requested host name
+    final SMPServiceGroupVersion aVersion = getServiceGroupVersion (sPathServiceGroupID);
+    final String sETag = getETag (aVersion, true, "servicegroup", sPathServiceGroupID);
+    if (handleNotModified (aVersion,
+                           sETag,
+                           () -> existsServiceGroup (sPathServiceGroupID),
+                           aRequestScope,
+                           aUnifiedResponse))
+      return;
+
     final byte [] aBytes;
     switch (SMPServerConfiguration.getRESTType ())
     {
       case PEPPOL:
       {
         final com.helger.xsds.peppol.smp1.ServiceGroupType ret = new SMPServerAPI (aDataProvider).getServiceGroup (sPathServiceGroupID);
-        aBytes = new SMPMarshallerServiceGroupType (XML_SCHEMA_VALIDATION).getAsBytes (ret);
+        aBytes = SMPResponseMarshallers.getPeppolServiceGroup ().getAsBytes (ret);
         break;
       }
       case OASIS_BDXR_V1:
       {
         final com.helger.xsds.bdxr.smp1.ServiceGroupType ret = new BDXR1ServerAPI (aDataProvider).getServiceGroup (sPathServiceGroupID);
-        aBytes = new BDXR1MarshallerServiceGroupType (XML_SCHEMA_VALIDATION).getAsBytes (ret);
+        aBytes = SMPResponseMarshallers.getBDXR1ServiceGroup ().getAsBytes (ret);
         break;
       }
       case OASIS_BDXR_V2:
       {
         final com.helger.xsds.bdxr.smp2.ServiceGroupType ret = new BDXR2ServerAPI (aDataProvider).getServiceGroup (sPathServiceGroupID);
-        aBytes = new BDXR2MarshallerServiceGroup (XML_SCHEMA_VALIDATION).getAsBytes (ret);
+        aBytes = SMPResponseMarshallers.getBDXR2ServiceGroup ().getAsBytes (ret);
         break;
       }
       default:
@@ -78,6 +86,7 @@ public final class APIExecutorServiceGroupGet extends AbstractSMPAPIExecutor
       throw new SMPInternalErrorException ("Failed to convert the returned ServiceGroup to XML");
     }
 
+    setServiceGroupVersion (aVersion, sETag, aUnifiedResponse);
     aUnifiedResponse.setContent (aBytes)
                     .setMimeType (CMimeType.TEXT_XML)
                     .setCharset (XMLWriterSettings.DEFAULT_XML_CHARSET_OBJ);
@@ -0,0 +1,349 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.phoss.smp.rest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.servlet.http.HttpServletRequest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.CGlobal;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.http.CHttp;
+import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
+import com.helger.commons.mime.CMimeType;
+import com.helger.commons.mime.EMimeContentType;
+import com.helger.commons.mime.MimeType;
+import com.helger.commons.random.RandomHelper;
+import com.helger.commons.string.StringHelper;
+import com.helger.commons.timing.StopWatch;
+import com.helger.peppolid.IDocumentTypeIdentifier;
+import com.helger.peppolid.IParticipantIdentifier;
+import com.helger.phoss.smp.ESMPRESTType;
+import com.helger.phoss.smp.SMPServerConfiguration;
+import com.helger.phoss.smp.domain.SMPIdentifierCache;
+import com.helger.phoss.smp.domain.SMPMetaManager;
+import com.helger.phoss.smp.domain.redirect.ISMPRedirect;
+import com.helger.phoss.smp.domain.redirect.ISMPRedirectManager;
+import com.helger.phoss.smp.domain.servicegroup.ISMPServiceGroup;
+import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformation;
+import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformationManager;
+import com.helger.phoss.smp.exception.SMPBadRequestException;
+import com.helger.phoss.smp.exception.SMPInternalErrorException;
+import com.helger.phoss.smp.restapi.ISMPServerAPIDataProvider;
+import com.helger.phoss.smp.restapi.SMPNegativeLookupCache;
+import com.helger.phoss.smp.restapi.SMPSignedResponseCache;
+import com.helger.photon.api.IAPIDescriptor;
+import com.helger.servlet.response.UnifiedResponse;
+import com.helger.web.scope.IRequestWebScopeWithoutResponse;
+import com.helger.xml.serialize.write.XMLWriterSettings;
+
+/**
+ * Read-only API to retrieve the signed service metadata of multiple service
+ * group and document type combinations with a single HTTP request.<br>
+ * The request body is plain text with one combination per line, consisting of
+ * the URI encoded service group ID and the URI encoded document type ID,
+ * separated by whitespace. Empty lines and lines starting with <code>#</code>
+ * are ignored. The request body may contain at most {@link #MAX_ENTRIES}
+ * combinations and {@link #MAX_REQUEST_BYTES} bytes.<br>
+ * The response is a <code>multipart/mixed</code> message with one part per
+ * requested combination in request order. Each part contains the headers
+ * {@link #PART_HEADER_SERVICE_GROUP_ID}, {@link #PART_HEADER_DOCUMENT_TYPE_ID}
+ * and {@link #PART_HEADER_STATUS}. If the status is 200, the part body is the
+ * signed response exactly as returned by the single service metadata API.
+ * Otherwise it is a plain text error message.
+ *
+ * @author Philip Helger
+ * @since 5.7.0
+ */
+public final class APIExecutorServiceMetadataBatchPost extends AbstractSMPAPIExecutor
+{
+  /** The maximum number of combinations per request */
+  public static final int MAX_ENTRIES = 100;
+  /** The maximum size of the request body in bytes */
+  public static final int MAX_REQUEST_BYTES = 256 * CGlobal.BYTES_PER_KILOBYTE;
+  public static final String PART_HEADER_SERVICE_GROUP_ID = "SMP-Service-Group-ID";
+  public static final String PART_HEADER_DOCUMENT_TYPE_ID = "SMP-Document-Type-ID";
+  public static final String PART_HEADER_STATUS = "SMP-Status";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (APIExecutorServiceMetadataBatchPost.class);
+  private static final byte [] CRLF = { '\r', '\n' };
+
+  /**
+   * A single requested combination
+   *
+   * @author Philip Helger
+   */
+  private static final class Entry
+  {
+    private final String m_sServiceGroupID;
+    private final String m_sDocTypeID;
+    private int m_nStatus = CHttp.HTTP_NOT_FOUND;
+    private byte [] m_aContent;
+
+    Entry (@Nonnull final String sServiceGroupID, @Nonnull final String sDocTypeID)
+    {
+      m_sServiceGroupID = sServiceGroupID;
+      m_sDocTypeID = sDocTypeID;
+    }
+
+    void setError (final int nStatus, @Nonnull final String sMessage)
+    {
+      m_nStatus = nStatus;
+      m_aContent = sMessage.getBytes (StandardCharsets.UTF_8);
+    }
+
+    void setSuccess (@Nonnull final byte [] aContent)
+    {
+      m_nStatus = CHttp.HTTP_OK;
+      m_aContent = aContent;
+    }
+  }
+
+  @Nonnull
+  private static byte [] _readPayload (@Nonnull final IRequestWebScopeWithoutResponse aRequestScope,
+                                       @Nonnull final ISMPServerAPIDataProvider aDataProvider) throws IOException,
+                                                                                               SMPBadRequestException
+  {
+    // Fail early if the size is known
+    final HttpServletRequest aRequest = aRequestScope.getRequest ();
+    if (aRequest.getContentLength () > MAX_REQUEST_BYTES)
+      throw new SMPBadRequestException ("The request body must not exceed " + MAX_REQUEST_BYTES + " bytes",
+                                        aDataProvider.getCurrentURI ());
+
+    // Never read more than the limit, e.g. for chunked requests
+    final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+    try (final InputStream aIS = aRequest.getInputStream ())
+    {
+      final byte [] aBuffer = new byte [8192];
+      int nRead;
+      while ((nRead = aIS.read (aBuffer, 0, aBuffer.length)) != -1)
+      {
+        if (aBAOS.size () + nRead > MAX_REQUEST_BYTES)
+          throw new SMPBadRequestException ("The request body must not exceed " + MAX_REQUEST_BYTES + " bytes",
+                                            aDataProvider.getCurrentURI ());
+        aBAOS.write (aBuffer, 0, nRead);
+      }
+    }
+    return aBAOS.toByteArray ();
+  }
+
+  @Nonnull
+  private static ICommonsList <Entry> _parseRequest (@Nonnull final byte [] aPayload,
+                                                     @Nonnull final ISMPServerAPIDataProvider aDataProvider) throws SMPBadRequestException
+  {
+    final ICommonsList <Entry> ret = new CommonsArrayList <> ();
+    for (final String sLine : StringHelper.getExploded ('\n', new String (aPayload, StandardCharsets.UTF_8)))
+    {
+      final String sTrimmed = sLine.trim ();
+      if (sTrimmed.isEmpty () || sTrimmed.startsWith ("#"))
+        continue;
+
+      final String [] aParts = sTrimmed.split ("\\s+");
+      if (aParts.length != 2)
+        throw new SMPBadRequestException ("Expected a service group ID and a document type ID in line '" +
+                                          sTrimmed +
+                                          "'",
+                                          aDataProvider.getCurrentURI ());
+      ret.add (new Entry (aParts[0], aParts[1]));
+      if (ret.size () > MAX_ENTRIES)
+        throw new SMPBadRequestException ("At most " + MAX_ENTRIES + " entries are allowed per request",
+                                          aDataProvider.getCurrentURI ());
+    }
+    if (ret.isEmpty ())
+      throw new SMPBadRequestException ("The request contains no entries", aDataProvider.getCurrentURI ());
+    return ret;
+  }
+
+  private static void _resolve (@Nonnull final ICommonsList <Entry> aEntries,
+                                @Nonnull final ESMPRESTType eRESTType) throws SMPInternalErrorException
+  {
+    final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+    final ISMPRedirectManager aRedirectMgr = SMPMetaManager.getRedirectMgr ();
+    final ISMPServiceInformationManager aServiceInfoMgr = SMPMetaManager.getServiceInformationMgr ();
+    final SMPSignedResponseCache aResponseCache = SMPSignedResponseCache.isEnabled () ? SMPSignedResponseCache.getInstance ()
+                                                                                      : null;
+    // Must be retrieved before the backend is queried
+    final long nCacheGeneration = aResponseCache == null ? 0 : aResponseCache.getGeneration ();
+
+    // Each service group is read only once
+    final ICommonsMap <String, ISMPServiceGroup> aServiceGroups = new CommonsHashMap <> ();
+    for (final Entry aEntry : aEntries)
+    {
+      final IParticipantIdentifier aServiceGroupID = aIdentifierCache.parseParticipantIdentifier (aEntry.m_sServiceGroupID);
+      if (aServiceGroupID == null)
+      {
+        aEntry.setError (CHttp.HTTP_BAD_REQUEST, "Failed to parse Service Group ID '" + aEntry.m_sServiceGroupID + "'");
+        continue;
+      }
+      final IDocumentTypeIdentifier aDocTypeID = aIdentifierCache.parseDocumentTypeIdentifier (aEntry.m_sDocTypeID);
+      if (aDocTypeID == null)
+      {
+        aEntry.setError (CHttp.HTTP_BAD_REQUEST, "Failed to parse Document Type ID '" + aEntry.m_sDocTypeID + "'");
+        continue;
+      }
+
+      if (SMPNegativeLookupCache.isUnknownServiceGroupDocTypeIfEnabled (aServiceGroupID, aDocTypeID))
+      {
+        aEntry.setError (CHttp.HTTP_NOT_FOUND, "service(" + aEntry.m_sServiceGroupID + "," + aEntry.m_sDocTypeID + ")");
+        continue;
+      }
+
+      if (aResponseCache != null)
+      {
+        final byte [] aCachedBytes = aResponseCache.get (aServiceGroupID, aDocTypeID, eRESTType);
+        if (aCachedBytes != null)
+        {
+          aEntry.setSuccess (aCachedBytes);
+          continue;
+        }
+      }
+
+      // Unknown service groups are remembered as well
+      final ISMPServiceGroup aServiceGroup;
+      if (aServiceGroups.containsKey (aEntry.m_sServiceGroupID))
+        aServiceGroup = aServiceGroups.get (aEntry.m_sServiceGroupID);
+      else
+      {
+        aServiceGroup = SMPMetaManager.getServiceGroupMgr ().getSMPServiceGroupOfID (aServiceGroupID);
+        aServiceGroups.put (aEntry.m_sServiceGroupID, aServiceGroup);
+      }
+      if (aServiceGroup == null)
+      {
+        aEntry.setError (CHttp.HTTP_NOT_FOUND, "Unknown Service Group '" + aEntry.m_sServiceGroupID + "'");
+        continue;
+      }
+
+      // First check for redirection, then for actual service
+      // Use the same lookup as the single service metadata API, so that the
+      // document type matching is identical
+      final ISMPRedirect aRedirect = aRedirectMgr.getSMPRedirectOfServiceGroupAndDocumentType (aServiceGroup,
+                                                                                               aDocTypeID);
+      final ISMPServiceInformation aServiceInfo = aRedirect != null ? null
+                                                                    : aServiceInfoMgr.getSMPServiceInformationOfServiceGroupAndDocumentType (aServiceGroup,
+                                                                                                                                             aDocTypeID);
+      final byte [] aSignedBytes = SMPSignedResponseHelper.createSignedServiceMetadata (aRedirect,
+                                                                                        aServiceInfo,
+                                                                                        eRESTType);
+      if (aSignedBytes == null)
+      {
+        aEntry.setError (CHttp.HTTP_NOT_FOUND, "service(" + aEntry.m_sServiceGroupID + "," + aEntry.m_sDocTypeID + ")");
+        continue;
+      }
+
+      if (aResponseCache != null)
+        aResponseCache.put (aServiceGroupID, aDocTypeID, eRESTType, aSignedBytes, nCacheGeneration);
+      aEntry.setSuccess (aSignedBytes);
+    }
+  }
+
+  private static void _write (@Nonnull final NonBlockingByteArrayOutputStream aBAOS, @Nonnull final byte [] aBytes)
+  {
+    aBAOS.write (aBytes, 0, aBytes.length);
+  }
+
+  private static void _write (@Nonnull final NonBlockingByteArrayOutputStream aBAOS, @Nonnull final String s)
+  {
+    _write (aBAOS, s.getBytes (StandardCharsets.UTF_8));
+  }
+
+  private static void _writeHeader (@Nonnull final NonBlockingByteArrayOutputStream aBAOS,
+                                    @Nonnull final String sName,
+                                    @Nonnull final String sValue)
+  {
+    _write (aBAOS, sName + ": " + sValue);
+    _write (aBAOS, CRLF);
+  }
+
+  @Nonnull
+  private static byte [] _createMultipart (@Nonnull final ICommonsList <Entry> aEntries, @Nonnull final String sBoundary)
+  {
+    final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+    for (final Entry aEntry : aEntries)
+    {
+      _write (aBAOS, "--" + sBoundary);
+      _write (aBAOS, CRLF);
+      _writeHeader (aBAOS,
+                    "Content-Type",
+                    aEntry.m_nStatus == CHttp.HTTP_OK ? CMimeType.TEXT_XML.getAsString () +
+                                                        "; charset=" +
+                                                        XMLWriterSettings.DEFAULT_XML_CHARSET
+                                                      : CMimeType.TEXT_PLAIN.getAsString () + "; charset=UTF-8");
+      _writeHeader (aBAOS, PART_HEADER_SERVICE_GROUP_ID, aEntry.m_sServiceGroupID);
+      _writeHeader (aBAOS, PART_HEADER_DOCUMENT_TYPE_ID, aEntry.m_sDocTypeID);
+      _writeHeader (aBAOS, PART_HEADER_STATUS, Integer.toString (aEntry.m_nStatus));
+      _write (aBAOS, CRLF);
+      if (aEntry.m_aContent != null)
+        _write (aBAOS, aEntry.m_aContent);
+      _write (aBAOS, CRLF);
+    }
+    _write (aBAOS, "--" + sBoundary + "--");
+    _write (aBAOS, CRLF);
+    return aBAOS.toByteArray ();
+  }
+
+  public void invokeAPI (@Nonnull final IAPIDescriptor aAPIDescriptor,
+                         @Nonnull @Nonempty final String sPath,
+                         @Nonnull final Map <String, String> aPathVariables,
+                         @Nonnull final IRequestWebScopeWithoutResponse aRequestScope,
+                         @Nonnull final UnifiedResponse aUnifiedResponse) throws Exception
+  {
+    final ISMPServerAPIDataProvider aDataProvider = new SMPRestDataProvider (aRequestScope, null);
+    final ESMPRESTType eRESTType = SMPServerConfiguration.getRESTType ();
+    final StopWatch aSW = StopWatch.createdStarted ();
+
+    final byte [] aPayload = _readPayload (aRequestScope, aDataProvider);
+    final ICommonsList <Entry> aEntries = _parseRequest (aPayload, aDataProvider);
+
+    _resolve (aEntries, eRESTType);
+
+    // Same logging and statistics as for single requests
+    for (final Entry aEntry : aEntries)
+      onServiceRegistrationShortcut (eRESTType,
+                                     aEntry.m_sServiceGroupID,
+                                     aEntry.m_sDocTypeID,
+                                     "batch",
+                                     aEntry.m_nStatus == CHttp.HTTP_OK ? null
+                                                                       : new String (aEntry.m_aContent,
+                                                                                     StandardCharsets.UTF_8));
+
+    final String sBoundary = "smp-batch-" + Long.toString (RandomHelper.getRandom ().nextLong () & Long.MAX_VALUE, 36);
+    final byte [] aResponse = _createMultipart (aEntries, sBoundary);
+
+    if (LOGGER.isInfoEnabled ())
+      LOGGER.info ("Successfully created batch response with " +
+                   aEntries.size () +
+                   " entries (" +
+                   aEntries.getCount (x -> x.m_nStatus == CHttp.HTTP_OK) +
+                   " found) in " +
+                   aSW.stopAndGetMillis () +
+                   " milliseconds");
+
+    aUnifiedResponse.setContent (aResponse)
+                    .setMimeType (new MimeType (EMimeContentType.MULTIPART, "mixed").addParameter ("boundary", sBoundary));
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.phoss.smp.rest;
+
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.http.CHttp;
+import com.helger.commons.io.stream.StreamHelper;
+import com.helger.commons.state.ESuccess;
+import com.helger.commons.timing.StopWatch;
+import com.helger.http.basicauth.BasicAuthClientCredentials;
+import com.helger.phoss.smp.SMPServerConfiguration;
+import com.helger.phoss.smp.domain.SMPMetaManager;
+import com.helger.phoss.smp.exception.SMPBadRequestException;
+import com.helger.phoss.smp.exception.SMPPreconditionFailedException;
+import com.helger.phoss.smp.restapi.BDXR1ServerAPI;
+import com.helger.phoss.smp.restapi.ISMPServerAPIDataProvider;
+import com.helger.phoss.smp.restapi.SMPServerAPI;
+import com.helger.photon.api.IAPIDescriptor;
+import com.helger.servlet.response.UnifiedResponse;
+import com.helger.smpclient.bdxr1.marshal.BDXR1MarshallerServiceMetadataType;
+import com.helger.smpclient.peppol.marshal.SMPMarshallerServiceMetadataType;
+import com.helger.web.scope.IRequestWebScopeWithoutResponse;
+import com.helger.xml.serialize.read.DOMReader;
+
+/**
+ * Writable API to create or update the service metadata of multiple service
+ * group and document type combinations with a single HTTP request.<br>
+ * The request body is an XML document with an arbitrary root element, that
+ * contains one <code>ServiceMetadata</code> element per combination. Each
+ * element must contain a <code>ServiceInformation</code> - redirects are not
+ * supported. The service group and document type IDs are taken from the
+ * payload. All elements are validated before the first one is saved. The
+ * atomicity of the save depends on the backend: the SQL backend uses a single
+ * transaction, so either all or none are saved. The MongoDB backend uses a
+ * single ordered bulk write - on error the elements before the failing one
+ * stay saved. The XML backend saves one after the other.<br>
+ * This API is only available for the Peppol and the OASIS BDXR SMP v1 REST
+ * types.
+ *
+ * @author Philip Helger
+ * @since 5.7.0
+ */
+public final class APIExecutorServiceMetadataBulkPut extends AbstractSMPAPIExecutor
+{
+  /** The maximum number of service metadata elements per request */
+  public static final int MAX_ENTRIES = 1_000;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (APIExecutorServiceMetadataBulkPut.class);
+
+  @Nonnull
+  private static ICommonsList <Element> _getAllEntries (@Nonnull final Document aDoc,
+                                                        @Nonnull final ISMPServerAPIDataProvider aDataProvider) throws SMPBadRequestException
+  {
+    final ICommonsList <Element> ret = new CommonsArrayList <> ();
+    Node aChild = aDoc.getDocumentElement ().getFirstChild ();
+    while (aChild != null)
+    {
+      if (aChild instanceof Element)
+      {
+        ret.add ((Element) aChild);
+        if (ret.size () > MAX_ENTRIES)
+          throw new SMPBadRequestException ("At most " + MAX_ENTRIES + " entries are allowed per request",
+                                            aDataProvider.getCurrentURI ());
+      }
+      aChild = aChild.getNextSibling ();
+    }
+    if (ret.isEmpty ())
+      throw new SMPBadRequestException ("The request contains no entries", aDataProvider.getCurrentURI ());
+    return ret;
+  }
+
+  public void invokeAPI (@Nonnull final IAPIDescriptor aAPIDescriptor,
+                         @Nonnull @Nonempty final String sPath,
+                         @Nonnull final Map <String, String> aPathVariables,
+                         @Nonnull final IRequestWebScopeWithoutResponse aRequestScope,
+                         @Nonnull final UnifiedResponse aUnifiedResponse) throws Exception
+  {
+    final ISMPServerAPIDataProvider aDataProvider = new SMPRestDataProvider (aRequestScope, null);
+
+    // Is the writable API disabled?
+    if (SMPMetaManager.getSettings ().isRESTWritableAPIDisabled ())
+    {
+      throw new SMPPreconditionFailedException ("The writable REST API is disabled. saveServiceRegistrations will not be executed",
+                                                aDataProvider.getCurrentURI ());
+    }
+
+    final StopWatch aSW = StopWatch.createdStarted ();
+
+    // Parse main payload
+    final byte [] aPayload = StreamHelper.getAllBytes (aRequestScope.getRequest ().getInputStream ());
+    final Document aBulkDoc = DOMReader.readXMLDOM (aPayload);
+    if (aBulkDoc == null)
+    {
+      throw new SMPBadRequestException ("Failed to parse provided payload as XML", aDataProvider.getCurrentURI ());
+    }
+    final ICommonsList <Element> aEntries = _getAllEntries (aBulkDoc, aDataProvider);
+
+    final BasicAuthClientCredentials aBasicAuth = getMandatoryAuth (aRequestScope.headers ());
+
+    final ESuccess eSuccess;
+    switch (SMPServerConfiguration.getRESTType ())
+    {
+      case PEPPOL:
+      {
+        // Create the marshaller only once
+        final SMPMarshallerServiceMetadataType aMarshaller = new SMPMarshallerServiceMetadataType (XML_SCHEMA_VALIDATION);
+        final ICommonsList <com.helger.xsds.peppol.smp1.ServiceMetadataType> aServiceMetadatas = new CommonsArrayList <> ();
+        for (final Element aEntry : aEntries)
+        {
+          final com.helger.xsds.peppol.smp1.ServiceMetadataType aServiceMetadata = aMarshaller.read (aEntry);
+          if (aServiceMetadata == null)
+            throw new SMPBadRequestException ("Failed to parse entry " +
+                                              (aServiceMetadatas.size () + 1) +
+                                              " as Service Metadata",
+                                              aDataProvider.getCurrentURI ());
+          aServiceMetadatas.add (aServiceMetadata);
+        }
+        eSuccess = new SMPServerAPI (aDataProvider).saveServiceRegistrations (aServiceMetadatas, aBasicAuth);
+        break;
+      }
+      case OASIS_BDXR_V1:
+      {
+        // Create the marshaller only once
+        final BDXR1MarshallerServiceMetadataType aMarshaller = new BDXR1MarshallerServiceMetadataType (XML_SCHEMA_VALIDATION);
+        final ICommonsList <com.helger.xsds.bdxr.smp1.ServiceMetadataType> aServiceMetadatas = new CommonsArrayList <> ();
+        for (final Element aEntry : aEntries)
+        {
+          final com.helger.xsds.bdxr.smp1.ServiceMetadataType aServiceMetadata = aMarshaller.read (aEntry);
+          if (aServiceMetadata == null)
+            throw new SMPBadRequestException ("Failed to parse entry " +
+                                              (aServiceMetadatas.size () + 1) +
+                                              " as Service Metadata",
+                                              aDataProvider.getCurrentURI ());
+          aServiceMetadatas.add (aServiceMetadata);
+        }
+        eSuccess = new BDXR1ServerAPI (aDataProvider).saveServiceRegistrations (aServiceMetadatas, aBasicAuth);
+        break;
+      }
+      case OASIS_BDXR_V2:
+        throw new SMPBadRequestException ("The bulk API is not supported for OASIS BDXR SMP v2",
+                                          aDataProvider.getCurrentURI ());
+      default:
+        throw new UnsupportedOperationException ("Unsupported REST type specified!");
+    }
+
+    if (eSuccess.isFailure ())
+      aUnifiedResponse.setStatus (CHttp.HTTP_INTERNAL_SERVER_ERROR);
+    else
+    {
+      if (LOGGER.isInfoEnabled ())
+        LOGGER.info ("Successfully saved " +
+                     aEntries.size () +
+                     " Service Metadata elements in " +
+                     aSW.stopAndGetMillis () +
+                     " milliseconds");
+      aUnifiedResponse.setStatus (CHttp.HTTP_OK).disableCaching ();
+    }
+  }
+}
@@ -19,35 +19,29 @@ package com.helger.phoss.smp.rest;
 import java.util.Map;
 
 import javax.annotation.Nonnull;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 
 import com.helger.commons.annotation.Nonempty;
-import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
 import com.helger.commons.mime.CMimeType;
+import com.helger.peppolid.IDocumentTypeIdentifier;
+import com.helger.peppolid.IParticipantIdentifier;
+import com.helger.phoss.smp.ESMPRESTType;
 import com.helger.phoss.smp.SMPServerConfiguration;
-import com.helger.phoss.smp.exception.SMPInternalErrorException;
+import com.helger.phoss.smp.domain.SMPIdentifierCache;
+import com.helger.phoss.smp.domain.SMPMetaManager;
 import com.helger.phoss.smp.restapi.BDXR1ServerAPI;
 import com.helger.phoss.smp.restapi.BDXR2ServerAPI;
 import com.helger.phoss.smp.restapi.ISMPServerAPIDataProvider;
 import com.helger.phoss.smp.restapi.SMPServerAPI;
-import com.helger.phoss.smp.security.SMPKeyManager;
+import com.helger.phoss.smp.restapi.SMPServiceGroupVersion;
+import com.helger.phoss.smp.restapi.SMPSignedResponseCache;
 import com.helger.photon.api.IAPIDescriptor;
 import com.helger.servlet.response.UnifiedResponse;
-import com.helger.smpclient.bdxr1.marshal.BDXR1MarshallerSignedServiceMetadataType;
-import com.helger.smpclient.bdxr2.marshal.BDXR2MarshallerServiceMetadata;
-import com.helger.smpclient.peppol.marshal.SMPMarshallerSignedServiceMetadataType;
 import com.helger.web.scope.IRequestWebScopeWithoutResponse;
-import com.helger.xml.serialize.write.IXMLWriterSettings;
-import com.helger.xml.serialize.write.XMLWriter;
 import com.helger.xml.serialize.write.XMLWriterSettings;
-import com.helger.xml.transform.XMLTransformerFactory;
 
 public final class APIExecutorServiceMetadataGet extends AbstractSMPAPIExecutor
 {
@@ -62,10 +56,68 @@ public final class APIExecutorServiceMetadataGet extends AbstractSMPAPIExecutor
     final String sPathServiceGroupID = aPathVariables.get (SMPRestFilter.PARAM_SERVICE_GROUP_ID);
     final String sPathDocumentTypeID = aPathVariables.get (SMPRestFilter.PARAM_DOCUMENT_TYPE_ID);
     final ISMPServerAPIDataProvider aDataProvider = new SMPRestDataProvider (aRequestScope, sPathServiceGroupID);
+    final ESMPRESTType eRESTType = SMPServerConfiguration.getRESTType ();
+
+    // Conditional GET - no need to sign anything
+    // The version must be retrieved before the backend is queried
+    final SMPServiceGroupVersion aVersion = getServiceGroupVersion (sPathServiceGroupID);
+    final String sETag = getETag (aVersion, false, "metadata", sPathServiceGroupID, sPathDocumentTypeID);
+
+    // Check if a signed response is already cached
+    final SMPSignedResponseCache aResponseCache;
+    final IParticipantIdentifier aPathServiceGroupID;
+    final IDocumentTypeIdentifier aPathDocTypeID;
+    final long nCacheGeneration;
+    final byte [] aCachedBytes;
+    if (SMPSignedResponseCache.isEnabled ())
+    {
+      // Invalid identifiers are handled by the regular code path below
+      final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+      aResponseCache = SMPSignedResponseCache.getInstance ();
+      aPathServiceGroupID = aIdentifierCache.parseParticipantIdentifier (sPathServiceGroupID);
+      aPathDocTypeID = aIdentifierCache.parseDocumentTypeIdentifier (sPathDocumentTypeID);
+      // Must be retrieved before the backend is queried
+      nCacheGeneration = aResponseCache.getGeneration ();
+      aCachedBytes = aPathServiceGroupID != null && aPathDocTypeID != null ? aResponseCache.get (aPathServiceGroupID,
+                                                                                                   aPathDocTypeID,
+                                                                                                   eRESTType)
+                                                                            : null;
+    }
+    else
+    {
+      aResponseCache = null;
+      aPathServiceGroupID = null;
+      aPathDocTypeID = null;
+      nCacheGeneration = 0;
+      aCachedBytes = null;
+    }
+
+    // A cached response implies that the resource exists
+    if (handleNotModified (aVersion,
+                           sETag,
+                           () -> aCachedBytes != null || existsServiceMetadata (sPathServiceGroupID, sPathDocumentTypeID),
+                           aRequestScope,
+                           aUnifiedResponse))
+    {
+      onServiceRegistrationShortcut (eRESTType, sPathServiceGroupID, sPathDocumentTypeID, "not modified", null);
+      return;
+    }
+
+    if (aCachedBytes != null)
+    {
+      if (LOGGER.isDebugEnabled ())
+        LOGGER.debug ("Using cached signed response for '" + sPathServiceGroupID + "' and '" + sPathDocumentTypeID + "'");
+      onServiceRegistrationShortcut (eRESTType, sPathServiceGroupID, sPathDocumentTypeID, "cached", null);
+      setServiceGroupVersion (aVersion, sETag, aUnifiedResponse);
+      aUnifiedResponse.setContent (aCachedBytes)
+                      .setMimeType (CMimeType.TEXT_XML)
+                      .setCharset (XMLWriterSettings.DEFAULT_XML_CHARSET_OBJ);
+      return;
+    }
 
     // Create the unsigned response document
     final Document aDoc;
-    switch (SMPServerConfiguration.getRESTType ())
+    switch (eRESTType)
     {
       case PEPPOL:
       {
@@ -73,9 +125,7 @@ public final class APIExecutorServiceMetadataGet extends AbstractSMPAPIExecutor
                                                                                                                                    sPathDocumentTypeID);
 
         // Convert to DOM document
-        // Disable XSD check, because Signature is added later
-        final SMPMarshallerSignedServiceMetadataType aMarshaller = new SMPMarshallerSignedServiceMetadataType (false);
-        aDoc = aMarshaller.getAsDocument (ret);
+        aDoc = SMPSignedResponseHelper.getAsDocumentPeppol (ret);
         break;
       }
       case OASIS_BDXR_V1:
@@ -84,9 +134,7 @@ public final class APIExecutorServiceMetadataGet extends AbstractSMPAPIExecutor
                                                                                                                                    sPathDocumentTypeID);
 
         // Convert to DOM document
-        // Disable XSD check, because Signature is added later
-        final BDXR1MarshallerSignedServiceMetadataType aMarshaller = new BDXR1MarshallerSignedServiceMetadataType (false);
-        aDoc = aMarshaller.getAsDocument (ret);
+        aDoc = SMPSignedResponseHelper.getAsDocumentBDXR1 (ret);
         break;
       }
       case OASIS_BDXR_V2:
@@ -95,9 +143,7 @@ public final class APIExecutorServiceMetadataGet extends AbstractSMPAPIExecutor
                                                                                                                              sPathDocumentTypeID);
 
         // Convert to DOM document
-        // Disable XSD check, because Signature is added later
-        final BDXR2MarshallerServiceMetadata aMarshaller = new BDXR2MarshallerServiceMetadata (false);
-        aDoc = aMarshaller.getAsDocument (ret);
+        aDoc = SMPSignedResponseHelper.getAsDocumentBDXR2 (ret);
         break;
       }
       default:
@@ -106,47 +152,16 @@ public final class APIExecutorServiceMetadataGet extends AbstractSMPAPIExecutor
     if (aDoc == null)
       throw new IllegalStateException ("Failed to serialize unsigned node!");
 
-    // Sign the document
-    try
-    {
-      SMPKeyManager.getInstance ().signXML (aDoc.getDocumentElement (), SMPServerConfiguration.getRESTType ());
-      LOGGER.info ("Successfully signed response XML");
-    }
-    catch (final Exception ex)
-    {
-      throw new SMPInternalErrorException ("Error in signing the response XML", ex);
-    }
+    // Sign and serialize the document
+    final byte [] aSignedBytes = SMPSignedResponseHelper.signAndSerialize (aDoc, eRESTType);
+    LOGGER.info ("Successfully signed response XML");
 
-    // Serialize the signed document
-    try (final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ())
-    {
-      if (false)
-      {
-        // IMPORTANT: no indent and no align!
-        final IXMLWriterSettings aSettings = XMLWriterSettings.createForCanonicalization ();
+    if (aResponseCache != null && aPathServiceGroupID != null && aPathDocTypeID != null)
+      aResponseCache.put (aPathServiceGroupID, aPathDocTypeID, eRESTType, aSignedBytes, nCacheGeneration);
 
-        // Write the result to a byte array
-        if (XMLWriter.writeToStream (aDoc, aBAOS, aSettings).isFailure ())
-          throw new IllegalStateException ("Failed to serialize signed node!");
-      }
-      else
-      {
-        // Use this because it correctly serializes &#13; which is important
-        // for validating the signature!
-        try
-        {
-          final Transformer aTransformer = XMLTransformerFactory.newTransformer ();
-          aTransformer.transform (new DOMSource (aDoc), new StreamResult (aBAOS));
-        }
-        catch (final TransformerException ex)
-        {
-          throw new IllegalStateException ("Failed to serialized signed node", ex);
-        }
-      }
-
-      aUnifiedResponse.setContent (aBAOS.toByteArray ())
-                      .setMimeType (CMimeType.TEXT_XML)
-                      .setCharset (XMLWriterSettings.DEFAULT_XML_CHARSET_OBJ);
-    }
+    setServiceGroupVersion (aVersion, sETag, aUnifiedResponse);
+    aUnifiedResponse.setContent (aSignedBytes)
+                    .setMimeType (CMimeType.TEXT_XML)
+                    .setCharset (XMLWriterSettings.DEFAULT_XML_CHARSET_OBJ);
   }
 }
@@ -30,8 +30,6 @@ import com.helger.phoss.smp.restapi.ISMPServerAPIDataProvider;
 import com.helger.phoss.smp.restapi.SMPServerAPI;
 import com.helger.photon.api.IAPIDescriptor;
 import com.helger.servlet.response.UnifiedResponse;
-import com.helger.smpclient.bdxr1.marshal.BDXR1MarshallerServiceGroupReferenceListType;
-import com.helger.smpclient.peppol.marshal.SMPMarshallerServiceGroupReferenceListType;
 import com.helger.web.scope.IRequestWebScopeWithoutResponse;
 
 public final class APIExecutorUserListGet extends AbstractSMPAPIExecutor
@@ -56,7 +54,7 @@ public final class APIExecutorUserListGet extends AbstractSMPAPIExecutor
         // Unspecified extension
         final com.helger.xsds.peppol.smp1.ServiceGroupReferenceListType ret = new SMPServerAPI (aDataProvider).getServiceGroupReferenceList (sPathUserID,
                                                                                                                                              aCredentials);
-        aBytes = new SMPMarshallerServiceGroupReferenceListType (XML_SCHEMA_VALIDATION).getAsBytes (ret);
+        aBytes = SMPResponseMarshallers.getPeppolServiceGroupReferenceList ().getAsBytes (ret);
         break;
       }
       case OASIS_BDXR_V1:
@@ -64,7 +62,7 @@ public final class APIExecutorUserListGet extends AbstractSMPAPIExecutor
         // Unspecified extension
         final com.helger.xsds.bdxr.smp1.ServiceGroupReferenceListType ret = new BDXR1ServerAPI (aDataProvider).getServiceGroupReferenceList (sPathUserID,
                                                                                                                                              aCredentials);
-        aBytes = new BDXR1MarshallerServiceGroupReferenceListType (XML_SCHEMA_VALIDATION).getAsBytes (ret);
+        aBytes = SMPResponseMarshallers.getBDXR1ServiceGroupReferenceList ().getAsBytes (ret);
         break;
       }
       // Not available in OASIS BDXR v2
@@ -16,15 +16,36 @@
  */
 package com.helger.phoss.smp.rest;
 
+import java.time.ZonedDateTime;
+import java.util.function.BooleanSupplier;
+
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
+import com.helger.commons.annotation.Nonempty;
 import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.datetime.PDTWebDateHelper;
+import com.helger.commons.http.CHttp;
 import com.helger.commons.http.CHttpHeader;
 import com.helger.commons.http.HttpHeaderMap;
 import com.helger.http.basicauth.BasicAuthClientCredentials;
 import com.helger.http.basicauth.HttpBasicAuth;
+import com.helger.peppolid.IDocumentTypeIdentifier;
+import com.helger.peppolid.IParticipantIdentifier;
+import com.helger.phoss.smp.ESMPRESTType;
+import com.helger.phoss.smp.domain.SMPIdentifierCache;
+import com.helger.phoss.smp.domain.SMPMetaManager;
+import com.helger.phoss.smp.domain.servicegroup.ISMPServiceGroup;
 import com.helger.phoss.smp.exception.SMPUnauthorizedException;
+import com.helger.phoss.smp.restapi.BDXR1ServerAPI;
+import com.helger.phoss.smp.restapi.BDXR2ServerAPI;
+import com.helger.phoss.smp.restapi.SMPNegativeLookupCache;
+import com.helger.phoss.smp.restapi.SMPServerAPI;
+import com.helger.phoss.smp.restapi.SMPServiceGroupVersion;
+import com.helger.phoss.smp.restapi.SMPServiceGroupVersionTracker;
 import com.helger.photon.api.IAPIExecutor;
+import com.helger.servlet.response.UnifiedResponse;
+import com.helger.web.scope.IRequestWebScopeWithoutResponse;
 
 abstract class AbstractSMPAPIExecutor implements IAPIExecutor
 {
@@ -51,4 +72,237 @@ abstract class AbstractSMPAPIExecutor implements IAPIExecutor
       throw new SMPUnauthorizedException ("The HTTP header '" + CHttpHeader.AUTHORIZATION + "' is malformed");
     return ret;
   }
+
+  /**
+   * Get the current version of a service group for conditional GET requests.
+   * It must be retrieved before the backend is queried.
+   *
+   * @param sServiceGroupID
+   *        The service group ID from the path. May be <code>null</code>.
+   * @return <code>null</code> if conditional GET is disabled or if the service
+   *         group ID cannot be parsed.
+   * @since 5.7.0
+   */
+  @Nullable
+  protected static SMPServiceGroupVersion getServiceGroupVersion (@Nullable final String sServiceGroupID)
+  {
+    if (!SMPServiceGroupVersionTracker.isEnabled ())
+      return null;
+    // Invalid identifiers are handled by the regular code path
+    return SMPServiceGroupVersionTracker.getVersionIfEnabled (SMPMetaManager.getIdentifierCache ()
+                                                                            .parseParticipantIdentifier (sServiceGroupID));
+  }
+
+  /**
+   * Get the entity tag of a single resource of a service group.
+   *
+   * @param aVersion
+   *        The current version of the service group. May be <code>null</code>.
+   * @param bWeak
+   *        <code>true</code> if the response body depends on the request and
+   *        a weak entity tag must be used.
+   * @param sKind
+   *        The kind of resource. May neither be <code>null</code> nor empty.
+   * @param aParts
+   *        The path variables identifying the resource. May not be
+   *        <code>null</code>.
+   * @return <code>null</code> if the version is <code>null</code>.
+   * @since 5.7.0
+   */
+  @Nullable
+  protected static String getETag (@Nullable final SMPServiceGroupVersion aVersion,
+                                   final boolean bWeak,
+                                   @Nonnull @Nonempty final String sKind,
+                                   @Nonnull final String... aParts)
+  {
+    if (aVersion == null)
+      return null;
+    return aVersion.getETag (SMPServiceGroupVersion.getResourceID (sKind, aParts), bWeak);
+  }
+
+  /**
+   * Check if a service group exists, to be used as the existence check in
+   * {@link #handleNotModified(SMPServiceGroupVersion, String, BooleanSupplier, IRequestWebScopeWithoutResponse, UnifiedResponse)}.
+   *
+   * @param sServiceGroupID
+   *        The service group ID from the path. May be <code>null</code>.
+   * @return <code>true</code> if it exists.
+   * @since 5.7.0
+   */
+  protected static boolean existsServiceGroup (@Nullable final String sServiceGroupID)
+  {
+    final IParticipantIdentifier aParticipantID = SMPMetaManager.getIdentifierCache ()
+                                                                .parseParticipantIdentifier (sServiceGroupID);
+    if (aParticipantID == null || SMPNegativeLookupCache.isUnknownServiceGroupIfEnabled (aParticipantID))
+      return false;
+    return SMPMetaManager.getServiceGroupMgr ().containsSMPServiceGroupWithID (aParticipantID);
+  }
+
+  /**
+   * Check if a service information or a redirect exists for a service group
+   * and a document type, to be used as the existence check in
+   * {@link #handleNotModified(SMPServiceGroupVersion, String, BooleanSupplier, IRequestWebScopeWithoutResponse, UnifiedResponse)}.
+   *
+   * @param sServiceGroupID
+   *        The service group ID from the path. May be <code>null</code>.
+   * @param sDocumentTypeID
+   *        The document type ID from the path. May be <code>null</code>.
+   * @return <code>true</code> if it exists.
+   * @since 5.7.0
+   */
+  protected static boolean existsServiceMetadata (@Nullable final String sServiceGroupID,
+                                                  @Nullable final String sDocumentTypeID)
+  {
+    final SMPIdentifierCache aIdentifierCache = SMPMetaManager.getIdentifierCache ();
+    final IParticipantIdentifier aParticipantID = aIdentifierCache.parseParticipantIdentifier (sServiceGroupID);
+    final IDocumentTypeIdentifier aDocTypeID = aIdentifierCache.parseDocumentTypeIdentifier (sDocumentTypeID);
+    if (aParticipantID == null || aDocTypeID == null)
+      return false;
+    if (SMPNegativeLookupCache.isUnknownServiceGroupDocTypeIfEnabled (aParticipantID, aDocTypeID))
+      return false;
+
+    final ISMPServiceGroup aServiceGroup = SMPMetaManager.getServiceGroupMgr ().getSMPServiceGroupOfID (aParticipantID);
+    if (aServiceGroup == null)
+      return false;
+    return SMPMetaManager.getServiceInformationMgr ()
+                         .getSMPServiceInformationOfServiceGroupAndDocumentType (aServiceGroup, aDocTypeID) != null ||
+           SMPMetaManager.getRedirectMgr ().getSMPRedirectOfServiceGroupAndDocumentType (aServiceGroup, aDocTypeID) != null;
+  }
+
+  /**
+   * Check the conditional GET request headers. If the client already has the
+   * current version, the response is set to HTTP 304.<br>
+   * A matching <code>If-None-Match</code> header is sufficient, because the
+   * entity tag of the resource was only handed out for an existing resource,
+   * and every deletion increases the version. The version of service groups
+   * that were not modified in the current epoch is shared with unknown service
+   * groups, so <code>If-Modified-Since</code> is only answered with HTTP 304
+   * if the resource exists.
+   *
+   * @param aVersion
+   *        The current version of the service group. May be <code>null</code>.
+   * @param sETag
+   *        The entity tag of the requested resource as created by
+   *        {@link #getETag(SMPServiceGroupVersion, boolean, String, String...)}.
+   *        May be <code>null</code> if the version is <code>null</code>.
+   * @param aExistenceCheck
+   *        Checks if the requested resource exists. Only invoked if the
+   *        resource was not modified since the provided date time. May not be
+   *        <code>null</code>.
+   * @param aRequestScope
+   *        The current request scope. May not be <code>null</code>.
+   * @param aUnifiedResponse
+   *        The response to fill. May not be <code>null</code>.
+   * @return <code>true</code> if HTTP 304 was set and no further processing
+   *         is needed, <code>false</code> if the response must be created.
+   * @since 5.7.0
+   */
+  protected static boolean handleNotModified (@Nullable final SMPServiceGroupVersion aVersion,
+                                              @Nullable final String sETag,
+                                              @Nonnull final BooleanSupplier aExistenceCheck,
+                                              @Nonnull final IRequestWebScopeWithoutResponse aRequestScope,
+                                              @Nonnull final UnifiedResponse aUnifiedResponse)
+  {
+    if (aVersion == null || sETag == null)
+      return false;
+
+    final HttpHeaderMap aHttpHeaders = aRequestScope.headers ();
+    final boolean bNotModified;
+    final ICommonsList <String> aIfNoneMatch = aHttpHeaders.getAllHeaderValues (CHttpHeader.IF_NONE_MATCH);
+    if (aIfNoneMatch.isNotEmpty ())
+    {
+      // If-Modified-Since must be ignored in this case
+      bNotModified = aIfNoneMatch.containsAny (x -> SMPServiceGroupVersion.matchesIfNoneMatch (x, sETag));
+    }
+    else
+    {
+      final String sIfModifiedSince = aHttpHeaders.getFirstHeaderValue (CHttpHeader.IF_MODIFIED_SINCE);
+      final ZonedDateTime aIfModifiedSince = sIfModifiedSince == null ? null
+                                                                      : PDTWebDateHelper.getDateTimeFromRFC822 (sIfModifiedSince);
+      bNotModified = aVersion.isNotModifiedSince (aIfModifiedSince) && aExistenceCheck.getAsBoolean ();
+    }
+
+    if (!bNotModified)
+      return false;
+
+    aUnifiedResponse.setStatus (CHttp.HTTP_NOT_MODIFIED);
+    setServiceGroupVersion (aVersion, sETag, aUnifiedResponse);
+    return true;
+  }
+
+  /**
+   * Add the ETag and Last-Modified HTTP headers to a successful response.
+   *
+   * @param aVersion
+   *        The version of the service group retrieved before the backend was
+   *        queried. May be <code>null</code>.
+   * @param sETag
+   *        The entity tag of the requested resource. May be <code>null</code>
+   *        if the version is <code>null</code>.
+   * @param aUnifiedResponse
+   *        The response to fill. May not be <code>null</code>.
+   * @since 5.7.0
+   */
+  protected static void setServiceGroupVersion (@Nullable final SMPServiceGroupVersion aVersion,
+                                                @Nullable final String sETag,
+                                                @Nonnull final UnifiedResponse aUnifiedResponse)
+  {
+    if (aVersion != null && sETag != null)
+    {
+      aUnifiedResponse.setETag (sETag);
+      // Never hand out a modification date time, that may still change
+      if (aVersion.isLastModifiedUsable ())
+        aUnifiedResponse.setLastModified (aVersion.getLastModified ());
+    }
+  }
+
+  /**
+   * Log and count a service metadata request, that was answered without
+   * calling the server API of the provided REST type, so that the statistics
+   * are the same as for a regular request.
+   *
+   * @param eRESTType
+   *        The REST type in use. May not be <code>null</code>.
+   * @param sServiceGroupID
+   *        The service group ID as requested. May be <code>null</code>.
+   * @param sDocTypeID
+   *        The document type ID as requested. May be <code>null</code>.
+   * @param sSource
+   *        A short description where the response came from. May not be
+   *        <code>null</code>.
+   * @param sErrorMessage
+   *        The error message if the request failed, <code>null</code> if it
+   *        succeeded.
+   * @since 5.7.0
+   */
+  protected static void onServiceRegistrationShortcut (@Nonnull final ESMPRESTType eRESTType,
+                                                       @Nullable final String sServiceGroupID,
+                                                       @Nullable final String sDocTypeID,
+                                                       @Nonnull final String sSource,
+                                                       @Nullable final String sErrorMessage)
+  {
+    switch (eRESTType)
+    {
+      case PEPPOL:
+        if (sErrorMessage == null)
+          SMPServerAPI.onServiceRegistrationShortcut (sServiceGroupID, sDocTypeID, sSource);
+        else
+          SMPServerAPI.onServiceRegistrationShortcutError (sServiceGroupID, sDocTypeID, sSource, sErrorMessage);
+        break;
+      case OASIS_BDXR_V1:
+        if (sErrorMessage == null)
+          BDXR1ServerAPI.onServiceRegistrationShortcut (sServiceGroupID, sDocTypeID, sSource);
+        else
+          BDXR1ServerAPI.onServiceRegistrationShortcutError (sServiceGroupID, sDocTypeID, sSource, sErrorMessage);
+        break;
+      case OASIS_BDXR_V2:
+        if (sErrorMessage == null)
+          BDXR2ServerAPI.onServiceRegistrationShortcut (sServiceGroupID, sDocTypeID, sSource);
+        else
+          BDXR2ServerAPI.onServiceRegistrationShortcutError (sServiceGroupID, sDocTypeID, sSource, sErrorMessage);
+        break;
+      default:
+        throw new UnsupportedOperationException ("Unsupported REST type specified!");
+    }
+  }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.phoss.smp.rest;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.smpclient.bdxr1.marshal.BDXR1MarshallerCompleteServiceGroupType;
+import com.helger.smpclient.bdxr1.marshal.BDXR1MarshallerServiceGroupReferenceListType;
+import com.helger.smpclient.bdxr1.marshal.BDXR1MarshallerServiceGroupType;
+import com.helger.smpclient.bdxr1.marshal.BDXR1MarshallerSignedServiceMetadataType;
+import com.helger.smpclient.bdxr2.marshal.BDXR2MarshallerServiceGroup;
+import com.helger.smpclient.bdxr2.marshal.BDXR2MarshallerServiceMetadata;
+import com.helger.smpclient.peppol.marshal.SMPMarshallerCompleteServiceGroupType;
+import com.helger.smpclient.peppol.marshal.SMPMarshallerServiceGroupReferenceListType;
+import com.helger.smpclient.peppol.marshal.SMPMarshallerServiceGroupType;
+import com.helger.smpclient.peppol.marshal.SMPMarshallerSignedServiceMetadataType;
+
+/**
+ * Ready to use marshallers for the documents returned by the REST API. The
+ * marshallers are configurable objects that are not meant to be shared between
+ * threads, so one instance per type is kept per thread instead of creating a
+ * new one for every request. The returned marshallers must not be modified.
+ * <br>
+ * The XML Schema validation is disabled for the signed service metadata,
+ * because the signature is added after marshalling.
+ *
+ * @author Philip Helger
+ * @since 5.7.0
+ */
+@ThreadSafe
+public final class SMPResponseMarshallers
+{
+  private static final ThreadLocal <SMPMarshallerSignedServiceMetadataType> PEPPOL_SIGNED_SM = ThreadLocal.withInitial ( () -> new SMPMarshallerSignedServiceMetadataType (false));
+  private static final ThreadLocal <BDXR1MarshallerSignedServiceMetadataType> BDXR1_SIGNED_SM = ThreadLocal.withInitial ( () -> new BDXR1MarshallerSignedServiceMetadataType (false));
+  private static final ThreadLocal <BDXR2MarshallerServiceMetadata> BDXR2_SM = ThreadLocal.withInitial ( () -> new BDXR2MarshallerServiceMetadata (false));
+
+  private static final ThreadLocal <SMPMarshallerServiceGroupType> PEPPOL_SG = ThreadLocal.withInitial ( () -> new SMPMarshallerServiceGroupType (AbstractSMPAPIExecutor.XML_SCHEMA_VALIDATION));
+  private static final ThreadLocal <BDXR1MarshallerServiceGroupType> BDXR1_SG = ThreadLocal.withInitial ( () -> new BDXR1MarshallerServiceGroupType (AbstractSMPAPIExecutor.XML_SCHEMA_VALIDATION));
+  private static final ThreadLocal <BDXR2MarshallerServiceGroup> BDXR2_SG = ThreadLocal.withInitial ( () -> new BDXR2MarshallerServiceGroup (AbstractSMPAPIExecutor.XML_SCHEMA_VALIDATION));
+
+  private static final ThreadLocal <SMPMarshallerCompleteServiceGroupType> PEPPOL_COMPLETE_SG = ThreadLocal.withInitial ( () -> new SMPMarshallerCompleteServiceGroupType (AbstractSMPAPIExecutor.XML_SCHEMA_VALIDATION));
+  private static final ThreadLocal <BDXR1MarshallerCompleteServiceGroupType> BDXR1_COMPLETE_SG = ThreadLocal.withInitial ( () -> new BDXR1MarshallerCompleteServiceGroupType (AbstractSMPAPIExecutor.XML_SCHEMA_VALIDATION));
+
+  private static final ThreadLocal <SMPMarshallerServiceGroupReferenceListType> PEPPOL_SG_REF_LIST = ThreadLocal.withInitial ( () -> new SMPMarshallerServiceGroupReferenceListType (AbstractSMPAPIExecutor.XML_SCHEMA_VALIDATION));
+  private static final ThreadLocal <BDXR1MarshallerServiceGroupReferenceListType> BDXR1_SG_REF_LIST = ThreadLocal.withInitial ( () -> new BDXR1MarshallerServiceGroupReferenceListType (AbstractSMPAPIExecutor.XML_SCHEMA_VALIDATION));
+
+  private SMPResponseMarshallers ()
+  {}
+
+  @Nonnull
+  public static SMPMarshallerSignedServiceMetadataType getPeppolSignedServiceMetadata ()
+  {
+    return PEPPOL_SIGNED_SM.get ();
+  }
+
+  @Nonnull
+  public static BDXR1MarshallerSignedServiceMetadataType getBDXR1SignedServiceMetadata ()
+  {
+    return BDXR1_SIGNED_SM.get ();
+  }
+
+  @Nonnull
+  public static BDXR2MarshallerServiceMetadata getBDXR2ServiceMetadata ()
+  {
+    return BDXR2_SM.get ();
+  }
+
+  @Nonnull
+  public static SMPMarshallerServiceGroupType getPeppolServiceGroup ()
+  {
+    return PEPPOL_SG.get ();
+  }
+
+  @Nonnull
+  public static BDXR1MarshallerServiceGroupType getBDXR1ServiceGroup ()
+  {
+    return BDXR1_SG.get ();
+  }
+
+  @Nonnull
+  public static BDXR2MarshallerServiceGroup getBDXR2ServiceGroup ()
+  {
+    return BDXR2_SG.get ();
+  }
+
+  @Nonnull
+  public static SMPMarshallerCompleteServiceGroupType getPeppolCompleteServiceGroup ()
+  {
+    return PEPPOL_COMPLETE_SG.get ();
+  }
+
+  @Nonnull
+  public static BDXR1MarshallerCompleteServiceGroupType getBDXR1CompleteServiceGroup ()
+  {
+    return BDXR1_COMPLETE_SG.get ();
+  }
+
+  @Nonnull
+  public static SMPMarshallerServiceGroupReferenceListType getPeppolServiceGroupReferenceList ()
+  {
+    return PEPPOL_SG_REF_LIST.get ();
+  }
+
+  @Nonnull
+  public static BDXR1MarshallerServiceGroupReferenceListType getBDXR1ServiceGroupReferenceList ()
+  {
+    return BDXR1_SG_REF_LIST.get ();
+  }
+}
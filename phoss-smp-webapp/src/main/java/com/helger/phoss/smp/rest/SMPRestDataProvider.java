@@ -30,6 +30,7 @@ import com.helger.commons.url.URLHelper;
 import com.helger.peppolid.IDocumentTypeIdentifier;
 import com.helger.peppolid.IParticipantIdentifier;
 import com.helger.phoss.smp.SMPServerConfiguration;
+import com.helger.phoss.smp.domain.SMPIdentifierCache;
 import com.helger.phoss.smp.domain.SMPMetaManager;
 import com.helger.phoss.smp.restapi.ISMPServerAPIDataProvider;
 import com.helger.servlet.StaticServerInfo;
@@ -79,6 +80,7 @@ public class SMPRestDataProvider implements ISMPServerAPIDataProvider
 
   private final EServerNameMode m_eServerNameMode;
   private final IRequestWebScopeWithoutResponse m_aRequestScope;
+  private final SMPIdentifierCache.ParsedIdentifier <IParticipantIdentifier> m_aParsedParticipantID;
   private final IParticipantIdentifier m_aParticipantID;
   private final String m_sSMLZoneName;
   private final String m_sQueryPathPrefix;
@@ -89,7 +91,8 @@ public class SMPRestDataProvider implements ISMPServerAPIDataProvider
     ValueEnforcer.notNull (aRequestScope, "RequestScope");
     m_eServerNameMode = EServerNameMode.getFromIDOrDefault (SMPServerConfiguration.getPublicServerURLMode ());
     m_aRequestScope = aRequestScope;
-    m_aParticipantID = SMPMetaManager.getIdentifierFactory ().parseParticipantIdentifier (sServiceGroupID);
+    m_aParsedParticipantID = SMPMetaManager.getIdentifierCache ().getParsedParticipantIdentifier (sServiceGroupID);
+    m_aParticipantID = m_aParsedParticipantID == null ? null : m_aParsedParticipantID.getIdentifier ();
     m_sSMLZoneName = SMPMetaManager.getSettings ().getSMLDNSZone ();
     m_sQueryPathPrefix = SMPServerConfiguration.getRESTType ().getQueryPathPrefix ();
   }
@@ -207,10 +210,19 @@ public class SMPRestDataProvider implements ISMPServerAPIDataProvider
     return ret;
   }
 
+  @Nonnull
+  private String _getURIPercentEncoded (@Nonnull final IParticipantIdentifier aServiceGroupID)
+  {
+    // The identifier of the path is usually the cached instance
+    if (m_aParticipantID != null && aServiceGroupID == m_aParticipantID)
+      return m_aParsedParticipantID.getURIPercentEncoded ();
+    return aServiceGroupID.getURIPercentEncoded ();
+  }
+
   @Nonnull
   public String getServiceGroupHref (@Nonnull final IParticipantIdentifier aServiceGroupID)
   {
-    return getBaseUriBuilder () + "/" + m_sQueryPathPrefix + aServiceGroupID.getURIPercentEncoded ();
+    return getBaseUriBuilder () + "/" + m_sQueryPathPrefix + _getURIPercentEncoded (aServiceGroupID);
   }
 
   @Nonnull
@@ -220,7 +232,7 @@ public class SMPRestDataProvider implements ISMPServerAPIDataProvider
     return getBaseUriBuilder () +
            "/" +
            m_sQueryPathPrefix +
-           aServiceGroupID.getURIPercentEncoded () +
+           _getURIPercentEncoded (aServiceGroupID) +
            SMPRestFilter.PATH_SERVICES +
            aDocTypeID.getURIPercentEncoded ();
   }
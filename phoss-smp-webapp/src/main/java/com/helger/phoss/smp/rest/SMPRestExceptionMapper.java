@@ -120,7 +120,8 @@ public class SMPRestExceptionMapper extends AbstractAPIExceptionMapper
     }
     if (aThrowable instanceof SMPNotFoundException)
     {
-      _logRestException ("Not found", aThrowable);
+      // Forcing no stack trace, because the exception has none
+      _logRestException ("Not found", aThrowable, true);
       _setSimpleTextResponse (aUnifiedResponse, CHttp.HTTP_NOT_FOUND, getResponseEntityWithoutStackTrace (aThrowable));
       return EHandled.HANDLED;
     }
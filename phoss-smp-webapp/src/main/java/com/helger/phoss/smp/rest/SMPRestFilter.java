@@ -236,6 +236,25 @@ public class SMPRestFilter extends AbstractXFilterUnifiedResponse
       aAPIRegistry.registerAPI (aSMPQueryBusinessCard);
     }
 
+    // Batch query API since 5.7.0
+    {
+      final APIDescriptor aSMPBatchServiceMetadata = new APIDescriptor (APIPath.post ("/smpbatch"),
+                                                                        new APIExecutorServiceMetadataBatchPost ());
+      aSMPBatchServiceMetadata.allowedMimeTypes ().add (CMimeType.TEXT_PLAIN.getAsString ());
+      aSMPBatchServiceMetadata.setExceptionMapper (aExceptionMapper);
+      aAPIRegistry.registerAPI (aSMPBatchServiceMetadata);
+    }
+
+    // Bulk write API since 5.7.0
+    {
+      final APIDescriptor aSMPBulkServiceMetadata = new APIDescriptor (APIPath.put ("/smpbulk"),
+                                                                       new APIExecutorServiceMetadataBulkPut ());
+      aSMPBulkServiceMetadata.allowedMimeTypes ()
+                             .addAll (CMimeType.TEXT_XML.getAsString (), CMimeType.APPLICATION_XML.getAsString ());
+      aSMPBulkServiceMetadata.setExceptionMapper (aExceptionMapper);
+      aAPIRegistry.registerAPI (aSMPBulkServiceMetadata);
+    }
+
     // Exchange API since 5.6.0
     {
       final APIDescriptor aSMPExportAll = new APIDescriptor (APIPath.get ("/exchange/export/all/xml/v1"),
@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.phoss.smp.rest;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.Document;
+
+import com.helger.commons.CGlobal;
+import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
+import com.helger.peppolid.IDocumentTypeIdentifier;
+import com.helger.phoss.smp.ESMPRESTType;
+import com.helger.phoss.smp.domain.SMPMetaManager;
+import com.helger.phoss.smp.domain.redirect.ISMPRedirect;
+import com.helger.phoss.smp.domain.servicegroup.ISMPServiceGroup;
+import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformation;
+import com.helger.phoss.smp.exception.SMPInternalErrorException;
+import com.helger.phoss.smp.security.SMPKeyManager;
+import com.helger.xml.transform.XMLTransformerFactory;
+
+/**
+ * Helper class to create the signed service metadata responses. It is used by
+ * the REST API as well as by the {@link SMPSignedResponseWarmer}.
+ *
+ * @author Philip Helger
+ * @since 5.7.0
+ */
+@Immutable
+public final class SMPSignedResponseHelper
+{
+  private static final int INITIAL_BUFFER_SIZE = 16 * CGlobal.BYTES_PER_KILOBYTE;
+  private static final int MAX_REUSED_BUFFER_SIZE = CGlobal.BYTES_PER_MEGABYTE;
+
+  /**
+   * The per thread state for serialization.
+   *
+   * @author Philip Helger
+   */
+  private static final class SerializerState
+  {
+    private final Transformer m_aTransformer = XMLTransformerFactory.newTransformer ();
+    private final NonBlockingByteArrayOutputStream m_aBAOS = new NonBlockingByteArrayOutputStream (INITIAL_BUFFER_SIZE);
+  }
+
+  private static final ThreadLocal <SerializerState> SERIALIZER_STATE = ThreadLocal.withInitial (SerializerState::new);
+
+  private SMPSignedResponseHelper ()
+  {}
+
+  @Nullable
+  public static Document getAsDocumentPeppol (@Nonnull final com.helger.xsds.peppol.smp1.SignedServiceMetadataType aSSM)
+  {
+    // Disable XSD check, because Signature is added later
+    return SMPResponseMarshallers.getPeppolSignedServiceMetadata ().getAsDocument (aSSM);
+  }
+
+  @Nullable
+  public static Document getAsDocumentBDXR1 (@Nonnull final com.helger.xsds.bdxr.smp1.SignedServiceMetadataType aSSM)
+  {
+    // Disable XSD check, because Signature is added later
+    return SMPResponseMarshallers.getBDXR1SignedServiceMetadata ().getAsDocument (aSSM);
+  }
+
+  @Nullable
+  public static Document getAsDocumentBDXR2 (@Nonnull final com.helger.xsds.bdxr.smp2.ServiceMetadataType aSM)
+  {
+    // Disable XSD check, because Signature is added later
+    return SMPResponseMarshallers.getBDXR2ServiceMetadata ().getAsDocument (aSM);
+  }
+
+  /**
+   * Sign the passed document in place and serialize it.
+   *
+   * @param aDoc
+   *        The unsigned document. May not be <code>null</code>.
+   * @param eRESTType
+   *        The REST type to use. May not be <code>null</code>.
+   * @return The serialized signed document. Never <code>null</code>.
+   * @throws SMPInternalErrorException
+   *         If signing fails
+   */
+  @Nonnull
+  public static byte [] signAndSerialize (@Nonnull final Document aDoc,
+                                          @Nonnull final ESMPRESTType eRESTType) throws SMPInternalErrorException
+  {
+    // Sign the document
+    try
+    {
+      SMPKeyManager.getInstance ().signXML (aDoc.getDocumentElement (), eRESTType);
+    }
+    catch (final Exception ex)
+    {
+      throw new SMPInternalErrorException ("Error in signing the response XML", ex);
+    }
+
+    return serialize (aDoc);
+  }
+
+  /**
+   * Serialize the passed signed document. The {@link Transformer} and the
+   * output buffer are reused per thread, so that only the resulting byte array
+   * is allocated.
+   *
+   * @param aDoc
+   *        The document to serialize. May not be <code>null</code>.
+   * @return The serialized document. Never <code>null</code>.
+   */
+  @Nonnull
+  public static byte [] serialize (@Nonnull final Document aDoc)
+  {
+    final SerializerState aState = SERIALIZER_STATE.get ();
+    final NonBlockingByteArrayOutputStream aBAOS = aState.m_aBAOS;
+    try
+    {
+      // Use this because it correctly serializes &#13; which is important
+      // for validating the signature!
+      aState.m_aTransformer.transform (new DOMSource (aDoc), new StreamResult (aBAOS));
+      return aBAOS.toByteArray ();
+    }
+    catch (final TransformerException ex)
+    {
+      // Don't reuse a Transformer in an unknown state
+      SERIALIZER_STATE.remove ();
+      throw new IllegalStateException ("Failed to serialized signed node", ex);
+    }
+    finally
+    {
+      if (aBAOS.size () > MAX_REUSED_BUFFER_SIZE)
+      {
+        // Don't keep huge buffers per thread
+        SERIALIZER_STATE.remove ();
+      }
+      else
+      {
+        aBAOS.reset ();
+        aState.m_aTransformer.reset ();
+      }
+    }
+  }
+
+  /**
+   * Create the signed service metadata response directly from the backend,
+   * without going through the REST API. Redirects take precedence over service
+   * information as in the REST API.
+   *
+   * @param aServiceGroup
+   *        The service group to use. May not be <code>null</code>.
+   * @param aDocTypeID
+   *        The document type ID to use. May not be <code>null</code>.
+   * @param eRESTType
+   *        The REST type to use. May not be <code>null</code>.
+   * @return <code>null</code> if neither a redirect nor a service information
+   *         with endpoints is present.
+   * @throws SMPInternalErrorException
+   *         If signing fails
+   */
+  @Nullable
+  public static byte [] createSignedServiceMetadata (@Nonnull final ISMPServiceGroup aServiceGroup,
+                                                     @Nonnull final IDocumentTypeIdentifier aDocTypeID,
+                                                     @Nonnull final ESMPRESTType eRESTType) throws SMPInternalErrorException
+  {
+    final ISMPRedirect aRedirect = SMPMetaManager.getRedirectMgr ()
+                                                 .getSMPRedirectOfServiceGroupAndDocumentType (aServiceGroup,
+                                                                                               aDocTypeID);
+    final ISMPServiceInformation aServiceInfo = aRedirect != null ? null
+                                                                  : SMPMetaManager.getServiceInformationMgr ()
+                                                                                  .getSMPServiceInformationOfServiceGroupAndDocumentType (aServiceGroup,
+                                                                                                                                          aDocTypeID);
+    return createSignedServiceMetadata (aRedirect, aServiceInfo, eRESTType);
+  }
+
+  /**
+   * Create the signed service metadata response from an already resolved
+   * redirect or service information. Redirects take precedence over service
+   * information as in the REST API.
+   *
+   * @param aRedirect
+   *        The redirect to use. May be <code>null</code>.
+   * @param aServiceInfo
+   *        The service information to use, if no redirect is present. May be
+   *        <code>null</code>.
+   * @param eRESTType
+   *        The REST type to use. May not be <code>null</code>.
+   * @return <code>null</code> if neither a redirect nor a service information
+   *         with endpoints is present.
+   * @throws SMPInternalErrorException
+   *         If signing fails
+   */
+  @Nullable
+  public static byte [] createSignedServiceMetadata (@Nullable final ISMPRedirect aRedirect,
+                                                     @Nullable final ISMPServiceInformation aServiceInfo,
+                                                     @Nonnull final ESMPRESTType eRESTType) throws SMPInternalErrorException
+  {
+    if (aRedirect == null && aServiceInfo == null)
+      return null;
+
+    final Document aDoc;
+    switch (eRESTType)
+    {
+      case PEPPOL:
+      {
+        final com.helger.xsds.peppol.smp1.ServiceMetadataType aSM = aRedirect != null ? aRedirect.getAsJAXBObjectPeppol ()
+                                                                                       : aServiceInfo.getAsJAXBObjectPeppol ();
+        if (aSM == null)
+          return null;
+        final com.helger.xsds.peppol.smp1.SignedServiceMetadataType aSSM = new com.helger.xsds.peppol.smp1.SignedServiceMetadataType ();
+        aSSM.setServiceMetadata (aSM);
+        aDoc = getAsDocumentPeppol (aSSM);
+        break;
+      }
+      case OASIS_BDXR_V1:
+      {
+        final com.helger.xsds.bdxr.smp1.ServiceMetadataType aSM = aRedirect != null ? aRedirect.getAsJAXBObjectBDXR1 ()
+                                                                                     : aServiceInfo.getAsJAXBObjectBDXR1 ();
+        if (aSM == null)
+          return null;
+        final com.helger.xsds.bdxr.smp1.SignedServiceMetadataType aSSM = new com.helger.xsds.bdxr.smp1.SignedServiceMetadataType ();
+        aSSM.setServiceMetadata (aSM);
+        aDoc = getAsDocumentBDXR1 (aSSM);
+        break;
+      }
+      case OASIS_BDXR_V2:
+      {
+        final com.helger.xsds.bdxr.smp2.ServiceMetadataType aSM = aRedirect != null ? aRedirect.getAsJAXBObjectBDXR2 ()
+                                                                                     : aServiceInfo.getAsJAXBObjectBDXR2 ();
+        if (aSM == null)
+          return null;
+        aDoc = getAsDocumentBDXR2 (aSM);
+        break;
+      }
+      default:
+        throw new UnsupportedOperationException ("Unsupported REST type specified!");
+    }
+    if (aDoc == null)
+      throw new IllegalStateException ("Failed to serialize unsigned node!");
+
+    return signAndSerialize (aDoc, eRESTType);
+  }
+}
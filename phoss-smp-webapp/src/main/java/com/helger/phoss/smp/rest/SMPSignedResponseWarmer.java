@@ -0,0 +1,401 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger and contributors
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.phoss.smp.rest;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.annotation.UsedViaReflection;
+import com.helger.commons.statistics.IMutableStatisticsHandlerCounter;
+import com.helger.commons.statistics.StatisticsManager;
+import com.helger.commons.timing.StopWatch;
+import com.helger.peppolid.IDocumentTypeIdentifier;
+import com.helger.phoss.smp.ESMPRESTType;
+import com.helger.phoss.smp.SMPServerConfiguration;
+import com.helger.phoss.smp.domain.SMPMetaManager;
+import com.helger.phoss.smp.domain.redirect.ISMPRedirect;
+import com.helger.phoss.smp.domain.redirect.ISMPRedirectCallback;
+import com.helger.phoss.smp.domain.servicegroup.ISMPServiceGroup;
+import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformation;
+import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformationCallback;
+import com.helger.phoss.smp.restapi.SMPSignedResponseCache;
+import com.helger.scope.IScope;
+import com.helger.scope.singleton.AbstractGlobalSingleton;
+import com.helger.web.scope.mgr.WebScoped;
+
+/**
+ * Creates the signed service metadata responses in the background after each
+ * write operation, so that the first read after a write is already served from
+ * the {@link SMPSignedResponseCache}. Optionally all existing service
+ * information can be signed upon startup.
+ *
+ * @author Philip Helger
+ * @since 5.7.0
+ */
+@ThreadSafe
+public final class SMPSignedResponseWarmer extends AbstractGlobalSingleton
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (SMPSignedResponseWarmer.class);
+  private static final IMutableStatisticsHandlerCounter STATS_COUNTER_SIGNED = StatisticsManager.getCounterHandler (SMPSignedResponseWarmer.class.getName () +
+                                                                                                                    "$signed");
+  private static final IMutableStatisticsHandlerCounter STATS_COUNTER_DROPPED = StatisticsManager.getCounterHandler (SMPSignedResponseWarmer.class.getName () +
+                                                                                                                     "$dropped");
+  private static final IMutableStatisticsHandlerCounter STATS_COUNTER_ERROR = StatisticsManager.getCounterHandler (SMPSignedResponseWarmer.class.getName () +
+                                                                                                                   "$error");
+
+  /**
+   * Schedules the re-signing based on the write operations on the managers.
+   *
+   * @author Philip Helger
+   */
+  private final class WarmerCallback implements ISMPServiceInformationCallback, ISMPRedirectCallback
+  {
+    @Override
+    public void onSMPServiceInformationCreated (@Nonnull final ISMPServiceInformation aServiceInformation)
+    {
+      schedule (aServiceInformation.getServiceGroup (), aServiceInformation.getDocumentTypeIdentifier ());
+    }
+
+    @Override
+    public void onSMPServiceInformationUpdated (@Nonnull final ISMPServiceInformation aServiceInformation)
+    {
+      onSMPServiceInformationCreated (aServiceInformation);
+    }
+
+    @Override
+    public void onSMPServiceInformationDeleted (@Nonnull final ISMPServiceInformation aServiceInformation)
+    {
+      // A redirect may still be present
+      onSMPServiceInformationCreated (aServiceInformation);
+    }
+
+    @Override
+    public void onSMPRedirectCreated (@Nonnull final ISMPRedirect aRedirect)
+    {
+      schedule (aRedirect.getServiceGroup (), aRedirect.getDocumentTypeIdentifier ());
+    }
+
+    @Override
+    public void onSMPRedirectUpdated (@Nonnull final ISMPRedirect aRedirect)
+    {
+      onSMPRedirectCreated (aRedirect);
+    }
+
+    @Override
+    public void onSMPRedirectDeleted (@Nonnull final ISMPRedirect aRedirect)
+    {
+      // A service information may still be present
+      onSMPRedirectCreated (aRedirect);
+    }
+  }
+
+  private final ESMPRESTType m_eRESTType;
+  private final int m_nThreads;
+  private final WarmerCallback m_aCallback = new WarmerCallback ();
+  private final ThreadPoolExecutor m_aExecutor;
+  // Avoid scheduling the same service group and document type twice
+  private final Set <String> m_aPending = ConcurrentHashMap.newKeySet ();
+  private final AtomicBoolean m_aStartupStarted = new AtomicBoolean (false);
+  private final AtomicBoolean m_aStartupFinished = new AtomicBoolean (false);
+  private final AtomicInteger m_aStartupTotal = new AtomicInteger (0);
+  private final AtomicInteger m_aStartupDone = new AtomicInteger (0);
+  private volatile ExecutorService m_aStartupExecutor;
+
+  @Nonnull
+  private static ThreadFactory _createThreadFactory (@Nonnull final String sNamePrefix)
+  {
+    final AtomicInteger aCounter = new AtomicInteger (0);
+    return r -> {
+      final Thread ret = new Thread (r, sNamePrefix + aCounter.incrementAndGet ());
+      ret.setDaemon (true);
+      return ret;
+    };
+  }
+
+  /**
+   * @deprecated Only called via reflection
+   */
+  @Deprecated
+  @UsedViaReflection
+  public SMPSignedResponseWarmer ()
+  {
+    m_eRESTType = SMPServerConfiguration.getRESTType ();
+    m_nThreads = Math.max (1, SMPServerConfiguration.getRESTResponseCacheWarmerThreads ());
+    final int nQueueSize = Math.max (1, SMPServerConfiguration.getRESTResponseCacheWarmerQueueSize ());
+    // If the queue is full, the task is rejected and the response is created
+    // upon the next read
+    m_aExecutor = new ThreadPoolExecutor (m_nThreads,
+                                          m_nThreads,
+                                          0L,
+                                          TimeUnit.MILLISECONDS,
+                                          new LinkedBlockingQueue <> (nQueueSize),
+                                          _createThreadFactory ("smp-response-warmer-"));
+  }
+
+  @Nonnull
+  public static SMPSignedResponseWarmer getInstance ()
+  {
+    return getGlobalSingleton (SMPSignedResponseWarmer.class);
+  }
+
+  @Nullable
+  public static SMPSignedResponseWarmer getInstanceIfInstantiated ()
+  {
+    return getGlobalSingletonIfInstantiated (SMPSignedResponseWarmer.class);
+  }
+
+  /**
+   * @return <code>true</code> if the warmer is enabled in the configuration,
+   *         <code>false</code> if not. It requires the response cache to be
+   *         enabled as well.
+   */
+  public static boolean isEnabled ()
+  {
+    return SMPSignedResponseCache.isEnabled () && SMPServerConfiguration.isRESTResponseCacheWarmerEnabled ();
+  }
+
+  @Override
+  protected void onBeforeDestroy (@Nonnull final IScope aScopeToBeDestroyed) throws Exception
+  {
+    // Pending tasks are not relevant anymore
+    m_aExecutor.shutdownNow ();
+    final ExecutorService aStartupExecutor = m_aStartupExecutor;
+    if (aStartupExecutor != null)
+      aStartupExecutor.shutdownNow ();
+  }
+
+  /**
+   * @return The callback to be registered at the service information manager.
+   *         Never <code>null</code>.
+   */
+  @Nonnull
+  public ISMPServiceInformationCallback getServiceInformationCallback ()
+  {
+    return m_aCallback;
+  }
+
+  /**
+   * @return The callback to be registered at the redirect manager. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public ISMPRedirectCallback getRedirectCallback ()
+  {
+    return m_aCallback;
+  }
+
+  private void _warm (@Nonnull final ISMPServiceGroup aServiceGroup, @Nonnull final IDocumentTypeIdentifier aDocTypeID)
+  {
+    final SMPSignedResponseCache aCache = SMPSignedResponseCache.getInstance ();
+    // Must be retrieved before the backend is queried
+    final long nGeneration = aCache.getGeneration ();
+
+    // Required for the SQL backend
+    try (final WebScoped aWS = new WebScoped ())
+    {
+      final byte [] aSignedBytes = SMPSignedResponseHelper.createSignedServiceMetadata (aServiceGroup,
+                                                                                        aDocTypeID,
+                                                                                        m_eRESTType);
+      if (aSignedBytes != null)
+      {
+        aCache.put (aServiceGroup.getParticipantIdentifier (), aDocTypeID, m_eRESTType, aSignedBytes, nGeneration);
+        STATS_COUNTER_SIGNED.increment ();
+      }
+    }
+    catch (final Exception ex)
+    {
+      STATS_COUNTER_ERROR.increment ();
+      LOGGER.warn ("Failed to pre-sign response for '" +
+                   aServiceGroup.getParticipantIdentifier ().getURIEncoded () +
+                   "' and '" +
+                   aDocTypeID.getURIEncoded () +
+                   "'",
+                   ex);
+    }
+  }
+
+  /**
+   * Schedule the creation of the signed response for the provided service
+   * group and document type. If the queue is full, the request is dropped.
+   *
+   * @param aServiceGroup
+   *        The service group to use. May not be <code>null</code>.
+   * @param aDocTypeID
+   *        The document type ID to use. May not be <code>null</code>.
+   */
+  public void schedule (@Nonnull final ISMPServiceGroup aServiceGroup,
+                        @Nonnull final IDocumentTypeIdentifier aDocTypeID)
+  {
+    final String sKey = aServiceGroup.getParticipantIdentifier ().getURIEncoded () + ' ' + aDocTypeID.getURIEncoded ();
+    if (!m_aPending.add (sKey))
+    {
+      // Already scheduled
+      return;
+    }
+
+    try
+    {
+      m_aExecutor.execute ( () -> {
+        // Remove before reading, so that a write in the meantime reschedules
+        m_aPending.remove (sKey);
+        _warm (aServiceGroup, aDocTypeID);
+      });
+    }
+    catch (final RejectedExecutionException ex)
+    {
+      m_aPending.remove (sKey);
+      STATS_COUNTER_DROPPED.increment ();
+      if (LOGGER.isDebugEnabled ())
+        LOGGER.debug ("Dropped pre-signing of '" + sKey + "' because the queue is full");
+    }
+  }
+
+  /**
+   * Sign all existing service information and redirects in the background. At
+   * most as many responses as fit into the cache are created. This method may
+   * only be called once.
+   */
+  public void warmAllInBackground ()
+  {
+    if (!m_aStartupStarted.compareAndSet (false, true))
+    {
+      LOGGER.warn ("Pre-signing of all responses was already started");
+      return;
+    }
+
+    final ExecutorService aStartupExecutor = Executors.newFixedThreadPool (m_nThreads,
+                                                                          _createThreadFactory ("smp-response-warmer-startup-"));
+    m_aStartupExecutor = aStartupExecutor;
+    final Thread aDriver = _createThreadFactory ("smp-response-warmer-startup-driver-").newThread ( () -> {
+      final StopWatch aSW = StopWatch.createdStarted ();
+      final int nMaxEntries = SMPSignedResponseCache.getInstance ().getMaxEntries ();
+      try (final WebScoped aWS = new WebScoped ())
+      {
+        // Redirects first, because they take precedence
+        int nScheduled = 0;
+        for (final ISMPRedirect aRedirect : SMPMetaManager.getRedirectMgr ().getAllSMPRedirects ())
+        {
+          if (nScheduled++ >= nMaxEntries)
+            break;
+          m_aStartupTotal.incrementAndGet ();
+          aStartupExecutor.execute ( () -> {
+            _warm (aRedirect.getServiceGroup (), aRedirect.getDocumentTypeIdentifier ());
+            m_aStartupDone.incrementAndGet ();
+          });
+        }
+        for (final ISMPServiceInformation aSI : SMPMetaManager.getServiceInformationMgr ()
+                                                              .getAllSMPServiceInformation ())
+        {
+          if (nScheduled++ >= nMaxEntries)
+            break;
+          m_aStartupTotal.incrementAndGet ();
+          aStartupExecutor.execute ( () -> {
+            _warm (aSI.getServiceGroup (), aSI.getDocumentTypeIdentifier ());
+            m_aStartupDone.incrementAndGet ();
+          });
+        }
+        LOGGER.info ("Scheduled pre-signing of " + m_aStartupTotal.get () + " responses");
+
+        aStartupExecutor.shutdown ();
+        aStartupExecutor.awaitTermination (Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        LOGGER.info ("Finished pre-signing of " +
+                     m_aStartupDone.get () +
+                     " responses after " +
+                     aSW.stopAndGetMillis () +
+                     " milliseconds");
+      }
+      catch (final InterruptedException ex)
+      {
+        LOGGER.warn ("Pre-signing of all responses was interrupted");
+        Thread.currentThread ().interrupt ();
+      }
+      catch (final RejectedExecutionException ex)
+      {
+        LOGGER.warn ("Pre-signing of all responses was cancelled");
+      }
+      catch (final RuntimeException ex)
+      {
+        LOGGER.error ("Failed to pre-sign all responses", ex);
+      }
+      finally
+      {
+        m_aStartupFinished.set (true);
+      }
+    });
+    aDriver.start ();
+  }
+
+  /**
+   * @return The number of scheduled but not yet started tasks. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getQueueSize ()
+  {
+    return m_aExecutor.getQueue ().size ();
+  }
+
+  /**
+   * @return <code>true</code> if the startup pre-signing was started.
+   */
+  public boolean isStartupStarted ()
+  {
+    return m_aStartupStarted.get ();
+  }
+
+  /**
+   * @return <code>true</code> if the startup pre-signing is finished.
+   */
+  public boolean isStartupFinished ()
+  {
+    return m_aStartupFinished.get ();
+  }
+
+  /**
+   * @return The number of responses to be signed upon startup.
+   */
+  @Nonnegative
+  public int getStartupTotalCount ()
+  {
+    return m_aStartupTotal.get ();
+  }
+
+  /**
+   * @return The number of responses already signed upon startup.
+   */
+  @Nonnegative
+  public int getStartupDoneCount ()
+  {
+    return m_aStartupDone.get ();
+  }
+}
@@ -54,6 +54,8 @@ import com.helger.phoss.smp.domain.businesscard.ISMPBusinessCardCallback;
 import com.helger.phoss.smp.domain.businesscard.ISMPBusinessCardManager;
 import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformation;
 import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformationCallback;
+import com.helger.phoss.smp.rest.SMPSignedResponseWarmer;
+import com.helger.phoss.smp.security.SMPKeyManager;
 import com.helger.phoss.smp.settings.ISMPSettings;
 import com.helger.phoss.smp.ui.SMPCommonUI;
 import com.helger.phoss.smp.ui.ajax.CAjax;
@@ -392,6 +394,23 @@ public class SMPWebAppListener extends WebAppListenerBootstrap
       }
     }
 
+    if (SMPSignedResponseWarmer.isEnabled ())
+    {
+      LOGGER.info ("Init of signed response warmer");
+      final SMPSignedResponseWarmer aWarmer = SMPSignedResponseWarmer.getInstance ();
+      SMPMetaManager.getServiceInformationMgr ()
+                    .serviceInformationCallbacks ()
+                    .add (aWarmer.getServiceInformationCallback ());
+      SMPMetaManager.getRedirectMgr ().redirectCallbacks ().add (aWarmer.getRedirectCallback ());
+      if (SMPServerConfiguration.isRESTResponseCacheWarmerOnStartup ())
+      {
+        if (SMPKeyManager.isKeyStoreValid ())
+          aWarmer.warmAllInBackground ();
+        else
+          LOGGER.warn ("Not pre-signing responses on startup, because the key store is not valid");
+      }
+    }
+
     // Special http client config
     BasePageUtilsHttpClient.HttpClientConfigRegistry.register (new HttpClientConfig ("directoryclient",
                                                                                      "Directory client settings",
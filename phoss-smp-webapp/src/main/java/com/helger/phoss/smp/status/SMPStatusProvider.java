@@ -46,6 +46,9 @@ import com.helger.phoss.smp.SMPServerConfiguration;
 import com.helger.phoss.smp.app.CSMP;
 import com.helger.phoss.smp.app.SMPWebAppConfiguration;
 import com.helger.phoss.smp.domain.SMPMetaManager;
+import com.helger.phoss.smp.rest.SMPSignedResponseWarmer;
+import com.helger.phoss.smp.restapi.SMPNegativeLookupCache;
+import com.helger.phoss.smp.restapi.SMPSignedResponseCache;
 import com.helger.phoss.smp.security.SMPKeyManager;
 import com.helger.phoss.smp.servlet.SMPWebAppListener;
 import com.helger.phoss.smp.settings.ISMPSettings;
@@ -114,6 +117,42 @@ public final class SMPStatusProvider
     // New in 5.2.1
     aStatusData.add ("smp.rest.payload-on-error", SMPServerConfiguration.isRESTPayloadOnError ());
 
+    // Since 5.7.0
+    final SMPSignedResponseCache aResponseCache = SMPSignedResponseCache.isEnabled () ? SMPSignedResponseCache.getInstance ()
+                                                                                       : null;
+    aStatusData.add ("smp.rest.responsecache.enabled", aResponseCache != null);
+    if (aResponseCache != null)
+    {
+      aStatusData.add ("smp.rest.responsecache.size", aResponseCache.size ());
+      aStatusData.add ("smp.rest.responsecache.bytes", aResponseCache.getTotalBytes ());
+      aStatusData.add ("smp.rest.responsecache.hits", SMPSignedResponseCache.getHitCount ());
+      aStatusData.add ("smp.rest.responsecache.misses", SMPSignedResponseCache.getMissCount ());
+    }
+    final SMPSignedResponseWarmer aResponseWarmer = SMPSignedResponseWarmer.getInstanceIfInstantiated ();
+    aStatusData.add ("smp.rest.responsecache.warmer.enabled", aResponseWarmer != null);
+    if (aResponseWarmer != null)
+    {
+      aStatusData.add ("smp.rest.responsecache.warmer.queue-size", aResponseWarmer.getQueueSize ());
+      if (aResponseWarmer.isStartupStarted ())
+      {
+        aStatusData.add ("smp.rest.responsecache.warmer.startup.total", aResponseWarmer.getStartupTotalCount ());
+        aStatusData.add ("smp.rest.responsecache.warmer.startup.done", aResponseWarmer.getStartupDoneCount ());
+        aStatusData.add ("smp.rest.responsecache.warmer.startup.finished", aResponseWarmer.isStartupFinished ());
+      }
+    }
+    final SMPNegativeLookupCache aNegativeLookupCache = SMPNegativeLookupCache.isEnabled () ? SMPNegativeLookupCache.getInstance ()
+                                                                                           : null;
+    aStatusData.add ("smp.rest.negativelookupcache.enabled", aNegativeLookupCache != null);
+    if (aNegativeLookupCache != null)
+    {
+      // Grows with every deletion until the next rebuild
+      aStatusData.add ("smp.rest.negativelookupcache.servicegroup.false-positive-rate",
+                       aNegativeLookupCache.getServiceGroupFalsePositiveRate ());
+      aStatusData.add ("smp.rest.negativelookupcache.servicegroup-doctype.false-positive-rate",
+                       aNegativeLookupCache.getServiceGroupDocTypeFalsePositiveRate ());
+      aStatusData.add ("smp.rest.negativelookupcache.bytes", aNegativeLookupCache.getMemoryBytes ());
+    }
+
     // SML information
     aStatusData.add ("smp.sml.enabled", aSettings.isSMLEnabled ());
     aStatusData.add ("smp.sml.needed", aSettings.isSMLRequired ());
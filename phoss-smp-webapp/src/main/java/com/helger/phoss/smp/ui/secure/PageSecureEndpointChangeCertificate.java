@@ -63,6 +63,8 @@ import com.helger.phoss.smp.domain.serviceinfo.ISMPProcess;
 import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformation;
 import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformationManager;
 import com.helger.phoss.smp.domain.serviceinfo.SMPEndpoint;
+import com.helger.phoss.smp.security.SMPCertificateCache;
+import com.helger.phoss.smp.security.SMPParsedCertificate;
 import com.helger.phoss.smp.ui.AbstractSMPWebPage;
 import com.helger.photon.app.PhotonWorkerPool;
 import com.helger.photon.bootstrap4.button.BootstrapButton;
@@ -227,15 +229,9 @@ public final class PageSecureEndpointChangeCertificate extends AbstractSMPWebPag
   @Nonnull
   private static IHCNode _getCertificateDisplay (@Nullable final String sCert, @Nonnull final Locale aDisplayLocale)
   {
-    X509Certificate aEndpointCert = null;
-    try
-    {
-      aEndpointCert = CertificateHelper.convertStringToCertficate (sCert);
-    }
-    catch (final Exception ex)
-    {
-      // Ignore
-    }
+    // The same certificate is usually displayed many times
+    final SMPParsedCertificate aParsedCert = SMPCertificateCache.getParsedCertificate (sCert);
+    final X509Certificate aEndpointCert = aParsedCert == null ? null : aParsedCert.getX509Certificate ();
     if (aEndpointCert == null)
     {
       final int nDisplayLen = 20;
@@ -21,7 +21,6 @@ import java.net.UnknownHostException;
 import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 import java.security.cert.Certificate;
-import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.time.OffsetDateTime;
 import java.util.Locale;
@@ -57,7 +56,9 @@ import com.helger.phoss.smp.domain.serviceinfo.ISMPEndpoint;
 import com.helger.phoss.smp.domain.serviceinfo.ISMPProcess;
 import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformation;
 import com.helger.phoss.smp.domain.serviceinfo.ISMPServiceInformationManager;
+import com.helger.phoss.smp.security.SMPCertificateCache;
 import com.helger.phoss.smp.security.SMPKeyManager;
+import com.helger.phoss.smp.security.SMPParsedCertificate;
 import com.helger.phoss.smp.security.SMPTrustManager;
 import com.helger.phoss.smp.settings.ISMPSettings;
 import com.helger.phoss.smp.ui.AbstractSMPWebPage;
@@ -66,7 +67,6 @@ import com.helger.photon.security.CSecurity;
 import com.helger.photon.security.mgr.PhotonSecurityManager;
 import com.helger.photon.uicore.css.CUICoreCSS;
 import com.helger.photon.uicore.page.WebPageExecutionContext;
-import com.helger.security.certificate.CertificateHelper;
 import com.helger.security.keystore.EKeyStoreLoadError;
 import com.helger.security.keystore.LoadedKey;
 import com.helger.security.keystore.LoadedKeyStore;
@@ -505,15 +505,9 @@ public class PageSecureTasksProblems extends AbstractSMPWebPage
                                                      "."));
                   }
 
-                  X509Certificate aX509Cert = null;
-                  try
-                  {
-                    aX509Cert = CertificateHelper.convertStringToCertficate (aEndpoint.getCertificate ());
-                  }
-                  catch (final CertificateException ex)
-                  {
-                    // Ignore
-                  }
+                  // Endpoints usually share a few certificates
+                  final SMPParsedCertificate aParsedCert = SMPCertificateCache.getParsedCertificate (aEndpoint.getCertificate ());
+                  final X509Certificate aX509Cert = aParsedCert == null ? null : aParsedCert.getX509Certificate ();
                   if (aX509Cert == null)
                     aULPerEndpoint.addItem (_createError ("The X.509 certificate configured at the endpoint is invalid and could not be interpreted as a certificate."));
                   else